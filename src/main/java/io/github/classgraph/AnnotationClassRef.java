@@ -38,7 +38,7 @@ import nonapi.io.github.classgraph.exceptions.ParseException;
 public class AnnotationClassRef extends ScanResultObject {
 
     /** The type descriptor str. */
-    private String typeDescriptorStr;
+    String typeDescriptorStr;
 
     /** The type signature. */
     private transient TypeSignature typeSignature;
@@ -38,10 +38,10 @@ import java.util.Set;
 public class AnnotationEnumValue extends ScanResultObject implements Comparable<AnnotationEnumValue> {
 
     /** The class name. */
-    private String className;
+    String className;
 
     /** The value name. */
-    private String valueName;
+    String valueName;
 
     /** Default constructor for deserialization. */
     AnnotationEnumValue() {
@@ -44,7 +44,7 @@ import java.util.Set;
 public class AnnotationInfo extends ScanResultObject implements Comparable<AnnotationInfo>, HasName {
 
     /** The name. */
-    private String name;
+    String name;
 
     /** The annotation param values. */
     AnnotationParameterValueList annotationParamValues;
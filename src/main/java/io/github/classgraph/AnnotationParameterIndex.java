@@ -0,0 +1,315 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nonapi.io.github.classgraph.ScanSpec;
+
+/**
+ * An inverted index from (annotation class name, annotation parameter name, annotation parameter value) to the
+ * classes, methods and fields that are directly annotated with an annotation that has that parameter value
+ * (including default parameter values). For array-typed parameters, each element of the array is indexed
+ * separately. Nested annotation values are not indexed.
+ */
+class AnnotationParameterIndex {
+    /** The index, from annotation class name to parameter name to canonical parameter value to entry. */
+    private final Map<String, Map<String, Map<Object, Entry>>> annotationNameToParamNameToValueToEntry = //
+            new HashMap<>();
+
+    /** The classes, methods and fields annotated with a given annotation parameter value. */
+    private static class Entry {
+        /** The annotated classes. */
+        final Set<ClassInfo> classInfo = new LinkedHashSet<>();
+
+        /** The annotated methods. */
+        final Set<MethodInfo> methodInfo = new LinkedHashSet<>();
+
+        /** The annotated fields. */
+        final Set<FieldInfo> fieldInfo = new LinkedHashSet<>();
+    }
+
+    /** A canonical key for a class reference annotation parameter value. */
+    private static class ClassRefKey {
+        /** The name of the referenced class. */
+        private final String className;
+
+        /**
+         * Constructor.
+         *
+         * @param className
+         *            the name of the referenced class
+         */
+        ClassRefKey(final String className) {
+            this.className = className;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return className.hashCode();
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof ClassRefKey && className.equals(((ClassRefKey) obj).className);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Build the index from the annotations on the given classes, and on their methods and fields.
+     *
+     * @param allClassInfo
+     *            all classes in the scan result
+     * @param scanSpec
+     *            the scan spec
+     */
+    AnnotationParameterIndex(final Collection<ClassInfo> allClassInfo, final ScanSpec scanSpec) {
+        for (final ClassInfo classInfo : allClassInfo) {
+            // Only index classes that would be returned by ScanResult#getClassesWithAnnotation(String)
+            if (!classInfo.isScannedClass() || scanSpec.classOrPackageIsBlacklisted(classInfo.getName())
+                    || classInfo.isExternalClass() && !scanSpec.enableExternalClasses) {
+                continue;
+            }
+            if (classInfo.annotationInfo != null) {
+                for (final AnnotationInfo annotationInfo : classInfo.annotationInfo) {
+                    for (final Entry entry : getEntries(annotationInfo)) {
+                        entry.classInfo.add(classInfo);
+                    }
+                }
+            }
+            if (classInfo.deferredMemberInfoHasAnnotations) {
+                // Read deferred fields and methods, but only for classes with annotated fields or methods
+                classInfo.readDeferredMemberInfo(scanSpec);
+            }
+            if (classInfo.methodInfo != null) {
+                for (final MethodInfo methodInfo : classInfo.methodInfo) {
+                    if (methodInfo.annotationInfo != null) {
+                        for (final AnnotationInfo annotationInfo : methodInfo.annotationInfo) {
+                            for (final Entry entry : getEntries(annotationInfo)) {
+                                entry.methodInfo.add(methodInfo);
+                            }
+                        }
+                    }
+                }
+            }
+            if (classInfo.fieldInfo != null) {
+                for (final FieldInfo fieldInfo : classInfo.fieldInfo) {
+                    if (fieldInfo.annotationInfo != null) {
+                        for (final AnnotationInfo annotationInfo : fieldInfo.annotationInfo) {
+                            for (final Entry entry : getEntries(annotationInfo)) {
+                                entry.fieldInfo.add(fieldInfo);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the index entries for each parameter value of an annotation, creating them if they don't exist.
+     *
+     * @param annotationInfo
+     *            the annotation
+     * @return the index entries
+     */
+    private List<Entry> getEntries(final AnnotationInfo annotationInfo) {
+        final AnnotationParameterValueList paramValues = annotationInfo.getParameterValues();
+        if (paramValues.isEmpty()) {
+            return Collections.<Entry> emptyList();
+        }
+        Map<String, Map<Object, Entry>> paramNameToValueToEntry = annotationNameToParamNameToValueToEntry
+                .get(annotationInfo.getName());
+        if (paramNameToValueToEntry == null) {
+            annotationNameToParamNameToValueToEntry.put(annotationInfo.getName(),
+                    paramNameToValueToEntry = new HashMap<>());
+        }
+        final List<Entry> entries = new ArrayList<>();
+        for (final AnnotationParameterValue paramValue : paramValues) {
+            Map<Object, Entry> valueToEntry = paramNameToValueToEntry.get(paramValue.getName());
+            if (valueToEntry == null) {
+                paramNameToValueToEntry.put(paramValue.getName(), valueToEntry = new HashMap<>());
+            }
+            final Object value = paramValue.getValue();
+            if (value != null && value.getClass().isArray()) {
+                for (int i = 0, n = Array.getLength(value); i < n; i++) {
+                    addEntry(Array.get(value, i), valueToEntry, entries);
+                }
+            } else {
+                addEntry(value, valueToEntry, entries);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Add the index entry for a parameter value to a list, creating the entry if it doesn't exist.
+     *
+     * @param value
+     *            the parameter value
+     * @param valueToEntry
+     *            the map from canonical parameter value to entry
+     * @param entriesOut
+     *            the list to add the entry to
+     */
+    private static void addEntry(final Object value, final Map<Object, Entry> valueToEntry,
+            final List<Entry> entriesOut) {
+        final Object key = getKey(value);
+        if (key != null) {
+            Entry entry = valueToEntry.get(key);
+            if (entry == null) {
+                valueToEntry.put(key, entry = new Entry());
+            }
+            entriesOut.add(entry);
+        }
+    }
+
+    /**
+     * Get the canonical index key for an annotation parameter value, or for a value to look up.
+     *
+     * @param value
+     *            the parameter value
+     * @return the key, or null if the value cannot be indexed
+     */
+    private static Object getKey(final Object value) {
+        if (value == null || value instanceof AnnotationInfo || value.getClass().isArray()) {
+            return null;
+        } else if (value instanceof AnnotationClassRef) {
+            return new ClassRefKey(((AnnotationClassRef) value).getName());
+        } else if (value instanceof Class<?>) {
+            return new ClassRefKey(((Class<?>) value).getName());
+        } else if (value instanceof Enum<?>) {
+            final Enum<?> enumValue = (Enum<?>) value;
+            return new AnnotationEnumValue(enumValue.getDeclaringClass().getName(), enumValue.name());
+        } else {
+            // String, boxed primitive or AnnotationEnumValue
+            return value;
+        }
+    }
+
+    /**
+     * Get the index entry for an annotation parameter value.
+     *
+     * @param annotationName
+     *            the annotation class name
+     * @param parameterName
+     *            the parameter name
+     * @param parameterValue
+     *            the parameter value
+     * @return the entry, or null if none
+     */
+    private Entry getEntry(final String annotationName, final String parameterName, final Object parameterValue) {
+        final Map<String, Map<Object, Entry>> paramNameToValueToEntry = annotationNameToParamNameToValueToEntry
+                .get(annotationName);
+        final Map<Object, Entry> valueToEntry = paramNameToValueToEntry == null ? null
+                : paramNameToValueToEntry.get(parameterName);
+        final Object key = getKey(parameterValue);
+        return valueToEntry == null || key == null ? null : valueToEntry.get(key);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the classes that are annotated with the named annotation with the given parameter value.
+     *
+     * @param annotationName
+     *            the annotation class name
+     * @param parameterName
+     *            the parameter name
+     * @param parameterValue
+     *            the parameter value
+     * @return the classes
+     */
+    ClassInfoList getClassesWithAnnotationParameterValue(final String annotationName, final String parameterName,
+            final Object parameterValue) {
+        final Entry entry = getEntry(annotationName, parameterName, parameterValue);
+        return entry == null || entry.classInfo.isEmpty() ? ClassInfoList.EMPTY_LIST
+                : new ClassInfoList(entry.classInfo, /* sortByName = */ true);
+    }
+
+    /**
+     * Get the methods that are annotated with the named annotation with the given parameter value.
+     *
+     * @param annotationName
+     *            the annotation class name
+     * @param parameterName
+     *            the parameter name
+     * @param parameterValue
+     *            the parameter value
+     * @return the methods
+     */
+    MethodInfoList getMethodsWithAnnotationParameterValue(final String annotationName, final String parameterName,
+            final Object parameterValue) {
+        final Entry entry = getEntry(annotationName, parameterName, parameterValue);
+        if (entry == null || entry.methodInfo.isEmpty()) {
+            return MethodInfoList.EMPTY_LIST;
+        }
+        final MethodInfoList methodInfoList = new MethodInfoList(entry.methodInfo);
+        Collections.sort(methodInfoList);
+        return methodInfoList;
+    }
+
+    /**
+     * Get the fields that are annotated with the named annotation with the given parameter value.
+     *
+     * @param annotationName
+     *            the annotation class name
+     * @param parameterName
+     *            the parameter name
+     * @param parameterValue
+     *            the parameter value
+     * @return the fields
+     */
+    FieldInfoList getFieldsWithAnnotationParameterValue(final String annotationName, final String parameterName,
+            final Object parameterValue) {
+        final Entry entry = getEntry(annotationName, parameterName, parameterValue);
+        if (entry == null || entry.fieldInfo.isEmpty()) {
+            return FieldInfoList.EMPTY_LIST;
+        }
+        final FieldInfoList fieldInfoList = new FieldInfoList(entry.fieldInfo);
+        Collections.sort(fieldInfoList);
+        return fieldInfoList;
+    }
+}
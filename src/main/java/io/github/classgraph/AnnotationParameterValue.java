@@ -37,10 +37,10 @@ public class AnnotationParameterValue extends ScanResultObject
         implements HasName, Comparable<AnnotationParameterValue> {
 
     /** The the parameter name. */
-    private String name;
+    String name;
 
     /** The parameter value. */
-    private ObjectTypedValueWrapper value;
+    ObjectTypedValueWrapper value;
 
     /** Default constructor for deserialization. */
     AnnotationParameterValue() {
@@ -0,0 +1,1329 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import io.github.classgraph.ClassInfo.RelType;
+import io.github.classgraph.ScanResult.SerializationFormat;
+import nonapi.io.github.classgraph.ScanSpec;
+import nonapi.io.github.classgraph.json.JSONDeserializer;
+import nonapi.io.github.classgraph.json.JSONSerializer;
+
+/**
+ * A compact binary serializer and deserializer for {@link SerializationFormat}, used by
+ * {@link ScanResult#toBinary(OutputStream)} and {@link ScanResult#fromBinary(ByteBuffer)}.
+ *
+ * <p>
+ * The format consists of a magic number, a binary format version, a string table, and then the body. All strings
+ * in the body are stored as varint indices into the string table (with 0 representing null), and all references
+ * between {@link ClassInfo}, {@link PackageInfo} and {@link ModuleInfo} objects are stored as varint indices into
+ * the lists of those objects, so no reflection is needed to serialize or deserialize the class graph. The
+ * {@link ScanSpec} is a small configuration object, so it is stored as a JSON string.
+ */
+class BinarySerializer {
+    /** The magic number at the start of the serialized binary format. */
+    private static final byte[] MAGIC = { 'C', 'G', 'B', 'N' };
+
+    /** The binary format version. Increment this whenever the binary format changes. */
+    private static final int BINARY_FORMAT_VERSION = 2;
+
+    /** The {@link RelType} values, indexed by ordinal. */
+    private static final RelType[] REL_TYPES = RelType.values();
+
+    /** Tag for a null {@link ObjectTypedValueWrapper} value. */
+    private static final int TAG_NULL = 0;
+
+    /** Tag for an {@link AnnotationEnumValue} value. */
+    private static final int TAG_ENUM = 1;
+
+    /** Tag for an {@link AnnotationClassRef} value. */
+    private static final int TAG_CLASS_REF = 2;
+
+    /** Tag for an {@link AnnotationInfo} value. */
+    private static final int TAG_ANNOTATION = 3;
+
+    /** Tag for a String value. */
+    private static final int TAG_STRING = 4;
+
+    /** Tag for an Integer value. */
+    private static final int TAG_INTEGER = 5;
+
+    /** Tag for a Long value. */
+    private static final int TAG_LONG = 6;
+
+    /** Tag for a Short value. */
+    private static final int TAG_SHORT = 7;
+
+    /** Tag for a Boolean value. */
+    private static final int TAG_BOOLEAN = 8;
+
+    /** Tag for a Character value. */
+    private static final int TAG_CHARACTER = 9;
+
+    /** Tag for a Float value. */
+    private static final int TAG_FLOAT = 10;
+
+    /** Tag for a Double value. */
+    private static final int TAG_DOUBLE = 11;
+
+    /** Tag for a Byte value. */
+    private static final int TAG_BYTE = 12;
+
+    /** Tag for a String[] value. */
+    private static final int TAG_STRING_ARRAY = 13;
+
+    /** Tag for an int[] value. */
+    private static final int TAG_INT_ARRAY = 14;
+
+    /** Tag for a long[] value. */
+    private static final int TAG_LONG_ARRAY = 15;
+
+    /** Tag for a short[] value. */
+    private static final int TAG_SHORT_ARRAY = 16;
+
+    /** Tag for a boolean[] value. */
+    private static final int TAG_BOOLEAN_ARRAY = 17;
+
+    /** Tag for a char[] value. */
+    private static final int TAG_CHAR_ARRAY = 18;
+
+    /** Tag for a float[] value. */
+    private static final int TAG_FLOAT_ARRAY = 19;
+
+    /** Tag for a double[] value. */
+    private static final int TAG_DOUBLE_ARRAY = 20;
+
+    /** Tag for a byte[] value. */
+    private static final int TAG_BYTE_ARRAY = 21;
+
+    /** Tag for an Object[] value. */
+    private static final int TAG_OBJECT_ARRAY = 22;
+
+    /** {@link ClassInfo} flag bit for {@link ClassInfo#isInterface}. */
+    private static final int FLAG_INTERFACE = 1;
+
+    /** {@link ClassInfo} flag bit for {@link ClassInfo#isAnnotation}. */
+    private static final int FLAG_ANNOTATION = 2;
+
+    /** {@link ClassInfo} flag bit for {@link ClassInfo#isInherited}. */
+    private static final int FLAG_INHERITED = 4;
+
+    /** {@link ClassInfo} flag bit for {@link ClassInfo#isExternalClass}. */
+    private static final int FLAG_EXTERNAL_CLASS = 8;
+
+    /** {@link ClassInfo} flag bit for {@link ClassInfo#isScannedClass}. */
+    private static final int FLAG_SCANNED_CLASS = 16;
+
+    /**
+     * Constructor.
+     */
+    private BinarySerializer() {
+        // Cannot be constructed
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+    // Serialization
+
+    /** A growable byte buffer that the body of the binary format is written into. */
+    private static class ByteSink {
+        /** The buffer. */
+        private byte[] buf = new byte[8192];
+
+        /** The number of bytes written. */
+        private int len;
+
+        /** The string table, mapping from each string to its index in the string table. */
+        private final Map<String, Integer> stringToIdx = new HashMap<>();
+
+        /** The strings in the string table, in order of index. */
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * Ensure there is space for the given number of additional bytes.
+         *
+         * @param numBytes
+         *            the number of additional bytes
+         */
+        private void ensureCapacity(final int numBytes) {
+            if (len + numBytes > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + numBytes));
+            }
+        }
+
+        /**
+         * Write a byte.
+         *
+         * @param b
+         *            the byte
+         */
+        void writeByte(final int b) {
+            ensureCapacity(1);
+            buf[len++] = (byte) b;
+        }
+
+        /**
+         * Write an unsigned int as a varint.
+         *
+         * @param val
+         *            the value
+         */
+        void writeVarInt(final int val) {
+            ensureCapacity(5);
+            int v = val;
+            while ((v & ~0x7f) != 0) {
+                buf[len++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        /**
+         * Write an unsigned long as a varint.
+         *
+         * @param val
+         *            the value
+         */
+        void writeVarLong(final long val) {
+            ensureCapacity(10);
+            long v = val;
+            while ((v & ~0x7fL) != 0) {
+                buf[len++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        /**
+         * Write a signed int as a zigzag-encoded varint.
+         *
+         * @param val
+         *            the value
+         */
+        void writeSignedVarInt(final int val) {
+            writeVarInt((val << 1) ^ (val >> 31));
+        }
+
+        /**
+         * Write a signed long as a zigzag-encoded varint.
+         *
+         * @param val
+         *            the value
+         */
+        void writeSignedVarLong(final long val) {
+            writeVarLong((val << 1) ^ (val >> 63));
+        }
+
+        /**
+         * Write a nullable string as an index into the string table, adding the string to the string table if
+         * necessary.
+         *
+         * @param str
+         *            the string, or null
+         */
+        void writeString(final String str) {
+            if (str == null) {
+                writeVarInt(0);
+            } else {
+                Integer idx = stringToIdx.get(str);
+                if (idx == null) {
+                    stringToIdx.put(str, idx = strings.size());
+                    strings.add(str);
+                }
+                writeVarInt(idx + 1);
+            }
+        }
+
+        /**
+         * Write a nullable size, as size + 1, or 0 for null.
+         *
+         * @param size
+         *            the size, or -1 for null
+         */
+        void writeNullableSize(final int size) {
+            writeVarInt(size + 1);
+        }
+    }
+
+    /**
+     * Write a list of {@link AnnotationInfo} objects.
+     *
+     * @param annotationInfoList
+     *            the list, or null
+     * @param out
+     *            the output
+     */
+    private static void writeAnnotationInfoList(final List<AnnotationInfo> annotationInfoList,
+            final ByteSink out) {
+        out.writeNullableSize(annotationInfoList == null ? -1 : annotationInfoList.size());
+        if (annotationInfoList != null) {
+            for (final AnnotationInfo annotationInfo : annotationInfoList) {
+                writeAnnotationInfo(annotationInfo, out);
+            }
+        }
+    }
+
+    /**
+     * Write an {@link AnnotationInfo} object. Annotation names are never null, so a null annotation name is used
+     * to represent a null {@link AnnotationInfo} object.
+     *
+     * @param annotationInfo
+     *            the annotation info, or null
+     * @param out
+     *            the output
+     */
+    private static void writeAnnotationInfo(final AnnotationInfo annotationInfo, final ByteSink out) {
+        if (annotationInfo == null) {
+            out.writeString(null);
+        } else {
+            out.writeString(annotationInfo.name);
+            writeAnnotationParamValues(annotationInfo.annotationParamValues, out);
+        }
+    }
+
+    /**
+     * Write a list of {@link AnnotationParameterValue} objects.
+     *
+     * @param paramValues
+     *            the list, or null
+     * @param out
+     *            the output
+     */
+    private static void writeAnnotationParamValues(final List<AnnotationParameterValue> paramValues,
+            final ByteSink out) {
+        out.writeNullableSize(paramValues == null ? -1 : paramValues.size());
+        if (paramValues != null) {
+            for (final AnnotationParameterValue paramValue : paramValues) {
+                out.writeString(paramValue.name);
+                writeValue(paramValue.value, out);
+            }
+        }
+    }
+
+    /**
+     * Write an {@link ObjectTypedValueWrapper} value.
+     *
+     * @param value
+     *            the value, or null
+     * @param out
+     *            the output
+     */
+    private static void writeValue(final ObjectTypedValueWrapper value, final ByteSink out) {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value.enumValue != null) {
+            out.writeByte(TAG_ENUM);
+            out.writeString(value.enumValue.className);
+            out.writeString(value.enumValue.valueName);
+        } else if (value.classRef != null) {
+            out.writeByte(TAG_CLASS_REF);
+            out.writeString(value.classRef.typeDescriptorStr);
+        } else if (value.annotationInfo != null) {
+            out.writeByte(TAG_ANNOTATION);
+            writeAnnotationInfo(value.annotationInfo, out);
+        } else if (value.stringValue != null) {
+            out.writeByte(TAG_STRING);
+            out.writeString(value.stringValue);
+        } else if (value.integerValue != null) {
+            out.writeByte(TAG_INTEGER);
+            out.writeSignedVarInt(value.integerValue);
+        } else if (value.longValue != null) {
+            out.writeByte(TAG_LONG);
+            out.writeSignedVarLong(value.longValue);
+        } else if (value.shortValue != null) {
+            out.writeByte(TAG_SHORT);
+            out.writeSignedVarInt(value.shortValue);
+        } else if (value.booleanValue != null) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeByte(value.booleanValue ? 1 : 0);
+        } else if (value.characterValue != null) {
+            out.writeByte(TAG_CHARACTER);
+            out.writeVarInt(value.characterValue);
+        } else if (value.floatValue != null) {
+            out.writeByte(TAG_FLOAT);
+            out.writeVarInt(Float.floatToRawIntBits(value.floatValue));
+        } else if (value.doubleValue != null) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeVarLong(Double.doubleToRawLongBits(value.doubleValue));
+        } else if (value.byteValue != null) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte(value.byteValue);
+        } else if (value.stringArrayValue != null) {
+            out.writeByte(TAG_STRING_ARRAY);
+            out.writeVarInt(value.stringArrayValue.length);
+            for (final String elt : value.stringArrayValue) {
+                out.writeString(elt);
+            }
+        } else if (value.intArrayValue != null) {
+            out.writeByte(TAG_INT_ARRAY);
+            out.writeVarInt(value.intArrayValue.length);
+            for (final int elt : value.intArrayValue) {
+                out.writeSignedVarInt(elt);
+            }
+        } else if (value.longArrayValue != null) {
+            out.writeByte(TAG_LONG_ARRAY);
+            out.writeVarInt(value.longArrayValue.length);
+            for (final long elt : value.longArrayValue) {
+                out.writeSignedVarLong(elt);
+            }
+        } else if (value.shortArrayValue != null) {
+            out.writeByte(TAG_SHORT_ARRAY);
+            out.writeVarInt(value.shortArrayValue.length);
+            for (final short elt : value.shortArrayValue) {
+                out.writeSignedVarInt(elt);
+            }
+        } else if (value.booleanArrayValue != null) {
+            out.writeByte(TAG_BOOLEAN_ARRAY);
+            out.writeVarInt(value.booleanArrayValue.length);
+            for (final boolean elt : value.booleanArrayValue) {
+                out.writeByte(elt ? 1 : 0);
+            }
+        } else if (value.charArrayValue != null) {
+            out.writeByte(TAG_CHAR_ARRAY);
+            out.writeVarInt(value.charArrayValue.length);
+            for (final char elt : value.charArrayValue) {
+                out.writeVarInt(elt);
+            }
+        } else if (value.floatArrayValue != null) {
+            out.writeByte(TAG_FLOAT_ARRAY);
+            out.writeVarInt(value.floatArrayValue.length);
+            for (final float elt : value.floatArrayValue) {
+                out.writeVarInt(Float.floatToRawIntBits(elt));
+            }
+        } else if (value.doubleArrayValue != null) {
+            out.writeByte(TAG_DOUBLE_ARRAY);
+            out.writeVarInt(value.doubleArrayValue.length);
+            for (final double elt : value.doubleArrayValue) {
+                out.writeVarLong(Double.doubleToRawLongBits(elt));
+            }
+        } else if (value.byteArrayValue != null) {
+            out.writeByte(TAG_BYTE_ARRAY);
+            out.writeVarInt(value.byteArrayValue.length);
+            for (final byte elt : value.byteArrayValue) {
+                out.writeByte(elt);
+            }
+        } else if (value.objectArrayValue != null) {
+            out.writeByte(TAG_OBJECT_ARRAY);
+            out.writeVarInt(value.objectArrayValue.length);
+            for (final ObjectTypedValueWrapper elt : value.objectArrayValue) {
+                writeValue(elt, out);
+            }
+        } else {
+            out.writeByte(TAG_NULL);
+        }
+    }
+
+    /**
+     * Write a {@link FieldInfo} object.
+     *
+     * @param fieldInfo
+     *            the field info
+     * @param out
+     *            the output
+     */
+    private static void writeFieldInfo(final FieldInfo fieldInfo, final ByteSink out) {
+        out.writeString(fieldInfo.declaringClassName);
+        out.writeString(fieldInfo.name);
+        out.writeVarInt(fieldInfo.modifiers);
+        out.writeString(fieldInfo.typeDescriptorStr);
+        out.writeString(fieldInfo.typeSignatureStr);
+        writeValue(fieldInfo.constantInitializerValue, out);
+        writeAnnotationInfoList(fieldInfo.annotationInfo, out);
+    }
+
+    /**
+     * Write a {@link MethodInfo} object.
+     *
+     * @param methodInfo
+     *            the method info
+     * @param out
+     *            the output
+     */
+    private static void writeMethodInfo(final MethodInfo methodInfo, final ByteSink out) {
+        out.writeString(methodInfo.declaringClassName);
+        out.writeString(methodInfo.name);
+        out.writeVarInt(methodInfo.modifiers);
+        out.writeString(methodInfo.typeDescriptorStr);
+        out.writeString(methodInfo.typeSignatureStr);
+        final String[] parameterNames = methodInfo.parameterNames;
+        out.writeNullableSize(parameterNames == null ? -1 : parameterNames.length);
+        if (parameterNames != null) {
+            for (final String parameterName : parameterNames) {
+                out.writeString(parameterName);
+            }
+        }
+        final int[] parameterModifiers = methodInfo.parameterModifiers;
+        out.writeNullableSize(parameterModifiers == null ? -1 : parameterModifiers.length);
+        if (parameterModifiers != null) {
+            for (final int parameterModifier : parameterModifiers) {
+                out.writeVarInt(parameterModifier);
+            }
+        }
+        final AnnotationInfo[][] parameterAnnotationInfo = methodInfo.parameterAnnotationInfo;
+        out.writeNullableSize(parameterAnnotationInfo == null ? -1 : parameterAnnotationInfo.length);
+        if (parameterAnnotationInfo != null) {
+            for (final AnnotationInfo[] paramAnnotationInfo : parameterAnnotationInfo) {
+                out.writeNullableSize(paramAnnotationInfo == null ? -1 : paramAnnotationInfo.length);
+                if (paramAnnotationInfo != null) {
+                    for (final AnnotationInfo annotationInfo : paramAnnotationInfo) {
+                        writeAnnotationInfo(annotationInfo, out);
+                    }
+                }
+            }
+        }
+        out.writeByte(methodInfo.hasBody ? 1 : 0);
+        final byte[] methodBodyRefKinds = methodInfo.methodBodyRefKinds;
+        out.writeNullableSize(methodBodyRefKinds == null ? -1 : methodBodyRefKinds.length);
+        if (methodBodyRefKinds != null) {
+            for (int i = 0; i < methodBodyRefKinds.length; i++) {
+                out.writeByte(methodBodyRefKinds[i]);
+                out.writeString(methodInfo.methodBodyRefNames[2 * i]);
+                out.writeString(methodInfo.methodBodyRefNames[2 * i + 1]);
+            }
+        }
+        writeAnnotationInfoList(methodInfo.annotationInfo, out);
+    }
+
+    /**
+     * Write the body of the binary format.
+     *
+     * @param serializationFormat
+     *            the {@link SerializationFormat} to serialize
+     * @param out
+     *            the output
+     */
+    private static void writeBody(final SerializationFormat serializationFormat, final ByteSink out) {
+        out.writeString(serializationFormat.format);
+        out.writeString(JSONSerializer.serializeObject(serializationFormat.scanSpec));
+
+        out.writeVarInt(serializationFormat.classpath.size());
+        for (final String classpathElt : serializationFormat.classpath) {
+            out.writeString(classpathElt);
+        }
+
+        // Write all class, package and module names first, so that they can be referenced by index
+        final List<ClassInfo> classInfoList = serializationFormat.classInfo;
+        final Map<ClassInfo, Integer> classInfoToIdx = new HashMap<>();
+        out.writeVarInt(classInfoList.size());
+        for (final ClassInfo classInfo : classInfoList) {
+            classInfoToIdx.put(classInfo, classInfoToIdx.size());
+            out.writeString(classInfo.name);
+        }
+        final List<PackageInfo> packageInfoList = serializationFormat.packageInfo;
+        final Map<PackageInfo, Integer> packageInfoToIdx = new HashMap<>();
+        out.writeVarInt(packageInfoList.size());
+        for (final PackageInfo packageInfo : packageInfoList) {
+            packageInfoToIdx.put(packageInfo, packageInfoToIdx.size());
+            out.writeString(packageInfo.name);
+        }
+        final List<ModuleInfo> moduleInfoList = serializationFormat.moduleInfo;
+        out.writeVarInt(moduleInfoList.size());
+        for (final ModuleInfo moduleInfo : moduleInfoList) {
+            out.writeString(moduleInfo.name);
+        }
+
+        for (final ClassInfo classInfo : classInfoList) {
+            out.writeVarInt(classInfo.modifiers);
+            out.writeByte((classInfo.isInterface ? FLAG_INTERFACE : 0) //
+                    | (classInfo.isAnnotation ? FLAG_ANNOTATION : 0) //
+                    | (classInfo.isInherited ? FLAG_INHERITED : 0) //
+                    | (classInfo.isExternalClass ? FLAG_EXTERNAL_CLASS : 0) //
+                    | (classInfo.isScannedClass ? FLAG_SCANNED_CLASS : 0));
+            out.writeString(classInfo.typeSignatureStr);
+            out.writeString(classInfo.fullyQualifiedDefiningMethodName);
+            writeAnnotationInfoList(classInfo.annotationInfo, out);
+            final FieldInfoList fieldInfoList = classInfo.fieldInfo;
+            out.writeNullableSize(fieldInfoList == null ? -1 : fieldInfoList.size());
+            if (fieldInfoList != null) {
+                for (final FieldInfo fieldInfo : fieldInfoList) {
+                    writeFieldInfo(fieldInfo, out);
+                }
+            }
+            final MethodInfoList methodInfoList = classInfo.methodInfo;
+            out.writeNullableSize(methodInfoList == null ? -1 : methodInfoList.size());
+            if (methodInfoList != null) {
+                for (final MethodInfo methodInfo : methodInfoList) {
+                    writeMethodInfo(methodInfo, out);
+                }
+            }
+            writeAnnotationParamValues(classInfo.annotationDefaultParamValues, out);
+            final Set<String> referencedClassNames = classInfo.referencedClassNames;
+            out.writeNullableSize(referencedClassNames == null ? -1 : referencedClassNames.size());
+            if (referencedClassNames != null) {
+                for (final String referencedClassName : referencedClassNames) {
+                    out.writeString(referencedClassName);
+                }
+            }
+            // Related classes that are not in the class list (which should not happen) are dropped
+            final Map<RelType, Set<ClassInfo>> relatedClasses = classInfo.relatedClasses;
+            out.writeNullableSize(relatedClasses == null ? -1 : relatedClasses.size());
+            if (relatedClasses != null) {
+                for (final Entry<RelType, Set<ClassInfo>> ent : relatedClasses.entrySet()) {
+                    out.writeVarInt(ent.getKey().ordinal());
+                    final Set<ClassInfo> relatedClassInfoSet = ent.getValue();
+                    int numRelatedClasses = 0;
+                    for (final ClassInfo relatedClassInfo : relatedClassInfoSet) {
+                        if (classInfoToIdx.containsKey(relatedClassInfo)) {
+                            numRelatedClasses++;
+                        }
+                    }
+                    out.writeVarInt(numRelatedClasses);
+                    for (final ClassInfo relatedClassInfo : relatedClassInfoSet) {
+                        final Integer relatedClassIdx = classInfoToIdx.get(relatedClassInfo);
+                        if (relatedClassIdx != null) {
+                            out.writeVarInt(relatedClassIdx);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (final PackageInfo packageInfo : packageInfoList) {
+            writeAnnotationInfoList(packageInfo.annotationInfo, out);
+            final Integer parentIdx = packageInfo.parent == null ? null : packageInfoToIdx.get(packageInfo.parent);
+            out.writeNullableSize(parentIdx == null ? -1 : parentIdx);
+            writePackageInfoIndices(packageInfo.children, packageInfoToIdx, out);
+            writeClassInfoIndices(packageInfo.memberClassNameToClassInfo.values(), classInfoToIdx, out);
+        }
+
+        for (final ModuleInfo moduleInfo : moduleInfoList) {
+            writeAnnotationInfoList(moduleInfo.annotationInfo, out);
+            writePackageInfoIndices(moduleInfo.packageInfoSet, packageInfoToIdx, out);
+            writeClassInfoIndices(moduleInfo.classInfoSet, classInfoToIdx, out);
+        }
+    }
+
+    /**
+     * Write a nullable collection of {@link PackageInfo} objects as indices into the package list.
+     *
+     * @param packageInfos
+     *            the packages, or null
+     * @param packageInfoToIdx
+     *            the index of each package in the package list
+     * @param out
+     *            the output
+     */
+    private static void writePackageInfoIndices(final Set<PackageInfo> packageInfos,
+            final Map<PackageInfo, Integer> packageInfoToIdx, final ByteSink out) {
+        if (packageInfos == null) {
+            out.writeNullableSize(-1);
+        } else {
+            final List<Integer> indices = new ArrayList<>(packageInfos.size());
+            for (final PackageInfo packageInfo : packageInfos) {
+                final Integer idx = packageInfoToIdx.get(packageInfo);
+                if (idx != null) {
+                    indices.add(idx);
+                }
+            }
+            out.writeNullableSize(indices.size());
+            for (final Integer idx : indices) {
+                out.writeVarInt(idx);
+            }
+        }
+    }
+
+    /**
+     * Write a collection of {@link ClassInfo} objects as indices into the class list.
+     *
+     * @param classInfos
+     *            the classes
+     * @param classInfoToIdx
+     *            the index of each class in the class list
+     * @param out
+     *            the output
+     */
+    private static void writeClassInfoIndices(final Iterable<ClassInfo> classInfos,
+            final Map<ClassInfo, Integer> classInfoToIdx, final ByteSink out) {
+        final List<Integer> indices = new ArrayList<>();
+        for (final ClassInfo classInfo : classInfos) {
+            final Integer idx = classInfoToIdx.get(classInfo);
+            if (idx != null) {
+                indices.add(idx);
+            }
+        }
+        out.writeVarInt(indices.size());
+        for (final Integer idx : indices) {
+            out.writeVarInt(idx);
+        }
+    }
+
+    /**
+     * Serialize a {@link SerializationFormat} object to the binary format.
+     *
+     * @param serializationFormat
+     *            the {@link SerializationFormat} object
+     * @param outputStream
+     *            the output stream to write to (not closed by this method)
+     * @throws IOException
+     *             if the output stream could not be written to
+     */
+    static void serialize(final SerializationFormat serializationFormat, final OutputStream outputStream)
+            throws IOException {
+        // Write the body first, so that the string table is complete before anything is written to the stream
+        final ByteSink body = new ByteSink();
+        writeBody(serializationFormat, body);
+
+        final ByteSink header = new ByteSink();
+        for (final byte b : MAGIC) {
+            header.writeByte(b);
+        }
+        header.writeVarInt(BINARY_FORMAT_VERSION);
+        header.writeVarInt(body.strings.size());
+        for (final String str : body.strings) {
+            final byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+            header.writeVarInt(utf8.length);
+            header.ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, header.buf, header.len, utf8.length);
+            header.len += utf8.length;
+        }
+        outputStream.write(header.buf, 0, header.len);
+        outputStream.write(body.buf, 0, body.len);
+        outputStream.flush();
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+    // Deserialization
+
+    /** A reader for the binary format. */
+    private static class ByteSource {
+        /** The buffer. */
+        private final ByteBuffer buf;
+
+        /** The string table. */
+        private String[] strings;
+
+        /**
+         * Constructor.
+         *
+         * @param buf
+         *            the buffer
+         */
+        ByteSource(final ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        /**
+         * Read a byte.
+         *
+         * @return the byte
+         */
+        int readByte() {
+            return buf.get();
+        }
+
+        /**
+         * Read an unsigned varint.
+         *
+         * @return the value
+         */
+        int readVarInt() {
+            int val = 0;
+            for (int shift = 0;; shift += 7) {
+                final byte b = buf.get();
+                val |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return val;
+                }
+                if (shift >= 28) {
+                    throw new IllegalArgumentException("Malformed varint");
+                }
+            }
+        }
+
+        /**
+         * Read an unsigned varlong.
+         *
+         * @return the value
+         */
+        long readVarLong() {
+            long val = 0L;
+            for (int shift = 0;; shift += 7) {
+                final byte b = buf.get();
+                val |= (b & 0x7fL) << shift;
+                if (b >= 0) {
+                    return val;
+                }
+                if (shift >= 63) {
+                    throw new IllegalArgumentException("Malformed varint");
+                }
+            }
+        }
+
+        /**
+         * Read a zigzag-encoded signed varint.
+         *
+         * @return the value
+         */
+        int readSignedVarInt() {
+            final int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        /**
+         * Read a zigzag-encoded signed varlong.
+         *
+         * @return the value
+         */
+        long readSignedVarLong() {
+            final long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        /**
+         * Check that a size read from the buffer is not negative, and is not larger than the number of bytes
+         * remaining in the buffer, since every element takes at least one byte. This ensures that a corrupt size
+         * cannot cause an array of arbitrary size to be allocated.
+         *
+         * @param size
+         *            the size
+         * @return the size
+         */
+        private int checkSize(final int size) {
+            if (size < 0 || size > buf.remaining()) {
+                throw new IllegalArgumentException("Binary ScanResult is truncated or corrupt: size " + size
+                        + " is larger than the " + buf.remaining() + " remaining bytes");
+            }
+            return size;
+        }
+
+        /**
+         * Read a size.
+         *
+         * @return the size
+         */
+        int readSize() {
+            return checkSize(readVarInt());
+        }
+
+        /**
+         * Read a nullable size, written as size + 1, or 0 for null.
+         *
+         * @return the size, or -1 for null
+         */
+        int readNullableSize() {
+            final int sizePlusOne = readVarInt();
+            return sizePlusOne == 0 ? -1 : checkSize(sizePlusOne - 1);
+        }
+
+        /**
+         * Read a nullable index, written as index + 1, or 0 for null.
+         *
+         * @return the index, or -1 for null
+         */
+        int readNullableIndex() {
+            return readVarInt() - 1;
+        }
+
+        /**
+         * Read the string table.
+         */
+        void readStringTable() {
+            final int numStrings = readSize();
+            strings = new String[numStrings];
+            byte[] bytes = null;
+            for (int i = 0; i < numStrings; i++) {
+                final int len = readSize();
+                if (buf.hasArray()) {
+                    strings[i] = new String(buf.array(), buf.arrayOffset() + buf.position(), len,
+                            StandardCharsets.UTF_8);
+                    buf.position(buf.position() + len);
+                } else {
+                    if (bytes == null || bytes.length < len) {
+                        bytes = new byte[Math.max(len, 256)];
+                    }
+                    buf.get(bytes, 0, len);
+                    strings[i] = new String(bytes, 0, len, StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        /**
+         * Read a nullable string, stored as an index into the string table.
+         *
+         * @return the string, or null
+         */
+        String readString() {
+            final int idx = readVarInt();
+            return idx == 0 ? null : strings[idx - 1];
+        }
+    }
+
+    /**
+     * Read a list of {@link AnnotationInfo} objects.
+     *
+     * @param in
+     *            the input
+     * @return the list, or null
+     */
+    private static AnnotationInfoList readAnnotationInfoList(final ByteSource in) {
+        final int size = in.readNullableSize();
+        if (size < 0) {
+            return null;
+        }
+        final AnnotationInfoList annotationInfoList = new AnnotationInfoList(size);
+        for (int i = 0; i < size; i++) {
+            annotationInfoList.add(readAnnotationInfo(in));
+        }
+        return annotationInfoList;
+    }
+
+    /**
+     * Read an {@link AnnotationInfo} object.
+     *
+     * @param in
+     *            the input
+     * @return the annotation info, or null
+     */
+    private static AnnotationInfo readAnnotationInfo(final ByteSource in) {
+        final String name = in.readString();
+        if (name == null) {
+            return null;
+        }
+        final AnnotationInfo annotationInfo = new AnnotationInfo();
+        annotationInfo.name = name;
+        annotationInfo.annotationParamValues = readAnnotationParamValues(in);
+        return annotationInfo;
+    }
+
+    /**
+     * Read a list of {@link AnnotationParameterValue} objects.
+     *
+     * @param in
+     *            the input
+     * @return the list, or null
+     */
+    private static AnnotationParameterValueList readAnnotationParamValues(final ByteSource in) {
+        final int size = in.readNullableSize();
+        if (size < 0) {
+            return null;
+        }
+        final AnnotationParameterValueList paramValues = new AnnotationParameterValueList(size);
+        for (int i = 0; i < size; i++) {
+            final AnnotationParameterValue paramValue = new AnnotationParameterValue();
+            paramValue.name = in.readString();
+            paramValue.value = readValue(in);
+            paramValues.add(paramValue);
+        }
+        return paramValues;
+    }
+
+    /**
+     * Read an {@link ObjectTypedValueWrapper} value.
+     *
+     * @param in
+     *            the input
+     * @return the value, or null
+     */
+    private static ObjectTypedValueWrapper readValue(final ByteSource in) {
+        final int tag = in.readByte();
+        if (tag == TAG_NULL) {
+            return null;
+        }
+        final ObjectTypedValueWrapper value = new ObjectTypedValueWrapper();
+        switch (tag) {
+        case TAG_ENUM:
+            value.enumValue = new AnnotationEnumValue(in.readString(), in.readString());
+            break;
+        case TAG_CLASS_REF:
+            value.classRef = new AnnotationClassRef(in.readString());
+            break;
+        case TAG_ANNOTATION:
+            value.annotationInfo = readAnnotationInfo(in);
+            break;
+        case TAG_STRING:
+            value.stringValue = in.readString();
+            break;
+        case TAG_INTEGER:
+            value.integerValue = in.readSignedVarInt();
+            break;
+        case TAG_LONG:
+            value.longValue = in.readSignedVarLong();
+            break;
+        case TAG_SHORT:
+            value.shortValue = (short) in.readSignedVarInt();
+            break;
+        case TAG_BOOLEAN:
+            value.booleanValue = in.readByte() != 0;
+            break;
+        case TAG_CHARACTER:
+            value.characterValue = (char) in.readVarInt();
+            break;
+        case TAG_FLOAT:
+            value.floatValue = Float.intBitsToFloat(in.readVarInt());
+            break;
+        case TAG_DOUBLE:
+            value.doubleValue = Double.longBitsToDouble(in.readVarLong());
+            break;
+        case TAG_BYTE:
+            value.byteValue = (byte) in.readByte();
+            break;
+        case TAG_STRING_ARRAY: {
+            final String[] arr = new String[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = in.readString();
+            }
+            value.stringArrayValue = arr;
+            break;
+        }
+        case TAG_INT_ARRAY: {
+            final int[] arr = new int[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = in.readSignedVarInt();
+            }
+            value.intArrayValue = arr;
+            break;
+        }
+        case TAG_LONG_ARRAY: {
+            final long[] arr = new long[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = in.readSignedVarLong();
+            }
+            value.longArrayValue = arr;
+            break;
+        }
+        case TAG_SHORT_ARRAY: {
+            final short[] arr = new short[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = (short) in.readSignedVarInt();
+            }
+            value.shortArrayValue = arr;
+            break;
+        }
+        case TAG_BOOLEAN_ARRAY: {
+            final boolean[] arr = new boolean[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = in.readByte() != 0;
+            }
+            value.booleanArrayValue = arr;
+            break;
+        }
+        case TAG_CHAR_ARRAY: {
+            final char[] arr = new char[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = (char) in.readVarInt();
+            }
+            value.charArrayValue = arr;
+            break;
+        }
+        case TAG_FLOAT_ARRAY: {
+            final float[] arr = new float[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = Float.intBitsToFloat(in.readVarInt());
+            }
+            value.floatArrayValue = arr;
+            break;
+        }
+        case TAG_DOUBLE_ARRAY: {
+            final double[] arr = new double[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = Double.longBitsToDouble(in.readVarLong());
+            }
+            value.doubleArrayValue = arr;
+            break;
+        }
+        case TAG_BYTE_ARRAY: {
+            final byte[] arr = new byte[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = (byte) in.readByte();
+            }
+            value.byteArrayValue = arr;
+            break;
+        }
+        case TAG_OBJECT_ARRAY: {
+            final ObjectTypedValueWrapper[] arr = new ObjectTypedValueWrapper[in.readSize()];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = readValue(in);
+                if (arr[i] == null) {
+                    // Null elements are wrapped, as in the ObjectTypedValueWrapper constructor
+                    arr[i] = new ObjectTypedValueWrapper();
+                }
+            }
+            value.objectArrayValue = arr;
+            break;
+        }
+        default:
+            throw new IllegalArgumentException("Unknown value tag " + tag);
+        }
+        return value;
+    }
+
+    /**
+     * Read a {@link FieldInfo} object.
+     *
+     * @param in
+     *            the input
+     * @return the field info
+     */
+    private static FieldInfo readFieldInfo(final ByteSource in) {
+        final FieldInfo fieldInfo = new FieldInfo();
+        fieldInfo.declaringClassName = in.readString();
+        fieldInfo.name = in.readString();
+        fieldInfo.modifiers = in.readVarInt();
+        fieldInfo.typeDescriptorStr = in.readString();
+        fieldInfo.typeSignatureStr = in.readString();
+        fieldInfo.constantInitializerValue = readValue(in);
+        fieldInfo.annotationInfo = readAnnotationInfoList(in);
+        return fieldInfo;
+    }
+
+    /**
+     * Read a {@link MethodInfo} object.
+     *
+     * @param in
+     *            the input
+     * @return the method info
+     */
+    private static MethodInfo readMethodInfo(final ByteSource in) {
+        final MethodInfo methodInfo = new MethodInfo();
+        methodInfo.declaringClassName = in.readString();
+        methodInfo.name = in.readString();
+        methodInfo.modifiers = in.readVarInt();
+        methodInfo.typeDescriptorStr = in.readString();
+        methodInfo.typeSignatureStr = in.readString();
+        final int numParameterNames = in.readNullableSize();
+        if (numParameterNames >= 0) {
+            methodInfo.parameterNames = new String[numParameterNames];
+            for (int i = 0; i < numParameterNames; i++) {
+                methodInfo.parameterNames[i] = in.readString();
+            }
+        }
+        final int numParameterModifiers = in.readNullableSize();
+        if (numParameterModifiers >= 0) {
+            methodInfo.parameterModifiers = new int[numParameterModifiers];
+            for (int i = 0; i < numParameterModifiers; i++) {
+                methodInfo.parameterModifiers[i] = in.readVarInt();
+            }
+        }
+        final int numParameterAnnotationInfo = in.readNullableSize();
+        if (numParameterAnnotationInfo >= 0) {
+            methodInfo.parameterAnnotationInfo = new AnnotationInfo[numParameterAnnotationInfo][];
+            for (int i = 0; i < numParameterAnnotationInfo; i++) {
+                final int numParamAnnotations = in.readNullableSize();
+                if (numParamAnnotations >= 0) {
+                    final AnnotationInfo[] paramAnnotationInfo = new AnnotationInfo[numParamAnnotations];
+                    for (int j = 0; j < numParamAnnotations; j++) {
+                        paramAnnotationInfo[j] = readAnnotationInfo(in);
+                    }
+                    methodInfo.parameterAnnotationInfo[i] = paramAnnotationInfo;
+                }
+            }
+        }
+        methodInfo.hasBody = in.readByte() != 0;
+        final int numMethodBodyRefs = in.readNullableSize();
+        if (numMethodBodyRefs >= 0) {
+            methodInfo.methodBodyRefKinds = new byte[numMethodBodyRefs];
+            methodInfo.methodBodyRefNames = new String[2 * numMethodBodyRefs];
+            for (int i = 0; i < numMethodBodyRefs; i++) {
+                methodInfo.methodBodyRefKinds[i] = (byte) in.readByte();
+                methodInfo.methodBodyRefNames[2 * i] = in.readString();
+                methodInfo.methodBodyRefNames[2 * i + 1] = in.readString();
+            }
+        }
+        methodInfo.annotationInfo = readAnnotationInfoList(in);
+        return methodInfo;
+    }
+
+    /**
+     * Read the body of the binary format.
+     *
+     * @param in
+     *            the input
+     * @return the deserialized {@link SerializationFormat}
+     */
+    private static SerializationFormat readBody(final ByteSource in) {
+        final SerializationFormat serializationFormat = new SerializationFormat();
+        serializationFormat.format = in.readString();
+        if (!ScanResult.CURRENT_SERIALIZATION_FORMAT.equals(serializationFormat.format)) {
+            throw new IllegalArgumentException(
+                    "Binary ScanResult was serialized in a different format from the format used by the current "
+                            + "version of ClassGraph -- please serialize and deserialize your ScanResult using "
+                            + "the same version of ClassGraph");
+        }
+        serializationFormat.scanSpec = JSONDeserializer.deserializeObject(ScanSpec.class, in.readString());
+
+        final int numClasspathElts = in.readSize();
+        serializationFormat.classpath = new ArrayList<>(numClasspathElts);
+        for (int i = 0; i < numClasspathElts; i++) {
+            serializationFormat.classpath.add(in.readString());
+        }
+
+        final int numClasses = in.readSize();
+        final ClassInfo[] classInfos = new ClassInfo[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            final ClassInfo classInfo = new ClassInfo();
+            classInfo.name = in.readString();
+            classInfos[i] = classInfo;
+        }
+        final int numPackages = in.readSize();
+        final PackageInfo[] packageInfos = new PackageInfo[numPackages];
+        for (int i = 0; i < numPackages; i++) {
+            packageInfos[i] = new PackageInfo(in.readString());
+        }
+        final int numModules = in.readSize();
+        final ModuleInfo[] moduleInfos = new ModuleInfo[numModules];
+        for (int i = 0; i < numModules; i++) {
+            final ModuleInfo moduleInfo = new ModuleInfo();
+            moduleInfo.name = in.readString();
+            moduleInfos[i] = moduleInfo;
+        }
+
+        for (final ClassInfo classInfo : classInfos) {
+            classInfo.modifiers = in.readVarInt();
+            final int flags = in.readByte();
+            classInfo.isInterface = (flags & FLAG_INTERFACE) != 0;
+            classInfo.isAnnotation = (flags & FLAG_ANNOTATION) != 0;
+            classInfo.isInherited = (flags & FLAG_INHERITED) != 0;
+            classInfo.isExternalClass = (flags & FLAG_EXTERNAL_CLASS) != 0;
+            classInfo.isScannedClass = (flags & FLAG_SCANNED_CLASS) != 0;
+            classInfo.typeSignatureStr = in.readString();
+            classInfo.fullyQualifiedDefiningMethodName = in.readString();
+            classInfo.annotationInfo = readAnnotationInfoList(in);
+            final int numFields = in.readNullableSize();
+            if (numFields >= 0) {
+                classInfo.fieldInfo = new FieldInfoList(numFields);
+                for (int i = 0; i < numFields; i++) {
+                    classInfo.fieldInfo.add(readFieldInfo(in));
+                }
+            }
+            final int numMethods = in.readNullableSize();
+            if (numMethods >= 0) {
+                classInfo.methodInfo = new MethodInfoList(numMethods);
+                for (int i = 0; i < numMethods; i++) {
+                    classInfo.methodInfo.add(readMethodInfo(in));
+                }
+            }
+            classInfo.annotationDefaultParamValues = readAnnotationParamValues(in);
+            final int numReferencedClassNames = in.readNullableSize();
+            if (numReferencedClassNames >= 0) {
+                classInfo.referencedClassNames = new LinkedHashSet<>(numReferencedClassNames);
+                for (int i = 0; i < numReferencedClassNames; i++) {
+                    classInfo.referencedClassNames.add(in.readString());
+                }
+            }
+            final int numRelTypes = in.readNullableSize();
+            if (numRelTypes >= 0) {
+                classInfo.relatedClasses = new EnumMap<>(RelType.class);
+                for (int i = 0; i < numRelTypes; i++) {
+                    final RelType relType = REL_TYPES[in.readVarInt()];
+                    final int numRelatedClasses = in.readSize();
+                    final Set<ClassInfo> relatedClassInfoSet = new LinkedHashSet<>(
+                            Math.max(4, numRelatedClasses * 4 / 3 + 1));
+                    for (int j = 0; j < numRelatedClasses; j++) {
+                        relatedClassInfoSet.add(classInfos[in.readVarInt()]);
+                    }
+                    classInfo.relatedClasses.put(relType, relatedClassInfoSet);
+                }
+            }
+        }
+
+        for (final PackageInfo packageInfo : packageInfos) {
+            packageInfo.annotationInfo = readAnnotationInfoList(in);
+            final int parentIdx = in.readNullableIndex();
+            packageInfo.parent = parentIdx < 0 ? null : packageInfos[parentIdx];
+            final int numChildren = in.readNullableSize();
+            if (numChildren >= 0) {
+                packageInfo.children = new HashSet<>();
+                for (int i = 0; i < numChildren; i++) {
+                    packageInfo.children.add(packageInfos[in.readVarInt()]);
+                }
+            }
+            final int numMemberClasses = in.readSize();
+            for (int i = 0; i < numMemberClasses; i++) {
+                final ClassInfo classInfo = classInfos[in.readVarInt()];
+                packageInfo.memberClassNameToClassInfo.put(classInfo.name, classInfo);
+            }
+        }
+
+        for (final ModuleInfo moduleInfo : moduleInfos) {
+            moduleInfo.annotationInfo = readAnnotationInfoList(in);
+            final int numPackageInfos = in.readNullableSize();
+            if (numPackageInfos >= 0) {
+                moduleInfo.packageInfoSet = new LinkedHashSet<>();
+                for (int i = 0; i < numPackageInfos; i++) {
+                    moduleInfo.packageInfoSet.add(packageInfos[in.readVarInt()]);
+                }
+            }
+            final int numClassInfos = in.readSize();
+            for (int i = 0; i < numClassInfos; i++) {
+                moduleInfo.classInfoSet.add(classInfos[in.readVarInt()]);
+            }
+        }
+
+        serializationFormat.classInfo = Arrays.asList(classInfos);
+        serializationFormat.packageInfo = Arrays.asList(packageInfos);
+        serializationFormat.moduleInfo = Arrays.asList(moduleInfos);
+        return serializationFormat;
+    }
+
+    /**
+     * Deserialize a {@link SerializationFormat} object from the binary format, starting at the current position of
+     * the buffer. On return, the position of the buffer is just past the end of the serialized data.
+     *
+     * @param byteBuffer
+     *            the buffer to read from
+     * @return the deserialized {@link SerializationFormat} object
+     * @throws IllegalArgumentException
+     *             if the buffer does not contain a binary {@link ScanResult} serialized by this version of
+     *             ClassGraph
+     */
+    static SerializationFormat deserialize(final ByteBuffer byteBuffer) {
+        final ByteSource in = new ByteSource(byteBuffer);
+        try {
+            for (final byte b : MAGIC) {
+                if (in.readByte() != b) {
+                    throw new IllegalArgumentException("Buffer does not contain a binary ScanResult");
+                }
+            }
+            if (in.readVarInt() != BINARY_FORMAT_VERSION) {
+                throw new IllegalArgumentException(
+                        "Binary ScanResult was serialized in a different format from the format used by the "
+                                + "current version of ClassGraph -- please serialize and deserialize your "
+                                + "ScanResult using the same version of ClassGraph");
+            }
+            in.readStringTable();
+            return readBody(in);
+        } catch (final BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Binary ScanResult is truncated or corrupt", e);
+        }
+    }
+}
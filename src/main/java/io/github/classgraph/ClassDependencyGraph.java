@@ -0,0 +1,257 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nonapi.io.github.classgraph.ScanSpec;
+
+/**
+ * A compact, read-only graph of the dependencies between classes, built from the class names found in the constant
+ * pool of each classfile when {@link ClassGraph#enableConstantPoolClassDependencies()} is called. Each
+ * {@link ClassInfo} that is a dependent or a dependency is assigned an integer id in class name order, and both
+ * the dependencies and the dependents of all classes are stored in compressed sparse row form (as in
+ * {@link RelatedClassesGraph}), with each row sorted by id, so that lists of classes sorted by name can be produced
+ * without sorting or hashing.
+ */
+final class ClassDependencyGraph {
+    /** The {@link ClassInfo} objects, indexed by id. */
+    private final ClassInfo[] classInfos;
+
+    /** The offsets into the dependency ids array, indexed by class id. */
+    private final int[] offsets;
+
+    /** The ids of the dependencies of each class. */
+    private final int[] targets;
+
+    /** The offsets into the dependent ids array, indexed by class id. */
+    private final int[] reverseOffsets;
+
+    /** The ids of the dependents of each class. */
+    private final int[] reverseSources;
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Build the dependency graph from the referenced class names of the classes in the scan result, creating
+     * placeholder {@link ClassInfo} objects for any referenced classes that were not scanned.
+     *
+     * @param classNameToClassInfo
+     *            the map from class name to {@link ClassInfo} for the scan result
+     * @param scanSpec
+     *            the scan spec
+     * @param scanResult
+     *            the scan result
+     */
+    ClassDependencyGraph(final Map<String, ClassInfo> classNameToClassInfo, final ScanSpec scanSpec,
+            final ScanResult scanResult) {
+        final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
+        for (final ClassInfo classInfo : allClassInfo) {
+            classInfo.classDependencyGraphId = -1;
+        }
+
+        // Resolve the referenced class names of each class, and find the classes in the graph
+        final List<ClassInfo> dependents = new ArrayList<>();
+        final List<ClassInfo[]> dependencies = new ArrayList<>();
+        final List<ClassInfo> nodes = new ArrayList<>();
+        int numEdges = 0;
+        for (final ClassInfo classInfo : allClassInfo) {
+            final Set<String> refdClassNames = classInfo.referencedClassNames;
+            if (refdClassNames == null || refdClassNames.isEmpty()) {
+                continue;
+            }
+            final ClassInfo[] refdClassInfos = new ClassInfo[refdClassNames.size()];
+            int numRefdClassInfos = 0;
+            for (final String refdClassName : refdClassNames) {
+                // Don't add circular dependencies or references to java.lang.Object
+                if (!refdClassName.equals(classInfo.getName()) && !refdClassName.equals("java.lang.Object")) {
+                    // Get ClassInfo object for the named class, or create one if it doesn't exist
+                    final ClassInfo refdClassInfo = ClassInfo.getOrCreateClassInfo(refdClassName,
+                            /* classModifiers are unknown */ 0, classNameToClassInfo);
+                    refdClassInfo.setScanResult(scanResult);
+                    if (!refdClassInfo.isExternalClass() || scanSpec.enableExternalClasses) {
+                        // Only add class to result if it is whitelisted, or external classes are enabled
+                        refdClassInfos[numRefdClassInfos++] = refdClassInfo;
+                        if (refdClassInfo.classDependencyGraphId == -1) {
+                            refdClassInfo.classDependencyGraphId = 0;
+                            nodes.add(refdClassInfo);
+                        }
+                    }
+                }
+            }
+            if (numRefdClassInfos > 0) {
+                dependents.add(classInfo);
+                dependencies.add(numRefdClassInfos == refdClassInfos.length ? refdClassInfos
+                        : Arrays.copyOf(refdClassInfos, numRefdClassInfos));
+                numEdges += numRefdClassInfos;
+                if (classInfo.classDependencyGraphId == -1) {
+                    classInfo.classDependencyGraphId = 0;
+                    nodes.add(classInfo);
+                }
+            }
+        }
+
+        // Assign ids in class name order
+        Collections.sort(nodes);
+        final int numNodes = nodes.size();
+        classInfos = nodes.toArray(new ClassInfo[numNodes]);
+        for (int id = 0; id < numNodes; id++) {
+            classInfos[id].classDependencyGraphId = id;
+        }
+
+        // Store the dependencies of each class, sorted by id
+        offsets = new int[numNodes + 1];
+        for (int i = 0; i < dependents.size(); i++) {
+            offsets[dependents.get(i).classDependencyGraphId + 1] = dependencies.get(i).length;
+        }
+        for (int id = 0; id < numNodes; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        targets = new int[numEdges];
+        final int[] reverseCounts = new int[numNodes + 1];
+        for (int i = 0; i < dependents.size(); i++) {
+            final int start = offsets[dependents.get(i).classDependencyGraphId];
+            final ClassInfo[] refdClassInfos = dependencies.get(i);
+            for (int j = 0; j < refdClassInfos.length; j++) {
+                final int refdId = refdClassInfos[j].classDependencyGraphId;
+                targets[start + j] = refdId;
+                reverseCounts[refdId + 1]++;
+            }
+            Arrays.sort(targets, start, start + refdClassInfos.length);
+        }
+
+        // Invert the dependencies (a counting sort by dependency id). Dependents are visited in id order, so the
+        // dependents of each class are also sorted by id.
+        reverseOffsets = reverseCounts;
+        for (int id = 0; id < numNodes; id++) {
+            reverseOffsets[id + 1] += reverseOffsets[id];
+        }
+        reverseSources = new int[numEdges];
+        final int[] nextOffset = Arrays.copyOf(reverseOffsets, numNodes);
+        for (int id = 0; id < numNodes; id++) {
+            for (int i = offsets[id], end = offsets[id + 1]; i < end; i++) {
+                reverseSources[nextOffset[targets[i]]++] = id;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the {@link ClassInfo} objects for a range of ids.
+     *
+     * @param ids
+     *            the ids
+     * @param start
+     *            the start index in the ids array
+     * @param end
+     *            the end index in the ids array
+     * @param include
+     *            if non-null, only include the classes whose ids are set in this {@link BitSet}
+     * @return the classes, sorted by name
+     */
+    private ClassInfoList getClassInfoList(final int[] ids, final int start, final int end, final BitSet include) {
+        if (start == end) {
+            return ClassInfoList.EMPTY_LIST;
+        }
+        final Set<ClassInfo> classInfoSet = new LinkedHashSet<>(end - start);
+        for (int i = start; i < end; i++) {
+            if (include == null || include.get(ids[i])) {
+                classInfoSet.add(classInfos[ids[i]]);
+            }
+        }
+        return classInfoSet.isEmpty() ? ClassInfoList.EMPTY_LIST
+                : new ClassInfoList(classInfoSet, /* sortByName = */ true);
+    }
+
+    /**
+     * Get the dependencies of a class.
+     *
+     * @param classInfo
+     *            the class
+     * @return the classes referenced by the class, sorted by name
+     */
+    ClassInfoList getDependencies(final ClassInfo classInfo) {
+        final int id = classInfo.classDependencyGraphId;
+        if (id < 0 || id >= classInfos.length || classInfos[id] != classInfo) {
+            return ClassInfoList.EMPTY_LIST;
+        }
+        return getClassInfoList(targets, offsets[id], offsets[id + 1], /* include = */ null);
+    }
+
+    /**
+     * Get a map from each of the given classes to its dependencies.
+     *
+     * @param dependents
+     *            the classes to include as keys in the map
+     * @return the map from each class to the classes referenced by the class
+     */
+    Map<ClassInfo, ClassInfoList> getDependencyMap(final List<ClassInfo> dependents) {
+        final Map<ClassInfo, ClassInfoList> map = new HashMap<>();
+        for (final ClassInfo classInfo : dependents) {
+            map.put(classInfo, getDependencies(classInfo));
+        }
+        return map;
+    }
+
+    /**
+     * Get a map from each dependency class to the classes among the given dependents that reference it.
+     *
+     * @param dependents
+     *            the dependent classes to include in the map values
+     * @return the map from each class that is referenced by one of the dependents to the dependents that
+     *         reference it
+     */
+    Map<ClassInfo, ClassInfoList> getReverseDependencyMap(final List<ClassInfo> dependents) {
+        final BitSet include = new BitSet(classInfos.length);
+        for (final ClassInfo classInfo : dependents) {
+            final int id = classInfo.classDependencyGraphId;
+            if (id >= 0 && id < classInfos.length && classInfos[id] == classInfo) {
+                include.set(id);
+            }
+        }
+        final Map<ClassInfo, ClassInfoList> map = new HashMap<>();
+        for (int id = 0; id < classInfos.length; id++) {
+            final ClassInfoList dependentsOfClass = getClassInfoList(reverseSources, reverseOffsets[id],
+                    reverseOffsets[id + 1], include);
+            if (!dependentsOfClass.isEmpty()) {
+                map.put(classInfos[id], dependentsOfClass);
+            }
+        }
+        return map;
+    }
+}
@@ -169,6 +169,42 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Enables the decoding of method bodies during the scan, so that the methods that invoke a given method, read
+     * or write a given field, or instantiate a given class can be found using
+     * {@link ScanResult#getMethodsCalling(String, String)}, {@link ScanResult#getMethodsReadingField(String, String)},
+     * {@link ScanResult#getMethodsWritingField(String, String)} and
+     * {@link ScanResult#getMethodsInstantiating(String)}. Only the bodies of methods that are scanned are decoded,
+     * so you will usually also want to call {@link #ignoreMethodVisibility()}. (Automatically calls
+     * {@link #enableClassInfo()} and {@link #enableMethodInfo()}.)
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableMethodBodyScanning() {
+        enableClassInfo();
+        enableMethodInfo();
+        scanSpec.enableMethodBodyScanning = true;
+        return this;
+    }
+
+    /**
+     * Defers the reading of fields and methods until they are first requested, e.g. by
+     * {@link ClassInfo#getMethodInfo()} or {@link ClassInfo#getFieldInfo()}. During the scan, only the class
+     * header, interfaces and the names of field and method annotations are read, along with the offset of the
+     * field and method tables; fields and methods are then re-read from the classfile {@link Resource} on demand.
+     * This reduces scanning time and memory usage when field or method info is only needed for a few classes.
+     * Fields and methods of annotation classes are always read during the scan, and this setting is ignored if
+     * {@link #enableMethodBodyScanning()} or {@link #removeTemporaryFilesAfterScan()} is called, since in the
+     * latter case zipfiles are closed before fields and methods could be re-read. Fields and methods can only be
+     * read until the {@link ScanResult} is closed.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableLazyMemberInfo() {
+        scanSpec.enableLazyMemberInfo = true;
+        return this;
+    }
+
     /**
      * Causes method visibility to be ignored, enabling private, package-private and protected methods to be
      * scanned. By default, only public methods are scanned. (Automatically calls {@link #enableClassInfo()} and
@@ -258,6 +294,46 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Enables a faster form of inter-class dependency determination, where the dependencies of each class are
+     * found only in the class references and type descriptors of the constant pool and the field and method
+     * declarations of the classfile, without parsing type signatures, and are stored in a compact graph so that
+     * {@link ScanResult#getClassDependencyMap()} and {@link ScanResult#getReverseClassDependencyMap()} are cheap to
+     * compute for large numbers of classes. Unlike {@link #enableInterClassDependencies()}, classes that are only
+     * referenced in generic type parameters or annotations are not found, but field, method and annotation info
+     * do not need to be enabled. The dependencies may be read in the same way as with
+     * {@link #enableInterClassDependencies()}. (Automatically calls {@link #enableClassInfo()} and
+     * {@link #ignoreClassVisibility()}.)
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableConstantPoolClassDependencies() {
+        enableClassInfo();
+        ignoreClassVisibility();
+        scanSpec.enableInterClassDependencies = true;
+        scanSpec.enableConstantPoolClassDependencies = true;
+        return this;
+    }
+
+    /**
+     * Enables the precomputation of class hierarchy and annotation indexes at the end of the scan, which speeds up
+     * repeated calls to {@link ScanResult#getSubclasses(String)}, {@link ScanResult#getClassesImplementing(String)}
+     * and {@link ScanResult#getClassesWithAnnotation(String)} (and the corresponding methods of {@link ClassInfo}),
+     * at the cost of some extra scanning time and memory. If {@link #enableAnnotationInfo()} is also called, an
+     * index of annotation parameter values is built, which can be queried using
+     * {@link ScanResult#getClassesWithAnnotationParameterValue(String, String, Object)},
+     * {@link ScanResult#getMethodsWithAnnotationParameterValue(String, String, Object)} and
+     * {@link ScanResult#getFieldsWithAnnotationParameterValue(String, String, Object)}. (Automatically calls
+     * {@link #enableClassInfo()}.)
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableQueryIndexes() {
+        enableClassInfo();
+        scanSpec.enableQueryIndexes = true;
+        return this;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -343,7 +419,9 @@ public class ClassGraph {
     /**
      * Remove temporary files, including nested jarfiles (jarfiles within jarfiles, which have to be extracted
      * during scanning in order to be read) from their temporary directory as soon as the scan has completed. The
-     * default is for temporary files to be removed by the {@link ScanResult} finalizer, or on JVM exit.
+     * default is for temporary files to be removed by the {@link ScanResult} finalizer, or on JVM exit. Zipfiles
+     * are also closed as soon as the scan has completed, so {@link #enableLazyMemberInfo()} is ignored if this
+     * method is called.
      *
      * @return this (for method chaining).
      */
@@ -352,6 +430,86 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Persist deflated nested jarfiles (jarfiles within jarfiles, e.g. the {@code BOOT-INF/lib} jars of a Spring
+     * Boot fat jar) in the given directory once they have been inflated, and reuse them in later scans, including
+     * scans in later JVM runs, rather than inflating them again. Each extracted jarfile is keyed by the path, size
+     * and last modified time of the jarfile that contains it, and by the path, offset, size and CRC-32 of its zip
+     * entry, so a changed outer jarfile results in the nested jarfile being extracted again. Before an extracted
+     * jarfile is used, its size and CRC-32 are checked against its zip entry, and it is extracted again if they do
+     * not match. The directory is created if it does not exist. The cache is unbounded: files in the directory are
+     * never evicted or removed by ClassGraph, even if {@link #removeTemporaryFilesAfterScan()} is called, so
+     * stale files from changed outer jarfiles must be removed by deleting the directory. Failures to read or write
+     * the cache are logged, and cause the nested jarfile to be inflated as usual.
+     *
+     * @param cacheDir
+     *            The directory to store extracted nested jarfiles in.
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableNestedJarExtractionCache(final File cacheDir) {
+        if (cacheDir == null) {
+            throw new NullPointerException("cacheDir cannot be null");
+        }
+        scanSpec.nestedJarExtractionCacheDir = cacheDir;
+        return this;
+    }
+
+    /**
+     * Limit the total amount of RAM used to hold deflated nested jarfiles (jarfiles within jarfiles) that are
+     * inflated to memory during scanning. By default, nested jars smaller than 32MB are inflated to RAM, and are
+     * held there until the {@link ScanResult} is closed, which can pin gigabytes of heap when scanning fat jars
+     * containing hundreds of deflated nested jars. With a memory budget set, a nested jar that does not fit within
+     * the budget causes the least recently used nested jars to be spilled to temporary files, and all nested jars
+     * that are still in RAM are spilled to temporary files once classfile scanning has completed, so that the
+     * {@link ScanResult} does not hold on to them.
+     *
+     * @param maxBytes
+     *            The maximum total number of bytes of nested jarfiles to hold in RAM at once. A value of zero causes
+     *            all deflated nested jarfiles to be inflated to temporary files.
+     * @return this (for method chaining).
+     */
+    public ClassGraph setNestedJarMemoryBudget(final long maxBytes) {
+        if (maxBytes < 0L) {
+            throw new IllegalArgumentException("maxBytes cannot be negative");
+        }
+        scanSpec.maxNestedJarMemoryBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Persist the class graph produced by the scan (the {@link ClassInfo}, {@link PackageInfo} and
+     * {@link ModuleInfo} objects) in the given directory. On the next scan with the same configuration, if the
+     * path, size and last modified time of every file, directory and jarfile that was timestamped during the
+     * previous scan are unchanged, the class graph is loaded from the cache rather than by parsing classfiles. The
+     * directory is created if it does not exist. Failures to read or write the cache are logged, and cause a normal
+     * scan to be performed.
+     *
+     * @param cacheDir
+     *            The directory to store cached scan results in.
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableScanResultCache(final File cacheDir) {
+        if (cacheDir == null) {
+            throw new NullPointerException("cacheDir cannot be null");
+        }
+        scanSpec.scanResultCacheDir = cacheDir;
+        return this;
+    }
+
+    /**
+     * On JDK 21 and later, open classpath elements on virtual threads rather than on the scanning thread pool. This
+     * phase is mostly blocked on I/O (reading jarfile central directories and manifests, extracting nested jars,
+     * and downloading remote jars), so running it on many virtual threads can speed up scanning when the classpath
+     * is on a slow or network filesystem. Classfile parsing still runs on the scanning thread pool. Ignored on
+     * JDKs that do not support virtual threads.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableVirtualThreads() {
+        scanSpec.enableVirtualThreads = true;
+        return this;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -449,6 +607,43 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Process matching resources while the scan is running, rather than after it has completed. Each whitelisted
+     * resource that is accepted by the {@link ResourceList.ResourceFilter} is read as a {@link java.nio.ByteBuffer}
+     * while its classpath element is being scanned, passed to the {@link ResourceList.ByteBufferConsumer}, then
+     * released as soon as the consumer returns, so the consumer must copy any content it needs to retain. This
+     * avoids reopening every matching jarfile entry after the scan completes, e.g. with
+     * {@link ScanResult#getResourcesWithExtension(String)} and {@link ResourceList#forEachByteBuffer}.
+     *
+     * <p>
+     * The filter and consumer are called from the scanning worker threads, so they may be called concurrently, and
+     * must be threadsafe. Resources that cannot be read are logged and skipped. This method may be called multiple
+     * times, to add multiple resource match processors.
+     *
+     * <p>
+     * Resources are processed as soon as they are found, before classfile masking and before classpath elements
+     * are filtered by {@link #whitelistClasspathElementsContainingResourcePath(String...)}. The consumer may
+     * therefore be passed resources that are not in the {@link ScanResult}, such as a classfile that is masked by
+     * a classfile with the same path in an earlier classpath element, and resources with the same path may be
+     * passed from more than one classpath element. Since paths are always scanned before the scan result cache is
+     * consulted, resources are also processed when the class graph is loaded from the scan result cache (see
+     * {@link #enableScanResultCache(File)}).
+     *
+     * @param resourceFilter
+     *            The filter that selects the resources to process.
+     * @param byteBufferConsumer
+     *            The consumer to pass the content of each selected resource to.
+     * @return this (for method chaining).
+     */
+    public ClassGraph processMatchingResourcesDuringScan(final ResourceList.ResourceFilter resourceFilter,
+            final ResourceList.ByteBufferConsumer byteBufferConsumer) {
+        if (resourceFilter == null || byteBufferConsumer == null) {
+            throw new NullPointerException("resourceFilter and byteBufferConsumer cannot be null");
+        }
+        scanSpec.addResourceMatchProcessor(resourceFilter, byteBufferConsumer);
+        return this;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1019,6 +1214,57 @@ public class ClassGraph {
         void onFailure(Throwable throwable);
     }
 
+    /**
+     * A listener that is notified as a scan progresses, so that work that depends on earlier phases of the scan can
+     * overlap with the later phases. The methods are called on the thread that runs the scan, in the order they are
+     * declared. If a method throws an exception, the scan fails.
+     */
+    public interface ScanPhaseListener {
+        /**
+         * Called once the order of classpath elements has been resolved, before paths within the classpath
+         * elements are scanned.
+         *
+         * @param classpath
+         *            the unique classpath elements and modules, in classloader resolution order.
+         */
+        void onClasspathResolved(List<String> classpath);
+
+        /**
+         * Called once all classfiles have been parsed, before they are linked together into a class graph. Not
+         * called if class info is not enabled.
+         *
+         * @param numClassfilesParsed
+         *            the number of classfiles that were parsed (zero if the class graph was loaded from the scan
+         *            result cache).
+         */
+        void onClassfilesParsed(int numClassfilesParsed);
+
+        /**
+         * Called once the classfiles have been linked into a class hierarchy, before the annotation parameter value
+         * index (see {@link ClassGraph#enableQueryIndexes()}) and the method body reference index (see
+         * {@link ClassGraph#enableMethodBodyScanning()}) are built. Class, package and module info, including
+         * superclass, interface and annotation relationships, may be queried from the {@link ScanResult} while
+         * those indexes are built, from this method or from another thread that this method hands the
+         * {@link ScanResult} to. Queries that need one of those indexes throw {@link IllegalArgumentException} until
+         * {@link #onScanResultLinked(ScanResult)} is called. The {@link ScanResult} must not be closed, and scan
+         * metrics are not yet available.
+         *
+         * @param scanResult
+         *            the {@link ScanResult}.
+         */
+        void onClassHierarchyLinked(ScanResult scanResult);
+
+        /**
+         * Called once the class graph has been linked and indexed, with the {@link ScanResult}, before the scan
+         * completes. The {@link ScanResult} may be queried, but must not be closed, by this method. Scan metrics
+         * are not yet available.
+         *
+         * @param scanResult
+         *            the {@link ScanResult}.
+         */
+        void onScanResultLinked(ScanResult scanResult);
+    }
+
     /**
      * Asynchronously scans the classpath, calling a {@link ScanResultProcessor} callback on success or a
      * {@link FailureHandler} callback on failure.
@@ -1046,12 +1292,52 @@ public class ClassGraph {
             // force the addition of a FailureHandler so that exceptions are not silently swallowed.
             throw new IllegalArgumentException("failureHandler cannot be null");
         }
+        scanAsync(executorService, numParallelTasks, /* scanPhaseListener = */ null, scanResultProcessor,
+                failureHandler);
+    }
+
+    /**
+     * Asynchronously scans the classpath, calling a {@link ScanPhaseListener} as each phase of the scan completes,
+     * then calling a {@link ScanResultProcessor} callback on success or a {@link FailureHandler} callback on
+     * failure.
+     *
+     * @param executorService
+     *            A custom {@link ExecutorService} to use for scheduling worker tasks.
+     * @param numParallelTasks
+     *            The number of parallel tasks to break the work into during the most CPU-intensive stage of
+     *            classpath scanning. Ideally the ExecutorService will have at least this many threads available.
+     * @param scanPhaseListener
+     *            A {@link ScanPhaseListener} to notify as each phase of the scan completes, or null if none.
+     * @param scanResultProcessor
+     *            A {@link ScanResultProcessor} callback to run on successful scan.
+     * @param failureHandler
+     *            A {@link FailureHandler} callback to run on failed scan. This is passed any {@link Throwable}
+     *            thrown during the scan.
+     */
+    public void scanAsync(final ExecutorService executorService, final int numParallelTasks,
+            final ScanPhaseListener scanPhaseListener, final ScanResultProcessor scanResultProcessor,
+            final FailureHandler failureHandler) {
+        if (scanResultProcessor == null) {
+            // If scanResultProcessor is null, the scan won't do anything after completion, and the ScanResult will
+            // simply be lost.
+            throw new IllegalArgumentException("scanResultProcessor cannot be null");
+        }
+        if (failureHandler == null) {
+            // The result of the Future<ScanObject> object returned by launchAsyncScan is discarded below, so we
+            // force the addition of a FailureHandler so that exceptions are not silently swallowed.
+            throw new IllegalArgumentException("failureHandler cannot be null");
+        }
         // Use execute() rather than submit(), since a ScanResultProcessor and FailureHandler are used
         executorService.execute(new Runnable() {
             @Override
             public void run() {
-                new Scanner(scanSpec, executorService, numParallelTasks, scanResultProcessor, failureHandler,
-                        topLevelLog);
+                try {
+                    new Scanner(scanSpec, executorService, numParallelTasks, scanPhaseListener,
+                            scanResultProcessor, failureHandler, topLevelLog).call();
+                } catch (final InterruptedException | CancellationException | ExecutionException e) {
+                    // Should not happen, since Scanner#call() calls the FailureHandler rather than throwing
+                    failureHandler.onFailure(e);
+                }
             }
         });
     }
@@ -1068,7 +1354,26 @@ public class ClassGraph {
      *         representing the result of the scan.
      */
     public Future<ScanResult> scanAsync(final ExecutorService executorService, final int numParallelTasks) {
-        return executorService.submit(new Scanner(scanSpec, executorService, numParallelTasks,
+        return scanAsync(executorService, numParallelTasks, /* scanPhaseListener = */ null);
+    }
+
+    /**
+     * Asynchronously scans the classpath for matching files, returning a {@code Future<ScanResult>}, and calling a
+     * {@link ScanPhaseListener} as each phase of the scan completes.
+     *
+     * @param executorService
+     *            A custom {@link ExecutorService} to use for scheduling worker tasks.
+     * @param numParallelTasks
+     *            The number of parallel tasks to break the work into during the most CPU-intensive stage of
+     *            classpath scanning. Ideally the ExecutorService will have at least this many threads available.
+     * @param scanPhaseListener
+     *            A {@link ScanPhaseListener} to notify as each phase of the scan completes, or null if none.
+     * @return a {@code Future<ScanResult>}, that when resolved using get() yields a new {@link ScanResult} object
+     *         representing the result of the scan.
+     */
+    public Future<ScanResult> scanAsync(final ExecutorService executorService, final int numParallelTasks,
+            final ScanPhaseListener scanPhaseListener) {
+        return executorService.submit(new Scanner(scanSpec, executorService, numParallelTasks, scanPhaseListener,
                 /* scanResultProcessor = */ null, /* failureHandler = */ null, topLevelLog));
     }
 
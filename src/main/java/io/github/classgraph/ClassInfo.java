@@ -29,6 +29,7 @@
 package io.github.classgraph;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Inherited;
 import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
@@ -49,6 +50,7 @@ import java.util.Set;
 import nonapi.io.github.classgraph.ScanSpec;
 import nonapi.io.github.classgraph.exceptions.ParseException;
 import nonapi.io.github.classgraph.json.Id;
+import nonapi.io.github.classgraph.types.SignatureCursor;
 import nonapi.io.github.classgraph.types.TypeUtils;
 import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
 import nonapi.io.github.classgraph.utils.URLPathEncoder;
@@ -56,16 +58,16 @@ import nonapi.io.github.classgraph.utils.URLPathEncoder;
 /** Holds metadata about a class encountered during a scan. */
 public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>, HasName {
     /** The name of the class. */
-    private @Id String name;
+    @Id String name;
 
     /** Class modifier flags, e.g. Modifier.PUBLIC */
-    private int modifiers;
+    int modifiers;
 
     /** True if the classfile indicated this is an interface (or an annotation, which is an interface). */
-    private boolean isInterface;
+    boolean isInterface;
 
     /** True if the classfile indicated this is an annotation. */
-    private boolean isAnnotation;
+    boolean isAnnotation;
 
     /**
      * This annotation has the {@link Inherited} meta-annotation, which means that any class that this annotation is
@@ -74,13 +76,13 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     boolean isInherited;
 
     /** The class type signature string. */
-    private String typeSignatureStr;
+    String typeSignatureStr;
 
     /** The class type signature, parsed. */
     private transient ClassTypeSignature typeSignature;
 
     /** The fully-qualified defining method name, for anonymous inner classes. */
-    private String fullyQualifiedDefiningMethodName;
+    String fullyQualifiedDefiningMethodName;
 
     /**
      * If true, this class is only being referenced by another class' classfile as a superclass / implemented
@@ -90,13 +92,13 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      * If false, this classfile was matched during scanning (i.e. its classfile contents read), i.e. this class is a
      * whitelisted (and non-blacklisted) class in a whitelisted (and non-blacklisted) package.
      */
-    private boolean isExternalClass = true;
+    boolean isExternalClass = true;
 
     /**
      * Set to true when the class is actually scanned (as opposed to just referenced as a superclass, interface or
      * annotation of a scanned class).
      */
-    private boolean isScannedClass;
+    boolean isScannedClass;
 
     /**
      * The classpath element file (classpath root dir or jar) that this class was found within, or null if this
@@ -120,6 +122,9 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     /** The classpath element URL (classpath root dir or jar) that this class was found within. */
     private transient URL classpathElementURL;
 
+    /** The classpath element that the classfile of this class was found in. */
+    transient ClasspathElement classpathElement;
+
     /** The {@link Resource} for the classfile of this class. */
     private transient Resource resource;
 
@@ -135,6 +140,15 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     /** Info on fields. */
     MethodInfoList methodInfo;
 
+    /**
+     * The offset of the fields table in the classfile, if reading of fields and methods was deferred until they are
+     * first requested (see {@link ClassGraph#enableLazyMemberInfo()}), otherwise -1.
+     */
+    transient volatile int deferredMemberInfoOffset = -1;
+
+    /** True if reading of fields and methods was deferred, and at least one field or method is annotated. */
+    transient boolean deferredMemberInfoHasAnnotations;
+
     /** For annotations, the default values of parameters. */
     AnnotationParameterValueList annotationDefaultParamValues;
 
@@ -142,19 +156,28 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      * Names of classes referenced by this class in class refs and type signatures in the constant pool of the
      * classfile.
      */
-    private Set<String> referencedClassNames;
+    Set<String> referencedClassNames;
 
     /** A list of ClassInfo objects for classes referenced by this class. */
     private ClassInfoList referencedClasses;
 
+    /**
+     * The id of this class in the {@link ClassDependencyGraph} of the scan result, if constant pool class
+     * dependencies are enabled.
+     */
+    transient int classDependencyGraphId = -1;
+
     /**
      * Set to true once any Object[] arrays of boxed types in annotationDefaultParamValues have been lazily
      * converted to primitive arrays.
      */
     transient boolean annotationDefaultParamValuesHasBeenConvertedToPrimitive;
 
-    /** The set of classes related to this one. */
-    private Map<RelType, Set<ClassInfo>> relatedClasses;
+    /**
+     * The set of classes related to this one. Once the {@link ScanResult} has been constructed, this is a read-only
+     * view over a {@link RelatedClassesGraph}.
+     */
+    Map<RelType, Set<ClassInfo>> relatedClasses;
 
     /**
      * The override order for a class' fields or methods (base class, followed by interfaces, followed by
@@ -190,7 +213,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     // -------------------------------------------------------------------------------------------------------------
 
     /** How classes are related. */
-    private enum RelType {
+    enum RelType {
 
         // Classes:
 
@@ -447,18 +470,31 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
             final Map<String, ClassInfo> classNameToClassInfo) {
         if (annotationInfoList != null) {
             for (final AnnotationInfo fieldAnnotationInfo : annotationInfoList) {
-                final ClassInfo annotationClassInfo = getOrCreateClassInfo(fieldAnnotationInfo.getName(),
-                        ANNOTATION_CLASS_MODIFIER, classNameToClassInfo);
-                // Mark this class as having a field or method with this annotation
-                this.addRelatedClass(isField ? RelType.FIELD_ANNOTATIONS : RelType.METHOD_ANNOTATIONS,
-                        annotationClassInfo);
-                annotationClassInfo.addRelatedClass(
-                        isField ? RelType.CLASSES_WITH_FIELD_ANNOTATION : RelType.CLASSES_WITH_METHOD_ANNOTATION,
-                        this);
+                addFieldOrMethodAnnotation(fieldAnnotationInfo.getName(), isField, classNameToClassInfo);
             }
         }
     }
 
+    /**
+     * Add a field or method annotation cross-link.
+     *
+     * @param annotationName
+     *            the annotation class name
+     * @param isField
+     *            the is field
+     * @param classNameToClassInfo
+     *            the map from class name to class info
+     */
+    private void addFieldOrMethodAnnotation(final String annotationName, final boolean isField,
+            final Map<String, ClassInfo> classNameToClassInfo) {
+        final ClassInfo annotationClassInfo = getOrCreateClassInfo(annotationName, ANNOTATION_CLASS_MODIFIER,
+                classNameToClassInfo);
+        // Mark this class as having a field or method with this annotation
+        this.addRelatedClass(isField ? RelType.FIELD_ANNOTATIONS : RelType.METHOD_ANNOTATIONS, annotationClassInfo);
+        annotationClassInfo.addRelatedClass(
+                isField ? RelType.CLASSES_WITH_FIELD_ANNOTATION : RelType.CLASSES_WITH_METHOD_ANNOTATION, this);
+    }
+
     /**
      * Add field info.
      *
@@ -514,6 +550,86 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         }
     }
 
+    /**
+     * Record that reading of fields and methods was deferred until they are first requested, and add the field and
+     * method annotation cross-links, so that classes can still be found by field or method annotation.
+     *
+     * @param memberInfoOffset
+     *            the offset of the fields table in the classfile
+     * @param fieldAnnotationNames
+     *            the names of the annotations on fields, or null if none
+     * @param methodAnnotationNames
+     *            the names of the annotations on methods, or null if none
+     * @param classNameToClassInfo
+     *            the map from class name to class info
+     */
+    void setDeferredMemberInfo(final int memberInfoOffset, final List<String> fieldAnnotationNames,
+            final List<String> methodAnnotationNames, final Map<String, ClassInfo> classNameToClassInfo) {
+        this.deferredMemberInfoOffset = memberInfoOffset;
+        this.deferredMemberInfoHasAnnotations = fieldAnnotationNames != null || methodAnnotationNames != null;
+        if (fieldAnnotationNames != null) {
+            for (final String annotationName : fieldAnnotationNames) {
+                addFieldOrMethodAnnotation(annotationName, /* isField = */ true, classNameToClassInfo);
+            }
+        }
+        if (methodAnnotationNames != null) {
+            for (final String annotationName : methodAnnotationNames) {
+                addFieldOrMethodAnnotation(annotationName, /* isField = */ false, classNameToClassInfo);
+            }
+        }
+    }
+
+    /**
+     * If reading of fields and methods was deferred, read them from the classfile resource.
+     *
+     * @param scanSpec
+     *            the scan spec
+     * @throws IllegalArgumentException
+     *             if the fields and methods could not be read.
+     */
+    void readDeferredMemberInfo(final ScanSpec scanSpec) {
+        if (deferredMemberInfoOffset >= 0) {
+            synchronized (this) {
+                if (deferredMemberInfoOffset >= 0) {
+                    try {
+                        Classfile.readDeferredMemberInfo(this, resource, deferredMemberInfoOffset, scanSpec);
+                    } catch (final IOException e) {
+                        throw new IllegalArgumentException("Could not read fields and methods of class " + name,
+                                e);
+                    }
+                    if (scanResult != null) {
+                        if (fieldInfo != null) {
+                            for (final FieldInfo fi : fieldInfo) {
+                                fi.setScanResult(scanResult);
+                            }
+                        }
+                        if (methodInfo != null) {
+                            for (final MethodInfo mi : methodInfo) {
+                                mi.setScanResult(scanResult);
+                            }
+                        }
+                    }
+                    deferredMemberInfoOffset = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * If reading of fields and methods was deferred, read them from the classfile resource.
+     *
+     * @throws IllegalArgumentException
+     *             if the {@link ScanResult} has been closed, or the fields and methods could not be read.
+     */
+    private void readDeferredMemberInfo() {
+        if (deferredMemberInfoOffset >= 0) {
+            if (scanResult.isClosed()) {
+                throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+            }
+            readDeferredMemberInfo(scanResult.scanSpec);
+        }
+    }
+
     /**
      * Set the class type signature, including any type params.
      *
@@ -585,22 +701,159 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         classInfo.isExternalClass = isExternalClass;
 
         // Remember which classpath element (zipfile / classpath root directory / module) the class was found in
-        classInfo.resource = classfileResource;
-        classInfo.moduleRef = classpathElement instanceof ClasspathElementModule
+        classInfo.setClasspathElementAndResource(classpathElement, classfileResource);
+
+        return classInfo;
+    }
+
+    /**
+     * Get the reverse of a relationship type, e.g. {@link RelType#SUBCLASSES} for {@link RelType#SUPERCLASSES}.
+     *
+     * @param relType
+     *            the relationship type
+     * @return the reverse relationship type
+     */
+    private static RelType reverseRelType(final RelType relType) {
+        switch (relType) {
+        case SUPERCLASSES:
+            return RelType.SUBCLASSES;
+        case SUBCLASSES:
+            return RelType.SUPERCLASSES;
+        case CONTAINS_INNER_CLASS:
+            return RelType.CONTAINED_WITHIN_OUTER_CLASS;
+        case CONTAINED_WITHIN_OUTER_CLASS:
+            return RelType.CONTAINS_INNER_CLASS;
+        case IMPLEMENTED_INTERFACES:
+            return RelType.CLASSES_IMPLEMENTING;
+        case CLASSES_IMPLEMENTING:
+            return RelType.IMPLEMENTED_INTERFACES;
+        case CLASS_ANNOTATIONS:
+            return RelType.CLASSES_WITH_ANNOTATION;
+        case CLASSES_WITH_ANNOTATION:
+            return RelType.CLASS_ANNOTATIONS;
+        case METHOD_ANNOTATIONS:
+            return RelType.CLASSES_WITH_METHOD_ANNOTATION;
+        case CLASSES_WITH_METHOD_ANNOTATION:
+            return RelType.METHOD_ANNOTATIONS;
+        case FIELD_ANNOTATIONS:
+            return RelType.CLASSES_WITH_FIELD_ANNOTATION;
+        case CLASSES_WITH_FIELD_ANNOTATION:
+            return RelType.FIELD_ANNOTATIONS;
+        default:
+            throw new IllegalArgumentException("Unknown relationship type " + relType);
+        }
+    }
+
+    /** The relationship types that are added when the classfile of a class is linked. */
+    private static final RelType[] CLASSFILE_DECLARED_REL_TYPES = { RelType.SUPERCLASSES,
+            RelType.CONTAINS_INNER_CLASS, RelType.CONTAINED_WITHIN_OUTER_CLASS, RelType.IMPLEMENTED_INTERFACES,
+            RelType.CLASS_ANNOTATIONS, RelType.METHOD_ANNOTATIONS, RelType.FIELD_ANNOTATIONS };
+
+    /**
+     * Undo the linking of the classfile of this class, so that the classfile can be rescanned and linked again, or
+     * dropped if it no longer exists. Removes the relationships declared by this class' classfile, along with the
+     * reverse relationships in the related classes, and drops all information read from the classfile.
+     * Relationships declared by other classfiles (e.g. the superclass relationship of a subclass of this class)
+     * are kept, so that this class becomes a placeholder if it is not linked again. Not threadsafe, should be run
+     * in single threaded context.
+     *
+     * @param unlinkedRelatedClassesOut
+     *            the set to add the related classes whose reverse relationships were removed to
+     */
+    void unlinkScannedClass(final Set<ClassInfo> unlinkedRelatedClassesOut) {
+        for (final RelType relType : CLASSFILE_DECLARED_REL_TYPES) {
+            final Set<ClassInfo> relatedClassInfoSet = relatedClasses.remove(relType);
+            if (relatedClassInfoSet != null) {
+                final RelType reverseRelType = reverseRelType(relType);
+                for (final ClassInfo relatedClassInfo : relatedClassInfoSet) {
+                    unlinkedRelatedClassesOut.add(relatedClassInfo);
+                    final Set<ClassInfo> reverseClassInfoSet = relatedClassInfo.relatedClasses.get(reverseRelType);
+                    if (reverseClassInfoSet != null && reverseClassInfoSet.remove(this)
+                            && reverseClassInfoSet.isEmpty()) {
+                        relatedClassInfo.relatedClasses.remove(reverseRelType);
+                    }
+                }
+            }
+        }
+        modifiers = 0;
+        isInterface = false;
+        isAnnotation = false;
+        isInherited = false;
+        typeSignatureStr = null;
+        typeSignature = null;
+        fullyQualifiedDefiningMethodName = null;
+        isExternalClass = true;
+        isScannedClass = false;
+        classpathElementFile = null;
+        jarfilePackageRoot = "";
+        moduleRef = null;
+        classpathElementURL = null;
+        classpathElement = null;
+        resource = null;
+        classLoader = null;
+        annotationInfo = null;
+        fieldInfo = null;
+        methodInfo = null;
+        deferredMemberInfoOffset = -1;
+        deferredMemberInfoHasAnnotations = false;
+        annotationDefaultParamValues = null;
+        annotationDefaultParamValuesHasBeenConvertedToPrimitive = false;
+        referencedClassNames = null;
+        referencedClasses = null;
+        overrideOrder = null;
+
+        // Restore the modifiers that placeholder classes get when referenced by other classes
+        if (relatedClasses.containsKey(RelType.CLASSES_IMPLEMENTING)) {
+            setModifiers(Modifier.INTERFACE);
+        }
+        if (relatedClasses.containsKey(RelType.CLASSES_WITH_ANNOTATION)
+                || relatedClasses.containsKey(RelType.CLASSES_WITH_METHOD_ANNOTATION)
+                || relatedClasses.containsKey(RelType.CLASSES_WITH_FIELD_ANNOTATION)) {
+            setModifiers(ANNOTATION_CLASS_MODIFIER);
+        }
+    }
+
+    /**
+     * Check whether any class is related to this class.
+     *
+     * @return true if this class has any superclass, subclass, interface, annotation or containment relationship
+     *         with another class.
+     */
+    boolean hasRelatedClasses() {
+        return !relatedClasses.isEmpty();
+    }
+
+    /** Clear the cached override order, after the class hierarchy has changed. */
+    void clearOverrideOrder() {
+        overrideOrder = null;
+    }
+
+    /**
+     * Set the classpath element and classfile resource that this class was found in, along with the classloader
+     * used to load the class. Called when the class is scanned, or when a cached class graph is reattached to the
+     * classpath elements of a new scan.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param classfileResource
+     *            the classfile resource
+     */
+    void setClasspathElementAndResource(final ClasspathElement classpathElement, final Resource classfileResource) {
+        this.classpathElement = classpathElement;
+        this.resource = classfileResource;
+        this.moduleRef = classpathElement instanceof ClasspathElementModule
                 ? ((ClasspathElementModule) classpathElement).getModuleRef()
                 : null;
-        classInfo.classpathElementFile = classInfo.moduleRef != null ? null
+        this.classpathElementFile = this.moduleRef != null ? null
                 : classpathElement instanceof ClasspathElementDir
                         ? ((ClasspathElementDir) classpathElement).getDirFile()
                         : classpathElement instanceof ClasspathElementZip
                                 ? ((ClasspathElementZip) classpathElement).getZipFile()
                                 : null;
-        classInfo.jarfilePackageRoot = classpathElement.getPackageRoot();
+        this.jarfilePackageRoot = classpathElement.getPackageRoot();
 
         // Remember which classloader is used to load the class
-        classInfo.classLoader = classpathElement.getClassLoader();
-
-        return classInfo;
+        this.classLoader = classpathElement.getClassLoader();
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -759,6 +1012,11 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
                     reachableClasses.addAll(annotatedClasses);
                 }
             }
+        } else if (this.relatedClasses instanceof RelatedClassesGraph.FrozenRelatedClasses) {
+            // For other relationship types, the reachable type stays the same over the transitive closure. If the
+            // class graph has been frozen, find the transitive closure over the compact graph representation.
+            ((RelatedClassesGraph.FrozenRelatedClasses) this.relatedClasses).addTransitiveClosure(relType,
+                    reachableClasses);
         } else {
             // For other relationship types, the reachable type stays the same over the transitive closure. Find the
             // transitive closure, breaking cycles where necessary.
@@ -932,6 +1190,16 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         return isExternalClass;
     }
 
+    /**
+     * Checks if the classfile for this class was scanned.
+     *
+     * @return true if the classfile for this class was scanned, or false if this class was only referenced by a
+     *         scanned class as a superclass, interface or annotation.
+     */
+    boolean isScannedClass() {
+        return isScannedClass;
+    }
+
     /**
      * Get the class modifier bits.
      *
@@ -1697,6 +1965,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableMethodInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableMethodInfo() before #scan()");
         }
+        readDeferredMemberInfo();
         if (methodInfo == null) {
             return MethodInfoList.EMPTY_LIST;
         }
@@ -2121,6 +2390,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableFieldInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableFieldInfo() before #scan()");
         }
+        readDeferredMemberInfo();
         return fieldInfo == null ? FieldInfoList.EMPTY_LIST : fieldInfo;
     }
 
@@ -2193,6 +2463,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableFieldInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableFieldInfo() before #scan()");
         }
+        readDeferredMemberInfo();
         if (fieldInfo == null) {
             return null;
         }
@@ -2517,15 +2788,18 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      */
     @Override
     protected void findReferencedClassNames(final Set<String> referencedClassNames) {
-        getMethodInfo().findReferencedClassNames(referencedClassNames);
-        getFieldInfo().findReferencedClassNames(referencedClassNames);
+        // Reuse one signature cursor for all type signatures and type descriptors in the class
+        final SignatureCursor signatureCursor = new SignatureCursor();
+        getMethodInfo().findReferencedClassNames(referencedClassNames, signatureCursor);
+        getFieldInfo().findReferencedClassNames(referencedClassNames, signatureCursor);
         getAnnotationInfo().findReferencedClassNames(referencedClassNames);
         if (annotationDefaultParamValues != null) {
             annotationDefaultParamValues.findReferencedClassNames(referencedClassNames);
         }
-        final ClassTypeSignature classSig = getTypeSignature();
-        if (classSig != null) {
-            classSig.findReferencedClassNames(referencedClassNames);
+        if (typeSignature != null) {
+            typeSignature.findReferencedClassNames(referencedClassNames);
+        } else if (typeSignatureStr != null) {
+            findReferencedClassNames(typeSignatureStr, signatureCursor, referencedClassNames);
         }
         // Remove any self-references
         referencedClassNames.remove(name);
@@ -2557,6 +2831,9 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
             throw new IllegalArgumentException(
                     "Please call ClassGraph#enableInterClassDependencies() before #scan()");
         }
+        if (scanResult.classDependencyGraph != null) {
+            return scanResult.classDependencyGraph.getDependencies(this);
+        }
         return referencedClasses == null ? ClassInfoList.EMPTY_LIST : referencedClasses;
     }
 
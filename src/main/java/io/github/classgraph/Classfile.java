@@ -43,10 +43,12 @@ import io.github.classgraph.Scanner.ClassfileScanWorkUnit;
 import nonapi.io.github.classgraph.ScanSpec;
 import nonapi.io.github.classgraph.concurrency.WorkQueue;
 import nonapi.io.github.classgraph.exceptions.ParseException;
+import nonapi.io.github.classgraph.types.SignatureCursor;
 import nonapi.io.github.classgraph.utils.InputStreamOrByteBufferAdapter;
 import nonapi.io.github.classgraph.utils.JarUtils;
 import nonapi.io.github.classgraph.utils.Join;
 import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.StringInternTable;
 
 /**
  * A classfile binary format parser. Implements its own buffering to avoid the overhead of using DataInputStream.
@@ -102,6 +104,33 @@ class Classfile {
     /** Referenced class names. */
     private Set<String> refdClassNames;
 
+    /**
+     * If true, find the names of classes referenced by the classfile. False if the classfile is only being read to
+     * hydrate deferred field and method info, since the referenced class names were already found during the scan.
+     */
+    private final boolean findRefdClassNames;
+
+    /** The cursor used to walk type signatures in the constant pool, created when first needed. */
+    private SignatureCursor signatureCursor;
+
+    /** If true, the fields and methods are skipped, and are only read when they are first requested. */
+    private boolean deferMemberInfo;
+
+    /** The offset of the fields table, if reading of fields and methods is deferred, otherwise -1. */
+    private int deferredMemberInfoOffset = -1;
+
+    /** The names of the annotations on fields, if reading of fields and methods is deferred. */
+    private List<String> deferredFieldAnnotationNames;
+
+    /** The names of the annotations on methods, if reading of fields and methods is deferred. */
+    private List<String> deferredMethodAnnotationNames;
+
+    /**
+     * The names of the annotations on the parameters of annotated methods, if reading of fields and methods is
+     * deferred.
+     */
+    private List<String> deferredMethodParamAnnotationNames;
+
     /** The classfile resource. */
     private final Resource classfileResource;
 
@@ -126,6 +155,9 @@ class Classfile {
     /** The scan spec. */
     private final ScanSpec scanSpec;
 
+    /** The scan-wide string intern table for constant pool strings. */
+    private final StringInternTable stringInternTable;
+
     /** The log. */
     private final LogNode log;
 
@@ -140,6 +172,9 @@ class Classfile {
     /** The indirection index for String/Class entries in the constant pool. */
     private int[] indirectStringRefs;
 
+    /** The number of entries in the constant pool of the current classfile (including the unused zeroeth entry). */
+    private int constantPoolCount;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** Thrown when a classfile's contents are not in the correct format. */
@@ -314,10 +349,35 @@ class Classfile {
                 }
             }
         }
+        // Check method, method parameter and field annotations, if reading of fields and methods is deferred
+        if (deferredMethodAnnotationNames != null) {
+            for (final String annotationName : deferredMethodAnnotationNames) {
+                scheduleScanningIfExternalClass(annotationName, "method annotation");
+            }
+        }
+        if (deferredMethodParamAnnotationNames != null) {
+            for (final String annotationName : deferredMethodParamAnnotationNames) {
+                scheduleScanningIfExternalClass(annotationName, "method parameter annotation");
+            }
+        }
+        if (deferredFieldAnnotationNames != null) {
+            for (final String annotationName : deferredFieldAnnotationNames) {
+                scheduleScanningIfExternalClass(annotationName, "field annotation");
+            }
+        }
     }
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Get the name of the class defined by this classfile.
+     *
+     * @return the class name
+     */
+    String getClassName() {
+        return className;
+    }
+
     /**
      * Link classes. Not threadsafe, should be run in a single-threaded context.
      *
@@ -377,6 +437,10 @@ class Classfile {
             if (methodInfoList != null) {
                 classInfo.addMethodInfo(methodInfoList, classNameToClassInfo);
             }
+            if (deferredMemberInfoOffset >= 0) {
+                classInfo.setDeferredMemberInfo(deferredMemberInfoOffset, deferredFieldAnnotationNames,
+                        deferredMethodAnnotationNames, classNameToClassInfo);
+            }
             if (typeSignature != null) {
                 classInfo.setTypeSignature(typeSignature);
             }
@@ -512,7 +576,7 @@ class Classfile {
         final int constantPoolStringOffset = getConstantPoolStringOffset(cpIdx, /* subFieldIdx = */ 0);
         return constantPoolStringOffset == 0 ? null
                 : inputStreamOrByteBuffer.readString(constantPoolStringOffset, replaceSlashWithDot,
-                        stripLSemicolon);
+                        stripLSemicolon, stringInternTable);
     }
 
     /**
@@ -534,7 +598,7 @@ class Classfile {
         final int constantPoolStringOffset = getConstantPoolStringOffset(cpIdx, subFieldIdx);
         return constantPoolStringOffset == 0 ? null
                 : inputStreamOrByteBuffer.readString(constantPoolStringOffset, /* replaceSlashWithDot = */ false,
-                        /* stripLSemicolon = */ false);
+                        /* stripLSemicolon = */ false, stringInternTable);
     }
 
     /**
@@ -572,7 +636,7 @@ class Classfile {
         if (utfLen == 0) {
             return '\0';
         }
-        return inputStreamOrByteBuffer.buf[constantPoolStringOffset + 2];
+        return (byte) inputStreamOrByteBuffer.readUnsignedByte(constantPoolStringOffset + 2);
     }
 
     /**
@@ -635,7 +699,7 @@ class Classfile {
         }
         final int strStart = strOffset + 2;
         for (int i = 0; i < strLen; i++) {
-            if ((char) (inputStreamOrByteBuffer.buf[strStart + i] & 0xff) != otherString.charAt(i)) {
+            if ((char) inputStreamOrByteBuffer.readUnsignedByte(strStart + i) != otherString.charAt(i)) {
                 return false;
             }
         }
@@ -790,6 +854,64 @@ class Classfile {
     /** An empty array for the case where there are no annotations. */
     private static final AnnotationInfo[] NO_ANNOTATIONS = new AnnotationInfo[0];
 
+    /**
+     * Read the class name of an annotation, and skip over the annotation's parameter values.
+     *
+     * @return the annotation class name
+     * @throws IOException
+     *             If an IO exception occurs.
+     */
+    private String readAnnotationNameAndSkipValues() throws IOException {
+        final String annotationClassName = getConstantPoolClassDescriptor(
+                inputStreamOrByteBuffer.readUnsignedShort());
+        final int numElementValuePairs = inputStreamOrByteBuffer.readUnsignedShort();
+        for (int i = 0; i < numElementValuePairs; i++) {
+            inputStreamOrByteBuffer.skip(2); // element_name_index
+            skipAnnotationElementValue();
+        }
+        return annotationClassName;
+    }
+
+    /**
+     * Skip over an annotation element value.
+     *
+     * @throws IOException
+     *             If an IO exception occurs.
+     */
+    private void skipAnnotationElementValue() throws IOException {
+        final int tag = (char) inputStreamOrByteBuffer.readUnsignedByte();
+        switch (tag) {
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 'Z':
+        case 's':
+        case 'c':
+            inputStreamOrByteBuffer.skip(2); // const_value_index or class_info_index
+            break;
+        case 'e':
+            inputStreamOrByteBuffer.skip(4); // type_name_index, const_name_index
+            break;
+        case '@':
+            readAnnotationNameAndSkipValues();
+            break;
+        case '[':
+            final int count = inputStreamOrByteBuffer.readUnsignedShort();
+            for (int i = 0; i < count; ++i) {
+                skipAnnotationElementValue();
+            }
+            break;
+        default:
+            throw new ClassfileFormatException("Class " + className + " has unknown annotation element type tag '"
+                    + ((char) tag) + "': element size unknown, cannot continue reading class. "
+                    + "Please report this at https://github.com/classgraph/classgraph/issues");
+        }
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -802,7 +924,8 @@ class Classfile {
         // Only record class dependency info if inter-class dependencies are enabled
         List<Integer> classNameCpIdxs = null;
         List<Integer> typeSignatureIdxs = null;
-        if (scanSpec.enableInterClassDependencies) {
+        if (findRefdClassNames && scanSpec.enableInterClassDependencies
+                && !scanSpec.enableConstantPoolClassDependencies) {
             classNameCpIdxs = new ArrayList<Integer>();
             typeSignatureIdxs = new ArrayList<Integer>();
         }
@@ -817,12 +940,15 @@ class Classfile {
             indirectStringRefs = new int[cpCount];
         }
         Arrays.fill(indirectStringRefs, 0, cpCount, -1);
+        constantPoolCount = cpCount;
 
         // Read constant pool entries
         for (int i = 1, skipSlot = 0; i < cpCount; i++) {
             if (skipSlot == 1) {
                 // Skip a slot (keeps Scrutinizer happy -- it doesn't like i++ in case 6)
                 skipSlot = 0;
+                // Clear any tag left over from the previous classfile, since the slot is unusable
+                entryTag[i] = 0;
                 continue;
             }
             entryTag[i] = inputStreamOrByteBuffer.readUnsignedByte();
@@ -848,7 +974,7 @@ class Classfile {
             case 7: // Class reference (format is e.g. "java/lang/String")
                 // Forward or backward indirect reference to a modified UTF8 entry
                 indirectStringRefs[i] = inputStreamOrByteBuffer.readUnsignedShort();
-                if (scanSpec.enableInterClassDependencies && entryTag[i] == 7) {
+                if (classNameCpIdxs != null) {
                     // If this is a class ref, and inter-class dependencies are enabled, record the dependency
                     classNameCpIdxs.add(indirectStringRefs[i]);
                 }
@@ -872,7 +998,7 @@ class Classfile {
             case 12: // name and type
                 final int nameRef = inputStreamOrByteBuffer.readUnsignedShort();
                 final int typeRef = inputStreamOrByteBuffer.readUnsignedShort();
-                if (scanSpec.enableInterClassDependencies) {
+                if (typeSignatureIdxs != null) {
                     typeSignatureIdxs.add(typeRef);
                 }
                 indirectStringRefs[i] = (nameRef << 16) | typeRef;
@@ -904,54 +1030,123 @@ class Classfile {
         // Find classes referenced in the constant pool (note that there are some class refs that will not be
         // found this way, e.g. enum classes and class refs in annotation parameter values, since they are
         // referenced as strings (tag 1) rather than classes (tag 7) or type signatures (part of tag 12)).
-        if (scanSpec.enableInterClassDependencies) {
+        if (findRefdClassNames && scanSpec.enableConstantPoolClassDependencies) {
+            refdClassNames = new HashSet<>();
+            // Harvest class names directly from the constant pool, without parsing type signatures
+            findConstantPoolClassNames(cpCount);
+        } else if (findRefdClassNames && scanSpec.enableInterClassDependencies) {
             refdClassNames = new HashSet<>();
             // Get class names from direct class references in constant pool
             for (final int cpIdx : classNameCpIdxs) {
-                final String refdClassName = getConstantPoolString(cpIdx, /* replaceSlashWithDot = */ true,
-                        /* stripLSemicolon = */ false);
-                if (refdClassName != null) {
-                    if (refdClassName.startsWith("[")) {
-                        // Parse array type signature, e.g. "[Ljava.lang.String;" -- uses '.' rather than '/'
-                        try {
-                            final TypeSignature typeSig = TypeSignature.parse(refdClassName.replace('.', '/'),
-                                    /* definingClass = */ null);
-                            typeSig.findReferencedClassNames(refdClassNames);
-                        } catch (final ParseException e) {
-                            // Should not happen
-                            throw new ClassfileFormatException("Could not parse class name: " + refdClassName, e);
-                        }
-                    } else {
+                if (getConstantPoolStringFirstByte(cpIdx) == '[') {
+                    // Walk array type signature, e.g. "[Ljava/lang/String;"
+                    findClassNamesInSignature(cpIdx);
+                } else {
+                    final String refdClassName = getConstantPoolString(cpIdx, /* replaceSlashWithDot = */ true,
+                            /* stripLSemicolon = */ false);
+                    if (refdClassName != null) {
                         refdClassNames.add(refdClassName);
                     }
                 }
             }
             // Get class names from type signatures in "name and type" entries in constant pool
             for (final int cpIdx : typeSignatureIdxs) {
-                final String typeSigStr = getConstantPoolString(cpIdx);
-                if (typeSigStr != null) {
-                    try {
-                        if (typeSigStr.indexOf('(') >= 0 || typeSigStr.equals("<init>")) {
-                            // Parse the type signature
-                            final MethodTypeSignature typeSig = MethodTypeSignature.parse(typeSigStr,
-                                    /* definingClassName = */ null);
-                            // Extract class names from type signature
-                            typeSig.findReferencedClassNames(refdClassNames);
-                        } else {
-                            // Parse the type signature
-                            final TypeSignature typeSig = TypeSignature.parse(typeSigStr,
-                                    /* definingClassName = */ null);
-                            // Extract class names from type signature
-                            typeSig.findReferencedClassNames(refdClassNames);
-                        }
-                    } catch (final ParseException e) {
-                        throw new ClassfileFormatException("Could not parse type signature: " + typeSigStr, e);
+                findClassNamesInSignature(cpIdx);
+            }
+        }
+    }
+
+    /**
+     * Find the names of the classes referenced by a type descriptor or type signature in the constant pool, and
+     * add them to {@link #refdClassNames}. Walks the modified UTF8 bytes of the constant pool entry in place with
+     * a reusable {@link SignatureCursor}, rather than parsing the signature into a {@link TypeSignature}.
+     *
+     * @param cpIdx
+     *            the constant pool index of the CONSTANT_Utf8 entry for the type descriptor or type signature
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void findClassNamesInSignature(final int cpIdx) throws IOException, ClassfileFormatException {
+        final int constantPoolStringOffset = getConstantPoolStringOffset(cpIdx, /* subFieldIdx = */ 0);
+        if (constantPoolStringOffset == 0) {
+            return;
+        }
+        if (signatureCursor == null) {
+            signatureCursor = new SignatureCursor();
+        }
+        try {
+            signatureCursor
+                    .reset(inputStreamOrByteBuffer, constantPoolStringOffset + 2,
+                            inputStreamOrByteBuffer.readUnsignedShort(constantPoolStringOffset))
+                    .findReferencedClassNames(refdClassNames, stringInternTable);
+        } catch (final ParseException e) {
+            throw new ClassfileFormatException("Could not parse type signature: "
+                    + getConstantPoolString(cpIdx) + " in classfile " + relativePath, e);
+        }
+    }
+
+    /**
+     * Find the names of the classes referenced by the CONSTANT_Class entries in the constant pool, and by the type
+     * descriptors of the CONSTANT_NameAndType and CONSTANT_MethodType entries, and add them to
+     * {@link #refdClassNames}.
+     *
+     * @param cpCount
+     *            the number of entries in the constant pool
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void findConstantPoolClassNames(final int cpCount) throws IOException, ClassfileFormatException {
+        for (int i = 1; i < cpCount; i++) {
+            switch (entryTag[i]) {
+            case 7: // Class reference
+                final int classNameCpIdx = indirectStringRefs[i];
+                if (getConstantPoolStringFirstByte(classNameCpIdx) == '[') {
+                    // Array class, e.g. "[[Ljava/lang/String;"
+                    findClassNamesInDescriptor(classNameCpIdx);
+                } else {
+                    final String refdClassName = getConstantPoolClassName(classNameCpIdx);
+                    if (refdClassName != null) {
+                        refdClassNames.add(refdClassName);
                     }
                 }
+                break;
+            case 12: // name and type
+                findClassNamesInDescriptor(indirectStringRefs[i] & 0xffff);
+                break;
+            case 16: // method type
+                findClassNamesInDescriptor(inputStreamOrByteBuffer.readUnsignedShort(entryOffset[i]));
+                break;
+            default:
+                break;
             }
         }
     }
 
+    /**
+     * Find the names of the classes referenced by a field or method type descriptor in the constant pool (e.g.
+     * {@code "(I[Ljava/lang/String;)Ljava/util/List;"}), and add them to {@link #refdClassNames}. A type descriptor
+     * is also a valid type signature, so it is walked by {@link #findClassNamesInSignature(int)}.
+     *
+     * @param descriptorCpIdx
+     *            the constant pool index of the CONSTANT_Utf8 entry for the descriptor
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void findClassNamesInDescriptor(final int descriptorCpIdx)
+            throws IOException, ClassfileFormatException {
+        if (descriptorCpIdx <= 0 || descriptorCpIdx >= constantPoolCount || entryTag[descriptorCpIdx] != 1) {
+            throw new ClassfileFormatException("Bad type descriptor constant pool index " + descriptorCpIdx
+                    + " in classfile " + relativePath);
+        }
+        findClassNamesInSignature(descriptorCpIdx);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1050,6 +1245,17 @@ class Classfile {
             final boolean fieldIsVisible = isPublicField || scanSpec.ignoreFieldVisibility;
             final boolean getStaticFinalFieldConstValue = scanSpec.enableStaticFinalFieldConstantInitializerValues
                     && isStaticFinalField && fieldIsVisible;
+            if (findRefdClassNames && scanSpec.enableConstantPoolClassDependencies) {
+                // Find classes referenced by the field type descriptor
+                findClassNamesInDescriptor(
+                        inputStreamOrByteBuffer.readUnsignedShort(inputStreamOrByteBuffer.curr + 2));
+            }
+            if (deferMemberInfo) {
+                inputStreamOrByteBuffer.skip(4); // name_index, descriptor_index
+                skipDeferredMemberAttributes(/* isField = */ true,
+                        fieldIsVisible && (scanSpec.enableFieldInfo || getStaticFinalFieldConstValue));
+                continue;
+            }
             if (!fieldIsVisible || (!scanSpec.enableFieldInfo && !getStaticFinalFieldConstValue)) {
                 // Skip field
                 inputStreamOrByteBuffer.readUnsignedShort(); // fieldNameCpIdx
@@ -1135,6 +1341,16 @@ class Classfile {
             final int methodModifierFlags = inputStreamOrByteBuffer.readUnsignedShort();
             final boolean isPublicMethod = ((methodModifierFlags & 0x0001) == 0x0001);
             final boolean methodIsVisible = isPublicMethod || scanSpec.ignoreMethodVisibility;
+            if (findRefdClassNames && scanSpec.enableConstantPoolClassDependencies) {
+                // Find classes referenced by the method type descriptor
+                findClassNamesInDescriptor(
+                        inputStreamOrByteBuffer.readUnsignedShort(inputStreamOrByteBuffer.curr + 2));
+            }
+            if (deferMemberInfo) {
+                inputStreamOrByteBuffer.skip(4); // name_index, descriptor_index
+                skipDeferredMemberAttributes(/* isField = */ false, methodIsVisible && scanSpec.enableMethodInfo);
+                continue;
+            }
 
             String methodName = null;
             String methodTypeDescriptor = null;
@@ -1155,6 +1371,7 @@ class Classfile {
             AnnotationInfo[][] methodParameterAnnotations = null;
             AnnotationInfoList methodAnnotationInfo = null;
             boolean methodHasBody = false;
+            int methodCodeAttributeOffset = -1;
             if (!methodIsVisible || (!enableMethodInfo && !isAnnotation)) {
                 // Skip method attributes
                 for (int j = 0; j < attributesCount; j++) {
@@ -1219,6 +1436,10 @@ class Classfile {
                                 readAnnotationElementValue()));
                     } else if (constantPoolStringEquals(attributeNameCpIdx, "Code")) {
                         methodHasBody = true;
+                        if (scanSpec.enableMethodBodyScanning) {
+                            // Decode the bytecode once the MethodInfo object has been created
+                            methodCodeAttributeOffset = inputStreamOrByteBuffer.curr;
+                        }
                         inputStreamOrByteBuffer.skip(attributeLength);
                     } else {
                         inputStreamOrByteBuffer.skip(attributeLength);
@@ -1229,11 +1450,249 @@ class Classfile {
                     if (methodInfoList == null) {
                         methodInfoList = new MethodInfoList();
                     }
-                    methodInfoList.add(new MethodInfo(className, methodName, methodAnnotationInfo,
+                    final MethodInfo methodInfo = new MethodInfo(className, methodName, methodAnnotationInfo,
                             methodModifierFlags, methodTypeDescriptor, methodTypeSignature, methodParameterNames,
-                            methodParameterModifiers, methodParameterAnnotations, methodHasBody));
+                            methodParameterModifiers, methodParameterAnnotations, methodHasBody);
+                    if (methodCodeAttributeOffset >= 0) {
+                        readMethodBody(methodInfo, methodCodeAttributeOffset);
+                    }
+                    methodInfoList.add(methodInfo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip the attributes of a field or method when reading of fields and methods is deferred, recording the names
+     * of any annotations on the field or method, so that the class can still be linked to the annotation classes.
+     *
+     * @param isField
+     *            true for a field, false for a method.
+     * @param recordAnnotations
+     *            true if the field or method is visible and would be read if reading were not deferred.
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void skipDeferredMemberAttributes(final boolean isField, final boolean recordAnnotations)
+            throws IOException, ClassfileFormatException {
+        final boolean readAnnotations = recordAnnotations && scanSpec.enableAnnotationInfo;
+        List<String> annotationNames = null;
+        List<String> paramAnnotationNames = null;
+        final int attributesCount = inputStreamOrByteBuffer.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            final int attributeNameCpIdx = inputStreamOrByteBuffer.readUnsignedShort();
+            final int attributeLength = inputStreamOrByteBuffer.readInt();
+            if (readAnnotations && (constantPoolStringEquals(attributeNameCpIdx, "RuntimeVisibleAnnotations")
+                    || (!scanSpec.disableRuntimeInvisibleAnnotations
+                            && constantPoolStringEquals(attributeNameCpIdx, "RuntimeInvisibleAnnotations")))) {
+                final int annotationCount = inputStreamOrByteBuffer.readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    if (annotationNames == null) {
+                        annotationNames = new ArrayList<>();
+                    }
+                    annotationNames.add(readAnnotationNameAndSkipValues());
+                }
+            } else if (readAnnotations && !isField
+                    && (constantPoolStringEquals(attributeNameCpIdx, "RuntimeVisibleParameterAnnotations")
+                            || (!scanSpec.disableRuntimeInvisibleAnnotations && constantPoolStringEquals(
+                                    attributeNameCpIdx, "RuntimeInvisibleParameterAnnotations")))) {
+                final int paramCount = inputStreamOrByteBuffer.readUnsignedByte();
+                for (int j = 0; j < paramCount; j++) {
+                    final int numAnnotations = inputStreamOrByteBuffer.readUnsignedShort();
+                    for (int k = 0; k < numAnnotations; k++) {
+                        if (paramAnnotationNames == null) {
+                            paramAnnotationNames = new ArrayList<>();
+                        }
+                        paramAnnotationNames.add(readAnnotationNameAndSkipValues());
+                    }
+                }
+            } else {
+                inputStreamOrByteBuffer.skip(attributeLength);
+            }
+        }
+        if (annotationNames != null) {
+            if (isField) {
+                if (deferredFieldAnnotationNames == null) {
+                    deferredFieldAnnotationNames = new ArrayList<>();
+                }
+                deferredFieldAnnotationNames.addAll(annotationNames);
+            } else {
+                if (deferredMethodAnnotationNames == null) {
+                    deferredMethodAnnotationNames = new ArrayList<>();
+                }
+                deferredMethodAnnotationNames.addAll(annotationNames);
+                // Parameter annotations are only checked for external classes if the method is annotated
+                if (paramAnnotationNames != null) {
+                    if (deferredMethodParamAnnotationNames == null) {
+                        deferredMethodParamAnnotationNames = new ArrayList<>();
+                    }
+                    deferredMethodParamAnnotationNames.addAll(paramAnnotationNames);
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The number of operand bytes following each opcode, or -1 for opcodes with variable-length operands
+     * (tableswitch, lookupswitch and wide) or invalid opcodes.
+     */
+    private static final byte[] OPCODE_OPERAND_LENGTHS = new byte[256];
+
+    static {
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, (byte) -1);
+        // Opcodes with no operands
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x00, 0x10, (byte) 0); // nop .. dconst_1
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x1a, 0x36, (byte) 0); // iload_0 .. saload
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x3b, 0x84, (byte) 0); // istore_0 .. lxor
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x85, 0x99, (byte) 0); // i2l .. dcmpg
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0xac, 0xb2, (byte) 0); // ireturn .. return
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0xbe, 0xc0, (byte) 0); // arraylength, athrow
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0xc2, 0xc4, (byte) 0); // monitorenter, monitorexit
+        // Opcodes with a local variable index or byte operand
+        OPCODE_OPERAND_LENGTHS[0x10] = 1; // bipush
+        OPCODE_OPERAND_LENGTHS[0x12] = 1; // ldc
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x15, 0x1a, (byte) 1); // iload .. aload
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x36, 0x3b, (byte) 1); // istore .. astore
+        OPCODE_OPERAND_LENGTHS[0xa9] = 1; // ret
+        OPCODE_OPERAND_LENGTHS[0xbc] = 1; // newarray
+        // Opcodes with a two-byte constant pool index, branch offset or immediate operand
+        OPCODE_OPERAND_LENGTHS[0x11] = 2; // sipush
+        OPCODE_OPERAND_LENGTHS[0x13] = 2; // ldc_w
+        OPCODE_OPERAND_LENGTHS[0x14] = 2; // ldc2_w
+        OPCODE_OPERAND_LENGTHS[0x84] = 2; // iinc
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0x99, 0xa9, (byte) 2); // ifeq .. jsr
+        Arrays.fill(OPCODE_OPERAND_LENGTHS, 0xb2, 0xb9, (byte) 2); // getstatic .. invokestatic
+        OPCODE_OPERAND_LENGTHS[0xbb] = 2; // new
+        OPCODE_OPERAND_LENGTHS[0xbd] = 2; // anewarray
+        OPCODE_OPERAND_LENGTHS[0xc0] = 2; // checkcast
+        OPCODE_OPERAND_LENGTHS[0xc1] = 2; // instanceof
+        OPCODE_OPERAND_LENGTHS[0xc6] = 2; // ifnull
+        OPCODE_OPERAND_LENGTHS[0xc7] = 2; // ifnonnull
+        // Opcodes with longer fixed-length operands
+        OPCODE_OPERAND_LENGTHS[0xc5] = 3; // multianewarray
+        OPCODE_OPERAND_LENGTHS[0xb9] = 4; // invokeinterface
+        OPCODE_OPERAND_LENGTHS[0xba] = 4; // invokedynamic
+        OPCODE_OPERAND_LENGTHS[0xc8] = 4; // goto_w
+        OPCODE_OPERAND_LENGTHS[0xc9] = 4; // jsr_w
+    }
+
+    /**
+     * Decode the bytecode of a method body, and record the methods invoked, fields read or written, and classes
+     * instantiated by the method body in the {@link MethodInfo} object. Reads at absolute offsets, so does not
+     * change the current read position.
+     *
+     * @param methodInfo
+     *            the {@link MethodInfo} object for the method.
+     * @param codeAttributeOffset
+     *            the offset of the body of the method's Code attribute.
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void readMethodBody(final MethodInfo methodInfo, final int codeAttributeOffset)
+            throws IOException, ClassfileFormatException {
+        // Skip max_stack and max_locals
+        final int codeLength = inputStreamOrByteBuffer.readInt(codeAttributeOffset + 4);
+        final int codeStart = codeAttributeOffset + 8;
+        if (codeLength < 0) {
+            throw new ClassfileFormatException("Bad code length " + codeLength + " in method " + methodInfo.getName()
+                    + " of class " + className);
+        }
+        byte[] refKinds = null;
+        String[] refNames = null;
+        int numRefs = 0;
+        Set<Integer> refKindsAndCpIdxsFound = null;
+        for (int pc = 0; pc < codeLength;) {
+            final int opcode = inputStreamOrByteBuffer.readUnsignedByte(codeStart + pc);
+            byte refKind = -1;
+            if (opcode >= 0xb2 && opcode <= 0xb5) {
+                // getstatic, putstatic, getfield, putfield
+                refKind = opcode == 0xb2 || opcode == 0xb4 ? MethodBodyIndex.FIELD_READ
+                        : MethodBodyIndex.FIELD_WRITE;
+            } else if (opcode >= 0xb6 && opcode <= 0xb9) {
+                // invokevirtual, invokespecial, invokestatic, invokeinterface
+                refKind = MethodBodyIndex.INVOKE;
+            } else if (opcode == 0xbb) {
+                // new
+                refKind = MethodBodyIndex.INSTANTIATE;
+            }
+            if (refKind >= 0) {
+                final int cpIdx = inputStreamOrByteBuffer.readUnsignedShort(codeStart + pc + 1);
+                if (refKindsAndCpIdxsFound == null) {
+                    refKindsAndCpIdxsFound = new HashSet<>();
+                }
+                if (refKindsAndCpIdxsFound.add(refKind << 16 | cpIdx)) {
+                    final int tag = cpIdx > 0 && cpIdx < constantPoolCount ? entryTag[cpIdx] : -1;
+                    if (refKind == MethodBodyIndex.INSTANTIATE ? tag != 7
+                            : refKind == MethodBodyIndex.INVOKE ? tag != 10 && tag != 11 : tag != 9) {
+                        throw new ClassfileFormatException("Bad constant pool index " + cpIdx + " for opcode "
+                                + opcode + " in method " + methodInfo.getName() + " of class " + className);
+                    }
+                    String refClassName;
+                    String refMemberName;
+                    if (refKind == MethodBodyIndex.INSTANTIATE) {
+                        refClassName = getConstantPoolClassName(cpIdx);
+                        refMemberName = null;
+                    } else {
+                        // Field and method refs consist of a class ref index and a name and type index
+                        refClassName = getConstantPoolClassName(
+                                inputStreamOrByteBuffer.readUnsignedShort(entryOffset[cpIdx]));
+                        refMemberName = getConstantPoolString(
+                                inputStreamOrByteBuffer.readUnsignedShort(entryOffset[cpIdx] + 2),
+                                /* subFieldIdx = */ 0);
+                    }
+                    if (refKinds == null) {
+                        refKinds = new byte[8];
+                        refNames = new String[16];
+                    } else if (numRefs == refKinds.length) {
+                        refKinds = Arrays.copyOf(refKinds, numRefs * 2);
+                        refNames = Arrays.copyOf(refNames, numRefs * 4);
+                    }
+                    refKinds[numRefs] = refKind;
+                    refNames[2 * numRefs] = refClassName;
+                    refNames[2 * numRefs + 1] = refMemberName;
+                    numRefs++;
                 }
             }
+            final int operandLength = OPCODE_OPERAND_LENGTHS[opcode];
+            if (operandLength >= 0) {
+                pc += 1 + operandLength;
+            } else if (opcode == 0xaa) {
+                // tableswitch: padding to a 4-byte boundary, then default, low, high, and (high - low + 1) offsets
+                final int operandsStart = (pc + 4) & ~3;
+                final int low = inputStreamOrByteBuffer.readInt(codeStart + operandsStart + 4);
+                final int high = inputStreamOrByteBuffer.readInt(codeStart + operandsStart + 8);
+                final long numOffsets = (long) high - (long) low + 1L;
+                if (numOffsets < 0 || numOffsets > codeLength) {
+                    throw new ClassfileFormatException("Bad tableswitch range in method " + methodInfo.getName()
+                            + " of class " + className);
+                }
+                pc = operandsStart + 12 + (int) numOffsets * 4;
+            } else if (opcode == 0xab) {
+                // lookupswitch: padding to a 4-byte boundary, then default, npairs, and npairs match-offset pairs
+                final int operandsStart = (pc + 4) & ~3;
+                final int numPairs = inputStreamOrByteBuffer.readInt(codeStart + operandsStart + 4);
+                if (numPairs < 0 || numPairs > codeLength) {
+                    throw new ClassfileFormatException("Bad lookupswitch pair count in method "
+                            + methodInfo.getName() + " of class " + className);
+                }
+                pc = operandsStart + 8 + numPairs * 8;
+            } else if (opcode == 0xc4) {
+                // wide: iinc takes a two-byte index and a two-byte constant, other opcodes take a two-byte index
+                pc += inputStreamOrByteBuffer.readUnsignedByte(codeStart + pc + 1) == 0x84 ? 6 : 4;
+            } else {
+                throw new ClassfileFormatException(
+                        "Unknown opcode " + opcode + " in method " + methodInfo.getName() + " of class " + className);
+            }
+        }
+        if (numRefs > 0) {
+            methodInfo.methodBodyRefKinds = Arrays.copyOf(refKinds, numRefs);
+            methodInfo.methodBodyRefNames = Arrays.copyOf(refNames, 2 * numRefs);
         }
     }
 
@@ -1317,6 +1776,79 @@ class Classfile {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Constructor for reading the fields and methods of a class whose field and method info was deferred during
+     * the scan.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object for the class
+     * @param classfileResource
+     *            the classfile resource
+     * @param memberInfoOffset
+     *            the offset of the fields table in the classfile
+     * @param scanSpec
+     *            the scan spec
+     * @throws IOException
+     *             If an IO exception occurs.
+     * @throws ClassfileFormatException
+     *             If a problem occurs while parsing the classfile.
+     */
+    private Classfile(final ClassInfo classInfo, final Resource classfileResource, final int memberInfoOffset,
+            final ScanSpec scanSpec) throws IOException, ClassfileFormatException {
+        this.classpathElement = null;
+        this.findRefdClassNames = false;
+        this.classpathOrder = null;
+        this.relativePath = classfileResource.getPath();
+        this.classNamesScheduledForScanning = null;
+        this.classfileResource = classfileResource;
+        this.isExternalClass = classInfo.isExternalClass();
+        this.scanSpec = scanSpec;
+        this.stringInternTable = null;
+        this.log = null;
+        this.className = classInfo.getName();
+        try {
+            inputStreamOrByteBuffer = classfileResource.openOrRead();
+            if (inputStreamOrByteBuffer.readInt() != 0xCAFEBABE) {
+                throw new ClassfileFormatException("Classfile does not have correct magic number");
+            }
+            // Skip minor and major version
+            inputStreamOrByteBuffer.skip(4);
+            // The constant pool has to be re-read, since the field and method tables refer to it
+            readConstantPoolEntries();
+            if (memberInfoOffset < inputStreamOrByteBuffer.curr) {
+                throw new ClassfileFormatException("Bad field table offset " + memberInfoOffset);
+            }
+            inputStreamOrByteBuffer.skip(memberInfoOffset - inputStreamOrByteBuffer.curr);
+            readFields();
+            readMethods();
+        } finally {
+            classfileResource.close();
+            inputStreamOrByteBuffer = null;
+        }
+    }
+
+    /**
+     * Read the fields and methods of a class whose field and method info was deferred during the scan, and add
+     * them to the {@link ClassInfo} object.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object for the class
+     * @param classfileResource
+     *            the classfile resource
+     * @param memberInfoOffset
+     *            the offset of the fields table in the classfile
+     * @param scanSpec
+     *            the scan spec
+     * @throws IOException
+     *             If an IO exception occurs, or the classfile could not be parsed.
+     */
+    static void readDeferredMemberInfo(final ClassInfo classInfo, final Resource classfileResource,
+            final int memberInfoOffset, final ScanSpec scanSpec) throws IOException {
+        final Classfile classfile = new Classfile(classInfo, classfileResource, memberInfoOffset, scanSpec);
+        classInfo.fieldInfo = classfile.fieldInfoList;
+        classInfo.methodInfo = classfile.methodInfoList;
+    }
+
     /**
      * Directly examine contents of classfile binary header to determine annotations, implemented interfaces, the
      * super-class etc. Creates a new ClassInfo object, and adds it to classNameToClassInfoOut. Assumes classpath
@@ -1338,6 +1870,8 @@ class Classfile {
      *            the work queue
      * @param scanSpec
      *            the scan spec
+     * @param stringInternTable
+     *            the scan-wide string intern table
      * @param log
      *            the log
      * @throws IOException
@@ -1351,15 +1885,18 @@ class Classfile {
     Classfile(final ClasspathElement classpathElement, final List<ClasspathElement> classpathOrder,
             final Set<String> classNamesScheduledForScanning, final String relativePath,
             final Resource classfileResource, final boolean isExternalClass,
-            final WorkQueue<ClassfileScanWorkUnit> workQueue, final ScanSpec scanSpec, final LogNode log)
+            final WorkQueue<ClassfileScanWorkUnit> workQueue, final ScanSpec scanSpec,
+            final StringInternTable stringInternTable, final LogNode log)
             throws IOException, ClassfileFormatException, SkipClassException {
         this.classpathElement = classpathElement;
+        this.findRefdClassNames = true;
         this.classpathOrder = classpathOrder;
         this.relativePath = relativePath;
         this.classNamesScheduledForScanning = classNamesScheduledForScanning;
         this.classfileResource = classfileResource;
         this.isExternalClass = isExternalClass;
         this.scanSpec = scanSpec;
+        this.stringInternTable = stringInternTable;
         this.log = log;
 
         try {
@@ -1386,6 +1923,18 @@ class Classfile {
             // Read interfaces
             readInterfaces();
 
+            // If lazy member info is enabled, only record the offset of the fields table, so that fields and
+            // methods can be read when they are first requested. Annotation classes are read eagerly, since the
+            // default parameter values of an annotation are stored in its method table. Members are also read
+            // eagerly if zipfiles are closed as soon as the scan completes, since the classfile could not be
+            // re-read after the scan.
+            if (scanSpec.enableLazyMemberInfo && !isAnnotation && !scanSpec.enableMethodBodyScanning
+                    && !scanSpec.removeTemporaryFilesAfterScan
+                    && (scanSpec.enableFieldInfo || scanSpec.enableMethodInfo)) {
+                deferMemberInfo = true;
+                deferredMemberInfoOffset = inputStreamOrByteBuffer.curr;
+            }
+
             // Read fields
             readFields();
 
@@ -29,6 +29,7 @@
 package io.github.classgraph;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -40,6 +41,8 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import io.github.classgraph.ResourceList.ByteBufferConsumer;
+import io.github.classgraph.ResourceList.ResourceFilter;
 import io.github.classgraph.Scanner.ClasspathEntryWorkUnit;
 import nonapi.io.github.classgraph.ScanSpec;
 import nonapi.io.github.classgraph.ScanSpec.ScanSpecPathMatch;
@@ -285,6 +288,11 @@ abstract class ClasspathElement {
         // Add resource to whitelistedResources, whether for a classfile or non-classfile resource
         whitelistedResources.add(resource);
 
+        // Pass the resource to any resource match processors while the classpath element is open
+        if (scanSpec.resourceMatchProcessors != null) {
+            processMatchingResource(resource, log);
+        }
+
         // Write to log if enabled, and as long as classfile scanning is not disabled, and this is not
         // a blacklisted classfile
         if (log != null && isWhitelisted) {
@@ -312,6 +320,31 @@ abstract class ClasspathElement {
         }
     }
 
+    /**
+     * Read a whitelisted resource and pass it to each resource match processor whose filter accepts it, then
+     * release the resource.
+     *
+     * @param resource
+     *            the resource
+     * @param log
+     *            the log
+     */
+    private void processMatchingResource(final Resource resource, final LogNode log) {
+        for (final Entry<ResourceFilter, ByteBufferConsumer> ent : scanSpec.resourceMatchProcessors) {
+            if (ent.getKey().accept(resource)) {
+                try {
+                    ent.getValue().accept(resource, resource.read());
+                } catch (final IOException e) {
+                    if (log != null) {
+                        log.log("Could not read resource " + resource + " : " + e);
+                    }
+                } finally {
+                    resource.close();
+                }
+            }
+        }
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
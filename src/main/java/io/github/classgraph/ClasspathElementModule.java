@@ -322,16 +322,19 @@ class ClasspathElementModule extends ClasspathElement {
 
                 // Get match status of the parent directory of this resource's relative path (or reuse the last
                 // match status for speed, if the directory name hasn't changed).
+                // The parent directory is compared in place, so that a substring is only allocated when it changes.
                 final int lastSlashIdx = relativePath.lastIndexOf("/");
-                final String parentRelativePath = lastSlashIdx < 0 ? "/"
-                        : relativePath.substring(0, lastSlashIdx + 1);
-                final boolean parentRelativePathChanged = !parentRelativePath.equals(prevParentRelativePath);
-                final ScanSpecPathMatch parentMatchStatus = //
-                        prevParentRelativePath == null || parentRelativePathChanged
-                                ? scanSpec.dirWhitelistMatchStatus(parentRelativePath)
-                                : prevParentMatchStatus;
-                prevParentRelativePath = parentRelativePath;
-                prevParentMatchStatus = parentMatchStatus;
+                final int parentRelativePathLen = lastSlashIdx + 1;
+                final boolean parentRelativePathChanged = prevParentRelativePath == null
+                        || (lastSlashIdx < 0 ? !prevParentRelativePath.equals("/")
+                                : prevParentRelativePath.length() != parentRelativePathLen || !relativePath
+                                        .regionMatches(0, prevParentRelativePath, 0, parentRelativePathLen));
+                if (parentRelativePathChanged) {
+                    prevParentRelativePath = lastSlashIdx < 0 ? "/"
+                            : relativePath.substring(0, parentRelativePathLen);
+                    prevParentMatchStatus = scanSpec.dirWhitelistMatchStatus(prevParentRelativePath);
+                }
+                final ScanSpecPathMatch parentMatchStatus = prevParentMatchStatus;
 
                 if (parentMatchStatus == ScanSpecPathMatch.HAS_BLACKLISTED_PATH_PREFIX) {
                     // The parent dir or one of its ancestral dirs is blacklisted
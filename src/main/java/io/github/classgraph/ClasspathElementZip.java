@@ -38,8 +38,10 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -71,6 +73,11 @@ class ClasspathElementZip extends ClasspathElement {
     private String zipFilePath;
     /** A map from relative path to {@link Resource} for non-blacklisted zip entries. */
     private final ConcurrentHashMap<String, Resource> relativePathToResource = new ConcurrentHashMap<>();
+    /**
+     * If true, {@link #scanPaths(LogNode)} only visited zip entries within whitelisted path prefixes, so
+     * {@link #relativePathToResource} does not contain entries for all non-blacklisted zip entries.
+     */
+    private boolean skippedNonWhitelistedEntries;
     /** The nested jar handler. */
     private final NestedJarHandler nestedJarHandler;
     /**
@@ -186,23 +193,30 @@ class ClasspathElementZip extends ClasspathElement {
             // as classpath elements
             int childClasspathEntryIdx = 0;
             if (scanSpec.scanNestedJars) {
-                for (final FastZipEntry zipEntry : logicalZipFile.entries) {
-                    for (final String libDirPrefix : ClassLoaderHandlerRegistry.AUTOMATIC_LIB_DIR_PREFIXES) {
-                        if (zipEntry.entryNameUnversioned.startsWith(libDirPrefix)
-                                && zipEntry.entryNameUnversioned.endsWith(".jar")) {
-                            final String entryPath = zipEntry.getPath();
-                            if (subLog != null) {
-                                subLog.log("Found nested lib jar: " + entryPath);
-                            }
-                            workQueue.addWorkUnit(new ClasspathEntryWorkUnit(
-                                    /* rawClasspathEntry = */ new SimpleEntry<>(entryPath, classLoader),
-                                    /* parentClasspathElement = */ this,
-                                    /* orderWithinParentClasspathElement = */
-                                    childClasspathEntryIdx++));
-                            break;
+                // Find lib jars using the sorted entry index, then add them in their original order
+                final BitSet libJarEntryIndices = new BitSet(logicalZipFile.entries.size());
+                final int[] sortedEntryIndices = logicalZipFile.getEntryIndicesSortedByName();
+                for (final String libDirPrefix : ClassLoaderHandlerRegistry.AUTOMATIC_LIB_DIR_PREFIXES) {
+                    for (int i = logicalZipFile.findFirstEntryWithPrefix(libDirPrefix); i < sortedEntryIndices.length
+                            && logicalZipFile.entries.get(sortedEntryIndices[i]).entryNameUnversioned
+                                    .startsWith(libDirPrefix); i++) {
+                        if (logicalZipFile.entries.get(sortedEntryIndices[i]).entryNameUnversioned
+                                .endsWith(".jar")) {
+                            libJarEntryIndices.set(sortedEntryIndices[i]);
                         }
                     }
                 }
+                for (int i = libJarEntryIndices.nextSetBit(0); i >= 0; i = libJarEntryIndices.nextSetBit(i + 1)) {
+                    final String entryPath = logicalZipFile.entries.get(i).getPath();
+                    if (subLog != null) {
+                        subLog.log("Found nested lib jar: " + entryPath);
+                    }
+                    workQueue.addWorkUnit(new ClasspathEntryWorkUnit(
+                            /* rawClasspathEntry = */ new SimpleEntry<>(entryPath, classLoader),
+                            /* parentClasspathElement = */ this,
+                            /* orderWithinParentClasspathElement = */
+                            childClasspathEntryIdx++));
+                }
             }
 
             // Create child classpath elements from values obtained from Class-Path entry in manifest
@@ -306,7 +320,13 @@ class ClasspathElementZip extends ClasspathElement {
 
             @Override
             synchronized InputStreamOrByteBufferAdapter openOrRead() throws IOException {
-                return new InputStreamOrByteBufferAdapter(open());
+                if (zipEntry.canGetAsSlice()) {
+                    // For STORED entries, read the entry in place from the mmap'd zipfile, without copying
+                    return new InputStreamOrByteBufferAdapter(read());
+                } else {
+                    // Inflate DEFLATED entries incrementally as the classfile is read
+                    return new InputStreamOrByteBufferAdapter(open());
+                }
             }
 
             @Override
@@ -366,7 +386,162 @@ class ClasspathElementZip extends ClasspathElement {
      */
     @Override
     Resource getResource(final String relativePath) {
-        return relativePathToResource.get(relativePath);
+        final Resource resource = relativePathToResource.get(relativePath);
+        if (resource == null && skippedNonWhitelistedEntries) {
+            return getSkippedResource(relativePath);
+        }
+        return resource;
+    }
+
+    /**
+     * Get the {@link Resource} for a relative path that was not visited by {@link #scanPaths(LogNode)}, because it
+     * is outside the whitelisted path prefixes, by looking up the zip entry in the sorted entry index. Mirrors the
+     * semantics of {@link #scanPaths(LogNode)}: the earliest zip entry with the relative path is returned, and
+     * entries within nested classpath roots or blacklisted paths are ignored.
+     *
+     * @param relativePath
+     *            the relative path
+     * @return the {@link Resource}, or null if there is no non-blacklisted zip entry with the relative path.
+     */
+    private Resource getSkippedResource(final String relativePath) {
+        final int lastSlashIdx = relativePath.lastIndexOf('/');
+        if (scanSpec.dirWhitelistMatchStatus(lastSlashIdx < 0 ? "/" : relativePath.substring(0,
+                lastSlashIdx + 1)) == ScanSpecPathMatch.HAS_BLACKLISTED_PATH_PREFIX) {
+            return null;
+        }
+        // Find the zip entry names that could map to the relative path
+        final List<String> entryNames = new ArrayList<>();
+        if (!packageRootPrefix.isEmpty()) {
+            entryNames.add(packageRootPrefix + relativePath);
+        } else {
+            entryNames.add(relativePath);
+            for (final String prefix : ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES) {
+                entryNames.add(prefix + relativePath);
+            }
+        }
+        final int[] sortedEntryIndices = logicalZipFile.getEntryIndicesSortedByName();
+        int earliestEntryIdx = -1;
+        for (final String entryName : entryNames) {
+            if (isInNestedClasspathRoot(entryName) || !relativePath.equals(getRelativePath(entryName))) {
+                continue;
+            }
+            final int i = logicalZipFile.findFirstEntryWithPrefix(entryName);
+            if (i < sortedEntryIndices.length
+                    && logicalZipFile.entries.get(sortedEntryIndices[i]).entryNameUnversioned.equals(entryName)
+                    && (earliestEntryIdx < 0 || sortedEntryIndices[i] < earliestEntryIdx)) {
+                // Entries with the same name are sorted in their original order, so this is the earliest entry
+                earliestEntryIdx = sortedEntryIndices[i];
+            }
+        }
+        if (earliestEntryIdx < 0) {
+            return null;
+        }
+        final Resource resource = newResource(logicalZipFile.entries.get(earliestEntryIdx), relativePath);
+        final Resource existingResource = relativePathToResource.putIfAbsent(relativePath, resource);
+        return existingResource == null ? resource : existingResource;
+    }
+
+    /**
+     * Check if a zip entry is within a nested classpath root (i.e. is part of another classpath element).
+     *
+     * @param entryName
+     *            the unversioned zip entry name
+     * @return true if the zip entry is within a nested classpath root.
+     */
+    private boolean isInNestedClasspathRoot(final String entryName) {
+        if (nestedClasspathRootPrefixes != null) {
+            // This is O(mn), which is inefficient, but the number of nested classpath roots should be small
+            for (final String nestedClasspathRoot : nestedClasspathRootPrefixes) {
+                if (entryName.startsWith(nestedClasspathRoot)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the relative path of a zip entry, by stripping the package root prefix, or any automatic package root
+     * prefix if there is no package root prefix.
+     *
+     * @param entryName
+     *            the unversioned zip entry name
+     * @return the relative path, or null if the zip entry is not within the package root.
+     */
+    private String getRelativePath(final String entryName) {
+        if (!packageRootPrefix.isEmpty()) {
+            return entryName.startsWith(packageRootPrefix) ? entryName.substring(packageRootPrefix.length())
+                    : null;
+        }
+        String relativePath = entryName;
+        for (int i = 0; i < ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES.length; i++) {
+            if (relativePath.startsWith(ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES[i])) {
+                relativePath = relativePath
+                        .substring(ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES[i].length());
+            }
+        }
+        return relativePath;
+    }
+
+    /**
+     * If the scan spec whitelists only some paths, find the zip entries that may be within a whitelisted path,
+     * using the sorted entry index, so that the remaining entries can be skipped by {@link #scanPaths(LogNode)}.
+     *
+     * @return the indices of the zip entries to visit, or null if all zip entries need to be visited.
+     */
+    private BitSet findEntriesWithinWhitelistedPaths() {
+        if (!scanSpec.classpathElementResourcePathWhiteBlackList.whitelistAndBlacklistAreEmpty()) {
+            // Every resource path needs to be checked against the classpath element resource path whitelist
+            return null;
+        }
+        final List<String> whitelistedPathPrefixes = scanSpec.getWhitelistedPathPrefixes();
+        if (whitelistedPathPrefixes == null) {
+            return null;
+        }
+        if (scanSpec.enableClassInfo) {
+            whitelistedPathPrefixes.add("module-info.class");
+        }
+        final List<String> packageRootPrefixes = new ArrayList<>();
+        if (!packageRootPrefix.isEmpty()) {
+            packageRootPrefixes.add(packageRootPrefix);
+        } else {
+            packageRootPrefixes.add("");
+            final String[] automaticPrefixes = ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES;
+            for (int i = 0; i < automaticPrefixes.length; i++) {
+                packageRootPrefixes.add(automaticPrefixes[i]);
+                for (int j = i + 1; j < automaticPrefixes.length; j++) {
+                    final String combinedPrefix = automaticPrefixes[i] + automaticPrefixes[j];
+                    final int k = logicalZipFile.findFirstEntryWithPrefix(combinedPrefix);
+                    if (k < logicalZipFile.entries.size() && logicalZipFile.entries
+                            .get(logicalZipFile.getEntryIndicesSortedByName()[k]).entryNameUnversioned
+                            .startsWith(combinedPrefix)) {
+                        // More than one automatic package root prefix would be stripped from some entry names
+                        return null;
+                    }
+                }
+            }
+        }
+        final BitSet entryIndices = new BitSet(logicalZipFile.entries.size());
+        final int[] sortedEntryIndices = logicalZipFile.getEntryIndicesSortedByName();
+        for (final String rootPrefix : packageRootPrefixes) {
+            for (final String pathPrefix : whitelistedPathPrefixes) {
+                final String entryNamePrefix = rootPrefix + pathPrefix;
+                for (int i = logicalZipFile.findFirstEntryWithPrefix(entryNamePrefix); i < sortedEntryIndices.length;
+                        i++) {
+                    final String entryName = logicalZipFile.entries.get(sortedEntryIndices[i]).entryNameUnversioned;
+                    if (!entryName.startsWith(entryNamePrefix)) {
+                        break;
+                    }
+                    // Only visit the entry if its relative path is within the whitelisted path prefix, so that
+                    // all entries with a given relative path are either visited or skipped
+                    final String relativePath = getRelativePath(entryName);
+                    if (relativePath != null && relativePath.startsWith(pathPrefix)) {
+                        entryIndices.set(sortedEntryIndices[i]);
+                    }
+                }
+            }
+        }
+        return entryIndices;
     }
 
     /**
@@ -391,20 +566,31 @@ class ClasspathElementZip extends ClasspathElement {
         final LogNode subLog = log == null ? null
                 : log.log(getZipFilePath(), "Scanning jarfile classpath element " + getZipFilePath());
 
+        // If only some paths are whitelisted, only visit the zip entries within whitelisted path prefixes
+        // (in their original order), rather than iterating through all zip entries
+        final BitSet entryIndicesToVisit = findEntriesWithinWhitelistedPaths();
+        if (entryIndicesToVisit != null) {
+            skippedNonWhitelistedEntries = true;
+            if (subLog != null) {
+                subLog.log("Visiting " + entryIndicesToVisit.cardinality() + " of " + logicalZipFile.entries.size()
+                        + " zip entries, using whitelisted path prefixes");
+            }
+        }
+
         Set<String> loggedNestedClasspathRootPrefixes = null;
         String prevParentRelativePath = null;
         ScanSpecPathMatch prevParentMatchStatus = null;
-        for (final FastZipEntry zipEntry : logicalZipFile.entries) {
-            String relativePath = zipEntry.entryNameUnversioned;
-
-            // Check if the relative path is within a nested classpath root
-            if (nestedClasspathRootPrefixes != null) {
-                // This is O(mn), which is inefficient, but the number of nested classpath roots should be small
-                boolean reachedNestedRoot = false;
-                for (final String nestedClasspathRoot : nestedClasspathRootPrefixes) {
-                    if (relativePath.startsWith(nestedClasspathRoot)) {
-                        // relativePath has a prefix of nestedClasspathRoot
-                        if (subLog != null) {
+        for (int entryIdx = entryIndicesToVisit == null ? 0 : entryIndicesToVisit.nextSetBit(0); //
+                entryIdx >= 0 && entryIdx < logicalZipFile.entries.size(); //
+                entryIdx = entryIndicesToVisit == null ? entryIdx + 1 : entryIndicesToVisit.nextSetBit(entryIdx + 1)) {
+            final FastZipEntry zipEntry = logicalZipFile.entries.get(entryIdx);
+            final String entryName = zipEntry.entryNameUnversioned;
+
+            // Check if the entry is within a nested classpath root
+            if (isInNestedClasspathRoot(entryName)) {
+                if (subLog != null) {
+                    for (final String nestedClasspathRoot : nestedClasspathRootPrefixes) {
+                        if (entryName.startsWith(nestedClasspathRoot)) {
                             if (loggedNestedClasspathRootPrefixes == null) {
                                 loggedNestedClasspathRootPrefixes = new HashSet<>();
                             }
@@ -412,33 +598,18 @@ class ClasspathElementZip extends ClasspathElement {
                                 subLog.log("Reached nested classpath root, stopping recursion to avoid duplicate "
                                         + "scanning: " + nestedClasspathRoot);
                             }
+                            break;
                         }
-                        reachedNestedRoot = true;
-                        break;
                     }
                 }
-                if (reachedNestedRoot) {
-                    continue;
-                }
-            }
-
-            // Ignore entries without the correct classpath root prefix
-            if (!packageRootPrefix.isEmpty() && !relativePath.startsWith(packageRootPrefix)) {
                 continue;
             }
 
-            // Strip the package root prefix from the relative path
-            // N.B. these semantics should mirror those in getResource()
-            if (!packageRootPrefix.isEmpty()) {
-                relativePath = relativePath.substring(packageRootPrefix.length());
-            } else {
-                // Strip any package root prefix from the relative path
-                for (int i = 0; i < ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES.length; i++) {
-                    if (relativePath.startsWith(ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES[i])) {
-                        relativePath = relativePath
-                                .substring(ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES[i].length());
-                    }
-                }
+            // Strip the package root prefix from the relative path, and ignore entries without the correct
+            // classpath root prefix
+            final String relativePath = getRelativePath(entryName);
+            if (relativePath == null) {
+                continue;
             }
 
             // Whitelist/blacklist classpath elements based on file resource paths
@@ -449,14 +620,18 @@ class ClasspathElementZip extends ClasspathElement {
 
             // Get match status of the parent directory of this ZipEntry file's relative path (or reuse the last
             // match status for speed, if the directory name hasn't changed).
+            // The parent directory is compared in place, so that a substring is only allocated when it changes.
             final int lastSlashIdx = relativePath.lastIndexOf("/");
-            final String parentRelativePath = lastSlashIdx < 0 ? "/" : relativePath.substring(0, lastSlashIdx + 1);
-            final boolean parentRelativePathChanged = !parentRelativePath.equals(prevParentRelativePath);
-            final ScanSpecPathMatch parentMatchStatus = //
-                    parentRelativePathChanged ? scanSpec.dirWhitelistMatchStatus(parentRelativePath)
-                            : prevParentMatchStatus;
-            prevParentRelativePath = parentRelativePath;
-            prevParentMatchStatus = parentMatchStatus;
+            final int parentRelativePathLen = lastSlashIdx + 1;
+            final boolean parentRelativePathChanged = prevParentRelativePath == null
+                    || (lastSlashIdx < 0 ? !prevParentRelativePath.equals("/")
+                            : prevParentRelativePath.length() != parentRelativePathLen || !relativePath
+                                    .regionMatches(0, prevParentRelativePath, 0, parentRelativePathLen));
+            if (parentRelativePathChanged) {
+                prevParentRelativePath = lastSlashIdx < 0 ? "/" : relativePath.substring(0, parentRelativePathLen);
+                prevParentMatchStatus = scanSpec.dirWhitelistMatchStatus(prevParentRelativePath);
+            }
+            final ScanSpecPathMatch parentMatchStatus = prevParentMatchStatus;
 
             if (parentMatchStatus == ScanSpecPathMatch.HAS_BLACKLISTED_PATH_PREFIX) {
                 // The parent dir or one of its ancestral dirs is blacklisted
@@ -515,6 +690,24 @@ class ClasspathElementZip extends ClasspathElement {
         return moduleName == null || moduleName.isEmpty() ? null : moduleName;
     }
 
+    /**
+     * Get the raw path of this zipfile, as it was listed on the classpath.
+     *
+     * @return the raw path, possibly including "!"-delimited nested paths.
+     */
+    String getRawPath() {
+        return rawPath;
+    }
+
+    /**
+     * Get the nested jar handler that was used to open this zipfile.
+     *
+     * @return the nested jar handler
+     */
+    NestedJarHandler getNestedJarHandler() {
+        return nestedJarHandler;
+    }
+
     /**
      * Get the {@link File} for the outermost zipfile of this classpath element.
      *
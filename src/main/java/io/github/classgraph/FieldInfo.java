@@ -33,6 +33,7 @@ import java.lang.reflect.Modifier;
 import java.util.Set;
 
 import nonapi.io.github.classgraph.exceptions.ParseException;
+import nonapi.io.github.classgraph.types.SignatureCursor;
 import nonapi.io.github.classgraph.types.TypeUtils;
 import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
 
@@ -43,19 +44,19 @@ import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
 public class FieldInfo extends ScanResultObject implements Comparable<FieldInfo>, HasName {
 
     /** The declaring class name. */
-    private String declaringClassName;
+    String declaringClassName;
 
     /** The name of the field. */
-    private String name;
+    String name;
 
     /** The modifiers. */
-    private int modifiers;
+    int modifiers;
 
     /** The type signature string. */
-    private String typeSignatureStr;
+    String typeSignatureStr;
 
     /** The type descriptor string. */
-    private String typeDescriptorStr;
+    String typeDescriptorStr;
 
     /** The parsed type signature. */
     private transient TypeSignature typeSignature;
@@ -65,7 +66,7 @@ public class FieldInfo extends ScanResultObject implements Comparable<FieldInfo>
 
     /** The constant initializer value for the field, if any. */
     // This is transient because the constant initializer value is final, so the value doesn't need to be serialized
-    private transient ObjectTypedValueWrapper constantInitializerValue;
+    transient ObjectTypedValueWrapper constantInitializerValue;
 
     /** The annotation on the field, if any. */
     AnnotationInfoList annotationInfo;
@@ -362,13 +363,28 @@ public class FieldInfo extends ScanResultObject implements Comparable<FieldInfo>
      */
     @Override
     protected void findReferencedClassNames(final Set<String> classNames) {
-        final TypeSignature methodSig = getTypeSignature();
-        if (methodSig != null) {
-            methodSig.findReferencedClassNames(classNames);
+        findReferencedClassNames(classNames, new SignatureCursor());
+    }
+
+    /**
+     * Get the names of any classes in the type descriptor or type signature.
+     *
+     * @param classNames
+     *            the names of any classes in the type descriptor or type signature.
+     * @param signatureCursor
+     *            the signature cursor to walk type signature and type descriptor strings with
+     */
+    void findReferencedClassNames(final Set<String> classNames, final SignatureCursor signatureCursor) {
+        // Walk the type signature and type descriptor strings, unless they have already been parsed
+        if (typeSignature != null) {
+            typeSignature.findReferencedClassNames(classNames);
+        } else if (typeSignatureStr != null) {
+            findReferencedClassNames(typeSignatureStr, signatureCursor, classNames);
         }
-        final TypeSignature methodDesc = getTypeDescriptor();
-        if (methodDesc != null) {
-            methodDesc.findReferencedClassNames(classNames);
+        if (typeDescriptor != null) {
+            typeDescriptor.findReferencedClassNames(classNames);
+        } else if (typeDescriptorStr != null) {
+            findReferencedClassNames(typeDescriptorStr, signatureCursor, classNames);
         }
         if (annotationInfo != null) {
             for (final AnnotationInfo ai : annotationInfo) {
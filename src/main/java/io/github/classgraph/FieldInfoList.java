@@ -32,6 +32,7 @@ import java.util.Collection;
 import java.util.Set;
 
 import io.github.classgraph.InfoList.MappableInfoList;
+import nonapi.io.github.classgraph.types.SignatureCursor;
 
 /** A list of {@link FieldInfo} objects. */
 public class FieldInfoList extends MappableInfoList<FieldInfo> {
@@ -123,10 +124,12 @@ public class FieldInfoList extends MappableInfoList<FieldInfo> {
      *
      * @param referencedClassNames
      *            the referenced class names
+     * @param signatureCursor
+     *            the signature cursor to walk type signature and type descriptor strings with
      */
-    void findReferencedClassNames(final Set<String> referencedClassNames) {
+    void findReferencedClassNames(final Set<String> referencedClassNames, final SignatureCursor signatureCursor) {
         for (final FieldInfo fi : this) {
-            fi.findReferencedClassNames(referencedClassNames);
+            fi.findReferencedClassNames(referencedClassNames, signatureCursor);
         }
     }
 
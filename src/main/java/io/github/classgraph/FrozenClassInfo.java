@@ -0,0 +1,236 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A lightweight, read-only view of a class in a {@link FrozenScanResult}. Names and related classes are read from
+ * the buffer of the {@link FrozenScanResult} each time they are requested.
+ */
+public final class FrozenClassInfo implements Comparable<FrozenClassInfo> {
+    /** The frozen scan result. */
+    private final FrozenScanResult frozenScanResult;
+
+    /** The index of the class in the class table of the frozen scan result. */
+    private final int classIdx;
+
+    /**
+     * Constructor.
+     *
+     * @param frozenScanResult
+     *            the frozen scan result
+     * @param classIdx
+     *            the index of the class in the class table
+     */
+    FrozenClassInfo(final FrozenScanResult frozenScanResult, final int classIdx) {
+        this.frozenScanResult = frozenScanResult;
+        this.classIdx = classIdx;
+    }
+
+    /**
+     * Get the name of the class.
+     *
+     * @return the name of the class.
+     */
+    public String getName() {
+        return frozenScanResult.getString(frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_NAME));
+    }
+
+    /**
+     * Get the class modifier bits.
+     *
+     * @return The class modifier bits, e.g. {@link Modifier#PUBLIC}.
+     */
+    public int getModifiers() {
+        return frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_MODIFIERS);
+    }
+
+    /**
+     * Check a class flag.
+     *
+     * @param flag
+     *            the flag
+     * @return true if the flag is set
+     */
+    private boolean hasFlag(final int flag) {
+        return (frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_FLAGS) & flag) != 0;
+    }
+
+    /**
+     * Checks if this class is an interface or an annotation.
+     *
+     * @return true if this class is an interface or an annotation.
+     */
+    public boolean isInterfaceOrAnnotation() {
+        return hasFlag(FrozenScanResult.CLASS_FLAG_INTERFACE);
+    }
+
+    /**
+     * Checks if this class is an interface, and not an annotation.
+     *
+     * @return true if this class is an interface, and not an annotation.
+     */
+    public boolean isInterface() {
+        return isInterfaceOrAnnotation() && !isAnnotation();
+    }
+
+    /**
+     * Checks if this class is an annotation.
+     *
+     * @return true if this class is an annotation.
+     */
+    public boolean isAnnotation() {
+        return hasFlag(FrozenScanResult.CLASS_FLAG_ANNOTATION);
+    }
+
+    /**
+     * Checks if this class is an external class, i.e. a superclass, interface or annotation of a scanned class
+     * that was not itself scanned.
+     *
+     * @return true if this class is an external class.
+     */
+    public boolean isExternalClass() {
+        return hasFlag(FrozenScanResult.CLASS_FLAG_EXTERNAL);
+    }
+
+    /**
+     * Get the direct superclass of this class.
+     *
+     * @return The direct superclass of this class, or null if the class has no superclass.
+     */
+    public FrozenClassInfo getSuperclass() {
+        final int superclassIdx = frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_SUPERCLASS);
+        return superclassIdx < 0 ? null : new FrozenClassInfo(frozenScanResult, superclassIdx);
+    }
+
+    /**
+     * Get the interfaces directly implemented by this class, or the superinterfaces of this interface.
+     *
+     * @return the interfaces, in name order.
+     */
+    public List<FrozenClassInfo> getInterfaces() {
+        return frozenScanResult.getClassList(
+                frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_INTERFACES), /* filter = */ false);
+    }
+
+    /**
+     * Get the annotations on this class.
+     *
+     * @return the annotations, in name order.
+     */
+    public List<FrozenClassInfo> getAnnotations() {
+        return frozenScanResult.getClassList(
+                frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_ANNOTATIONS), /* filter = */ false);
+    }
+
+    /**
+     * Get the direct subclasses of this class.
+     *
+     * @return the direct subclasses, in name order.
+     */
+    public List<FrozenClassInfo> getDirectSubclasses() {
+        return frozenScanResult.getClassList(
+                frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_SUBCLASSES), /* filter = */ true);
+    }
+
+    /**
+     * Get the fields declared by this class, if {@link ClassGraph#enableFieldInfo()} was called before the scan.
+     *
+     * @return the declared fields, in classfile order.
+     */
+    public List<FrozenMemberInfo> getDeclaredFieldInfo() {
+        return frozenScanResult.getMemberList(
+                frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_FIELDS), classIdx);
+    }
+
+    /**
+     * Get the methods and constructors declared by this class, if {@link ClassGraph#enableMethodInfo()} was called
+     * before the scan. Constructors are named {@code "<init>"}, and any static initializer is included, named
+     * {@code "<clinit>"}.
+     *
+     * @return the declared methods and constructors, in classfile order.
+     */
+    public List<FrozenMemberInfo> getDeclaredMethodInfo() {
+        return frozenScanResult.getMemberList(
+                frozenScanResult.getClassField(classIdx, FrozenScanResult.CLASS_METHODS), classIdx);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Compare classes in name order, which is the unsigned lexicographic order of the UTF-8 encoded class names
+     * (the order of the lists returned by {@link FrozenScanResult}).
+     *
+     * @param o
+     *            the other class
+     * @return the comparison result
+     */
+    @Override
+    public int compareTo(final FrozenClassInfo o) {
+        if (frozenScanResult == o.frozenScanResult) {
+            // The class table is sorted in name order
+            return Integer.compare(classIdx, o.classIdx);
+        }
+        return FrozenScanResult.UTF8_ORDER.compare(getName().getBytes(StandardCharsets.UTF_8),
+                o.getName().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof FrozenClassInfo)) {
+            return false;
+        }
+        final FrozenClassInfo other = (FrozenClassInfo) obj;
+        return frozenScanResult == other.frozenScanResult && classIdx == other.classIdx;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return classIdx;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * A lightweight, read-only view of a field or method in a {@link FrozenScanResult}. The name and type descriptor
+ * are read from the buffer of the {@link FrozenScanResult} each time they are requested.
+ */
+public final class FrozenMemberInfo {
+    /** The frozen scan result. */
+    private final FrozenScanResult frozenScanResult;
+
+    /** The index of the declaring class in the class table of the frozen scan result. */
+    private final int classIdx;
+
+    /** The position of the field or method record in the buffer. */
+    private final int recordPos;
+
+    /**
+     * Constructor.
+     *
+     * @param frozenScanResult
+     *            the frozen scan result
+     * @param classIdx
+     *            the index of the declaring class in the class table
+     * @param recordPos
+     *            the position of the field or method record in the buffer
+     */
+    FrozenMemberInfo(final FrozenScanResult frozenScanResult, final int classIdx, final int recordPos) {
+        this.frozenScanResult = frozenScanResult;
+        this.classIdx = classIdx;
+        this.recordPos = recordPos;
+    }
+
+    /**
+     * Get the class that declares this field or method.
+     *
+     * @return the declaring class
+     */
+    public FrozenClassInfo getClassInfo() {
+        return new FrozenClassInfo(frozenScanResult, classIdx);
+    }
+
+    /**
+     * Get the name of the field or method.
+     *
+     * @return the name of the field or method (or "{@code <init>}" for constructors).
+     */
+    public String getName() {
+        return frozenScanResult.getString(frozenScanResult.getInt(recordPos));
+    }
+
+    /**
+     * Get the type descriptor of the field or method.
+     *
+     * @return the type descriptor, e.g. "{@code (ILjava/lang/String;)V}".
+     */
+    public String getTypeDescriptorStr() {
+        return frozenScanResult.getString(frozenScanResult.getInt(recordPos + 4));
+    }
+
+    /**
+     * Get the modifier bits of the field or method.
+     *
+     * @return The modifier bits, e.g. {@link Modifier#PUBLIC}.
+     */
+    public int getModifiers() {
+        return frozenScanResult.getInt(recordPos + 8);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof FrozenMemberInfo)) {
+            return false;
+        }
+        final FrozenMemberInfo other = (FrozenMemberInfo) obj;
+        return frozenScanResult == other.frozenScanResult && recordPos == other.recordPos;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return recordPos;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getName() + getTypeDescriptorStr();
+    }
+}
@@ -0,0 +1,998 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import io.github.classgraph.ClassInfo.RelType;
+import nonapi.io.github.classgraph.ScanSpec;
+import nonapi.io.github.classgraph.utils.FileUtils;
+
+/**
+ * A frozen, read-only form of a {@link ScanResult}, created by {@link ScanResult#freeze()} or
+ * {@link ScanResult#freeze(File)}, that stores class names, type descriptors, modifiers and the class hierarchy
+ * in a single direct or memory-mapped {@link ByteBuffer} rather than in a graph of Java objects. The
+ * {@link FrozenClassInfo} and {@link FrozenMemberInfo} objects returned by this class are lightweight views
+ * (flyweights) over the buffer that are created on access, so the heap used by a long-lived
+ * {@link FrozenScanResult} stays nearly constant regardless of the size of the classpath.
+ *
+ * <p>
+ * Only the class graph is stored: class modifiers, superclasses, interfaces, class annotations (by name only),
+ * and the names, type descriptors and modifiers of fields and methods. Type signatures, annotation parameters and
+ * resources are not stored. A {@link FrozenScanResult} written to a file with {@link ScanResult#freeze(File)} can
+ * be memory-mapped again with {@link #load(File)} by the same version of ClassGraph.
+ *
+ * <p>
+ * Queries may be made from multiple threads, but {@link #close()} must not be called until all other threads
+ * have finished using this {@link FrozenScanResult}.
+ */
+public final class FrozenScanResult implements Closeable {
+    /** The buffer holding the frozen scan result, or null if closed. */
+    private volatile ByteBuffer buffer;
+
+    /** The number of classes. */
+    private final int numClasses;
+
+    /** The position of the string offsets table. */
+    private final int stringOffsetsPos;
+
+    /** The position of the string data. */
+    private final int stringDataPos;
+
+    /** The position of the class table. */
+    private final int classTablePos;
+
+    /** If true, external classes (superclasses, interfaces and annotations) are returned by queries. */
+    private final boolean enableExternalClasses;
+
+    /** The magic number at the start of a frozen scan result ("CGFZ"). */
+    private static final int MAGIC = 0x4347465A;
+
+    /** The format version. Increment this whenever the format changes. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** The size of the header, in bytes. */
+    private static final int HEADER_SIZE = 8 * 4;
+
+    /** The position of the flags in the header. */
+    private static final int HEADER_FLAGS = 2 * 4;
+
+    /** The position of the number of strings in the header. */
+    private static final int HEADER_NUM_STRINGS = 3 * 4;
+
+    /** The position of the number of classes in the header. */
+    private static final int HEADER_NUM_CLASSES = 4 * 4;
+
+    /** The position of the string offsets table position in the header. */
+    private static final int HEADER_STRING_OFFSETS_POS = 5 * 4;
+
+    /** The position of the string data position in the header. */
+    private static final int HEADER_STRING_DATA_POS = 6 * 4;
+
+    /** The position of the class table position in the header. */
+    private static final int HEADER_CLASS_TABLE_POS = 7 * 4;
+
+    /** Header flag bit for {@link ScanSpec#enableExternalClasses}. */
+    private static final int FLAG_ENABLE_EXTERNAL_CLASSES = 1;
+
+    /** Class flag bit for an interface. */
+    static final int CLASS_FLAG_INTERFACE = 1;
+
+    /** Class flag bit for an annotation. */
+    static final int CLASS_FLAG_ANNOTATION = 2;
+
+    /** Class flag bit for an external class. */
+    static final int CLASS_FLAG_EXTERNAL = 4;
+
+    /** Class record field: the string index of the class name. */
+    static final int CLASS_NAME = 0;
+
+    /** Class record field: the class modifiers. */
+    static final int CLASS_MODIFIERS = 1;
+
+    /** Class record field: the class flags. */
+    static final int CLASS_FLAGS = 2;
+
+    /** Class record field: the index of the superclass, or -1 if none. */
+    static final int CLASS_SUPERCLASS = 3;
+
+    /** Class record field: the position of the list of implemented interfaces. */
+    static final int CLASS_INTERFACES = 4;
+
+    /** Class record field: the position of the list of class annotations. */
+    static final int CLASS_ANNOTATIONS = 5;
+
+    /** Class record field: the position of the list of direct subclasses. */
+    static final int CLASS_SUBCLASSES = 6;
+
+    /** Class record field: the position of the list of classes or interfaces directly implementing this interface. */
+    static final int CLASS_IMPLEMENTING = 7;
+
+    /** Class record field: the position of the list of classes directly annotated with this annotation. */
+    static final int CLASS_ANNOTATED = 8;
+
+    /** Class record field: the position of the field table. */
+    static final int CLASS_FIELDS = 9;
+
+    /** Class record field: the position of the method table. */
+    static final int CLASS_METHODS = 10;
+
+    /** The size of a class record, in bytes. */
+    private static final int CLASS_RECORD_SIZE = 11 * 4;
+
+    /** The size of the buffer used to write a frozen scan result to a file, in bytes. */
+    private static final int FILE_WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /** The size of a field or method record (name, type descriptor and modifiers), in bytes. */
+    static final int MEMBER_RECORD_SIZE = 3 * 4;
+
+    /** The {@link RelType} of each of the class record fields that hold a list of related classes. */
+    private static final RelType[] LIST_REL_TYPES = { RelType.IMPLEMENTED_INTERFACES, RelType.CLASS_ANNOTATIONS,
+            RelType.SUBCLASSES, RelType.CLASSES_IMPLEMENTING, RelType.CLASSES_WITH_ANNOTATION };
+
+    /** Sorts UTF-8 encoded strings in unsigned lexicographic order, which is the order used by the class table. */
+    static final Comparator<byte[]> UTF8_ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] a, final byte[] b) {
+            final int len = Math.min(a.length, b.length);
+            for (int i = 0; i < len; i++) {
+                final int diff = (a[i] & 0xff) - (b[i] & 0xff);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return a.length - b.length;
+        }
+    };
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor.
+     *
+     * @param buffer
+     *            the buffer holding the frozen scan result
+     * @throws IllegalArgumentException
+     *             if the buffer does not contain a frozen scan result written by the current version of ClassGraph.
+     */
+    private FrozenScanResult(final ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a frozen ScanResult");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Frozen ScanResult was written by a different version of ClassGraph");
+        }
+        this.buffer = buffer;
+        this.enableExternalClasses = (buffer.getInt(HEADER_FLAGS) & FLAG_ENABLE_EXTERNAL_CLASSES) != 0;
+        this.numClasses = buffer.getInt(HEADER_NUM_CLASSES);
+        this.stringOffsetsPos = buffer.getInt(HEADER_STRING_OFFSETS_POS);
+        this.stringDataPos = buffer.getInt(HEADER_STRING_DATA_POS);
+        this.classTablePos = buffer.getInt(HEADER_CLASS_TABLE_POS);
+        if (classTablePos < HEADER_SIZE || (long) classTablePos + (long) numClasses * CLASS_RECORD_SIZE > buffer
+                .capacity()) {
+            throw new IllegalArgumentException("Frozen ScanResult is truncated");
+        }
+    }
+
+    /**
+     * Memory-map a frozen scan result that was written to a file by {@link ScanResult#freeze(File)}.
+     *
+     * @param file
+     *            the file
+     * @return the {@link FrozenScanResult}
+     * @throws IOException
+     *             if the file could not be read or mapped.
+     * @throws IllegalArgumentException
+     *             if the file does not contain a frozen scan result written by the current version of ClassGraph.
+     */
+    public static FrozenScanResult load(final File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel fileChannel = raf.getChannel()) {
+            return new FrozenScanResult(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, fileChannel.size()));
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Freeze the classes of a {@link ScanResult}.
+     *
+     * @param allClassInfo
+     *            all classes in the scan result
+     * @param scanSpec
+     *            the scan spec
+     * @param file
+     *            the file to write the frozen scan result to and then memory-map, or null to store the frozen scan
+     *            result in a direct {@link ByteBuffer}.
+     * @return the {@link FrozenScanResult}
+     * @throws IOException
+     *             if the file could not be written or mapped.
+     */
+    static FrozenScanResult freeze(final Collection<ClassInfo> allClassInfo, final ScanSpec scanSpec,
+            final File file) throws IOException {
+        // Sort classes by UTF-8 encoded name, so that classes can be found by binary search
+        final int numClasses = allClassInfo.size();
+        final ClassInfo[] classInfos = allClassInfo.toArray(new ClassInfo[numClasses]);
+        final byte[][] classNameBytes = new byte[numClasses][];
+        final Map<byte[], ClassInfo> nameBytesToClassInfo = new IdentityHashMap<>();
+        for (int i = 0; i < numClasses; i++) {
+            classNameBytes[i] = classInfos[i].getName().getBytes(StandardCharsets.UTF_8);
+            nameBytesToClassInfo.put(classNameBytes[i], classInfos[i]);
+        }
+        Arrays.sort(classNameBytes, UTF8_ORDER);
+        final Map<ClassInfo, Integer> classInfoToIdx = new HashMap<>();
+        for (int i = 0; i < numClasses; i++) {
+            classInfos[i] = nameBytesToClassInfo.get(classNameBytes[i]);
+            classInfoToIdx.put(classInfos[i], i);
+        }
+
+        // Build the string table, and find the size of the lists of related classes and of the member tables
+        final Map<String, Integer> stringToIdx = new HashMap<>();
+        final List<byte[]> strings = new ArrayList<>();
+        int stringDataSize = 0;
+        int listsSize = 0;
+        for (final ClassInfo classInfo : classInfos) {
+            if (scanSpec.enableLazyMemberInfo) {
+                classInfo.readDeferredMemberInfo(scanSpec);
+            }
+            stringDataSize += addString(classInfo.getName(), stringToIdx, strings);
+            for (final RelType relType : LIST_REL_TYPES) {
+                final Set<ClassInfo> relatedClassInfos = classInfo.relatedClasses.get(relType);
+                if (relatedClassInfos != null && !relatedClassInfos.isEmpty()) {
+                    listsSize += (1 + relatedClassInfos.size()) * 4;
+                }
+            }
+            if (classInfo.fieldInfo != null && !classInfo.fieldInfo.isEmpty()) {
+                listsSize += 4 + classInfo.fieldInfo.size() * MEMBER_RECORD_SIZE;
+                for (final FieldInfo fieldInfo : classInfo.fieldInfo) {
+                    stringDataSize += addString(fieldInfo.name, stringToIdx, strings);
+                    stringDataSize += addString(fieldInfo.typeDescriptorStr, stringToIdx, strings);
+                }
+            }
+            if (classInfo.methodInfo != null && !classInfo.methodInfo.isEmpty()) {
+                listsSize += 4 + classInfo.methodInfo.size() * MEMBER_RECORD_SIZE;
+                for (final MethodInfo methodInfo : classInfo.methodInfo) {
+                    stringDataSize += addString(methodInfo.name, stringToIdx, strings);
+                    stringDataSize += addString(methodInfo.typeDescriptorStr, stringToIdx, strings);
+                }
+            }
+        }
+
+        // Lay out the buffer: header, string offsets, string data, lists and member tables, class table
+        final int numStrings = strings.size();
+        final int stringOffsetsPos = HEADER_SIZE;
+        final int stringDataPos = stringOffsetsPos + (numStrings + 1) * 4;
+        final int listsPos = stringDataPos + ((stringDataSize + 3) & ~3);
+        final int classTablePos = listsPos + listsSize;
+        final long size = (long) classTablePos + (long) numClasses * CLASS_RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Scan result is too large to freeze");
+        }
+        if (file == null) {
+            final ByteBuffer buf = ByteBuffer.allocateDirect((int) size);
+            writeFrozenScanResult(new FrozenOutput(buf, /* fileChannel = */ null), classInfos, classInfoToIdx,
+                    strings, stringToIdx, stringDataSize, scanSpec, listsPos, classTablePos);
+            buf.clear();
+            return new FrozenScanResult(buf);
+        }
+
+        // Stream the frozen scan result to the file through a small buffer, then memory-map it
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel fileChannel = raf.getChannel()) {
+            fileChannel.truncate(0L);
+            final FrozenOutput output = new FrozenOutput(ByteBuffer.allocate(FILE_WRITE_BUFFER_SIZE), fileChannel);
+            writeFrozenScanResult(output, classInfos, classInfoToIdx, strings, stringToIdx, stringDataSize,
+                    scanSpec, listsPos, classTablePos);
+            output.flush();
+            fileChannel.force(false);
+            return new FrozenScanResult(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, size));
+        }
+    }
+
+    /**
+     * Write a frozen scan result sequentially, from the header to the end of the class table.
+     *
+     * @param output
+     *            the output
+     * @param classInfos
+     *            the classes, sorted by UTF-8 encoded name
+     * @param classInfoToIdx
+     *            the map from class to class index
+     * @param strings
+     *            the UTF-8 encoded strings, indexed by string index
+     * @param stringToIdx
+     *            the map from string to string index
+     * @param stringDataSize
+     *            the total size of the string data
+     * @param scanSpec
+     *            the scan spec
+     * @param listsPos
+     *            the position of the lists and member tables
+     * @param classTablePos
+     *            the position of the class table
+     * @throws IOException
+     *             if the frozen scan result could not be written.
+     */
+    private static void writeFrozenScanResult(final FrozenOutput output, final ClassInfo[] classInfos,
+            final Map<ClassInfo, Integer> classInfoToIdx, final List<byte[]> strings,
+            final Map<String, Integer> stringToIdx, final int stringDataSize, final ScanSpec scanSpec,
+            final int listsPos, final int classTablePos) throws IOException {
+        final int numClasses = classInfos.length;
+        final int numStrings = strings.size();
+        final int stringOffsetsPos = HEADER_SIZE;
+        final int stringDataPos = stringOffsetsPos + (numStrings + 1) * 4;
+
+        // Write header
+        output.putInt(MAGIC);
+        output.putInt(FORMAT_VERSION);
+        output.putInt(scanSpec.enableExternalClasses ? FLAG_ENABLE_EXTERNAL_CLASSES : 0);
+        output.putInt(numStrings);
+        output.putInt(numClasses);
+        output.putInt(stringOffsetsPos);
+        output.putInt(stringDataPos);
+        output.putInt(classTablePos);
+
+        // Write string table
+        int stringOffset = 0;
+        for (int i = 0; i < numStrings; i++) {
+            output.putInt(stringOffset);
+            stringOffset += strings.get(i).length;
+        }
+        output.putInt(stringOffset);
+        for (int i = 0; i < numStrings; i++) {
+            output.put(strings.get(i));
+        }
+        output.putZeroes(listsPos - stringDataPos - stringDataSize);
+
+        // Write lists and member tables, recording their positions in the class records
+        final int[] classRecords = new int[numClasses * CLASS_RECORD_SIZE / 4];
+        int listPos = listsPos;
+        for (int classIdx = 0; classIdx < numClasses; classIdx++) {
+            final ClassInfo classInfo = classInfos[classIdx];
+            final int recordIdx = classIdx * CLASS_RECORD_SIZE / 4;
+            classRecords[recordIdx + CLASS_NAME] = stringToIdx.get(classInfo.getName());
+            classRecords[recordIdx + CLASS_MODIFIERS] = classInfo.modifiers;
+            classRecords[recordIdx + CLASS_FLAGS] = (classInfo.isInterface ? CLASS_FLAG_INTERFACE : 0)
+                    | (classInfo.isAnnotation ? CLASS_FLAG_ANNOTATION : 0)
+                    | (classInfo.isExternalClass ? CLASS_FLAG_EXTERNAL : 0);
+            final Set<ClassInfo> superclasses = classInfo.relatedClasses.get(RelType.SUPERCLASSES);
+            final Integer superclassIdx = superclasses == null || superclasses.isEmpty() ? null
+                    : classInfoToIdx.get(superclasses.iterator().next());
+            classRecords[recordIdx + CLASS_SUPERCLASS] = superclassIdx == null ? -1 : superclassIdx;
+            for (int i = 0; i < LIST_REL_TYPES.length; i++) {
+                final Set<ClassInfo> relatedClassInfos = classInfo.relatedClasses.get(LIST_REL_TYPES[i]);
+                if (relatedClassInfos == null || relatedClassInfos.isEmpty()) {
+                    continue;
+                }
+                final int[] ids = new int[relatedClassInfos.size()];
+                int numIds = 0;
+                for (final ClassInfo relatedClassInfo : relatedClassInfos) {
+                    final Integer id = classInfoToIdx.get(relatedClassInfo);
+                    if (id != null) {
+                        ids[numIds++] = id;
+                    }
+                }
+                Arrays.sort(ids, 0, numIds);
+                classRecords[recordIdx + CLASS_INTERFACES + i] = listPos;
+                output.putInt(numIds);
+                for (int j = 0; j < numIds; j++) {
+                    output.putInt(ids[j]);
+                }
+                // Space is reserved for all related classes, including any that are not in the class table
+                output.putZeroes((ids.length - numIds) * 4);
+                listPos += (1 + ids.length) * 4;
+            }
+            if (classInfo.fieldInfo != null && !classInfo.fieldInfo.isEmpty()) {
+                classRecords[recordIdx + CLASS_FIELDS] = listPos;
+                output.putInt(classInfo.fieldInfo.size());
+                for (final FieldInfo fieldInfo : classInfo.fieldInfo) {
+                    putMember(output, fieldInfo.name, fieldInfo.typeDescriptorStr, fieldInfo.getModifiers(),
+                            stringToIdx);
+                }
+                listPos += 4 + classInfo.fieldInfo.size() * MEMBER_RECORD_SIZE;
+            }
+            if (classInfo.methodInfo != null && !classInfo.methodInfo.isEmpty()) {
+                classRecords[recordIdx + CLASS_METHODS] = listPos;
+                output.putInt(classInfo.methodInfo.size());
+                for (final MethodInfo methodInfo : classInfo.methodInfo) {
+                    putMember(output, methodInfo.name, methodInfo.typeDescriptorStr, methodInfo.getModifiers(),
+                            stringToIdx);
+                }
+                listPos += 4 + classInfo.methodInfo.size() * MEMBER_RECORD_SIZE;
+            }
+        }
+
+        // Write class table
+        for (final int value : classRecords) {
+            output.putInt(value);
+        }
+    }
+
+    /**
+     * Add a string to the string table, if it is not already present.
+     *
+     * @param str
+     *            the string, or null
+     * @param stringToIdx
+     *            the map from string to string index
+     * @param strings
+     *            the UTF-8 encoded strings, indexed by string index
+     * @return the number of bytes added to the string data
+     */
+    private static int addString(final String str, final Map<String, Integer> stringToIdx,
+            final List<byte[]> strings) {
+        if (str == null || stringToIdx.containsKey(str)) {
+            return 0;
+        }
+        final byte[] stringBytes = str.getBytes(StandardCharsets.UTF_8);
+        stringToIdx.put(str, strings.size());
+        strings.add(stringBytes);
+        return stringBytes.length;
+    }
+
+    /**
+     * Write a field or method record.
+     *
+     * @param output
+     *            the output
+     * @param name
+     *            the field or method name
+     * @param typeDescriptorStr
+     *            the type descriptor, or null
+     * @param modifiers
+     *            the modifiers
+     * @param stringToIdx
+     *            the map from string to string index
+     * @throws IOException
+     *             if the record could not be written.
+     */
+    private static void putMember(final FrozenOutput output, final String name, final String typeDescriptorStr,
+            final int modifiers, final Map<String, Integer> stringToIdx) throws IOException {
+        output.putInt(stringToIdx.get(name));
+        output.putInt(typeDescriptorStr == null ? -1 : stringToIdx.get(typeDescriptorStr));
+        output.putInt(modifiers);
+    }
+
+    /**
+     * Sequential output of a frozen scan result, either directly to a buffer that holds the whole frozen scan
+     * result, or to a file through a small buffer that is written to the file whenever it fills up.
+     */
+    private static final class FrozenOutput {
+        /** The buffer. */
+        private final ByteBuffer buf;
+
+        /** The file channel to write the buffer to when it fills up, or null if the buffer is not flushed. */
+        private final FileChannel fileChannel;
+
+        /**
+         * Constructor.
+         *
+         * @param buf
+         *            the buffer
+         * @param fileChannel
+         *            the file channel to write the buffer to when it fills up, or null if the buffer holds the
+         *            whole frozen scan result
+         */
+        FrozenOutput(final ByteBuffer buf, final FileChannel fileChannel) {
+            this.buf = buf;
+            this.fileChannel = fileChannel;
+        }
+
+        /**
+         * Write an int.
+         *
+         * @param value
+         *            the value
+         * @throws IOException
+         *             if the buffer could not be written to the file.
+         */
+        void putInt(final int value) throws IOException {
+            if (buf.remaining() < 4) {
+                flush();
+            }
+            buf.putInt(value);
+        }
+
+        /**
+         * Write a byte array.
+         *
+         * @param bytes
+         *            the bytes
+         * @throws IOException
+         *             if the buffer could not be written to the file.
+         */
+        void put(final byte[] bytes) throws IOException {
+            for (int off = 0; off < bytes.length;) {
+                if (!buf.hasRemaining()) {
+                    flush();
+                }
+                final int len = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, len);
+                off += len;
+            }
+        }
+
+        /**
+         * Write zero bytes.
+         *
+         * @param numBytes
+         *            the number of zero bytes to write
+         * @throws IOException
+         *             if the buffer could not be written to the file.
+         */
+        void putZeroes(final int numBytes) throws IOException {
+            for (int i = 0; i < numBytes; i++) {
+                if (!buf.hasRemaining()) {
+                    flush();
+                }
+                buf.put((byte) 0);
+            }
+        }
+
+        /**
+         * Write the contents of the buffer to the file, if there is a file.
+         *
+         * @throws IOException
+         *             if the buffer could not be written to the file.
+         */
+        void flush() throws IOException {
+            if (fileChannel != null) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    fileChannel.write(buf);
+                }
+                buf.clear();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the buffer, checking that this {@link FrozenScanResult} has not been closed.
+     *
+     * @return the buffer
+     */
+    private ByteBuffer getBuffer() {
+        final ByteBuffer buf = buffer;
+        if (buf == null) {
+            throw new IllegalArgumentException("Cannot use a FrozenScanResult after it has been closed");
+        }
+        return buf;
+    }
+
+    /**
+     * Read an int from the buffer.
+     *
+     * @param pos
+     *            the position
+     * @return the int
+     */
+    int getInt(final int pos) {
+        return getBuffer().getInt(pos);
+    }
+
+    /**
+     * Read a field of a class record.
+     *
+     * @param classIdx
+     *            the class index
+     * @param field
+     *            the class record field, e.g. {@link #CLASS_NAME}
+     * @return the value of the field
+     */
+    int getClassField(final int classIdx, final int field) {
+        return getBuffer().getInt(classTablePos + classIdx * CLASS_RECORD_SIZE + field * 4);
+    }
+
+    /**
+     * Read a string from the string table.
+     *
+     * @param stringIdx
+     *            the string index, or -1 for null
+     * @return the string
+     */
+    String getString(final int stringIdx) {
+        if (stringIdx < 0) {
+            return null;
+        }
+        final ByteBuffer buf = getBuffer();
+        final int start = buf.getInt(stringOffsetsPos + stringIdx * 4);
+        final byte[] stringBytes = new byte[buf.getInt(stringOffsetsPos + stringIdx * 4 + 4) - start];
+        for (int i = 0; i < stringBytes.length; i++) {
+            stringBytes[i] = buf.get(stringDataPos + start + i);
+        }
+        return new String(stringBytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare a string in the string table to a UTF-8 encoded string.
+     *
+     * @param stringIdx
+     *            the string index
+     * @param utf8
+     *            the UTF-8 encoded string
+     * @return a negative number, zero or a positive number if the string in the string table is less than, equal
+     *         to or greater than the UTF-8 encoded string, in unsigned lexicographic order.
+     */
+    private int compareString(final int stringIdx, final byte[] utf8) {
+        final ByteBuffer buf = getBuffer();
+        final int start = buf.getInt(stringOffsetsPos + stringIdx * 4);
+        final int len = buf.getInt(stringOffsetsPos + stringIdx * 4 + 4) - start;
+        final int minLen = Math.min(len, utf8.length);
+        for (int i = 0; i < minLen; i++) {
+            final int diff = (buf.get(stringDataPos + start + i) & 0xff) - (utf8[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return len - utf8.length;
+    }
+
+    /**
+     * Find a class by name.
+     *
+     * @param className
+     *            the class name
+     * @return the class index, or -1 if the class was not found
+     */
+    private int findClass(final String className) {
+        final byte[] utf8 = className.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = numClasses - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int cmp = compareString(getClassField(mid, CLASS_NAME), utf8);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether a class should be returned by a query.
+     *
+     * @param classIdx
+     *            the class index
+     * @return true if the class is not external, or external classes are enabled
+     */
+    private boolean isVisible(final int classIdx) {
+        return enableExternalClasses || (getClassField(classIdx, CLASS_FLAGS) & CLASS_FLAG_EXTERNAL) == 0;
+    }
+
+    /**
+     * Get the classes in a list of related classes stored in the buffer.
+     *
+     * @param listPos
+     *            the position of the list, or 0 for an empty list
+     * @param filter
+     *            if true, only return classes for which {@link #isVisible(int)} is true
+     * @return the classes
+     */
+    List<FrozenClassInfo> getClassList(final int listPos, final boolean filter) {
+        if (listPos == 0) {
+            return Collections.emptyList();
+        }
+        final int count = getInt(listPos);
+        final int[] classIdxs = new int[count];
+        int numClassIdxs = 0;
+        for (int i = 0; i < count; i++) {
+            final int classIdx = getInt(listPos + 4 + i * 4);
+            if (!filter || isVisible(classIdx)) {
+                classIdxs[numClassIdxs++] = classIdx;
+            }
+        }
+        return new ClassList(classIdxs, numClassIdxs);
+    }
+
+    /**
+     * Get the members in a field or method table stored in the buffer.
+     *
+     * @param tablePos
+     *            the position of the table, or 0 for an empty table
+     * @param classIdx
+     *            the index of the declaring class
+     * @return the members
+     */
+    List<FrozenMemberInfo> getMemberList(final int tablePos, final int classIdx) {
+        if (tablePos == 0) {
+            return Collections.emptyList();
+        }
+        final int count = getInt(tablePos);
+        return new MemberList(tablePos + 4, count, classIdx);
+    }
+
+    /**
+     * Find the classes reachable from a class by following the given class record lists.
+     *
+     * @param className
+     *            the name of the class to start from
+     * @param fields
+     *            the class record fields of the lists to follow
+     * @param requiredFlag
+     *            if nonzero, only follow edges into classes that have this flag
+     * @param excludedFlag
+     *            if nonzero, only return classes that do not have this flag
+     * @return the reachable classes, in name order
+     */
+    private List<FrozenClassInfo> getReachableClasses(final String className, final int[] fields,
+            final int requiredFlag, final int excludedFlag) {
+        final int startIdx = findClass(className);
+        if (startIdx < 0) {
+            return Collections.emptyList();
+        }
+        final BitSet reached = new BitSet(numClasses);
+        final BitSet expanded = new BitSet(numClasses);
+        final int[] queue = new int[numClasses];
+        int queueHead = 0;
+        int queueTail = 0;
+        queue[queueTail++] = startIdx;
+        expanded.set(startIdx);
+        while (queueHead < queueTail) {
+            final int classIdx = queue[queueHead++];
+            for (final int field : fields) {
+                final int listPos = getClassField(classIdx, field);
+                if (listPos == 0) {
+                    continue;
+                }
+                final int count = getInt(listPos);
+                for (int i = 0; i < count; i++) {
+                    final int relatedIdx = getInt(listPos + 4 + i * 4);
+                    reached.set(relatedIdx);
+                    if (!expanded.get(relatedIdx) && (requiredFlag == 0
+                            || (getClassField(relatedIdx, CLASS_FLAGS) & requiredFlag) != 0)) {
+                        expanded.set(relatedIdx);
+                        queue[queueTail++] = relatedIdx;
+                    }
+                }
+            }
+        }
+        reached.clear(startIdx);
+        final int[] classIdxs = new int[reached.cardinality()];
+        int numClassIdxs = 0;
+        for (int i = reached.nextSetBit(0); i >= 0; i = reached.nextSetBit(i + 1)) {
+            if (isVisible(i) && (excludedFlag == 0 || (getClassField(i, CLASS_FLAGS) & excludedFlag) == 0)) {
+                classIdxs[numClassIdxs++] = i;
+            }
+        }
+        return new ClassList(classIdxs, numClassIdxs);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the number of classes in the frozen scan result, including external classes.
+     *
+     * @return the number of classes
+     */
+    public int getNumClasses() {
+        getBuffer();
+        return numClasses;
+    }
+
+    /**
+     * Get the named class.
+     *
+     * @param className
+     *            the class name
+     * @return the {@link FrozenClassInfo} for the class, or null if the class was not found
+     */
+    public FrozenClassInfo getClassInfo(final String className) {
+        final int classIdx = findClass(className);
+        return classIdx < 0 ? null : new FrozenClassInfo(this, classIdx);
+    }
+
+    /**
+     * Get all classes, interfaces and annotations, in name order.
+     *
+     * @return the classes
+     */
+    public List<FrozenClassInfo> getAllClasses() {
+        final int[] classIdxs = new int[getNumClasses()];
+        int numClassIdxs = 0;
+        for (int i = 0; i < numClasses; i++) {
+            if (isVisible(i)) {
+                classIdxs[numClassIdxs++] = i;
+            }
+        }
+        return new ClassList(classIdxs, numClassIdxs);
+    }
+
+    /**
+     * Get all subclasses of the named superclass, in name order.
+     *
+     * @param superclassName
+     *            the name of the superclass
+     * @return the subclasses
+     */
+    public List<FrozenClassInfo> getSubclasses(final String superclassName) {
+        return getReachableClasses(superclassName, new int[] { CLASS_SUBCLASSES }, /* requiredFlag = */ 0,
+                /* excludedFlag = */ 0);
+    }
+
+    /**
+     * Get all classes that implement the named interface or one of its subinterfaces, or that extend a class that
+     * does, in name order.
+     *
+     * @param interfaceName
+     *            the name of the interface
+     * @return the implementing classes
+     */
+    public List<FrozenClassInfo> getClassesImplementing(final String interfaceName) {
+        return getReachableClasses(interfaceName, new int[] { CLASS_IMPLEMENTING, CLASS_SUBCLASSES },
+                /* requiredFlag = */ 0, /* excludedFlag = */ CLASS_FLAG_INTERFACE);
+    }
+
+    /**
+     * Get all classes that are annotated with the named annotation, either directly or via a meta-annotation, in
+     * name order. Unlike {@link ScanResult#getClassesWithAnnotation(String)}, subclasses of classes annotated
+     * with an {@code @Inherited} annotation are not returned.
+     *
+     * @param annotationName
+     *            the name of the annotation
+     * @return the annotated classes
+     */
+    public List<FrozenClassInfo> getClassesWithAnnotation(final String annotationName) {
+        return getReachableClasses(annotationName, new int[] { CLASS_ANNOTATED },
+                /* requiredFlag = */ CLASS_FLAG_ANNOTATION, /* excludedFlag = */ 0);
+    }
+
+    /**
+     * Free the buffer holding the frozen scan result (unmapping the file, if the frozen scan result was written to
+     * a file). The {@link FrozenClassInfo} and {@link FrozenMemberInfo} objects obtained from this
+     * {@link FrozenScanResult} cannot be used after it is closed.
+     *
+     * <p>
+     * The buffer is freed immediately, without waiting for readers. This method must therefore not be called
+     * while another thread may still be using this {@link FrozenScanResult} or the objects obtained from it: a
+     * read from a freed or unmapped buffer may crash the JVM, rather than throw an exception.
+     */
+    @Override
+    public void close() {
+        final ByteBuffer buf = buffer;
+        if (buf != null) {
+            buffer = null;
+            if (buf.isDirect()) {
+                FileUtils.closeDirectByteBuffer(buf, /* log = */ null);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** A list of classes, backed by an array of class indices. */
+    private class ClassList extends AbstractList<FrozenClassInfo> implements RandomAccess {
+        /** The class indices. */
+        private final int[] classIdxs;
+
+        /** The number of class indices. */
+        private final int size;
+
+        /**
+         * Constructor.
+         *
+         * @param classIdxs
+         *            the class indices
+         * @param size
+         *            the number of class indices
+         */
+        ClassList(final int[] classIdxs, final int size) {
+            this.classIdxs = classIdxs;
+            this.size = size;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        @Override
+        public FrozenClassInfo get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return new FrozenClassInfo(FrozenScanResult.this, classIdxs[index]);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /** A list of fields or methods, backed by a field or method table in the buffer. */
+    private class MemberList extends AbstractList<FrozenMemberInfo> implements RandomAccess {
+        /** The position of the first field or method record. */
+        private final int firstRecordPos;
+
+        /** The number of fields or methods. */
+        private final int size;
+
+        /** The index of the declaring class. */
+        private final int classIdx;
+
+        /**
+         * Constructor.
+         *
+         * @param firstRecordPos
+         *            the position of the first field or method record
+         * @param size
+         *            the number of fields or methods
+         * @param classIdx
+         *            the index of the declaring class
+         */
+        MemberList(final int firstRecordPos, final int size, final int classIdx) {
+            this.firstRecordPos = firstRecordPos;
+            this.size = size;
+            this.classIdx = classIdx;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        @Override
+        public FrozenMemberInfo get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return new FrozenMemberInfo(FrozenScanResult.this, classIdx, firstRecordPos + index * MEMBER_RECORD_SIZE);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
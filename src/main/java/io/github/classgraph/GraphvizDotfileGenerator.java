@@ -280,6 +280,9 @@ class GraphvizDotfileGenerator {
             }
         }
 
+        // Read any deferred fields and methods
+        ci.readDeferredMemberInfo(scanSpec);
+
         // Fields
         final FieldInfoList fieldInfo = ci.fieldInfo;
         if (showFields && fieldInfo != null && !fieldInfo.isEmpty()) {
@@ -537,6 +540,9 @@ class GraphvizDotfileGenerator {
                 }
             }
 
+            if (showFieldTypeDependencyEdges || showMethodTypeDependencyEdges) {
+                classNode.readDeferredMemberInfo(scanSpec);
+            }
             if (showFieldTypeDependencyEdges && classNode.fieldInfo != null) {
                 for (final FieldInfo fi : classNode.fieldInfo) {
                     for (final String referencedFieldTypeName : fi.findReferencedClassNames()) {
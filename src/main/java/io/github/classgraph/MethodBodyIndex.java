@@ -0,0 +1,176 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index from the methods invoked, fields read or written, and classes instantiated by method bodies to the
+ * methods whose bodies contain those references, built from the references recorded for each method when method
+ * body scanning is enabled. References are identified by the class name given in the bytecode (i.e. the static
+ * type of the receiver, not necessarily the class that declares the member) and by member name, so all overloads
+ * of a method share a reference.
+ */
+class MethodBodyIndex {
+    /** Reference kind for an invoke instruction (invokevirtual, invokespecial, invokestatic, invokeinterface). */
+    static final byte INVOKE = 0;
+
+    /** Reference kind for a getfield or getstatic instruction. */
+    static final byte FIELD_READ = 1;
+
+    /** Reference kind for a putfield or putstatic instruction. */
+    static final byte FIELD_WRITE = 2;
+
+    /** Reference kind for a new instruction. */
+    static final byte INSTANTIATE = 3;
+
+    /** The methods whose bodies contain references, indexed by caller id. */
+    private final MethodInfo[] callers;
+
+    /** A map from reference key to reference id. */
+    private final Map<String, Integer> refKeyToRefId = new HashMap<>();
+
+    /**
+     * The start offset within {@link #callerIds} of the callers of each reference id, with a final entry for the
+     * total number of edges.
+     */
+    private final int[] refOffsets;
+
+    /** The ids of the callers of each reference, grouped by reference id. */
+    private final int[] callerIds;
+
+    /**
+     * Build the index from the method body references recorded for the methods of the given classes.
+     *
+     * @param allClassInfo
+     *            all the {@link ClassInfo} objects
+     */
+    MethodBodyIndex(final Collection<ClassInfo> allClassInfo) {
+        // Assign ids to callers and references, and record the caller -> reference edges
+        MethodInfo[] callerArr = new MethodInfo[64];
+        int numCallers = 0;
+        int[] edgeCallerIds = new int[256];
+        int[] edgeRefIds = new int[256];
+        int numEdges = 0;
+        for (final ClassInfo classInfo : allClassInfo) {
+            if (classInfo.methodInfo == null) {
+                continue;
+            }
+            for (final MethodInfo methodInfo : classInfo.methodInfo) {
+                final byte[] refKinds = methodInfo.methodBodyRefKinds;
+                if (refKinds == null || refKinds.length == 0) {
+                    continue;
+                }
+                if (numCallers == callerArr.length) {
+                    callerArr = Arrays.copyOf(callerArr, numCallers * 2);
+                }
+                final int callerId = numCallers++;
+                callerArr[callerId] = methodInfo;
+                final String[] refNames = methodInfo.methodBodyRefNames;
+                for (int i = 0; i < refKinds.length; i++) {
+                    final String refKey = refKey(refKinds[i], refNames[2 * i], refNames[2 * i + 1]);
+                    Integer refId = refKeyToRefId.get(refKey);
+                    if (refId == null) {
+                        refId = refKeyToRefId.size();
+                        refKeyToRefId.put(refKey, refId);
+                    }
+                    if (numEdges == edgeCallerIds.length) {
+                        edgeCallerIds = Arrays.copyOf(edgeCallerIds, numEdges * 2);
+                        edgeRefIds = Arrays.copyOf(edgeRefIds, numEdges * 2);
+                    }
+                    edgeCallerIds[numEdges] = callerId;
+                    edgeRefIds[numEdges] = refId;
+                    numEdges++;
+                }
+            }
+        }
+        callers = Arrays.copyOf(callerArr, numCallers);
+
+        // Invert the edges, grouping the callers of each reference (a counting sort by reference id)
+        final int numRefs = refKeyToRefId.size();
+        refOffsets = new int[numRefs + 1];
+        for (int i = 0; i < numEdges; i++) {
+            refOffsets[edgeRefIds[i] + 1]++;
+        }
+        for (int i = 0; i < numRefs; i++) {
+            refOffsets[i + 1] += refOffsets[i];
+        }
+        final int[] nextOffset = Arrays.copyOf(refOffsets, numRefs);
+        callerIds = new int[numEdges];
+        for (int i = 0; i < numEdges; i++) {
+            callerIds[nextOffset[edgeRefIds[i]]++] = edgeCallerIds[i];
+        }
+    }
+
+    /**
+     * Get the key for a reference.
+     *
+     * @param refKind
+     *            the reference kind
+     * @param className
+     *            the class name
+     * @param memberName
+     *            the member name, or null for {@link #INSTANTIATE} references
+     * @return the reference key
+     */
+    private static String refKey(final byte refKind, final String className, final String memberName) {
+        return memberName == null ? refKind + "\n" + className : refKind + "\n" + className + "\n" + memberName;
+    }
+
+    /**
+     * Get the methods whose bodies contain the given reference.
+     *
+     * @param refKind
+     *            the reference kind
+     * @param className
+     *            the class name
+     * @param memberName
+     *            the member name, or null for {@link #INSTANTIATE} references
+     * @return the methods whose bodies contain the reference, sorted by declaring class name and method name
+     */
+    MethodInfoList getMethodsReferencing(final byte refKind, final String className, final String memberName) {
+        final Integer refId = refKeyToRefId.get(refKey(refKind, className, memberName));
+        if (refId == null) {
+            return MethodInfoList.EMPTY_LIST;
+        }
+        final Set<MethodInfo> methodsFound = new LinkedHashSet<>();
+        for (int i = refOffsets[refId], end = refOffsets[refId + 1]; i < end; i++) {
+            methodsFound.add(callers[callerIds[i]]);
+        }
+        final MethodInfoList methodInfoList = new MethodInfoList(methodsFound);
+        Collections.sort(methodInfoList);
+        return methodInfoList;
+    }
+}
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Set;
 
 import nonapi.io.github.classgraph.exceptions.ParseException;
+import nonapi.io.github.classgraph.types.SignatureCursor;
 import nonapi.io.github.classgraph.types.TypeUtils;
 import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
 
@@ -44,13 +45,13 @@ import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
  */
 public class MethodInfo extends ScanResultObject implements Comparable<MethodInfo>, HasName {
     /** Defining class name. */
-    private String declaringClassName;
+    String declaringClassName;
 
     /** Method name. */
-    private String name;
+    String name;
 
     /** Method modifiers. */
-    private int modifiers;
+    int modifiers;
 
     /** Method annotations. */
     AnnotationInfoList annotationInfo;
@@ -59,7 +60,7 @@ public class MethodInfo extends ScanResultObject implements Comparable<MethodInf
      * The JVM-internal type descriptor (missing type parameters, but including types for synthetic and mandated
      * method parameters).
      */
-    private String typeDescriptorStr;
+    String typeDescriptorStr;
 
     /** The parsed type descriptor. */
     private transient MethodTypeSignature typeDescriptor;
@@ -68,7 +69,7 @@ public class MethodInfo extends ScanResultObject implements Comparable<MethodInf
      * The type signature (may have type parameter information included, if present and available). Method parameter
      * types are unaligned.
      */
-    private String typeSignatureStr;
+    String typeSignatureStr;
 
     /** The parsed type signature (or null if none). Method parameter types are unaligned. */
     private transient MethodTypeSignature typeSignature;
@@ -77,13 +78,13 @@ public class MethodInfo extends ScanResultObject implements Comparable<MethodInf
      * Unaligned parameter names. These are only produced in JDK8+, and only if the commandline switch `-parameters`
      * is provided at compiletime.
      */
-    private String[] parameterNames;
+    String[] parameterNames;
 
     /**
      * Unaligned parameter modifiers. These are only produced in JDK8+, and only if the commandline switch
      * `-parameters` is provided at compiletime.
      */
-    private int[] parameterModifiers;
+    int[] parameterModifiers;
 
     /** Unaligned parameter annotations. */
     AnnotationInfo[][] parameterAnnotationInfo;
@@ -92,7 +93,19 @@ public class MethodInfo extends ScanResultObject implements Comparable<MethodInf
     private transient MethodParameterInfo[] parameterInfo;
 
     /** True if this method has a body. */
-    private boolean hasBody;
+    boolean hasBody;
+
+    /**
+     * The kinds of the references made by the method body, if method body scanning is enabled (see
+     * {@link MethodBodyIndex}).
+     */
+    byte[] methodBodyRefKinds;
+
+    /**
+     * The class name and member name (or null for instantiations) of each reference made by the method body, in
+     * pairs, if method body scanning is enabled.
+     */
+    String[] methodBodyRefNames;
 
     // -------------------------------------------------------------------------------------------------------------
 
@@ -586,24 +599,41 @@ public class MethodInfo extends ScanResultObject implements Comparable<MethodInf
      */
     @Override
     protected void findReferencedClassNames(final Set<String> classNames) {
-        final MethodTypeSignature methodSig = getTypeSignature();
-        if (methodSig != null) {
-            methodSig.findReferencedClassNames(classNames);
+        findReferencedClassNames(classNames, new SignatureCursor());
+    }
+
+    /**
+     * Get the names of any classes in the type descriptor or type signature.
+     *
+     * @param classNames
+     *            the class names
+     * @param signatureCursor
+     *            the signature cursor to walk type signature and type descriptor strings with
+     */
+    void findReferencedClassNames(final Set<String> classNames, final SignatureCursor signatureCursor) {
+        // Walk the type signature and type descriptor strings, unless they have already been parsed
+        if (typeSignature != null) {
+            typeSignature.findReferencedClassNames(classNames);
+        } else if (typeSignatureStr != null) {
+            findReferencedClassNames(typeSignatureStr, signatureCursor, classNames);
         }
-        final MethodTypeSignature methodDesc = getTypeDescriptor();
-        if (methodDesc != null) {
-            methodDesc.findReferencedClassNames(classNames);
+        if (typeDescriptor != null) {
+            typeDescriptor.findReferencedClassNames(classNames);
+        } else if (typeDescriptorStr != null) {
+            findReferencedClassNames(typeDescriptorStr, signatureCursor, classNames);
         }
         if (annotationInfo != null) {
             for (final AnnotationInfo ai : annotationInfo) {
                 ai.findReferencedClassNames(classNames);
             }
         }
-        for (final MethodParameterInfo mpi : getParameterInfo()) {
-            final AnnotationInfo[] aiArr = mpi.annotationInfo;
-            if (aiArr != null) {
-                for (final AnnotationInfo ai : aiArr) {
-                    ai.findReferencedClassNames(classNames);
+        // Read parameter annotations directly, since getParameterInfo() would parse the type descriptor
+        if (parameterAnnotationInfo != null) {
+            for (final AnnotationInfo[] aiArr : parameterAnnotationInfo) {
+                if (aiArr != null) {
+                    for (final AnnotationInfo ai : aiArr) {
+                        ai.findReferencedClassNames(classNames);
+                    }
                 }
             }
         }
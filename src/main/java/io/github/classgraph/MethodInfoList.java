@@ -33,6 +33,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import nonapi.io.github.classgraph.types.SignatureCursor;
+
 /** A list of {@link MethodInfo} objects. */
 public class MethodInfoList extends InfoList<MethodInfo> {
 
@@ -121,10 +123,12 @@ public class MethodInfoList extends InfoList<MethodInfo> {
      *
      * @param referencedClassNames
      *            the referenced class names
+     * @param signatureCursor
+     *            the signature cursor to walk type signature and type descriptor strings with
      */
-    void findReferencedClassNames(final Set<String> referencedClassNames) {
+    void findReferencedClassNames(final Set<String> referencedClassNames, final SignatureCursor signatureCursor) {
         for (final MethodInfo mi : this) {
-            mi.findReferencedClassNames(referencedClassNames);
+            mi.findReferencedClassNames(referencedClassNames, signatureCursor);
         }
     }
 
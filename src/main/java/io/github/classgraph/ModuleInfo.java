@@ -37,7 +37,7 @@ import java.util.Set;
 /** Holds metadata about a package encountered during a scan. */
 public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
     /** The name of the module. */
-    private String name;
+    String name;
 
     /** The classpath element. */
     private transient ClasspathElement classpathElement;
@@ -49,13 +49,13 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
     private transient URI locationURI;
 
     /** {@link AnnotationInfo} objects for any annotations on the package-info.class file, if present, else null. */
-    private AnnotationInfoList annotationInfo;
+    AnnotationInfoList annotationInfo;
 
     /** {@link PackageInfo} objects for packages found within the class, if any, else null. */
-    private LinkedHashSet<PackageInfo> packageInfoSet;
+    LinkedHashSet<PackageInfo> packageInfoSet;
 
     /** Set of classes in the module. */
-    private final Set<ClassInfo> classInfoSet = new HashSet<>();
+    final Set<ClassInfo> classInfoSet = new HashSet<>();
 
     // -------------------------------------------------------------------------------------------------------------
 
@@ -113,6 +113,20 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
         return moduleRef;
     }
 
+    /**
+     * Set the classpath element that this module was found in, after this {@link ModuleInfo} was loaded from a
+     * cached scan result.
+     *
+     * @param classpathElement
+     *            the classpath element
+     */
+    void setClasspathElement(final ClasspathElement classpathElement) {
+        this.classpathElement = classpathElement;
+        if (classpathElement instanceof ClasspathElementModule) {
+            this.moduleRef = ((ClasspathElementModule) classpathElement).getModuleRef();
+        }
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -125,6 +139,16 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
         classInfoSet.add(classInfo);
     }
 
+    /**
+     * Remove a {@link ClassInfo} object from this {@link ModuleInfo}, when its classfile is rescanned or removed.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object to remove
+     */
+    void removeClassInfo(final ClassInfo classInfo) {
+        classInfoSet.remove(classInfo);
+    }
+
     /**
      * Get the {@link ClassInfo} object for the named class in this module, or null if the class was not found in
      * this module.
@@ -37,70 +37,70 @@ class ObjectTypedValueWrapper extends ScanResultObject {
     // works properly (can't properly serialize a field of Object type, since the concrete type is not
     /** Enum value. */
     // stored in JSON).
-    private AnnotationEnumValue enumValue;
+    AnnotationEnumValue enumValue;
 
     /** Class ref. */
-    private AnnotationClassRef classRef;
+    AnnotationClassRef classRef;
 
     /** AnnotationInfo. */
-    private AnnotationInfo annotationInfo;
+    AnnotationInfo annotationInfo;
 
     /** String value. */
-    private String stringValue;
+    String stringValue;
 
     /** Integer value. */
-    private Integer integerValue;
+    Integer integerValue;
 
     /** Long value. */
-    private Long longValue;
+    Long longValue;
 
     /** Short value. */
-    private Short shortValue;
+    Short shortValue;
 
     /** Boolean value. */
-    private Boolean booleanValue;
+    Boolean booleanValue;
 
     /** Character value. */
-    private Character characterValue;
+    Character characterValue;
 
     /** Float value. */
-    private Float floatValue;
+    Float floatValue;
 
     /** Double value. */
-    private Double doubleValue;
+    Double doubleValue;
 
     /** Byte value. */
-    private Byte byteValue;
+    Byte byteValue;
 
     /** String array value. */
-    private String[] stringArrayValue;
+    String[] stringArrayValue;
 
     /** Int array value. */
-    private int[] intArrayValue;
+    int[] intArrayValue;
 
     /** Long array value. */
-    private long[] longArrayValue;
+    long[] longArrayValue;
 
     /** Short array value. */
-    private short[] shortArrayValue;
+    short[] shortArrayValue;
 
     /** Boolean array value. */
-    private boolean[] booleanArrayValue;
+    boolean[] booleanArrayValue;
 
     /** Char array value. */
-    private char[] charArrayValue;
+    char[] charArrayValue;
 
     /** Float array value. */
-    private float[] floatArrayValue;
+    float[] floatArrayValue;
 
     /** Double array value. */
-    private double[] doubleArrayValue;
+    double[] doubleArrayValue;
 
     /** Byte array value. */
-    private byte[] byteArrayValue;
+    byte[] byteArrayValue;
 
     /** Object array value. */
-    private ObjectTypedValueWrapper[] objectArrayValue;
+    ObjectTypedValueWrapper[] objectArrayValue;
 
     // -------------------------------------------------------------------------------------------------------------
 
@@ -38,19 +38,19 @@ import java.util.Set;
 /** Holds metadata about a package encountered during a scan. */
 public class PackageInfo implements Comparable<PackageInfo>, HasName {
     /** Name of the package. */
-    private String name;
+    String name;
 
     /** {@link AnnotationInfo} for any annotations on the package-info.class file, if present, else null. */
-    private AnnotationInfoList annotationInfo;
+    AnnotationInfoList annotationInfo;
 
     /** The parent package of this package. */
-    private PackageInfo parent;
+    PackageInfo parent;
 
     /** The child packages of this package. */
-    private Set<PackageInfo> children;
+    Set<PackageInfo> children;
 
     /** Set of classes in the package. */
-    private final Map<String, ClassInfo> memberClassNameToClassInfo = new HashMap<>();
+    final Map<String, ClassInfo> memberClassNameToClassInfo = new HashMap<>();
 
     // -------------------------------------------------------------------------------------------------------------
 
@@ -108,6 +108,21 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
         memberClassNameToClassInfo.put(classInfo.getName(), classInfo);
     }
 
+    /**
+     * Remove a {@link ClassInfo} object from this package, when its classfile is rescanned or removed.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object to remove from the package.
+     */
+    void removeClassInfo(final ClassInfo classInfo) {
+        memberClassNameToClassInfo.remove(classInfo.getName());
+    }
+
+    /** Remove the annotations found in the package descriptor classfile, before it is rescanned. */
+    void clearAnnotations() {
+        annotationInfo = null;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -0,0 +1,537 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.AbstractMap;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import io.github.classgraph.ClassInfo.RelType;
+
+/**
+ * A compact, read-only representation of the relationships between classes. Each {@link ClassInfo} is assigned an
+ * integer id, and for each {@link RelType}, the related classes of all classes are stored in compressed sparse row
+ * form: the ids of the classes related to the class with id {@code i} are {@code targets[offsets[i]]} to
+ * {@code targets[offsets[i + 1] - 1]}, in the order they were added during linking.
+ *
+ * <p>
+ * Once the graph is frozen, the {@link ClassInfo#relatedClasses} map of each class is replaced with a read-only
+ * {@link Map} view over the arrays, so that the per-class {@link EnumMap} and {@link LinkedHashSet} objects can be
+ * garbage collected. The graph has to be thawed before the relationships can be modified again.
+ *
+ * <p>
+ * If query indexes are enabled, the transitive closure of the relationship types used by the class hierarchy and
+ * annotation queries ({@link ClassInfo#getSubclasses()}, {@link ClassInfo#getClassesImplementing()} and
+ * {@link ClassInfo#getClassesWithAnnotation()}) is also precomputed for every class when the graph is frozen, and
+ * stored in the same compressed sparse row form, so that these queries do not have to traverse the graph.
+ */
+final class RelatedClassesGraph {
+    /** The {@link RelType} values, indexed by ordinal. */
+    private static final RelType[] REL_TYPES = RelType.values();
+
+    /** The relationship types to precompute the transitive closure of, if query indexes are enabled. */
+    private static final RelType[] INDEXED_REL_TYPES = { RelType.SUBCLASSES, RelType.CLASSES_IMPLEMENTING,
+            RelType.CLASSES_WITH_ANNOTATION };
+
+    /** The {@link ClassInfo} objects, indexed by id. */
+    private final ClassInfo[] classInfos;
+
+    /** For each {@link RelType} ordinal, the offsets into the targets array, indexed by class id. */
+    private final int[][] offsets;
+
+    /** For each {@link RelType} ordinal, the ids of the related classes. */
+    private final int[][] targets;
+
+    /**
+     * For each class id, a bitmask of the {@link RelType} ordinals that were present as keys in the related classes
+     * map of the class (the set of related classes for a present key may be empty).
+     */
+    private final int[] presentRelTypes;
+
+    /**
+     * For each {@link RelType} ordinal, the offsets into the transitive closure targets array, indexed by class id,
+     * or null if the transitive closure was not precomputed for the relationship type.
+     */
+    private final int[][] closureOffsets;
+
+    /**
+     * For each {@link RelType} ordinal, the ids of the classes reachable from each class, in breadth first order,
+     * or null if the transitive closure was not precomputed for the relationship type.
+     */
+    private final int[][] closureTargets;
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor.
+     *
+     * @param classInfos
+     *            the {@link ClassInfo} objects, indexed by id
+     * @param classInfoToId
+     *            the mapping from {@link ClassInfo} object to id
+     * @param relatedClassesMaps
+     *            the related classes maps, indexed by id (null for classes without a related classes map)
+     * @param buildQueryIndexes
+     *            if true, precompute the transitive closure of the relationship types used by queries
+     */
+    private RelatedClassesGraph(final ClassInfo[] classInfos, final Map<ClassInfo, Integer> classInfoToId,
+            final List<Map<RelType, Set<ClassInfo>>> relatedClassesMaps, final boolean buildQueryIndexes) {
+        this.classInfos = classInfos;
+        final int numClasses = classInfos.length;
+        this.offsets = new int[REL_TYPES.length][];
+        this.targets = new int[REL_TYPES.length][];
+        this.presentRelTypes = new int[numClasses];
+        this.closureOffsets = new int[REL_TYPES.length][];
+        this.closureTargets = new int[REL_TYPES.length][];
+        final int[] numEdges = new int[REL_TYPES.length];
+        for (int id = 0; id < numClasses; id++) {
+            final Map<RelType, Set<ClassInfo>> relatedClassesMap = relatedClassesMaps.get(id);
+            if (relatedClassesMap != null) {
+                for (final Entry<RelType, Set<ClassInfo>> ent : relatedClassesMap.entrySet()) {
+                    final int relTypeOrdinal = ent.getKey().ordinal();
+                    presentRelTypes[id] |= 1 << relTypeOrdinal;
+                    numEdges[relTypeOrdinal] += ent.getValue().size();
+                }
+            }
+        }
+        for (int relTypeOrdinal = 0; relTypeOrdinal < REL_TYPES.length; relTypeOrdinal++) {
+            if (numEdges[relTypeOrdinal] == 0) {
+                // Leave offsets and targets null for relationship types with no edges
+                continue;
+            }
+            final RelType relType = REL_TYPES[relTypeOrdinal];
+            final int[] relTypeOffsets = new int[numClasses + 1];
+            final int[] relTypeTargets = new int[numEdges[relTypeOrdinal]];
+            int numTargets = 0;
+            for (int id = 0; id < numClasses; id++) {
+                relTypeOffsets[id] = numTargets;
+                final Map<RelType, Set<ClassInfo>> relatedClassesMap = relatedClassesMaps.get(id);
+                final Set<ClassInfo> relatedClassInfoSet = relatedClassesMap == null ? null
+                        : relatedClassesMap.get(relType);
+                if (relatedClassInfoSet != null) {
+                    for (final ClassInfo relatedClassInfo : relatedClassInfoSet) {
+                        relTypeTargets[numTargets++] = classInfoToId.get(relatedClassInfo);
+                    }
+                }
+            }
+            relTypeOffsets[numClasses] = numTargets;
+            offsets[relTypeOrdinal] = relTypeOffsets;
+            targets[relTypeOrdinal] = relTypeTargets;
+        }
+        if (buildQueryIndexes) {
+            final BitSet visited = new BitSet(numClasses);
+            for (final RelType relType : INDEXED_REL_TYPES) {
+                final int relTypeOrdinal = relType.ordinal();
+                if (targets[relTypeOrdinal] == null) {
+                    continue;
+                }
+                final int[] relTypeClosureOffsets = new int[numClasses + 1];
+                int[] relTypeClosureTargets = new int[targets[relTypeOrdinal].length];
+                int numTargets = 0;
+                for (int id = 0; id < numClasses; id++) {
+                    relTypeClosureOffsets[id] = numTargets;
+                    final int[] closure = findTransitiveClosure(relTypeOrdinal, id, visited);
+                    if (numTargets + closure.length > relTypeClosureTargets.length) {
+                        relTypeClosureTargets = Arrays.copyOf(relTypeClosureTargets,
+                                Math.max(relTypeClosureTargets.length * 2, numTargets + closure.length));
+                    }
+                    System.arraycopy(closure, 0, relTypeClosureTargets, numTargets, closure.length);
+                    numTargets += closure.length;
+                }
+                relTypeClosureOffsets[numClasses] = numTargets;
+                closureOffsets[relTypeOrdinal] = relTypeClosureOffsets;
+                closureTargets[relTypeOrdinal] = numTargets == relTypeClosureTargets.length ? relTypeClosureTargets
+                        : Arrays.copyOf(relTypeClosureTargets, numTargets);
+            }
+        }
+    }
+
+    /**
+     * Compact the related classes of the given classes, and of any classes they are related to, into a
+     * {@link RelatedClassesGraph}, then replace the related classes map of each of these classes with a read-only
+     * view over the graph. Classes whose related classes are already frozen are thawed and frozen again. Not
+     * threadsafe, should be run in single threaded context.
+     *
+     * @param allClassInfo
+     *            the classes to freeze the related classes of
+     * @param buildQueryIndexes
+     *            if true, precompute the transitive closure of the relationship types used by the class hierarchy
+     *            and annotation queries
+     */
+    static void freeze(final Collection<ClassInfo> allClassInfo, final boolean buildQueryIndexes) {
+        thaw(allClassInfo);
+
+        // Assign an id to each class, including classes that are only reachable through relationships
+        final Map<ClassInfo, Integer> classInfoToId = new IdentityHashMap<>();
+        final List<ClassInfo> classInfoList = new ArrayList<>(allClassInfo.size());
+        final List<Map<RelType, Set<ClassInfo>>> relatedClassesMaps = new ArrayList<>(allClassInfo.size());
+        for (final ClassInfo classInfo : allClassInfo) {
+            if (!classInfoToId.containsKey(classInfo)) {
+                classInfoToId.put(classInfo, classInfoList.size());
+                classInfoList.add(classInfo);
+                relatedClassesMaps.add(classInfo.relatedClasses);
+            }
+        }
+        for (int id = 0; id < classInfoList.size(); id++) {
+            final Map<RelType, Set<ClassInfo>> relatedClassesMap = relatedClassesMaps.get(id);
+            if (relatedClassesMap != null) {
+                for (final Set<ClassInfo> relatedClassInfoSet : relatedClassesMap.values()) {
+                    for (final ClassInfo relatedClassInfo : relatedClassInfoSet) {
+                        if (!classInfoToId.containsKey(relatedClassInfo)) {
+                            classInfoToId.put(relatedClassInfo, classInfoList.size());
+                            classInfoList.add(relatedClassInfo);
+                            relatedClassesMaps.add(relatedClassInfo.relatedClasses instanceof FrozenRelatedClasses
+                                    ? ((FrozenRelatedClasses) relatedClassInfo.relatedClasses).thaw()
+                                    : relatedClassInfo.relatedClasses);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Build the graph, and replace the related classes maps with views over the graph
+        final RelatedClassesGraph graph = new RelatedClassesGraph(classInfoList.toArray(new ClassInfo[0]),
+                classInfoToId, relatedClassesMaps, buildQueryIndexes);
+        for (int id = 0; id < graph.classInfos.length; id++) {
+            if (relatedClassesMaps.get(id) != null) {
+                graph.classInfos[id].relatedClasses = new FrozenRelatedClasses(graph, id);
+            }
+        }
+    }
+
+    /**
+     * Replace any frozen related classes maps of the given classes with modifiable maps, so that relationships can
+     * be added or removed. Not threadsafe, should be run in single threaded context.
+     *
+     * @param allClassInfo
+     *            the classes to thaw the related classes of
+     */
+    static void thaw(final Collection<ClassInfo> allClassInfo) {
+        for (final ClassInfo classInfo : allClassInfo) {
+            if (classInfo.relatedClasses instanceof FrozenRelatedClasses) {
+                classInfo.relatedClasses = ((FrozenRelatedClasses) classInfo.relatedClasses).thaw();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the index of the first related class of a class in the targets array of a relationship type.
+     *
+     * @param relTypeOrdinal
+     *            the relationship type ordinal
+     * @param id
+     *            the class id
+     * @return the start index
+     */
+    private int start(final int relTypeOrdinal, final int id) {
+        final int[] relTypeOffsets = offsets[relTypeOrdinal];
+        return relTypeOffsets == null ? 0 : relTypeOffsets[id];
+    }
+
+    /**
+     * Get the index after the last related class of a class in the targets array of a relationship type.
+     *
+     * @param relTypeOrdinal
+     *            the relationship type ordinal
+     * @param id
+     *            the class id
+     * @return the end index
+     */
+    private int end(final int relTypeOrdinal, final int id) {
+        final int[] relTypeOffsets = offsets[relTypeOrdinal];
+        return relTypeOffsets == null ? 0 : relTypeOffsets[id + 1];
+    }
+
+    /**
+     * Find the transitive closure of the classes related to a class by a relationship type, in breadth first order,
+     * without including any class more than once.
+     *
+     * @param relTypeOrdinal
+     *            the relationship type ordinal
+     * @param id
+     *            the class id
+     * @param visited
+     *            a cleared {@link BitSet} to mark visited classes in, which is cleared again before returning
+     * @return the ids of the reachable classes
+     */
+    private int[] findTransitiveClosure(final int relTypeOrdinal, final int id, final BitSet visited) {
+        final int[] relTypeTargets = targets[relTypeOrdinal];
+        if (relTypeTargets == null) {
+            return new int[0];
+        }
+        final int[] relTypeOffsets = offsets[relTypeOrdinal];
+        int[] queue = new int[Math.max(16, relTypeOffsets[id + 1] - relTypeOffsets[id])];
+        int queueTail = 0;
+        for (int i = relTypeOffsets[id], end = relTypeOffsets[id + 1]; i < end; i++) {
+            final int targetId = relTypeTargets[i];
+            if (!visited.get(targetId)) {
+                visited.set(targetId);
+                queue[queueTail++] = targetId;
+            }
+        }
+        for (int queueHead = 0; queueHead < queueTail; queueHead++) {
+            final int headId = queue[queueHead];
+            for (int i = relTypeOffsets[headId], end = relTypeOffsets[headId + 1]; i < end; i++) {
+                final int targetId = relTypeTargets[i];
+                if (!visited.get(targetId)) {
+                    visited.set(targetId);
+                    if (queueTail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[queueTail++] = targetId;
+                }
+            }
+        }
+        for (int i = 0; i < queueTail; i++) {
+            visited.clear(queue[i]);
+        }
+        return Arrays.copyOf(queue, queueTail);
+    }
+
+    /**
+     * Add the transitive closure of the classes related to a class by a relationship type to a set, in breadth
+     * first order, without adding any class more than once. Uses the precomputed transitive closure, if available.
+     *
+     * @param relTypeOrdinal
+     *            the relationship type ordinal
+     * @param id
+     *            the class id
+     * @param reachableClassesOut
+     *            the set to add the reachable classes to
+     */
+    private void addTransitiveClosure(final int relTypeOrdinal, final int id,
+            final Set<ClassInfo> reachableClassesOut) {
+        final int[] relTypeClosureTargets = closureTargets[relTypeOrdinal];
+        if (relTypeClosureTargets != null) {
+            final int[] relTypeClosureOffsets = closureOffsets[relTypeOrdinal];
+            for (int i = relTypeClosureOffsets[id], end = relTypeClosureOffsets[id + 1]; i < end; i++) {
+                reachableClassesOut.add(classInfos[relTypeClosureTargets[i]]);
+            }
+        } else if (targets[relTypeOrdinal] != null) {
+            for (final int reachableId : findTransitiveClosure(relTypeOrdinal, id, new BitSet(classInfos.length))) {
+                reachableClassesOut.add(classInfos[reachableId]);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** A read-only view of the related classes of a class, backed by a {@link RelatedClassesGraph}. */
+    static final class FrozenRelatedClasses extends AbstractMap<RelType, Set<ClassInfo>> {
+        /** The graph. */
+        private final RelatedClassesGraph graph;
+
+        /** The id of the class in the graph. */
+        private final int id;
+
+        /**
+         * Constructor.
+         *
+         * @param graph
+         *            the graph
+         * @param id
+         *            the id of the class in the graph
+         */
+        FrozenRelatedClasses(final RelatedClassesGraph graph, final int id) {
+            this.graph = graph;
+            this.id = id;
+        }
+
+        /**
+         * Add the transitive closure of the classes related to this class by a relationship type to a set, in
+         * breadth first order, without adding any class more than once.
+         *
+         * @param relType
+         *            the relationship type
+         * @param reachableClassesOut
+         *            the set to add the reachable classes to
+         */
+        void addTransitiveClosure(final RelType relType, final Set<ClassInfo> reachableClassesOut) {
+            graph.addTransitiveClosure(relType.ordinal(), id, reachableClassesOut);
+        }
+
+        /**
+         * Copy the related classes of this class into a modifiable map.
+         *
+         * @return the modifiable map
+         */
+        private Map<RelType, Set<ClassInfo>> thaw() {
+            final Map<RelType, Set<ClassInfo>> relatedClassesMap = new EnumMap<>(RelType.class);
+            for (final Entry<RelType, Set<ClassInfo>> ent : entrySet()) {
+                relatedClassesMap.put(ent.getKey(), new LinkedHashSet<>(ent.getValue()));
+            }
+            return relatedClassesMap;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractMap#get(java.lang.Object)
+         */
+        @Override
+        public Set<ClassInfo> get(final Object key) {
+            return containsKey(key) ? new RelatedClassSet(((RelType) key).ordinal()) : null;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractMap#containsKey(java.lang.Object)
+         */
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof RelType && (graph.presentRelTypes[id] & (1 << ((RelType) key).ordinal())) != 0;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractMap#size()
+         */
+        @Override
+        public int size() {
+            return Integer.bitCount(graph.presentRelTypes[id]);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractMap#isEmpty()
+         */
+        @Override
+        public boolean isEmpty() {
+            return graph.presentRelTypes[id] == 0;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractMap#entrySet()
+         */
+        @Override
+        public Set<Entry<RelType, Set<ClassInfo>>> entrySet() {
+            return new AbstractSet<Entry<RelType, Set<ClassInfo>>>() {
+                @Override
+                public int size() {
+                    return FrozenRelatedClasses.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<RelType, Set<ClassInfo>>> iterator() {
+                    return new Iterator<Entry<RelType, Set<ClassInfo>>>() {
+                        /** The remaining relationship types, in ordinal order. */
+                        private int remainingRelTypes = graph.presentRelTypes[id];
+
+                        @Override
+                        public boolean hasNext() {
+                            return remainingRelTypes != 0;
+                        }
+
+                        @Override
+                        public Entry<RelType, Set<ClassInfo>> next() {
+                            if (remainingRelTypes == 0) {
+                                throw new NoSuchElementException();
+                            }
+                            final int relTypeOrdinal = Integer.numberOfTrailingZeros(remainingRelTypes);
+                            remainingRelTypes &= remainingRelTypes - 1;
+                            return new SimpleImmutableEntry<RelType, Set<ClassInfo>>(REL_TYPES[relTypeOrdinal],
+                                    new RelatedClassSet(relTypeOrdinal));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+
+        /** A read-only view of the classes related to a class by a given relationship type. */
+        private final class RelatedClassSet extends AbstractSet<ClassInfo> {
+            /** The relationship type ordinal. */
+            private final int relTypeOrdinal;
+
+            /**
+             * Constructor.
+             *
+             * @param relTypeOrdinal
+             *            the relationship type ordinal
+             */
+            RelatedClassSet(final int relTypeOrdinal) {
+                this.relTypeOrdinal = relTypeOrdinal;
+            }
+
+            /* (non-Javadoc)
+             * @see java.util.AbstractCollection#size()
+             */
+            @Override
+            public int size() {
+                return graph.end(relTypeOrdinal, id) - graph.start(relTypeOrdinal, id);
+            }
+
+            /* (non-Javadoc)
+             * @see java.util.AbstractCollection#iterator()
+             */
+            @Override
+            public Iterator<ClassInfo> iterator() {
+                return new Iterator<ClassInfo>() {
+                    /** The index of the next related class in the targets array. */
+                    private int next = graph.start(relTypeOrdinal, id);
+
+                    /** The index after the last related class in the targets array. */
+                    private final int end = graph.end(relTypeOrdinal, id);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    @Override
+                    public ClassInfo next() {
+                        if (next >= end) {
+                            throw new NoSuchElementException();
+                        }
+                        return graph.classInfos[graph.targets[relTypeOrdinal][next++]];
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        }
+    }
+}
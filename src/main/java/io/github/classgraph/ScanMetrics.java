@@ -0,0 +1,241 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import nonapi.io.github.classgraph.utils.ScanMetricsRecorder;
+
+/**
+ * Timings and counters for a scan, obtained by calling {@link ScanResult#getScanMetrics()}. All times are in
+ * nanoseconds.
+ */
+public final class ScanMetrics {
+    /** A phase of the scan. */
+    public enum Phase {
+        /** Finding classloaders, modules and classpath entries. */
+        CLASSPATH_DISCOVERY,
+        /** Opening classpath elements, reading jar central directories and manifests, and ordering elements. */
+        CLASSPATH_ELEMENT_OPENING,
+        /**
+         * Extracting deflated nested jars to RAM or to temporary files, and downloading remote jars. This happens
+         * while classpath elements are being opened, so this time is also included in
+         * {@link #CLASSPATH_ELEMENT_OPENING}, and wall time is summed across threads.
+         */
+        NESTED_JAR_EXTRACTION,
+        /** Scanning the paths within classpath elements against the whitelist and blacklist, and masking. */
+        PATH_SCANNING,
+        /** Parsing classfiles. */
+        CLASSFILE_PARSING,
+        /** Linking parsed classfiles into the class graph. */
+        LINKING,
+        /** Building the indexes of the {@link ScanResult}. */
+        INDEX_BUILDING
+    }
+
+    /** The wall time for each phase, indexed by {@link Phase#ordinal()}. */
+    private final long[] wallTimeNanos = new long[Phase.values().length];
+
+    /** The CPU time for each phase, indexed by {@link Phase#ordinal()}. */
+    private final long[] cpuTimeNanos = new long[Phase.values().length];
+
+    /** The total wall time of the scan. */
+    private final long totalWallTimeNanos;
+
+    /** The number of classfiles parsed. */
+    private final long numClassfilesParsed;
+
+    /** The number of bytes inflated. */
+    private final long numBytesInflated;
+
+    /** The number of bytes mapped into memory. */
+    private final long numBytesMapped;
+
+    /** The number of temporary files written. */
+    private final long numTempFilesWritten;
+
+    /** The number of {@code SingletonMap} hits. */
+    private final long numSingletonMapHits;
+
+    /** The number of {@code SingletonMap} misses. */
+    private final long numSingletonMapMisses;
+
+    /**
+     * Take a snapshot of the values in a {@link ScanMetricsRecorder}.
+     *
+     * @param recorder
+     *            the recorder
+     * @param totalWallTimeNanos
+     *            the total wall time of the scan
+     * @param numSingletonMapHits
+     *            the number of {@code SingletonMap} hits
+     * @param numSingletonMapMisses
+     *            the number of {@code SingletonMap} misses
+     */
+    ScanMetrics(final ScanMetricsRecorder recorder, final long totalWallTimeNanos, final long numSingletonMapHits,
+            final long numSingletonMapMisses) {
+        for (final Phase phase : Phase.values()) {
+            wallTimeNanos[phase.ordinal()] = recorder.getWallTimeNanos(phase);
+            cpuTimeNanos[phase.ordinal()] = recorder.getCpuTimeNanos(phase);
+        }
+        this.totalWallTimeNanos = totalWallTimeNanos;
+        this.numClassfilesParsed = recorder.getNumClassfilesParsed();
+        this.numBytesInflated = recorder.getNumBytesInflated();
+        this.numBytesMapped = recorder.getNumBytesMapped();
+        this.numTempFilesWritten = recorder.getNumTempFilesWritten();
+        this.numSingletonMapHits = numSingletonMapHits;
+        this.numSingletonMapMisses = numSingletonMapMisses;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the wall time spent in a phase of the scan.
+     *
+     * @param phase
+     *            the phase
+     * @return the wall time in nanoseconds
+     */
+    public long getWallTimeNanos(final Phase phase) {
+        return wallTimeNanos[phase.ordinal()];
+    }
+
+    /**
+     * Get the CPU time spent in a phase of the scan, summed across all threads that did work in the phase. Work
+     * done on virtual threads (see {@link ClassGraph#enableVirtualThreads()}) is not included, since the JVM does
+     * not measure the CPU time of virtual threads.
+     *
+     * @param phase
+     *            the phase
+     * @return the CPU time in nanoseconds, or -1 if the JVM does not support measuring thread CPU time
+     */
+    public long getCpuTimeNanos(final Phase phase) {
+        return cpuTimeNanos[phase.ordinal()];
+    }
+
+    /**
+     * Get the total wall time of the scan, from the start of classpath discovery until the {@link ScanResult} was
+     * built.
+     *
+     * @return the total wall time in nanoseconds
+     */
+    public long getTotalWallTimeNanos() {
+        return totalWallTimeNanos;
+    }
+
+    /**
+     * Get the number of classfiles parsed. This is zero if the class graph was loaded from the scan result cache.
+     *
+     * @return the number of classfiles parsed
+     */
+    public long getNumClassfilesParsed() {
+        return numClassfilesParsed;
+    }
+
+    /**
+     * Get the number of bytes inflated from deflated zip entries (including classfiles, resources and nested
+     * jars).
+     *
+     * @return the number of bytes inflated
+     */
+    public long getNumBytesInflated() {
+        return numBytesInflated;
+    }
+
+    /**
+     * Get the number of bytes of jarfiles mapped into memory.
+     *
+     * @return the number of bytes mapped into memory
+     */
+    public long getNumBytesMapped() {
+        return numBytesMapped;
+    }
+
+    /**
+     * Get the number of temporary files written (for extracted nested jars and downloaded remote jars).
+     *
+     * @return the number of temporary files written
+     */
+    public long getNumTempFilesWritten() {
+        return numTempFilesWritten;
+    }
+
+    /**
+     * Get the number of lookups in the scan's singleton maps (which deduplicate classpath elements, jarfiles and
+     * nested jars) that found an existing or in-progress instance.
+     *
+     * @return the number of singleton map hits
+     */
+    public long getNumSingletonMapHits() {
+        return numSingletonMapHits;
+    }
+
+    /**
+     * Get the number of lookups in the scan's singleton maps that created a new instance.
+     *
+     * @return the number of singleton map misses
+     */
+    public long getNumSingletonMapMisses() {
+        return numSingletonMapMisses;
+    }
+
+    /**
+     * Get all metrics as a map from metric name to value, in a fixed order, for exporting to a metrics system.
+     * Phase timings are named {@code "<phase>.wallTimeNanos"} and {@code "<phase>.cpuTimeNanos"}, where
+     * {@code <phase>} is the lowercase name of the {@link Phase}.
+     *
+     * @return the metrics
+     */
+    public Map<String, Long> toMap() {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        for (final Phase phase : Phase.values()) {
+            final String phaseName = phase.name().toLowerCase(Locale.ROOT);
+            map.put(phaseName + ".wallTimeNanos", wallTimeNanos[phase.ordinal()]);
+            map.put(phaseName + ".cpuTimeNanos", cpuTimeNanos[phase.ordinal()]);
+        }
+        map.put("totalWallTimeNanos", totalWallTimeNanos);
+        map.put("numClassfilesParsed", numClassfilesParsed);
+        map.put("numBytesInflated", numBytesInflated);
+        map.put("numBytesMapped", numBytesMapped);
+        map.put("numTempFilesWritten", numTempFilesWritten);
+        map.put("numSingletonMapHits", numSingletonMapHits);
+        map.put("numSingletonMapMisses", numSingletonMapMisses);
+        return map;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -31,33 +31,51 @@ package io.github.classgraph;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import io.github.classgraph.Scanner.ClassfileScanWorkUnit;
+import io.github.classgraph.Scanner.ClassfileScannerWorkUnitProcessor;
+import io.github.classgraph.Scanner.ClasspathEntryWorkUnit;
 import nonapi.io.github.classgraph.ScanSpec;
 import nonapi.io.github.classgraph.classpath.ClassLoaderAndModuleFinder;
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.concurrency.WorkQueue;
+import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
 import nonapi.io.github.classgraph.json.JSONDeserializer;
 import nonapi.io.github.classgraph.json.JSONSerializer;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.ScanMetricsRecorder;
+import nonapi.io.github.classgraph.utils.StringInternTable;
 
 /** The result of a scan. */
 public final class ScanResult implements Closeable, AutoCloseable {
@@ -84,6 +102,21 @@ public final class ScanResult implements Closeable, AutoCloseable {
     /** The map from class name to {@link ClassInfo}. */
     private Map<String, ModuleInfo> moduleNameToModuleInfo;
 
+    /**
+     * The annotation parameter value index, if query indexes are enabled and the index has been built, otherwise
+     * null.
+     */
+    private volatile AnnotationParameterIndex annotationParameterIndex;
+
+    /**
+     * The method body reference index, if method body scanning is enabled and the index has been built, otherwise
+     * null.
+     */
+    private volatile MethodBodyIndex methodBodyIndex;
+
+    /** The class dependency graph, if constant pool class dependencies are enabled, otherwise null. */
+    ClassDependencyGraph classDependencyGraph;
+
     /**
      * The file, directory and jarfile resources timestamped during a scan, along with their timestamp at the time
      * of the scan. For jarfiles, the timestamp represents the timestamp of all files within the jar. May be null,
@@ -91,7 +124,10 @@ public final class ScanResult implements Closeable, AutoCloseable {
      */
     private Map<File, Long> fileToLastModified;
 
-    /** If true, this {@link ScanResult} was produced by {@link ScanResult#fromJSON(String)}. */
+    /**
+     * If true, this {@link ScanResult} was produced by {@link ScanResult#fromJSON(String)} or
+     * {@link ScanResult#fromBinary(ByteBuffer)}.
+     */
     boolean scanResultCameFromDeserialization;
 
     /** A custom ClassLoader that can load classes found during the scan. */
@@ -107,9 +143,15 @@ public final class ScanResult implements Closeable, AutoCloseable {
     /** The nested jar handler instance. */
     private NestedJarHandler nestedJarHandler;
 
+    /** The nested jar handlers created by {@link #rescan()} to reopen modified jarfiles. */
+    private List<NestedJarHandler> rescanNestedJarHandlers;
+
     /** The scan spec. */
     final ScanSpec scanSpec;
 
+    /** The per-phase timings and counters for the scan that produced this ScanResult, or null if none. */
+    ScanMetrics scanMetrics;
+
     /** If true, this ScanResult has already been closed. */
     private volatile AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -152,23 +194,7 @@ public final class ScanResult implements Closeable, AutoCloseable {
         this.scanSpec = scanSpec;
         this.rawClasspathEltOrderStrs = rawClasspathEltOrderStrs;
         this.classpathOrder = classpathOrder;
-        for (final ClasspathElement classpathElt : classpathOrder) {
-            if (classpathElt.whitelistedResources != null) {
-                if (allWhitelistedResources == null) {
-                    allWhitelistedResources = new ResourceList();
-                    pathToWhitelistedResourceList = new HashMap<>();
-                }
-                allWhitelistedResources.addAll(classpathElt.whitelistedResources);
-                for (final Resource resource : classpathElt.whitelistedResources) {
-                    final String path = resource.getPath();
-                    ResourceList resourceList = pathToWhitelistedResourceList.get(path);
-                    if (resourceList == null) {
-                        pathToWhitelistedResourceList.put(path, resourceList = new ResourceList());
-                    }
-                    resourceList.add(resource);
-                }
-            }
-        }
+        indexWhitelistedResources();
         this.envClassLoaderOrder = envClassLoaderOrder;
         this.fileToLastModified = fileToLastModified;
         this.classNameToClassInfo = classNameToClassInfo;
@@ -186,25 +212,14 @@ public final class ScanResult implements Closeable, AutoCloseable {
 
             // If inter-class dependencies are enabled, create placeholder ClassInfo objects for any referenced
             // classes that were not scanned
-            if (scanSpec.enableInterClassDependencies) {
-                for (final ClassInfo ci : new ArrayList<>(classNameToClassInfo.values())) {
-                    final Set<ClassInfo> refdClasses = new HashSet<>();
-                    for (final String refdClassName : ci.findReferencedClassNames()) {
-                        // Don't add circular dependencies
-                        if (!ci.getName().equals(refdClassName)) {
-                            // Get ClassInfo object for the named class, or create one if it doesn't exist
-                            final ClassInfo refdClassInfo = ClassInfo.getOrCreateClassInfo(refdClassName,
-                                    /* classModifiers are unknown */ 0, classNameToClassInfo);
-                            refdClassInfo.setScanResult(this);
-                            if (!refdClassInfo.isExternalClass() || scanSpec.enableExternalClasses) {
-                                // Only add class to result if it is whitelisted, or external classes are enabled
-                                refdClasses.add(refdClassInfo);
-                            }
-                        }
-                    }
-                    ci.setReferencedClasses(new ClassInfoList(refdClasses, /* sortByName = */ true));
-                }
+            if (scanSpec.enableConstantPoolClassDependencies) {
+                classDependencyGraph = new ClassDependencyGraph(classNameToClassInfo, scanSpec, this);
+            } else if (scanSpec.enableInterClassDependencies) {
+                findReferencedClasses(new ArrayList<>(classNameToClassInfo.values()));
             }
+
+            // Compact the relationships between classes into a read-only graph
+            RelatedClassesGraph.freeze(classNameToClassInfo.values(), scanSpec.enableQueryIndexes);
         }
 
         // Define a new ClassLoader that can load the classes found during the scan
@@ -215,6 +230,88 @@ public final class ScanResult implements Closeable, AutoCloseable {
         nonClosedWeakReferences.add(this.weakReference);
     }
 
+    /**
+     * Build the annotation parameter value index and the method body reference index, if enabled. Called once the
+     * class graph has been linked. Neither index changes the class graph, so the class graph may be queried while
+     * the indexes are being built.
+     */
+    void buildIndexes() {
+        if (classNameToClassInfo != null) {
+            if (scanSpec.enableQueryIndexes && scanSpec.enableAnnotationInfo) {
+                annotationParameterIndex = new AnnotationParameterIndex(classNameToClassInfo.values(), scanSpec);
+            }
+            if (scanSpec.enableMethodBodyScanning) {
+                methodBodyIndex = new MethodBodyIndex(classNameToClassInfo.values());
+            }
+        }
+    }
+
+    /** Index the whitelisted resources of all classpath elements by path. */
+    private void indexWhitelistedResources() {
+        allWhitelistedResources = null;
+        pathToWhitelistedResourceList = null;
+        for (final ClasspathElement classpathElt : classpathOrder) {
+            if (classpathElt.whitelistedResources != null) {
+                if (allWhitelistedResources == null) {
+                    allWhitelistedResources = new ResourceList();
+                    pathToWhitelistedResourceList = new HashMap<>();
+                }
+                allWhitelistedResources.addAll(classpathElt.whitelistedResources);
+                for (final Resource resource : classpathElt.whitelistedResources) {
+                    final String path = resource.getPath();
+                    ResourceList resourceList = pathToWhitelistedResourceList.get(path);
+                    if (resourceList == null) {
+                        pathToWhitelistedResourceList.put(path, resourceList = new ResourceList());
+                    }
+                    resourceList.add(resource);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the classes referenced by each of the given classes, creating placeholder ClassInfo objects for any
+     * referenced classes that were not scanned.
+     *
+     * @param classInfos
+     *            the classes to find referenced classes for
+     */
+    private void findReferencedClasses(final Collection<ClassInfo> classInfos) {
+        for (final ClassInfo ci : classInfos) {
+            final Set<ClassInfo> refdClasses = new HashSet<>();
+            for (final String refdClassName : ci.findReferencedClassNames()) {
+                // Don't add circular dependencies
+                if (!ci.getName().equals(refdClassName)) {
+                    // Get ClassInfo object for the named class, or create one if it doesn't exist
+                    final ClassInfo refdClassInfo = ClassInfo.getOrCreateClassInfo(refdClassName,
+                            /* classModifiers are unknown */ 0, classNameToClassInfo);
+                    refdClassInfo.setScanResult(this);
+                    if (!refdClassInfo.isExternalClass() || scanSpec.enableExternalClasses) {
+                        // Only add class to result if it is whitelisted, or external classes are enabled
+                        refdClasses.add(refdClassInfo);
+                    }
+                }
+            }
+            ci.setReferencedClasses(new ClassInfoList(refdClasses, /* sortByName = */ true));
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+    // Scan metrics
+
+    /**
+     * Get the per-phase wall time and CPU time, and counters such as the number of classfiles parsed and bytes
+     * inflated, for the scan that produced this {@link ScanResult}.
+     *
+     * @return The scan metrics, or null if this {@link ScanResult} was deserialized from JSON or binary format.
+     */
+    public ScanMetrics getScanMetrics() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        return scanMetrics;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Classpath / module path
 
@@ -564,6 +661,9 @@ public final class ScanResult implements Closeable, AutoCloseable {
      *         calling {@link ClassInfo#getClassDependencies()} on the corresponding key.
      */
     public Map<ClassInfo, ClassInfoList> getClassDependencyMap() {
+        if (classDependencyGraph != null) {
+            return classDependencyGraph.getDependencyMap(getAllClasses());
+        }
         final Map<ClassInfo, ClassInfoList> map = new HashMap<>();
         for (final ClassInfo ci : getAllClasses()) {
             map.put(ci, ci.getClassDependencies());
@@ -584,6 +684,9 @@ public final class ScanResult implements Closeable, AutoCloseable {
      *         to dependents).
      */
     public Map<ClassInfo, ClassInfoList> getReverseClassDependencyMap() {
+        if (classDependencyGraph != null) {
+            return classDependencyGraph.getReverseDependencyMap(getAllClasses());
+        }
         final Map<ClassInfo, Set<ClassInfo>> revMapSet = new HashMap<>();
         for (final ClassInfo ci : getAllClasses()) {
             for (final ClassInfo dep : ci.getClassDependencies()) {
@@ -868,6 +971,171 @@ public final class ScanResult implements Closeable, AutoCloseable {
         return classInfo == null ? ClassInfoList.EMPTY_LIST : classInfo.getAnnotations();
     }
 
+    /**
+     * Get the classes directly annotated with the named annotation, where the named annotation parameter has the given
+     * value (taking default parameter values into account). For array-typed parameters, the classes are returned if
+     * any element of the array has the given value. Requires {@link ClassGraph#enableQueryIndexes()}.
+     *
+     * @param annotationName
+     *            The name of the annotation.
+     * @param parameterName
+     *            The name of the annotation parameter.
+     * @param parameterValue
+     *            The parameter value to look up: a {@link String}, a boxed primitive of the same type as the
+     *            parameter, an {@link Enum} constant or {@link AnnotationEnumValue}, or a {@link Class} reference
+     *            or {@link AnnotationClassRef}. Nested annotations cannot be looked up.
+     * @return A list of the matching classes, or the empty list if none.
+     */
+    public ClassInfoList getClassesWithAnnotationParameterValue(final String annotationName, final String parameterName,
+            final Object parameterValue) {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (annotationParameterIndex == null) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo(), #enableAnnotationInfo() "
+                    + "and #enableQueryIndexes() before #scan()");
+        }
+        return annotationParameterIndex.getClassesWithAnnotationParameterValue(annotationName, parameterName,
+                parameterValue);
+    }
+
+    /**
+     * Get the methods directly annotated with the named annotation, where the named annotation parameter has the given
+     * value (taking default parameter values into account). For array-typed parameters, the methods are returned if
+     * any element of the array has the given value. Requires {@link ClassGraph#enableQueryIndexes()}.
+     *
+     * @param annotationName
+     *            The name of the annotation.
+     * @param parameterName
+     *            The name of the annotation parameter.
+     * @param parameterValue
+     *            The parameter value to look up: a {@link String}, a boxed primitive of the same type as the
+     *            parameter, an {@link Enum} constant or {@link AnnotationEnumValue}, or a {@link Class} reference
+     *            or {@link AnnotationClassRef}. Nested annotations cannot be looked up.
+     * @return A list of the matching methods, or the empty list if none.
+     */
+    public MethodInfoList getMethodsWithAnnotationParameterValue(final String annotationName,
+            final String parameterName, final Object parameterValue) {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (annotationParameterIndex == null) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo(), #enableAnnotationInfo() "
+                    + "and #enableQueryIndexes() before #scan()");
+        }
+        return annotationParameterIndex.getMethodsWithAnnotationParameterValue(annotationName, parameterName,
+                parameterValue);
+    }
+
+    /**
+     * Get the fields directly annotated with the named annotation, where the named annotation parameter has the given
+     * value (taking default parameter values into account). For array-typed parameters, the fields are returned if
+     * any element of the array has the given value. Requires {@link ClassGraph#enableQueryIndexes()}.
+     *
+     * @param annotationName
+     *            The name of the annotation.
+     * @param parameterName
+     *            The name of the annotation parameter.
+     * @param parameterValue
+     *            The parameter value to look up: a {@link String}, a boxed primitive of the same type as the
+     *            parameter, an {@link Enum} constant or {@link AnnotationEnumValue}, or a {@link Class} reference
+     *            or {@link AnnotationClassRef}. Nested annotations cannot be looked up.
+     * @return A list of the matching fields, or the empty list if none.
+     */
+    public FieldInfoList getFieldsWithAnnotationParameterValue(final String annotationName, final String parameterName,
+            final Object parameterValue) {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (annotationParameterIndex == null) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo(), #enableAnnotationInfo() "
+                    + "and #enableQueryIndexes() before #scan()");
+        }
+        return annotationParameterIndex.getFieldsWithAnnotationParameterValue(annotationName, parameterName,
+                parameterValue);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+    // Method body references
+
+    /**
+     * Get the methods whose bodies invoke the named method (of any signature) of the named class. The class name
+     * is the class given in the bytecode of the call site, i.e. the static type of the receiver, which may be a
+     * subclass of the class that declares the method. Only methods that were scanned are returned, so you may want
+     * to call {@link ClassGraph#ignoreMethodVisibility()}. Requires {@link ClassGraph#enableMethodBodyScanning()}.
+     *
+     * @param className
+     *            The name of the class.
+     * @param methodName
+     *            The name of the method, or {@code "<init>"} for constructors.
+     * @return A list of the calling methods, or the empty list if none.
+     */
+    public MethodInfoList getMethodsCalling(final String className, final String methodName) {
+        return getMethodsReferencing(MethodBodyIndex.INVOKE, className, methodName);
+    }
+
+    /**
+     * Get the methods whose bodies read the named field of the named class. The class name is the class given in
+     * the bytecode of the field access. Requires {@link ClassGraph#enableMethodBodyScanning()}.
+     *
+     * @param className
+     *            The name of the class.
+     * @param fieldName
+     *            The name of the field.
+     * @return A list of the methods that read the field, or the empty list if none.
+     */
+    public MethodInfoList getMethodsReadingField(final String className, final String fieldName) {
+        return getMethodsReferencing(MethodBodyIndex.FIELD_READ, className, fieldName);
+    }
+
+    /**
+     * Get the methods whose bodies write the named field of the named class. The class name is the class given in
+     * the bytecode of the field access. Requires {@link ClassGraph#enableMethodBodyScanning()}.
+     *
+     * @param className
+     *            The name of the class.
+     * @param fieldName
+     *            The name of the field.
+     * @return A list of the methods that write the field, or the empty list if none.
+     */
+    public MethodInfoList getMethodsWritingField(final String className, final String fieldName) {
+        return getMethodsReferencing(MethodBodyIndex.FIELD_WRITE, className, fieldName);
+    }
+
+    /**
+     * Get the methods whose bodies instantiate the named class. Requires
+     * {@link ClassGraph#enableMethodBodyScanning()}.
+     *
+     * @param className
+     *            The name of the class.
+     * @return A list of the methods that instantiate the class, or the empty list if none.
+     */
+    public MethodInfoList getMethodsInstantiating(final String className) {
+        return getMethodsReferencing(MethodBodyIndex.INSTANTIATE, className, /* memberName = */ null);
+    }
+
+    /**
+     * Get the methods whose bodies contain the given reference.
+     *
+     * @param refKind
+     *            the reference kind
+     * @param className
+     *            the class name
+     * @param memberName
+     *            the member name, or null for instantiations
+     * @return the methods whose bodies contain the reference
+     */
+    private MethodInfoList getMethodsReferencing(final byte refKind, final String className,
+            final String memberName) {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (methodBodyIndex == null) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableMethodBodyScanning() before #scan()");
+        }
+        return methodBodyIndex.getMethodsReferencing(refKind, className, memberName);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Classpath modification tests
 
@@ -923,6 +1191,336 @@ public final class ScanResult implements Closeable, AutoCloseable {
         return maxLastModifiedTime;
     }
 
+    // -------------------------------------------------------------------------------------------------------------
+    // Incremental rescanning
+
+    /**
+     * Check whether any of the files, directories or jarfiles timestamped while scanning a classpath element have
+     * been modified since they were timestamped.
+     *
+     * @param classpathElt
+     *            the classpath element
+     * @return true if the classpath element has been modified.
+     */
+    private static boolean classpathEltModifiedSinceScan(final ClasspathElement classpathElt) {
+        if (classpathElt.fileToLastModified != null) {
+            for (final Entry<File, Long> ent : classpathElt.fileToLastModified.entrySet()) {
+                if (ent.getKey().lastModified() != ent.getValue()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create a new classpath element for a directory or jarfile that has been modified since it was scanned, then
+     * open it and scan its paths.
+     *
+     * @param classpathElt
+     *            the modified classpath element
+     * @param rescanNestedJarHandler
+     *            the nested jar handler to use for reopening jarfiles
+     * @param log
+     *            the log
+     * @return the new classpath element, or null if the classpath element cannot be rescanned.
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     * @throws ExecutionException
+     *             if opening the classpath element threw an uncaught exception
+     */
+    private ClasspathElement reopenClasspathElt(final ClasspathElement classpathElt,
+            final NestedJarHandler rescanNestedJarHandler, final LogNode log)
+            throws InterruptedException, ExecutionException {
+        final ClasspathElement newClasspathElt;
+        if (classpathElt instanceof ClasspathElementDir) {
+            newClasspathElt = new ClasspathElementDir(((ClasspathElementDir) classpathElt).getDirFile(),
+                    classpathElt.getClassLoader(), scanSpec);
+        } else if (classpathElt instanceof ClasspathElementZip) {
+            final ClasspathElementZip newClasspathEltZip = new ClasspathElementZip(
+                    ((ClasspathElementZip) classpathElt).getRawPath(), classpathElt.getClassLoader(),
+                    rescanNestedJarHandler, scanSpec);
+            // Reopen the jarfile. Child classpath elements (lib jars and Class-Path manifest entries) are already
+            // present in the classpath order, and any new child classpath elements are ignored.
+            WorkQueue.runWorkQueue(
+                    Collections.singletonList(new ClasspathEntryWorkUnit(
+                            new SimpleEntry<>(newClasspathEltZip.getRawPath(), classpathElt.getClassLoader()),
+                            /* parentClasspathElement = */ null, /* orderWithinParentClasspathElement = */ 0)),
+                    /* executorService = */ null, new InterruptionChecker(), /* numParallelTasks = */ 1, log,
+                    new WorkUnitProcessor<ClasspathEntryWorkUnit>() {
+                        @Override
+                        public void processWorkUnit(final ClasspathEntryWorkUnit workUnit,
+                                final WorkQueue<ClasspathEntryWorkUnit> workQueue, final LogNode openLog) {
+                            if (workUnit.parentClasspathElement == null) {
+                                newClasspathEltZip.open(workQueue, openLog);
+                            } else if (openLog != null) {
+                                openLog.log("Ignoring new child classpath element "
+                                        + workUnit.rawClasspathEntry.getKey()
+                                        + " -- perform a full scan to detect changes to the classpath structure");
+                            }
+                        }
+                    });
+            newClasspathElt = newClasspathEltZip;
+        } else {
+            if (log != null) {
+                log.log("Cannot rescan modified module " + classpathElt + " -- perform a full scan instead");
+            }
+            return null;
+        }
+        newClasspathElt.nestedClasspathRootPrefixes = classpathElt.nestedClasspathRootPrefixes;
+        newClasspathElt.scanPaths(log);
+        return newClasspathElt;
+    }
+
+    /**
+     * Incrementally update this {@link ScanResult} to reflect changes made to directories and jarfiles on the
+     * classpath since the scan (or since the last call to this method). Only directories and jarfiles whose
+     * timestamped files have changed (as detected by {@link #classpathContentsModifiedSinceScan()}) are reopened.
+     * The classes they previously contributed are unlinked from the class graph, and only their classfiles are
+     * parsed and linked again.
+     *
+     * <p>
+     * Like {@link #classpathContentsModifiedSinceScan()}, this method only checks the classpath elements that were
+     * found during the scan. Changes to the structure of the classpath (adding or removing classpath elements, or
+     * changing a {@code Class-Path} manifest entry), changes to modules, and changes to which classpath element
+     * defines a class that is defined in more than one classpath element all require a full scan. Lists of
+     * {@link ClassInfo} objects obtained before calling this method are not updated.
+     *
+     * <p>
+     * This method updates the class graph and the query indexes of this {@link ScanResult} in place, without
+     * locking them against readers. Calls to this method are serialized, but a call must not overlap any other use
+     * of this {@link ScanResult}, or of the {@link ClassInfo}, {@link PackageInfo} and {@link Resource} objects
+     * obtained from it, in another thread: a concurrent query may see a partially updated class graph, or throw
+     * {@link java.util.ConcurrentModificationException}.
+     *
+     * @return true if any classpath element was modified and rescanned, otherwise false.
+     * @throws ClassGraphException
+     *             if rescanning was interrupted, or threw an uncaught exception.
+     */
+    public synchronized boolean rescan() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (scanResultCameFromDeserialization || classpathOrder == null || fileToLastModified == null) {
+            throw new IllegalArgumentException("Only a ScanResult produced by ClassGraph#scan() can be rescanned");
+        }
+        if (!scanSpec.enableClassInfo) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
+        }
+        final LogNode rescanLog = log == null ? null : log.log("Rescanning modified classpath elements");
+        try {
+            // Reopen and scan the paths of modified classpath elements
+            final Map<ClasspathElement, ClasspathElement> modifiedToRescannedClasspathElt = new HashMap<>();
+            NestedJarHandler rescanNestedJarHandler = null;
+            for (int i = 0; i < classpathOrder.size(); i++) {
+                final ClasspathElement classpathElt = classpathOrder.get(i);
+                if (classpathEltModifiedSinceScan(classpathElt)) {
+                    if (rescanNestedJarHandler == null && classpathElt instanceof ClasspathElementZip) {
+                        // Use a new nested jar handler, since the old one caches the old jarfile contents
+                        rescanNestedJarHandler = new NestedJarHandler(scanSpec);
+                    }
+                    final ClasspathElement rescannedClasspathElt = reopenClasspathElt(classpathElt,
+                            rescanNestedJarHandler, rescanLog);
+                    if (rescannedClasspathElt != null) {
+                        classpathOrder.set(i, rescannedClasspathElt);
+                        modifiedToRescannedClasspathElt.put(classpathElt, rescannedClasspathElt);
+                    }
+                }
+            }
+            if (rescanNestedJarHandler != null) {
+                if (rescanNestedJarHandlers == null) {
+                    rescanNestedJarHandlers = new ArrayList<>();
+                }
+                rescanNestedJarHandlers.add(rescanNestedJarHandler);
+            }
+            if (modifiedToRescannedClasspathElt.isEmpty()) {
+                if (rescanLog != null) {
+                    rescanLog.log("No classpath elements were modified");
+                }
+                return false;
+            }
+            final Collection<ClasspathElement> rescannedClasspathElts = modifiedToRescannedClasspathElt.values();
+
+            // Filter out classpath elements that do not contain required whitelisted paths, then mask classfiles
+            // in rescanned classpath elements that are defined in an earlier classpath element
+            List<ClasspathElement> classpathOrderFiltered = classpathOrder;
+            if (!scanSpec.classpathElementResourcePathWhiteBlackList.whitelistIsEmpty()) {
+                classpathOrderFiltered = new ArrayList<>(classpathOrder.size());
+                for (final ClasspathElement classpathElt : classpathOrder) {
+                    if (classpathElt.containsSpecificallyWhitelistedClasspathElementResourcePath) {
+                        classpathOrderFiltered.add(classpathElt);
+                    }
+                }
+            }
+            final HashSet<String> classfilePathsFound = new HashSet<>();
+            for (int i = 0; i < classpathOrderFiltered.size(); i++) {
+                final ClasspathElement classpathElt = classpathOrderFiltered.get(i);
+                if (rescannedClasspathElts.contains(classpathElt)) {
+                    classpathElt.maskClassfiles(i, classfilePathsFound, rescanLog);
+                } else if (classpathElt.whitelistedClassfileResources != null) {
+                    for (final Resource resource : classpathElt.whitelistedClassfileResources) {
+                        classfilePathsFound.add(resource.getPath());
+                    }
+                }
+            }
+
+            // Make the relationships between classes modifiable again, then unlink the classes that were found in
+            // the modified classpath elements
+            RelatedClassesGraph.thaw(classNameToClassInfo.values());
+            final Set<ClassInfo> unlinkedClassInfo = new HashSet<>();
+            for (final ClassInfo classInfo : classNameToClassInfo.values()) {
+                if (classInfo.isScannedClass()
+                        && modifiedToRescannedClasspathElt.containsKey(classInfo.classpathElement)) {
+                    final String moduleName = classInfo.classpathElement.getModuleName();
+                    final ModuleInfo moduleInfo = moduleName == null ? null
+                            : moduleNameToModuleInfo.get(moduleName);
+                    if (moduleInfo != null) {
+                        moduleInfo.removeClassInfo(classInfo);
+                    }
+                    final PackageInfo packageInfo = packageNameToPackageInfo.get(classInfo.getPackageName());
+                    if (packageInfo != null) {
+                        packageInfo.removeClassInfo(classInfo);
+                    }
+                    unlinkedClassInfo.add(classInfo);
+                }
+            }
+            final Set<ClassInfo> unlinkedRelatedClassInfo = new HashSet<>();
+            for (final ClassInfo classInfo : unlinkedClassInfo) {
+                classInfo.unlinkScannedClass(unlinkedRelatedClassInfo);
+            }
+            unlinkedRelatedClassInfo.addAll(unlinkedClassInfo);
+            for (final ClasspathElement modifiedClasspathElt : modifiedToRescannedClasspathElt.keySet()) {
+                for (final Resource resource : modifiedClasspathElt.whitelistedClassfileResources) {
+                    final String path = resource.getPath();
+                    if (path.equals("package-info.class") || path.endsWith("/package-info.class")) {
+                        // Package annotations are added again when the package descriptor is linked again
+                        final PackageInfo packageInfo = packageNameToPackageInfo.get(PackageInfo
+                                .getParentPackageName(JarUtils.classfilePathToClassName(path)));
+                        if (packageInfo != null) {
+                            packageInfo.clearAnnotations();
+                        }
+                    }
+                }
+            }
+
+            // Parse the whitelisted classfiles of the rescanned classpath elements
+            final Set<String> classNamesScheduledForScanning = Collections
+                    .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            for (final ClassInfo classInfo : classNameToClassInfo.values()) {
+                if (classInfo.isScannedClass()) {
+                    classNamesScheduledForScanning.add(classInfo.getName());
+                }
+            }
+            final List<ClassfileScanWorkUnit> classfileScanWorkItems = new ArrayList<>();
+            for (final ClasspathElement classpathElt : classpathOrderFiltered) {
+                if (rescannedClasspathElts.contains(classpathElt)) {
+                    for (final Resource resource : classpathElt.whitelistedClassfileResources) {
+                        // Skip classes that are still defined by an unmodified classpath element
+                        if (classNamesScheduledForScanning
+                                .add(JarUtils.classfilePathToClassName(resource.getPath()))) {
+                            classfileScanWorkItems.add(
+                                    new ClassfileScanWorkUnit(classpathElt, resource, /* isExternal = */ false));
+                        }
+                    }
+                }
+            }
+            final Queue<Classfile> scannedClassfiles = new ConcurrentLinkedQueue<>();
+            WorkQueue.runWorkQueue(classfileScanWorkItems, /* executorService = */ null, new InterruptionChecker(),
+                    /* numParallelTasks = */ 1, rescanLog, new ClassfileScannerWorkUnitProcessor(scanSpec,
+                            classpathOrderFiltered, classNamesScheduledForScanning, scannedClassfiles,
+                            new StringInternTable(), new ScanMetricsRecorder()));
+
+            // Link the new Classfile objects into the class graph
+            final List<ClassInfo> linkedClassInfo = new ArrayList<>();
+            for (final Classfile classfile : scannedClassfiles) {
+                classfile.link(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo, rescanLog);
+                final ClassInfo classInfo = classNameToClassInfo.get(classfile.getClassName());
+                if (classInfo != null) {
+                    linkedClassInfo.add(classInfo);
+                }
+            }
+
+            for (final ClassInfo classInfo : classNameToClassInfo.values()) {
+                classInfo.setScanResult(this);
+                classInfo.clearOverrideOrder();
+            }
+            if (scanSpec.enableConstantPoolClassDependencies) {
+                classDependencyGraph = new ClassDependencyGraph(classNameToClassInfo, scanSpec, this);
+            } else if (scanSpec.enableInterClassDependencies) {
+                findReferencedClasses(linkedClassInfo);
+            }
+
+            // Remove classes whose classfile was removed, and placeholder classes that are no longer referenced
+            Set<ClassInfo> classDependencies = null;
+            for (final ClassInfo classInfo : unlinkedRelatedClassInfo) {
+                if (!classInfo.isScannedClass() && !classInfo.hasRelatedClasses()) {
+                    if (scanSpec.enableInterClassDependencies) {
+                        if (classDependencies == null) {
+                            classDependencies = new HashSet<>();
+                            for (final ClassInfo ci : classNameToClassInfo.values()) {
+                                classDependencies.addAll(ci.getClassDependencies());
+                            }
+                        }
+                        if (classDependencies.contains(classInfo)) {
+                            continue;
+                        }
+                    }
+                    classNameToClassInfo.remove(classInfo.getName());
+                }
+            }
+            RelatedClassesGraph.freeze(classNameToClassInfo.values(), scanSpec.enableQueryIndexes);
+            if (annotationParameterIndex != null) {
+                annotationParameterIndex = new AnnotationParameterIndex(classNameToClassInfo.values(), scanSpec);
+            }
+            if (methodBodyIndex != null) {
+                methodBodyIndex = new MethodBodyIndex(classNameToClassInfo.values());
+            }
+
+            // Replace the resources and timestamps of the modified classpath elements
+            for (final ClasspathElement modifiedClasspathElt : modifiedToRescannedClasspathElt.keySet()) {
+                for (final Resource resource : modifiedClasspathElt.whitelistedResources) {
+                    resource.close();
+                }
+            }
+            indexWhitelistedResources();
+            fileToLastModified.clear();
+            for (final ClasspathElement classpathElt : classpathOrderFiltered) {
+                if (classpathElt.fileToLastModified != null) {
+                    fileToLastModified.putAll(classpathElt.fileToLastModified);
+                }
+            }
+
+            // Close any nested jar handlers from earlier rescans that are no longer in use
+            final Set<NestedJarHandler> nestedJarHandlersInUse = new HashSet<>();
+            for (final ClasspathElement classpathElt : classpathOrder) {
+                if (classpathElt instanceof ClasspathElementZip) {
+                    nestedJarHandlersInUse.add(((ClasspathElementZip) classpathElt).getNestedJarHandler());
+                }
+            }
+            for (final Iterator<NestedJarHandler> iter = rescanNestedJarHandlers == null
+                    ? Collections.<NestedJarHandler> emptyIterator()
+                    : rescanNestedJarHandlers.iterator(); iter.hasNext();) {
+                final NestedJarHandler handler = iter.next();
+                if (!nestedJarHandlersInUse.contains(handler)) {
+                    handler.close(rescanLog);
+                    iter.remove();
+                }
+            }
+
+            if (rescanLog != null) {
+                rescanLog.log("Rescanned " + modifiedToRescannedClasspathElt.size()
+                        + " modified classpath elements, and parsed " + scannedClassfiles.size() + " classfiles");
+                rescanLog.addElapsedTime();
+            }
+            return true;
+
+        } catch (final InterruptedException e) {
+            throw new ClassGraphException("Rescan interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new ClassGraphException("Uncaught exception during rescan", InterruptionChecker.getCause(e));
+        }
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Classloading
 
@@ -1033,10 +1631,10 @@ public final class ScanResult implements Closeable, AutoCloseable {
     // Serialization / deserialization
 
     /** The current serialization format. */
-    private static final String CURRENT_SERIALIZATION_FORMAT = "8";
+    static final String CURRENT_SERIALIZATION_FORMAT = "8";
 
     /** A class to hold a serialized ScanResult along with the ScanSpec that was used to scan. */
-    private static class SerializationFormat {
+    static class SerializationFormat {
         /** The serialization format. */
         public String format;
 
@@ -1116,7 +1714,17 @@ public final class ScanResult implements Closeable, AutoCloseable {
             // Probably the deserialization failed before now anyway, if fields have changed, etc.
             throw new IllegalArgumentException("JSON was serialized by newer version of ClassGraph");
         }
+        return fromSerializationFormat(deserialized);
+    }
 
+    /**
+     * Produce a new {@link ScanResult} from a deserialized {@link SerializationFormat} object.
+     *
+     * @param deserialized
+     *            the deserialized {@link SerializationFormat} object
+     * @return the {@link ScanResult}
+     */
+    private static ScanResult fromSerializationFormat(final SerializationFormat deserialized) {
         // Get the classpath that produced the serialized JSON, and extract inner jars, download remote jars, etc.
         final List<URL> urls = new ClassGraph().overrideClasspath(deserialized.classpath).getClasspathURLs();
 
@@ -1148,6 +1756,7 @@ public final class ScanResult implements Closeable, AutoCloseable {
                 new URLClassLoader[] { urlClassLoader }, classNameToClassInfo, packageNameToPackageInfo,
                 moduleNameToModuleInfo, /* fileToLastModified = */ null, /* nestedJarHandler = */ null,
                 /* log = */ null);
+        scanResult.buildIndexes();
         scanResult.scanResultCameFromDeserialization = true;
         return scanResult;
     }
@@ -1166,14 +1775,29 @@ public final class ScanResult implements Closeable, AutoCloseable {
         if (!scanSpec.enableClassInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
         }
+        return JSONSerializer.serializeObject(toSerializationFormat(), indentWidth, false);
+    }
+
+    /**
+     * Get the {@link SerializationFormat} object for this {@link ScanResult}.
+     *
+     * @return the {@link SerializationFormat} object
+     */
+    private SerializationFormat toSerializationFormat() {
         final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
         Collections.sort(allClassInfo);
+        if (scanSpec.enableLazyMemberInfo) {
+            // Read any deferred fields and methods, so that they are included in the serialized form
+            for (final ClassInfo classInfo : allClassInfo) {
+                classInfo.readDeferredMemberInfo(scanSpec);
+            }
+        }
         final List<PackageInfo> allPackageInfo = new ArrayList<>(packageNameToPackageInfo.values());
         Collections.sort(allPackageInfo);
         final List<ModuleInfo> allModuleInfo = new ArrayList<>(moduleNameToModuleInfo.values());
         Collections.sort(allModuleInfo);
-        return JSONSerializer.serializeObject(new SerializationFormat(CURRENT_SERIALIZATION_FORMAT, scanSpec,
-                allClassInfo, allPackageInfo, allModuleInfo, rawClasspathEltOrderStrs), indentWidth, false);
+        return new SerializationFormat(CURRENT_SERIALIZATION_FORMAT, scanSpec, allClassInfo, allPackageInfo,
+                allModuleInfo, rawClasspathEltOrderStrs);
     }
 
     /**
@@ -1185,6 +1809,121 @@ public final class ScanResult implements Closeable, AutoCloseable {
         return toJSON(0);
     }
 
+    /**
+     * Serialize a ScanResult to JSON, writing the JSON directly to a {@link Writer} rather than building the whole
+     * JSON document in memory. Produces the same JSON as {@link #toJSON(int)}.
+     * 
+     * @param writer
+     *            The {@link Writer} to write the JSON to. The writer is flushed, but not closed.
+     * @param indentWidth
+     *            If greater than 0, JSON will be formatted (indented), otherwise it will be minified (un-indented).
+     * @throws IOException
+     *             If the JSON could not be written to the {@link Writer}.
+     */
+    public void toJSON(final Writer writer, final int indentWidth) throws IOException {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (!scanSpec.enableClassInfo) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
+        }
+        JSONSerializer.serializeObject(toSerializationFormat(), indentWidth, false, writer);
+        writer.flush();
+    }
+
+    /**
+     * Serialize a ScanResult to JSON, writing the JSON directly to an {@link OutputStream} in UTF-8 encoding,
+     * rather than building the whole JSON document in memory. Produces the same JSON as {@link #toJSON(int)}.
+     * 
+     * @param outputStream
+     *            The {@link OutputStream} to write the JSON to. The stream is flushed, but not closed.
+     * @param indentWidth
+     *            If greater than 0, JSON will be formatted (indented), otherwise it will be minified (un-indented).
+     * @throws IOException
+     *             If the JSON could not be written to the {@link OutputStream}.
+     */
+    public void toJSON(final OutputStream outputStream, final int indentWidth) throws IOException {
+        toJSON(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), indentWidth);
+    }
+
+    /**
+     * Deserialize a ScanResult from the compact binary format produced by {@link #toBinary(OutputStream)}. Reading
+     * starts at the current position of the buffer, and on return the position of the buffer is just past the end
+     * of the serialized {@link ScanResult}.
+     * 
+     * @param byteBuffer
+     *            The buffer containing the serialized {@link ScanResult}.
+     * @return The deserialized {@link ScanResult}.
+     * @throws IllegalArgumentException
+     *             if the buffer does not contain a {@link ScanResult} serialized in binary format by the current
+     *             version of ClassGraph.
+     */
+    public static ScanResult fromBinary(final ByteBuffer byteBuffer) {
+        return fromSerializationFormat(BinarySerializer.deserialize(byteBuffer));
+    }
+
+    /**
+     * Serialize a ScanResult to a compact binary format, which is much smaller than the JSON produced by
+     * {@link #toJSON()}, and much faster to deserialize. The binary format can be deserialized with
+     * {@link #fromBinary(ByteBuffer)}. As with {@link #toJSON()}, the same version of ClassGraph must be used to
+     * serialize and deserialize the {@link ScanResult}.
+     * 
+     * @param outputStream
+     *            The {@link OutputStream} to write to. The stream is flushed, but not closed.
+     * @throws IOException
+     *             If the {@link OutputStream} could not be written to.
+     */
+    public void toBinary(final OutputStream outputStream) throws IOException {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (!scanSpec.enableClassInfo) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
+        }
+        BinarySerializer.serialize(toSerializationFormat(), outputStream);
+    }
+
+    /**
+     * Create a {@link FrozenScanResult} from this {@link ScanResult}, storing class names, type descriptors,
+     * modifiers and the class hierarchy in a direct {@link ByteBuffer}, outside the Java heap. The
+     * {@link FrozenScanResult} is independent of this {@link ScanResult}, which may be closed once it has been
+     * frozen.
+     *
+     * @return the {@link FrozenScanResult}.
+     */
+    public FrozenScanResult freeze() {
+        try {
+            return freeze(/* file = */ null);
+        } catch (final IOException e) {
+            // Should not happen, since no file is written
+            throw new IllegalArgumentException("Could not freeze ScanResult", e);
+        }
+    }
+
+    /**
+     * Create a {@link FrozenScanResult} from this {@link ScanResult}, writing it to a file and then memory-mapping
+     * the file. The file can be memory-mapped again by {@link FrozenScanResult#load(File)}. The
+     * {@link FrozenScanResult} is independent of this {@link ScanResult}, which may be closed once it has been
+     * frozen.
+     *
+     * @param file
+     *            The file to write the {@link FrozenScanResult} to, or null to store it in a direct
+     *            {@link ByteBuffer} (as with {@link #freeze()}).
+     * @return the {@link FrozenScanResult}.
+     * @throws IOException
+     *             If the file could not be written or memory-mapped.
+     */
+    public FrozenScanResult freeze(final File file) throws IOException {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (!scanSpec.enableClassInfo) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
+        }
+        final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
+        return FrozenScanResult.freeze(allClassInfo, scanSpec, file);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Shutdown hook / close()
 
@@ -1215,6 +1954,15 @@ public final class ScanResult implements Closeable, AutoCloseable {
         });
     }
 
+    /**
+     * Check whether this {@link ScanResult} has been closed.
+     *
+     * @return true if {@link #close()} has been called.
+     */
+    boolean isClosed() {
+        return closed.get();
+    }
+
     /**
      * Free any temporary files created by extracting jars or files from within jars. Without calling this method,
      * the temporary files created by extracting the inner jars will be removed in a finalizer, called by the
@@ -1240,6 +1988,9 @@ public final class ScanResult implements Closeable, AutoCloseable {
                 pathToWhitelistedResourceList = null;
             }
             classGraphClassLoader = null;
+            annotationParameterIndex = null;
+            methodBodyIndex = null;
+            classDependencyGraph = null;
             if (classNameToClassInfo != null) {
                 classNameToClassInfo.clear();
                 classNameToClassInfo = null;
@@ -1260,6 +2011,12 @@ public final class ScanResult implements Closeable, AutoCloseable {
             envClassLoaderOrder = null;
             // nestedJarHandler should be closed last, since it needs to have all MappedByteBuffer refs
             // dropped before it tries to delete any temporary files that were written to disk
+            if (rescanNestedJarHandlers != null) {
+                for (final NestedJarHandler rescanNestedJarHandler : rescanNestedJarHandlers) {
+                    rescanNestedJarHandler.close(log);
+                }
+                rescanNestedJarHandlers = null;
+            }
             if (nestedJarHandler != null) {
                 nestedJarHandler.close(log);
                 nestedJarHandler = null;
@@ -0,0 +1,284 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import io.github.classgraph.ScanResult.SerializationFormat;
+import nonapi.io.github.classgraph.ScanSpec;
+import nonapi.io.github.classgraph.json.JSONSerializer;
+import nonapi.io.github.classgraph.utils.FileUtils;
+import nonapi.io.github.classgraph.utils.JarUtils;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * A persistent on-disk cache of the class graph produced by a scan. The cache file name is derived from the scan
+ * spec and the classpath element order, and the cache file is only reused if the path, size and last modified
+ * time of every file, directory and jarfile timestamped by the path scan are unchanged since the cache file was
+ * written.
+ */
+class ScanResultCache {
+    /** The cache file. */
+    private final File cacheFile;
+
+    /** The digest of the path, size and last modified time of every file timestamped during the path scan. */
+    private final String validityKey;
+
+    /** The scan spec. */
+    private final ScanSpec scanSpec;
+
+    /** The classpath element order, as strings. */
+    private final List<String> classpathEltOrderStrs;
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor.
+     *
+     * @param scanSpec
+     *            the scan spec
+     * @param classpathEltOrderStrs
+     *            the classpath element order, as strings
+     * @param fileToLastModified
+     *            the files, directories and jarfiles timestamped during the path scan
+     */
+    ScanResultCache(final ScanSpec scanSpec, final List<String> classpathEltOrderStrs,
+            final Map<File, Long> fileToLastModified) {
+        this.scanSpec = scanSpec;
+        this.classpathEltOrderStrs = classpathEltOrderStrs;
+
+        // The cache file name depends upon everything that determines which classfiles are scanned and how
+        final StringBuilder cacheNameBuf = new StringBuilder();
+        cacheNameBuf.append(ScanResult.CURRENT_SERIALIZATION_FORMAT).append('\n');
+        cacheNameBuf.append(System.getProperty("java.version")).append('\n');
+        cacheNameBuf.append(JSONSerializer.serializeObject(scanSpec)).append('\n');
+        for (final String classpathEltStr : classpathEltOrderStrs) {
+            cacheNameBuf.append(classpathEltStr).append('\n');
+        }
+        this.cacheFile = new File(scanSpec.scanResultCacheDir,
+                "classgraph-" + FileUtils.sha256(cacheNameBuf.toString()) + ".cache");
+
+        // The cache file contents are only valid if no timestamped file has changed since the cache was written
+        final List<String> fileStamps = new ArrayList<>(fileToLastModified.size());
+        for (final Entry<File, Long> ent : fileToLastModified.entrySet()) {
+            final File file = ent.getKey();
+            fileStamps.add(file.getPath() + '\t' + (file.isFile() ? file.length() : -1L) + '\t' + ent.getValue());
+        }
+        Collections.sort(fileStamps);
+        final StringBuilder validityKeyBuf = new StringBuilder();
+        for (final String fileStamp : fileStamps) {
+            validityKeyBuf.append(fileStamp).append('\n');
+        }
+        this.validityKey = FileUtils.sha256(validityKeyBuf.toString());
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Try loading the class graph from the cache file, and reattaching it to the classpath elements of the current
+     * scan.
+     *
+     * @param classpathOrder
+     *            the classpath element order of the current scan, after filtering and classfile masking
+     * @param classNameToClassInfo
+     *            the map from class name to {@link ClassInfo}, to populate
+     * @param packageNameToPackageInfo
+     *            the map from package name to {@link PackageInfo}, to populate
+     * @param moduleNameToModuleInfo
+     *            the map from module name to {@link ModuleInfo}, to populate
+     * @param log
+     *            the log
+     * @return true if the class graph was loaded from the cache, or false if the cache file does not exist, is
+     *         stale, or could not be read, in which case the maps are left empty.
+     */
+    boolean load(final List<ClasspathElement> classpathOrder, final Map<String, ClassInfo> classNameToClassInfo,
+            final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo, final LogNode log) {
+        if (!cacheFile.exists()) {
+            if (log != null) {
+                log.log("Scan result cache file does not exist: " + cacheFile);
+            }
+            return false;
+        }
+        final SerializationFormat deserialized;
+        try {
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(Files.readAllBytes(cacheFile.toPath()));
+            final byte[] cachedValidityKey = new byte[validityKey.length()];
+            if (byteBuffer.remaining() < cachedValidityKey.length) {
+                throw new IOException("Cache file is truncated");
+            }
+            byteBuffer.get(cachedValidityKey);
+            if (!validityKey.equals(new String(cachedValidityKey, StandardCharsets.UTF_8))) {
+                if (log != null) {
+                    log.log("Classpath has changed since scan result cache file was written: " + cacheFile);
+                }
+                return false;
+            }
+            deserialized = BinarySerializer.deserialize(byteBuffer);
+        } catch (IOException | IllegalArgumentException e) {
+            if (log != null) {
+                log.log("Could not read scan result cache file " + cacheFile, e);
+            }
+            return false;
+        }
+        if (deserialized == null || !ScanResult.CURRENT_SERIALIZATION_FORMAT.equals(deserialized.format)) {
+            return false;
+        }
+
+        // Find the classfile resources for scanned classes. Classfiles that were found by extending scanning
+        // upwards to external classes are not in the whitelisted classfile lists, so are looked up by path.
+        final Map<String, ClasspathElement> classfilePathToClasspathElement = new HashMap<>();
+        final Map<String, Resource> classfilePathToResource = new HashMap<>();
+        for (final ClasspathElement classpathElement : classpathOrder) {
+            for (final Resource resource : classpathElement.whitelistedClassfileResources) {
+                final String path = resource.getPath();
+                if (!classfilePathToResource.containsKey(path)) {
+                    classfilePathToClasspathElement.put(path, classpathElement);
+                    classfilePathToResource.put(path, resource);
+                }
+            }
+        }
+        for (final ClassInfo classInfo : deserialized.classInfo) {
+            if (classInfo.isScannedClass()) {
+                final String classfilePath = JarUtils.classNameToClassfilePath(classInfo.getName());
+                ClasspathElement classpathElement = classfilePathToClasspathElement.get(classfilePath);
+                Resource resource = classfilePathToResource.get(classfilePath);
+                for (int i = 0; resource == null && i < classpathOrder.size(); i++) {
+                    classpathElement = classpathOrder.get(i);
+                    resource = classpathElement.getResource(classfilePath);
+                }
+                if (resource == null) {
+                    if (log != null) {
+                        log.log("Classfile in scan result cache no longer exists: " + classfilePath);
+                    }
+                    return false;
+                }
+                classInfo.setClasspathElementAndResource(classpathElement, resource);
+            }
+        }
+        for (final ModuleInfo moduleInfo : deserialized.moduleInfo) {
+            for (final ClasspathElement classpathElement : classpathOrder) {
+                if (moduleInfo.getName().equals(classpathElement.getModuleName())) {
+                    moduleInfo.setClasspathElement(classpathElement);
+                    break;
+                }
+            }
+        }
+
+        for (final ClassInfo classInfo : deserialized.classInfo) {
+            classNameToClassInfo.put(classInfo.getName(), classInfo);
+        }
+        for (final PackageInfo packageInfo : deserialized.packageInfo) {
+            packageNameToPackageInfo.put(packageInfo.getName(), packageInfo);
+        }
+        for (final ModuleInfo moduleInfo : deserialized.moduleInfo) {
+            moduleNameToModuleInfo.put(moduleInfo.getName(), moduleInfo);
+        }
+        if (log != null) {
+            log.log("Loaded " + classNameToClassInfo.size() + " classes from scan result cache file " + cacheFile);
+        }
+        return true;
+    }
+
+    /**
+     * Write the class graph to the cache file. The file is written to a temporary file in the cache directory
+     * first, then renamed, so that concurrent scans never see a partially-written cache file.
+     *
+     * @param classNameToClassInfo
+     *            the map from class name to {@link ClassInfo}
+     * @param packageNameToPackageInfo
+     *            the map from package name to {@link PackageInfo}
+     * @param moduleNameToModuleInfo
+     *            the map from module name to {@link ModuleInfo}
+     * @param log
+     *            the log
+     */
+    void save(final Map<String, ClassInfo> classNameToClassInfo,
+            final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo, final LogNode log) {
+        final File cacheDir = scanSpec.scanResultCacheDir;
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            if (log != null) {
+                log.log("Could not create scan result cache directory " + cacheDir);
+            }
+            return;
+        }
+        final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
+        Collections.sort(allClassInfo);
+        if (scanSpec.enableLazyMemberInfo) {
+            // Read any deferred fields and methods, so that they are included in the cache
+            for (final ClassInfo classInfo : allClassInfo) {
+                classInfo.readDeferredMemberInfo(scanSpec);
+            }
+        }
+        final List<PackageInfo> allPackageInfo = new ArrayList<>(packageNameToPackageInfo.values());
+        Collections.sort(allPackageInfo);
+        final List<ModuleInfo> allModuleInfo = new ArrayList<>(moduleNameToModuleInfo.values());
+        Collections.sort(allModuleInfo);
+        final SerializationFormat serializationFormat = new SerializationFormat(
+                ScanResult.CURRENT_SERIALIZATION_FORMAT, scanSpec, allClassInfo, allPackageInfo, allModuleInfo,
+                classpathEltOrderStrs);
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile("classgraph-", ".tmp", cacheDir);
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                outputStream.write(validityKey.getBytes(StandardCharsets.UTF_8));
+                BinarySerializer.serialize(serializationFormat, outputStream);
+            }
+            if (!tempFile.renameTo(cacheFile) && !(cacheFile.delete() && tempFile.renameTo(cacheFile))) {
+                throw new IOException("Could not rename " + tempFile + " to " + cacheFile);
+            }
+            tempFile = null;
+            if (log != null) {
+                log.log("Wrote scan result cache file " + cacheFile);
+            }
+        } catch (final IOException e) {
+            if (log != null) {
+                log.log("Could not write scan result cache file " + cacheFile, e);
+            }
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+}
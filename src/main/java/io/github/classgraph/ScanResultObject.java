@@ -31,6 +31,9 @@ package io.github.classgraph;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import nonapi.io.github.classgraph.exceptions.ParseException;
+import nonapi.io.github.classgraph.types.SignatureCursor;
+
 /**
  * A superclass of objects accessible from a {@link ScanResult} that are associated with a {@link ClassInfo} object.
  */
@@ -76,6 +79,26 @@ abstract class ScanResultObject {
      */
     abstract void findReferencedClassNames(Set<String> refdClassNames);
 
+    /**
+     * Get the names of any classes referenced in a type descriptor or type signature string, by walking the string
+     * with a {@link SignatureCursor}, without parsing it into a {@link TypeSignature} object.
+     *
+     * @param typeSignatureStr
+     *            the type descriptor or type signature
+     * @param signatureCursor
+     *            the signature cursor, which may be reused for each signature in a single pass
+     * @param refdClassNames
+     *            the referenced class names
+     */
+    static void findReferencedClassNames(final String typeSignatureStr, final SignatureCursor signatureCursor,
+            final Set<String> refdClassNames) {
+        try {
+            signatureCursor.findReferencedClassNames(typeSignatureStr, refdClassNames);
+        } catch (final ParseException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     /**
      * The name of the class (used by {@link #getClassInfo()} to fetch the {@link ClassInfo} object for the class).
      * 
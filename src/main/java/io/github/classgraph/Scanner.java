@@ -51,15 +51,18 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
 import io.github.classgraph.ClassGraph.FailureHandler;
+import io.github.classgraph.ClassGraph.ScanPhaseListener;
 import io.github.classgraph.ClassGraph.ScanResultProcessor;
 import io.github.classgraph.Classfile.ClassfileFormatException;
 import io.github.classgraph.Classfile.SkipClassException;
+import io.github.classgraph.ScanMetrics.Phase;
 import nonapi.io.github.classgraph.ScanSpec;
 import nonapi.io.github.classgraph.classpath.ClassLoaderAndModuleFinder;
 import nonapi.io.github.classgraph.classpath.ClasspathFinder;
 import nonapi.io.github.classgraph.concurrency.AutoCloseableExecutorService;
 import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
 import nonapi.io.github.classgraph.concurrency.SingletonMap;
+import nonapi.io.github.classgraph.concurrency.VirtualThreads;
 import nonapi.io.github.classgraph.concurrency.WorkQueue;
 import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
@@ -67,6 +70,8 @@ import nonapi.io.github.classgraph.utils.FastPathResolver;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.ScanMetricsRecorder;
+import nonapi.io.github.classgraph.utils.StringInternTable;
 
 /** The classpath scanner. */
 class Scanner implements Callable<ScanResult> {
@@ -86,6 +91,9 @@ class Scanner implements Callable<ScanResult> {
     /** The number of parallel tasks. */
     private final int numParallelTasks;
 
+    /** The scan phase listener, or null if none. */
+    private final ScanPhaseListener scanPhaseListener;
+
     /** The scan result processor. */
     private final ScanResultProcessor scanResultProcessor;
 
@@ -107,6 +115,19 @@ class Scanner implements Callable<ScanResult> {
     /** The context classloaders. */
     final ClassLoader[] contextClassLoaders;
 
+    /** The recorder for scan metrics. */
+    private final ScanMetricsRecorder scanMetricsRecorder;
+
+    /** The value of {@link System#nanoTime()} when the scanner was created. */
+    private final long scanStartTimeNanos;
+
+    /**
+     * The number of worker tasks to open classpath elements with, if classpath elements are opened on virtual
+     * threads. This is independent of the number of platform threads, since opening classpath elements is mostly
+     * blocked on I/O.
+     */
+    private static final int NUM_VIRTUAL_THREAD_WORKERS = 64;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -118,6 +139,8 @@ class Scanner implements Callable<ScanResult> {
      *            the executor service
      * @param numParallelTasks
      *            the num parallel tasks
+     * @param scanPhaseListener
+     *            the scan phase listener, or null if none
      * @param scanResultProcessor
      *            the scan result processor
      * @param failureHandler
@@ -126,27 +149,33 @@ class Scanner implements Callable<ScanResult> {
      *            the log
      */
     Scanner(final ScanSpec scanSpec, final ExecutorService executorService, final int numParallelTasks,
-            final ScanResultProcessor scanResultProcessor, final FailureHandler failureHandler,
-            final LogNode topLevelLog) {
+            final ScanPhaseListener scanPhaseListener, final ScanResultProcessor scanResultProcessor,
+            final FailureHandler failureHandler, final LogNode topLevelLog) {
+        this.scanStartTimeNanos = System.nanoTime();
+        this.scanMetricsRecorder = new ScanMetricsRecorder();
         this.scanSpec = scanSpec;
         scanSpec.sortPrefixes();
         scanSpec.log(topLevelLog);
 
-        this.nestedJarHandler = new NestedJarHandler(scanSpec);
+        this.nestedJarHandler = new NestedJarHandler(scanSpec, executorService, numParallelTasks,
+                scanMetricsRecorder);
         this.executorService = executorService;
         this.interruptionChecker = executorService instanceof AutoCloseableExecutorService
                 ? ((AutoCloseableExecutorService) executorService).interruptionChecker
                 : new InterruptionChecker();
         this.numParallelTasks = numParallelTasks;
+        this.scanPhaseListener = scanPhaseListener;
         this.scanResultProcessor = scanResultProcessor;
         this.failureHandler = failureHandler;
         this.topLevelLog = topLevelLog;
 
+        final long discoveryStartCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
         final LogNode classpathFinderLog = topLevelLog == null ? null : topLevelLog.log("Finding classpath");
         this.classpathFinder = new ClasspathFinder(scanSpec, classpathFinderLog);
         this.classLoaderAndModuleFinder = classpathFinder.getClassLoaderAndModuleFinder();
         this.contextClassLoaders = classLoaderAndModuleFinder.getContextClassLoaders();
         this.moduleClasspathEltOrder = getModuleOrder(classpathFinderLog);
+        scanMetricsRecorder.endPhase(Phase.CLASSPATH_DISCOVERY, scanStartTimeNanos, discoveryStartCpuTimeNanos);
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -320,6 +349,42 @@ class Scanner implements Callable<ScanResult> {
      *            the log entry text to group work units under
      * @param log
      *            the log
+     * @param phase
+     *            the scan phase to record the time taken to process the work units against
+     * @param workUnitProcessor
+     *            the work unit processor
+     * @throws InterruptedException
+     *             if a worker was interrupted.
+     * @throws ExecutionException
+     *             If a worker threw an uncaught exception.
+     */
+    private <W> void processWorkUnits(final Collection<W> workUnits, final String logEntry, final LogNode log,
+            final Phase phase, final WorkUnitProcessor<W> workUnitProcessor)
+            throws InterruptedException, ExecutionException {
+        processWorkUnits(workUnits, logEntry, log, phase, executorService, numParallelTasks,
+                /* onVirtualThreads = */ false, workUnitProcessor);
+    }
+
+    /**
+     * Process work units using the given {@link ExecutorService}.
+     *
+     * @param <W>
+     *            the work unit type
+     * @param workUnits
+     *            the work units
+     * @param logEntry
+     *            the log entry text to group work units under
+     * @param log
+     *            the log
+     * @param phase
+     *            the scan phase to record the time taken to process the work units against
+     * @param workUnitExecutorService
+     *            the executor service to run the work units on
+     * @param numWorkers
+     *            the number of parallel worker tasks to run
+     * @param onVirtualThreads
+     *            true if the executor service runs the work units on virtual threads, in which case the CPU time
+     *            of the worker threads is not measured
      * @param workUnitProcessor
      *            the work unit processor
      * @throws InterruptedException
@@ -328,10 +393,25 @@ class Scanner implements Callable<ScanResult> {
      *             If a worker threw an uncaught exception.
      */
     private <W> void processWorkUnits(final Collection<W> workUnits, final String logEntry, final LogNode log,
-            final WorkUnitProcessor<W> workUnitProcessor) throws InterruptedException, ExecutionException {
+            final Phase phase, final ExecutorService workUnitExecutorService, final int numWorkers,
+            final boolean onVirtualThreads, final WorkUnitProcessor<W> workUnitProcessor)
+            throws InterruptedException, ExecutionException {
         final LogNode subLog = log == null ? null : log.log(logEntry);
-        WorkQueue.runWorkQueue(workUnits, executorService, interruptionChecker, numParallelTasks, subLog,
-                workUnitProcessor);
+        final long startTimeNanos = System.nanoTime();
+        final ConcurrentHashMap<Long, Long> threadIdToStartCpuTimeNanos = new ConcurrentHashMap<>();
+        // The JVM does not measure the CPU time of virtual threads, and they have terminated by the time the phase
+        // ends, so only the wall time of the phase is recorded for them
+        WorkQueue.runWorkQueue(workUnits, workUnitExecutorService, interruptionChecker, numWorkers, subLog,
+                onVirtualThreads ? workUnitProcessor : new WorkUnitProcessor<W>() {
+                    @Override
+                    public void processWorkUnit(final W workUnit, final WorkQueue<W> workQueue,
+                            final LogNode workUnitLog) throws InterruptedException {
+                        // Record the CPU time of each worker thread when it first picks up work in this phase
+                        ScanMetricsRecorder.recordThreadStart(threadIdToStartCpuTimeNanos);
+                        workUnitProcessor.processWorkUnit(workUnit, workQueue, workUnitLog);
+                    }
+                });
+        scanMetricsRecorder.endParallelPhase(phase, startTimeNanos, threadIdToStartCpuTimeNanos);
         if (subLog != null) {
             subLog.addElapsedTime();
         }
@@ -529,7 +609,7 @@ class Scanner implements Callable<ScanResult> {
     }
 
     /** WorkUnitProcessor for scanning classfiles. */
-    private static class ClassfileScannerWorkUnitProcessor implements WorkUnitProcessor<ClassfileScanWorkUnit> {
+    static class ClassfileScannerWorkUnitProcessor implements WorkUnitProcessor<ClassfileScanWorkUnit> {
         /** The scan spec. */
         private final ScanSpec scanSpec;
 
@@ -542,6 +622,12 @@ class Scanner implements Callable<ScanResult> {
         /** The valid {@link Classfile} objects created by scanning classfiles. */
         private final Queue<Classfile> scannedClassfiles;
 
+        /** The scan-wide string intern table. */
+        private final StringInternTable stringInternTable;
+
+        /** The recorder for scan metrics. */
+        private final ScanMetricsRecorder scanMetricsRecorder;
+
         /**
          * Constructor.
          *
@@ -553,14 +639,21 @@ class Scanner implements Callable<ScanResult> {
          *            the class names scheduled for scanning
          * @param scannedClassfiles
          *            the {@link Classfile} objects created by scanning classfiles
+         * @param stringInternTable
+         *            the scan-wide string intern table
+         * @param scanMetricsRecorder
+         *            the recorder for scan metrics
          */
         public ClassfileScannerWorkUnitProcessor(final ScanSpec scanSpec,
                 final List<ClasspathElement> classpathOrder, final Set<String> classNamesScheduledForScanning,
-                final Queue<Classfile> scannedClassfiles) {
+                final Queue<Classfile> scannedClassfiles, final StringInternTable stringInternTable,
+                final ScanMetricsRecorder scanMetricsRecorder) {
             this.scanSpec = scanSpec;
             this.classpathOrder = classpathOrder;
             this.classNamesScheduledForScanning = classNamesScheduledForScanning;
             this.scannedClassfiles = scannedClassfiles;
+            this.stringInternTable = stringInternTable;
+            this.scanMetricsRecorder = scanMetricsRecorder;
         }
 
         /* (non-Javadoc)
@@ -577,10 +670,12 @@ class Scanner implements Callable<ScanResult> {
                 // Parse classfile binary format, creating a Classfile object
                 final Classfile classfile = new Classfile(workUnit.classpathElement, classpathOrder,
                         classNamesScheduledForScanning, workUnit.classfileResource.getPath(),
-                        workUnit.classfileResource, workUnit.isExternalClass, workQueue, scanSpec, subLog);
+                        workUnit.classfileResource, workUnit.isExternalClass, workQueue, scanSpec, stringInternTable,
+                        subLog);
 
                 // Enqueue the classfile for linking
                 scannedClassfiles.add(classfile);
+                scanMetricsRecorder.incrementClassfilesParsed();
 
             } catch (final SkipClassException e) {
                 if (subLog != null) {
@@ -770,7 +865,7 @@ class Scanner implements Callable<ScanResult> {
             throws InterruptedException, ExecutionException {
         // In parallel, scan paths within each classpath element, comparing them against whitelist/blacklist
         processWorkUnits(finalClasspathEltOrder, "Scanning filenames within classpath elements", topLevelLog,
-                new WorkUnitProcessor<ClasspathElement>() {
+                Phase.PATH_SCANNING, new WorkUnitProcessor<ClasspathElement>() {
                     @Override
                     public void processWorkUnit(final ClasspathElement classpathElement,
                             final WorkQueue<ClasspathElement> workQueueIgnored, final LogNode pathScanLog)
@@ -781,6 +876,8 @@ class Scanner implements Callable<ScanResult> {
                 });
 
         // Filter out classpath elements that do not contain required whitelisted paths.
+        final long maskingStartTimeNanos = System.nanoTime();
+        final long maskingStartCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
         List<ClasspathElement> finalClasspathEltOrderFiltered = finalClasspathEltOrder;
         if (!scanSpec.classpathElementResourcePathWhiteBlackList.whitelistIsEmpty()) {
             finalClasspathEltOrderFiltered = new ArrayList<>(finalClasspathEltOrder.size());
@@ -797,6 +894,7 @@ class Scanner implements Callable<ScanResult> {
             maskClassfiles(finalClasspathEltOrderFiltered,
                     topLevelLog == null ? null : topLevelLog.log("Masking classfiles"));
         }
+        scanMetricsRecorder.endPhase(Phase.PATH_SCANNING, maskingStartTimeNanos, maskingStartCpuTimeNanos);
 
         // Merge the file-to-timestamp maps across all classpath elements
         final Map<File, Long> fileToLastModified = new HashMap<>();
@@ -808,7 +906,17 @@ class Scanner implements Callable<ScanResult> {
         final Map<String, ClassInfo> classNameToClassInfo = new HashMap<>();
         final Map<String, PackageInfo> packageNameToPackageInfo = new HashMap<>();
         final Map<String, ModuleInfo> moduleNameToModuleInfo = new HashMap<>();
-        if (scanSpec.enableClassInfo) {
+        final ScanResultCache scanResultCache = scanSpec.enableClassInfo && scanSpec.scanResultCacheDir != null
+                ? new ScanResultCache(scanSpec, finalClasspathEltOrderStrs, fileToLastModified)
+                : null;
+        if (scanResultCache != null && scanResultCache.load(finalClasspathEltOrderFiltered, classNameToClassInfo,
+                packageNameToPackageInfo, moduleNameToModuleInfo,
+                topLevelLog == null ? null : topLevelLog.log("Loading scan result cache"))) {
+            // Class graph was loaded from the scan result cache -- no need to scan classfiles
+            if (scanPhaseListener != null) {
+                scanPhaseListener.onClassfilesParsed(0);
+            }
+        } else if (scanSpec.enableClassInfo) {
             // Get whitelisted classfile order
             final List<ClassfileScanWorkUnit> classfileScanWorkItems = new ArrayList<>();
             final Set<String> classNamesScheduledForScanning = Collections
@@ -826,11 +934,17 @@ class Scanner implements Callable<ScanResult> {
 
             // Scan classfiles in parallel
             final Queue<Classfile> scannedClassfiles = new ConcurrentLinkedQueue<>();
-            processWorkUnits(classfileScanWorkItems, "Scanning classfiles", topLevelLog,
+            processWorkUnits(classfileScanWorkItems, "Scanning classfiles", topLevelLog, Phase.CLASSFILE_PARSING,
                     new ClassfileScannerWorkUnitProcessor(scanSpec, finalClasspathEltOrderFiltered,
-                            classNamesScheduledForScanning, scannedClassfiles));
+                            classNamesScheduledForScanning, scannedClassfiles, new StringInternTable(),
+                            scanMetricsRecorder));
+            if (scanPhaseListener != null) {
+                scanPhaseListener.onClassfilesParsed(scannedClassfiles.size());
+            }
 
             // Link the Classfile objects to produce ClassInfo objects. This needs to be done from a single thread.
+            final long linkingStartTimeNanos = System.nanoTime();
+            final long linkingStartCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
             final LogNode linkLog = topLevelLog == null ? null : topLevelLog.log("Linking related classfiles");
             for (final Classfile c : scannedClassfiles) {
                 c.link(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo, linkLog);
@@ -858,19 +972,48 @@ class Scanner implements Callable<ScanResult> {
             //                classNameToClassInfo);
             //    }
 
+            scanMetricsRecorder.endPhase(Phase.LINKING, linkingStartTimeNanos, linkingStartCpuTimeNanos);
             if (linkLog != null) {
                 linkLog.addElapsedTime();
             }
+
+            // Persist the class graph, so that the next scan can skip scanning classfiles
+            if (scanResultCache != null) {
+                scanResultCache.save(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo,
+                        topLevelLog == null ? null : topLevelLog.log("Saving scan result cache"));
+            }
         } else {
             if (topLevelLog != null) {
                 topLevelLog.log("Classfile scanning is disabled");
             }
         }
 
+        // Scanning of classpath elements is complete, so if there is a nested jar memory budget, spill any nested
+        // jars that are still in RAM to disk rather than holding them in RAM for the lifetime of the ScanResult
+        if (scanSpec.maxNestedJarMemoryBytes >= 0L) {
+            nestedJarHandler.releaseNestedJarMemory(topLevelLog);
+        }
+
         // Return a new ScanResult
-        return new ScanResult(scanSpec, finalClasspathEltOrder, finalClasspathEltOrderStrs, contextClassLoaders,
-                classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo, fileToLastModified,
-                nestedJarHandler, topLevelLog);
+        final long indexingStartTimeNanos = System.nanoTime();
+        final long indexingStartCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
+        final ScanResult scanResult = new ScanResult(scanSpec, finalClasspathEltOrder, finalClasspathEltOrderStrs,
+                contextClassLoaders, classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo,
+                fileToLastModified, nestedJarHandler, topLevelLog);
+        scanMetricsRecorder.endPhase(Phase.INDEX_BUILDING, indexingStartTimeNanos, indexingStartCpuTimeNanos);
+        if (scanPhaseListener != null) {
+            // The class hierarchy is complete, so it can be queried while the remaining indexes are built
+            scanPhaseListener.onClassHierarchyLinked(scanResult);
+        }
+        final long remainingIndexingStartTimeNanos = System.nanoTime();
+        final long remainingIndexingStartCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
+        scanResult.buildIndexes();
+        scanMetricsRecorder.endPhase(Phase.INDEX_BUILDING, remainingIndexingStartTimeNanos,
+                remainingIndexingStartCpuTimeNanos);
+        if (scanPhaseListener != null) {
+            scanPhaseListener.onScanResultLinked(scanResult);
+        }
+        return scanResult;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -903,8 +1046,28 @@ class Scanner implements Callable<ScanResult> {
         final Set<ClasspathElement> openedClasspathEltsSet = Collections
                 .newSetFromMap(new ConcurrentHashMap<ClasspathElement, Boolean>());
         final Queue<Entry<Integer, ClasspathElement>> toplevelClasspathEltOrder = new ConcurrentLinkedQueue<>();
-        processWorkUnits(rawClasspathEntryWorkUnits, "Opening classpath elements", log,
-                newClasspathEntryWorkUnitProcessor(openedClasspathEltsSet, toplevelClasspathEltOrder));
+        // Opening classpath elements is mostly blocked on I/O, so if enabled, run it on virtual threads
+        final ExecutorService virtualThreadExecutorService = scanSpec.enableVirtualThreads
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : null;
+        if (scanSpec.enableVirtualThreads && log != null) {
+            log.log(virtualThreadExecutorService != null ? "Opening classpath elements on virtual threads"
+                    : "Virtual threads are not available, opening classpath elements on platform threads");
+        }
+        try {
+            processWorkUnits(rawClasspathEntryWorkUnits, "Opening classpath elements", log,
+                    Phase.CLASSPATH_ELEMENT_OPENING,
+                    virtualThreadExecutorService != null ? virtualThreadExecutorService : executorService,
+                    virtualThreadExecutorService != null ? NUM_VIRTUAL_THREAD_WORKERS : numParallelTasks,
+                    /* onVirtualThreads = */ virtualThreadExecutorService != null,
+                    newClasspathEntryWorkUnitProcessor(openedClasspathEltsSet, toplevelClasspathEltOrder));
+        } finally {
+            if (virtualThreadExecutorService != null) {
+                virtualThreadExecutorService.shutdown();
+            }
+        }
+        final long orderingStartTimeNanos = System.nanoTime();
+        final long orderingStartCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
 
         // Determine total ordering of classpath elements, inserting jars referenced in manifest Class-Path
         // entries in-place into the ordering, if they haven't been listed earlier in the classpath already.
@@ -914,6 +1077,8 @@ class Scanner implements Callable<ScanResult> {
         // Find classpath elements that are path prefixes of other classpath elements, and for
         // ClasspathElementZip, get module-related manifest entry values
         preprocessClasspathElementsByType(classpathEltOrder, log);
+        scanMetricsRecorder.endPhase(Phase.CLASSPATH_ELEMENT_OPENING, orderingStartTimeNanos,
+                orderingStartCpuTimeNanos);
 
         // Order modules before classpath elements from traditional classpath 
         final LogNode classpathOrderLog = log == null ? null : log.log("Final classpath element order:");
@@ -936,6 +1101,10 @@ class Scanner implements Callable<ScanResult> {
             }
         }
 
+        if (scanPhaseListener != null) {
+            scanPhaseListener.onClasspathResolved(Collections.unmodifiableList(finalClasspathEltOrderStrs));
+        }
+
         if (scanSpec.performScan) {
             // Scan classpath / modules, producing a ScanResult.
             return performScan(finalClasspathEltOrder, finalClasspathEltOrderStrs, contextClassLoaders);
@@ -973,6 +1142,11 @@ class Scanner implements Callable<ScanResult> {
         try {
             // Perform the scan
             scanResult = openClasspathElementsThenScan();
+            scanResult.scanMetrics = new ScanMetrics(scanMetricsRecorder, System.nanoTime() - scanStartTimeNanos,
+                    classpathEntryToClasspathElementSingletonMap.getNumHits()
+                            + nestedJarHandler.getNumSingletonMapHits(),
+                    classpathEntryToClasspathElementSingletonMap.getNumMisses()
+                            + nestedJarHandler.getNumSingletonMapMisses());
 
             // Log total time after scan completes, and flush log
             if (topLevelLog != null) {
@@ -28,15 +28,20 @@
  */
 package nonapi.io.github.classgraph;
 
+import java.io.File;
 import java.lang.reflect.Field;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map.Entry;
 
 import io.github.classgraph.ClassGraph.ClasspathElementFilter;
 import io.github.classgraph.ClassGraphException;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ModulePathInfo;
+import io.github.classgraph.ResourceList.ByteBufferConsumer;
+import io.github.classgraph.ResourceList.ResourceFilter;
 import io.github.classgraph.ScanResult;
 import nonapi.io.github.classgraph.WhiteBlackList.WhiteBlackListLeafname;
 import nonapi.io.github.classgraph.WhiteBlackList.WhiteBlackListPrefix;
@@ -137,6 +142,18 @@ public class ScanSpec {
      */
     public boolean enableMethodInfo = false;
 
+    /**
+     * If true, decode the bytecode of method bodies to record the methods invoked, fields read or written, and
+     * classes instantiated by each method.
+     */
+    public boolean enableMethodBodyScanning = false;
+
+    /**
+     * If true, only record the offset of the field and method tables of each classfile during the scan, and read
+     * fields and methods from the classfile when they are first requested.
+     */
+    public boolean enableLazyMemberInfo = false;
+
     /**
      * If true, enables the saving of annotation info (for class, field, method or method parameter annotations)
      * during the scan. This information can be obtained using {@link ClassInfo#getAnnotationInfo()} etc. By
@@ -150,6 +167,20 @@ public class ScanSpec {
     /** If true, enables the determination of inter-class dependencies. */
     public boolean enableInterClassDependencies = false;
 
+    /**
+     * If true, determine inter-class dependencies only from the class references and type descriptors in the
+     * constant pool and member declarations of each classfile, without parsing type signatures, and store them in
+     * a compact graph. Implies {@link #enableInterClassDependencies}.
+     */
+    public boolean enableConstantPoolClassDependencies = false;
+
+    /**
+     * If true, precompute the transitive closure of the class hierarchy and annotation relationships at the end of
+     * the scan, so that subclass, implementing class and annotated class queries do not traverse the class graph,
+     * and build an index of annotation parameter values if annotation info is enabled.
+     */
+    public boolean enableQueryIndexes = false;
+
     /**
      * If true, allow external classes (classes outside of whitelisted packages) to be returned in the ScanResult,
      * if they are directly referred to by a whitelisted class, as a superclass, implemented interface or
@@ -225,6 +256,12 @@ public class ScanSpec {
     /** If non-null, a list of filter operations to apply to classpath elements. */
     public transient List<ClasspathElementFilter> classpathElementFilters;
 
+    /**
+     * If non-null, a list of resource filters, and the consumers that whitelisted resources accepted by each filter
+     * are passed to while classpath elements are being scanned.
+     */
+    public transient List<Entry<ResourceFilter, ByteBufferConsumer>> resourceMatchProcessors;
+
     /** Whether to initialize classes when loading them. */
     public transient boolean initializeLoadedClasses = false;
 
@@ -235,12 +272,37 @@ public class ScanSpec {
      */
     public transient boolean removeTemporaryFilesAfterScan = false;
 
+    /**
+     * The maximum total number of bytes of deflated nested jarfiles that may be inflated to RAM at once, or -1 for
+     * no limit. When the limit would be exceeded, the least recently used nested jarfiles are spilled to temporary
+     * files.
+     */
+    public transient long maxNestedJarMemoryBytes = -1L;
+
+    /**
+     * If non-null, the directory in which to persist deflated nested jarfiles once they have been inflated, so that
+     * later scans can map them directly rather than inflating them again.
+     */
+    public transient File nestedJarExtractionCacheDir;
+
     /** If true, do not fetch paths from parent classloaders. */
     public transient boolean ignoreParentClassLoaders = false;
 
     /** If true, do not scan module layers that are the parent of other module layers. */
     public transient boolean ignoreParentModuleLayers = false;
 
+    /**
+     * If true, open classpath elements (including extracting nested jars and downloading remote jars) on virtual
+     * threads, if the JDK supports them.
+     */
+    public transient boolean enableVirtualThreads = false;
+
+    /**
+     * If non-null, the directory in which to persist the class graph produced by a scan, so that it can be reused
+     * by a later scan with the same scan spec, as long as no classpath element has changed in the meantime.
+     */
+    public transient File scanResultCacheDir;
+
     /** Commandline module path parameters. */
     public ModulePathInfo modulePathInfo = new ModulePathInfo();
 
@@ -273,6 +335,23 @@ public class ScanSpec {
         this.classpathElementFilters.add(classpathElementFilter);
     }
 
+    /**
+     * Add a resource match processor, which is called for each whitelisted resource accepted by the resource filter
+     * while classpath elements are being scanned.
+     *
+     * @param resourceFilter
+     *            The filter that selects the resources to process.
+     * @param byteBufferConsumer
+     *            The consumer to pass the content of each selected resource to.
+     */
+    public void addResourceMatchProcessor(final ResourceFilter resourceFilter,
+            final ByteBufferConsumer byteBufferConsumer) {
+        if (this.resourceMatchProcessors == null) {
+            this.resourceMatchProcessors = new ArrayList<>(2);
+        }
+        this.resourceMatchProcessors.add(new SimpleEntry<>(resourceFilter, byteBufferConsumer));
+    }
+
     /**
      * Add a ClassLoader to the list of ClassLoaders to scan. (This only works if overrideClasspath() is not
      * called.)
@@ -457,6 +536,32 @@ public class ScanSpec {
         return ScanSpecPathMatch.NOT_WITHIN_WHITELISTED_PATH;
     }
 
+    /**
+     * Get path prefixes that bound the whitelisted paths, so that resources outside these prefixes can be skipped
+     * without testing their paths. Any resource that is within a whitelisted path, or within the package of a
+     * specifically-whitelisted class, has a relative path starting with one of these prefixes.
+     *
+     * @return the path prefixes, or null if the whitelisted paths cannot be bounded by path prefixes (if there are
+     *         no path whitelist criteria, or if the root package is whitelisted).
+     */
+    public List<String> getWhitelistedPathPrefixes() {
+        if (pathWhiteBlackList.whitelistIsEmpty() && classPackagePathWhiteBlackList.whitelistIsEmpty()) {
+            // All paths are whitelisted
+            return null;
+        }
+        final List<String> pathPrefixes = new ArrayList<>();
+        pathPrefixes.addAll(pathWhiteBlackList.getWhitelistLiteralPrefixes());
+        pathPrefixes.addAll(classPackagePathWhiteBlackList.getWhitelistLiteralPrefixes());
+        pathPrefixes.addAll(pathPrefixWhiteBlackList.getWhitelistLiteralPrefixes());
+        for (final String pathPrefix : pathPrefixes) {
+            if (pathPrefix.isEmpty() || pathPrefix.equals("/")) {
+                // Root package is whitelisted
+                return null;
+            }
+        }
+        return pathPrefixes;
+    }
+
     /**
      * Returns true if the given relative path (for a classfile name, including ".class") matches a
      * specifically-whitelisted (and non-blacklisted) classfile's relative path.
@@ -56,10 +56,11 @@ public abstract class WhiteBlackList {
     protected Set<String> whitelistGlobs;
     /** Blacklist glob strings. (Serialized to JSON, for logging purposes.) */
     protected Set<String> blacklistGlobs;
-    /** Whitelist regexp patterns. (Not serialized to JSON.) */
-    protected transient List<Pattern> whitelistPatterns;
-    /** Blacklist regexp patterns. (Not serialized to JSON.) */
-    protected transient List<Pattern> blacklistPatterns;
+    /**
+     * The whitelist and blacklist criteria, compiled into a trie, or null if not yet compiled (or if criteria have
+     * been added since the trie was compiled). (Not serialized to JSON.)
+     */
+    transient volatile WhiteBlackListTrie trie;
 
     /** Constructor for deserialization. */
     public WhiteBlackList() {
@@ -82,6 +83,7 @@ public abstract class WhiteBlackList {
                 this.whitelistPrefixes = new ArrayList<>();
             }
             this.whitelistPrefixes.add(str);
+            this.trie = null;
         }
 
         /**
@@ -99,6 +101,7 @@ public abstract class WhiteBlackList {
                 this.blacklistPrefixes = new ArrayList<>();
             }
             this.blacklistPrefixes.add(str);
+            this.trie = null;
         }
 
         /**
@@ -110,26 +113,10 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean isWhitelistedAndNotBlacklisted(final String str) {
-            boolean isWhitelisted = whitelistPrefixes == null;
-            if (!isWhitelisted) {
-                for (final String prefix : whitelistPrefixes) {
-                    if (str.startsWith(prefix)) {
-                        isWhitelisted = true;
-                        break;
-                    }
-                }
-            }
-            if (!isWhitelisted) {
-                return false;
-            }
-            if (blacklistPrefixes != null) {
-                for (final String prefix : blacklistPrefixes) {
-                    if (str.startsWith(prefix)) {
-                        return false;
-                    }
-                }
-            }
-            return true;
+            final int matches = getTrie().match(str, 0, str.length(),
+                    WhiteBlackListTrie.WHITELIST | WhiteBlackListTrie.BLACKLIST);
+            return (whitelistPrefixes == null || (matches & WhiteBlackListTrie.WHITELIST) != 0)
+                    && (matches & WhiteBlackListTrie.BLACKLIST) == 0;
         }
 
         /**
@@ -141,16 +128,8 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean isWhitelisted(final String str) {
-            boolean isWhitelisted = whitelistPrefixes == null;
-            if (!isWhitelisted) {
-                for (final String prefix : whitelistPrefixes) {
-                    if (str.startsWith(prefix)) {
-                        isWhitelisted = true;
-                        break;
-                    }
-                }
-            }
-            return isWhitelisted;
+            return whitelistPrefixes == null
+                    || getTrie().match(str, 0, str.length(), WhiteBlackListTrie.WHITELIST) != 0;
         }
 
         /**
@@ -176,14 +155,8 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean isBlacklisted(final String str) {
-            if (blacklistPrefixes != null) {
-                for (final String prefix : blacklistPrefixes) {
-                    if (str.startsWith(prefix)) {
-                        return true;
-                    }
-                }
-            }
-            return false;
+            return blacklistPrefixes != null
+                    && getTrie().match(str, 0, str.length(), WhiteBlackListTrie.BLACKLIST) != 0;
         }
     }
 
@@ -200,16 +173,15 @@ public abstract class WhiteBlackList {
             if (str.contains("*")) {
                 if (this.whitelistGlobs == null) {
                     this.whitelistGlobs = new HashSet<>();
-                    this.whitelistPatterns = new ArrayList<>();
                 }
                 this.whitelistGlobs.add(str);
-                this.whitelistPatterns.add(globToPattern(str));
             } else {
                 if (this.whitelist == null) {
                     this.whitelist = new HashSet<>();
                 }
                 this.whitelist.add(str);
             }
+            this.trie = null;
         }
 
         /**
@@ -223,16 +195,15 @@ public abstract class WhiteBlackList {
             if (str.contains("*")) {
                 if (this.blacklistGlobs == null) {
                     this.blacklistGlobs = new HashSet<>();
-                    this.blacklistPatterns = new ArrayList<>();
                 }
                 this.blacklistGlobs.add(str);
-                this.blacklistPatterns.add(globToPattern(str));
             } else {
                 if (this.blacklist == null) {
                     this.blacklist = new HashSet<>();
                 }
                 this.blacklist.add(str);
             }
+            this.trie = null;
         }
 
         /**
@@ -244,7 +215,10 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean isWhitelistedAndNotBlacklisted(final String str) {
-            return isWhitelisted(str) && !isBlacklisted(str);
+            final int matches = getTrie().match(str, 0, str.length(),
+                    WhiteBlackListTrie.WHITELIST | WhiteBlackListTrie.BLACKLIST);
+            return ((whitelist == null && whitelistGlobs == null) || (matches & WhiteBlackListTrie.WHITELIST) != 0)
+                    && (matches & WhiteBlackListTrie.BLACKLIST) == 0;
         }
 
         /**
@@ -256,8 +230,8 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean isWhitelisted(final String str) {
-            return (whitelist == null && whitelistPatterns == null)
-                    || (whitelist != null && whitelist.contains(str)) || matchesPatternList(str, whitelistPatterns);
+            return (whitelist == null && whitelistGlobs == null)
+                    || getTrie().match(str, 0, str.length(), WhiteBlackListTrie.WHITELIST) != 0;
         }
 
         /**
@@ -269,15 +243,8 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean whitelistHasPrefix(final String str) {
-            if (whitelist == null) {
-                return false;
-            }
-            for (final String w : whitelist) {
-                if (w.startsWith(str)) {
-                    return true;
-                }
-            }
-            return false;
+            return whitelist != null && (getTrie().matchWholeStringsWithPrefix(str, 0, str.length())
+                    & WhiteBlackListTrie.WHITELIST) != 0;
         }
 
         /**
@@ -289,7 +256,8 @@ public abstract class WhiteBlackList {
          */
         @Override
         public boolean isBlacklisted(final String str) {
-            return (blacklist != null && blacklist.contains(str)) || matchesPatternList(str, blacklistPatterns);
+            return (blacklist != null || blacklistGlobs != null)
+                    && getTrie().match(str, 0, str.length(), WhiteBlackListTrie.BLACKLIST) != 0;
         }
     }
 
@@ -495,26 +463,6 @@ public abstract class WhiteBlackList {
         return Pattern.compile("^" + glob.replace(".", "\\.").replace("*", ".*") + "$");
     }
 
-    /**
-     * Check if a string matches one of the patterns in the provided list.
-     *
-     * @param str
-     *            the string to test
-     * @param patterns
-     *            the patterns
-     * @return true, if successful
-     */
-    private static boolean matchesPatternList(final String str, final List<Pattern> patterns) {
-        if (patterns != null) {
-            for (final Pattern pattern : patterns) {
-                if (pattern.matcher(str).matches()) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     /**
      * Check if the whitelist is empty.
      *
@@ -542,6 +490,29 @@ public abstract class WhiteBlackList {
         return whitelistIsEmpty() && blacklistIsEmpty();
     }
 
+    /**
+     * Get the literal prefixes of the whitelist criteria, i.e. the whitelisted prefixes, the whitelisted whole
+     * strings, and the part of each whitelisted glob before its first '*' character. Every whitelisted string
+     * starts with at least one of these prefixes.
+     *
+     * @return the literal prefixes of the whitelist criteria (empty if the whitelist is empty).
+     */
+    public List<String> getWhitelistLiteralPrefixes() {
+        final List<String> literalPrefixes = new ArrayList<>();
+        if (whitelist != null) {
+            literalPrefixes.addAll(whitelist);
+        }
+        if (whitelistPrefixes != null) {
+            literalPrefixes.addAll(whitelistPrefixes);
+        }
+        if (whitelistGlobs != null) {
+            for (final String glob : whitelistGlobs) {
+                literalPrefixes.add(glob.substring(0, glob.indexOf('*')));
+            }
+        }
+        return literalPrefixes;
+    }
+
     /**
      * Check if a string is specifically whitelisted and not blacklisted.
      *
@@ -566,7 +537,10 @@ public abstract class WhiteBlackList {
         return !whitelistIsEmpty() && isWhitelisted(str);
     }
 
-    /** Need to sort prefixes to ensure correct whitelist/blacklist evaluation (see Issue #167). */
+    /**
+     * Need to sort prefixes to ensure correct whitelist/blacklist evaluation (see Issue #167). Also compiles the
+     * whitelist and blacklist criteria into a trie, so that this is not done lazily during scanning.
+     */
     public void sortPrefixes() {
         if (whitelistPrefixes != null) {
             Collections.sort(whitelistPrefixes);
@@ -574,6 +548,56 @@ public abstract class WhiteBlackList {
         if (blacklistPrefixes != null) {
             Collections.sort(blacklistPrefixes);
         }
+        getTrie();
+    }
+
+    /**
+     * Get the whitelist and blacklist criteria compiled into a trie, compiling them if necessary.
+     *
+     * @return the trie
+     */
+    WhiteBlackListTrie getTrie() {
+        WhiteBlackListTrie compiledTrie = trie;
+        if (compiledTrie == null) {
+            synchronized (this) {
+                compiledTrie = trie;
+                if (compiledTrie == null) {
+                    compiledTrie = new WhiteBlackListTrie();
+                    if (whitelist != null) {
+                        for (final String str : whitelist) {
+                            compiledTrie.addWholeString(str, WhiteBlackListTrie.WHITELIST);
+                        }
+                    }
+                    if (blacklist != null) {
+                        for (final String str : blacklist) {
+                            compiledTrie.addWholeString(str, WhiteBlackListTrie.BLACKLIST);
+                        }
+                    }
+                    if (whitelistPrefixes != null) {
+                        for (final String prefix : whitelistPrefixes) {
+                            compiledTrie.addPrefix(prefix, WhiteBlackListTrie.WHITELIST);
+                        }
+                    }
+                    if (blacklistPrefixes != null) {
+                        for (final String prefix : blacklistPrefixes) {
+                            compiledTrie.addPrefix(prefix, WhiteBlackListTrie.BLACKLIST);
+                        }
+                    }
+                    if (whitelistGlobs != null) {
+                        for (final String glob : whitelistGlobs) {
+                            compiledTrie.addGlob(glob, WhiteBlackListTrie.WHITELIST);
+                        }
+                    }
+                    if (blacklistGlobs != null) {
+                        for (final String glob : blacklistGlobs) {
+                            compiledTrie.addGlob(glob, WhiteBlackListTrie.BLACKLIST);
+                        }
+                    }
+                    trie = compiledTrie;
+                }
+            }
+        }
+        return compiledTrie;
     }
 
     /* (non-Javadoc)
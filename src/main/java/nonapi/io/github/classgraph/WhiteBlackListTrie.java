@@ -0,0 +1,380 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A character trie holding the prefix, whole-string and glob criteria of a {@link WhiteBlackList}, so that a
+ * string can be tested against all of the whitelist and blacklist criteria in a single pass over its characters,
+ * rather than by testing each criterion in turn. Strings are queried by index range, so no substrings need to be
+ * allocated.
+ *
+ * <p>
+ * Globs are split at the first '*' character: the literal part before the '*' is inserted into the trie, and the
+ * remainder (the "glob tail") is matched against the rest of the string only if the literal part matches. Globs
+ * that contain regexp metacharacters other than '.' and '*' are matched using the same regexp as before, to
+ * preserve the semantics of {@link WhiteBlackList#globToPattern(String)}.
+ */
+final class WhiteBlackListTrie {
+    /** Match flag for the whitelist. */
+    static final int WHITELIST = 1;
+
+    /** Match flag for the blacklist. */
+    static final int BLACKLIST = 2;
+
+    /** Characters that have a special meaning in a regexp produced by {@link WhiteBlackList#globToPattern}. */
+    private static final String REGEXP_METACHARS = "\\^$|?+()[]{}";
+
+    /** The root node, corresponding to the empty string. */
+    private final Node root = new Node();
+
+    /** The whitelist globs that could not be added to the trie, as regexp patterns. */
+    private List<Pattern> whitelistPatterns;
+
+    /** The blacklist globs that could not be added to the trie, as regexp patterns. */
+    private List<Pattern> blacklistPatterns;
+
+    /** A trie node. */
+    private static class Node {
+        /** The sorted characters of the edges to the child nodes. */
+        private char[] childChars = new char[0];
+
+        /** The child nodes, in the same order as {@link #childChars}. */
+        private Node[] children = new Node[0];
+
+        /** The number of child nodes. */
+        private int numChildren;
+
+        /** The flags of the lists that contain a prefix ending at this node. */
+        private int prefixFlags;
+
+        /** The flags of the lists that contain a whole string ending at this node. */
+        private int wholeStringFlags;
+
+        /** The flags of the lists that contain a whole string ending at this node or at one of its descendants. */
+        private int descendantWholeStringFlags;
+
+        /** The tails of the globs whose literal part ends at this node, or null if none. */
+        private String[] globTails;
+
+        /** The list flag of each glob tail. */
+        private int[] globTailFlags;
+
+        /**
+         * Get the child node for a character.
+         *
+         * @param c
+         *            the character
+         * @return the child node, or null if there is no child node for the character
+         */
+        private Node getChild(final char c) {
+            final int idx = Arrays.binarySearch(childChars, 0, numChildren, c);
+            return idx < 0 ? null : children[idx];
+        }
+
+        /**
+         * Get the child node for a character, creating it if it doesn't exist.
+         *
+         * @param c
+         *            the character
+         * @return the child node
+         */
+        private Node getOrCreateChild(final char c) {
+            int idx = Arrays.binarySearch(childChars, 0, numChildren, c);
+            if (idx >= 0) {
+                return children[idx];
+            }
+            idx = -idx - 1;
+            if (numChildren == childChars.length) {
+                final int newSize = Math.max(2, numChildren * 2);
+                childChars = Arrays.copyOf(childChars, newSize);
+                children = Arrays.copyOf(children, newSize);
+            }
+            System.arraycopy(childChars, idx, childChars, idx + 1, numChildren - idx);
+            System.arraycopy(children, idx, children, idx + 1, numChildren - idx);
+            final Node child = new Node();
+            childChars[idx] = c;
+            children[idx] = child;
+            numChildren++;
+            return child;
+        }
+
+        /**
+         * Add a glob tail to this node.
+         *
+         * @param globTail
+         *            the glob tail, starting with '*'
+         * @param flag
+         *            the list flag
+         */
+        private void addGlobTail(final String globTail, final int flag) {
+            if (globTails == null) {
+                globTails = new String[] { globTail };
+                globTailFlags = new int[] { flag };
+            } else {
+                globTails = Arrays.copyOf(globTails, globTails.length + 1);
+                globTailFlags = Arrays.copyOf(globTailFlags, globTailFlags.length + 1);
+                globTails[globTails.length - 1] = globTail;
+                globTailFlags[globTailFlags.length - 1] = flag;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Walk down the trie along the characters of a string, creating nodes as needed.
+     *
+     * @param str
+     *            the string
+     * @param end
+     *            the end index of the string (exclusive)
+     * @param flag
+     *            if nonzero, the flag to add to {@link Node#descendantWholeStringFlags} of each node on the path
+     * @return the node at the end of the path
+     */
+    private Node getOrCreateNode(final String str, final int end, final int flag) {
+        Node node = root;
+        node.descendantWholeStringFlags |= flag;
+        for (int i = 0; i < end; i++) {
+            node = node.getOrCreateChild(str.charAt(i));
+            node.descendantWholeStringFlags |= flag;
+        }
+        return node;
+    }
+
+    /**
+     * Add a prefix criterion.
+     *
+     * @param prefix
+     *            the prefix
+     * @param flag
+     *            the list flag, {@link #WHITELIST} or {@link #BLACKLIST}
+     */
+    void addPrefix(final String prefix, final int flag) {
+        getOrCreateNode(prefix, prefix.length(), /* flag = */ 0).prefixFlags |= flag;
+    }
+
+    /**
+     * Add a whole-string criterion.
+     *
+     * @param str
+     *            the string
+     * @param flag
+     *            the list flag, {@link #WHITELIST} or {@link #BLACKLIST}
+     */
+    void addWholeString(final String str, final int flag) {
+        getOrCreateNode(str, str.length(), flag).wholeStringFlags |= flag;
+    }
+
+    /**
+     * Add a glob criterion.
+     *
+     * @param glob
+     *            the glob, containing at least one '*' character
+     * @param flag
+     *            the list flag, {@link #WHITELIST} or {@link #BLACKLIST}
+     */
+    void addGlob(final String glob, final int flag) {
+        for (int i = 0; i < glob.length(); i++) {
+            if (REGEXP_METACHARS.indexOf(glob.charAt(i)) >= 0) {
+                // Fall back to regexp matching
+                if (flag == WHITELIST) {
+                    if (whitelistPatterns == null) {
+                        whitelistPatterns = new ArrayList<>();
+                    }
+                    whitelistPatterns.add(WhiteBlackList.globToPattern(glob));
+                } else {
+                    if (blacklistPatterns == null) {
+                        blacklistPatterns = new ArrayList<>();
+                    }
+                    blacklistPatterns.add(WhiteBlackList.globToPattern(glob));
+                }
+                return;
+            }
+        }
+        final int starIdx = glob.indexOf('*');
+        final Node node = getOrCreateNode(glob, starIdx, /* flag = */ 0);
+        boolean tailIsAllStars = true;
+        for (int i = starIdx + 1; i < glob.length(); i++) {
+            if (glob.charAt(i) != '*') {
+                tailIsAllStars = false;
+                break;
+            }
+        }
+        if (tailIsAllStars) {
+            // A glob with only trailing '*' characters is a prefix match
+            node.prefixFlags |= flag;
+        } else {
+            node.addGlobTail(glob.substring(starIdx), flag);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Match a glob tail against a range of a string.
+     *
+     * @param globTail
+     *            the glob tail
+     * @param str
+     *            the string
+     * @param start
+     *            the start index of the range
+     * @param end
+     *            the end index of the range (exclusive)
+     * @return true if the glob tail matches the whole range
+     */
+    private static boolean globTailMatches(final String globTail, final String str, final int start,
+            final int end) {
+        final int globTailLen = globTail.length();
+        int globIdx = 0;
+        int strIdx = start;
+        int lastStarGlobIdx = -1;
+        int lastStarStrIdx = start;
+        while (strIdx < end) {
+            if (globIdx < globTailLen && globTail.charAt(globIdx) == '*') {
+                // Initially try matching the '*' against zero characters
+                lastStarGlobIdx = globIdx++;
+                lastStarStrIdx = strIdx;
+            } else if (globIdx < globTailLen && globTail.charAt(globIdx) == str.charAt(strIdx)) {
+                globIdx++;
+                strIdx++;
+            } else if (lastStarGlobIdx >= 0) {
+                // Backtrack, and match the last '*' against one more character
+                globIdx = lastStarGlobIdx + 1;
+                strIdx = ++lastStarStrIdx;
+            } else {
+                return false;
+            }
+        }
+        while (globIdx < globTailLen && globTail.charAt(globIdx) == '*') {
+            globIdx++;
+        }
+        return globIdx == globTailLen;
+    }
+
+    /**
+     * Check if a range of a string matches any of a list of regexp patterns.
+     *
+     * @param str
+     *            the string
+     * @param start
+     *            the start index of the range
+     * @param end
+     *            the end index of the range (exclusive)
+     * @param patterns
+     *            the patterns, or null if none
+     * @return true if the range matches one of the patterns
+     */
+    private static boolean matchesPatternList(final String str, final int start, final int end,
+            final List<Pattern> patterns) {
+        if (patterns != null) {
+            final CharSequence subSequence = start == 0 && end == str.length() ? str : str.subSequence(start, end);
+            for (final Pattern pattern : patterns) {
+                if (pattern.matcher(subSequence).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find which lists have a prefix, whole string or glob that matches a range of a string.
+     *
+     * @param str
+     *            the string
+     * @param start
+     *            the start index of the range
+     * @param end
+     *            the end index of the range (exclusive)
+     * @param flagsToFind
+     *            the flags of the lists to check, some combination of {@link #WHITELIST} and {@link #BLACKLIST}
+     * @return the flags of the lists in flagsToFind that contain a criterion that matches the range
+     */
+    int match(final String str, final int start, final int end, final int flagsToFind) {
+        int found = 0;
+        Node node = root;
+        for (int i = start;; i++) {
+            found |= node.prefixFlags;
+            if (node.globTails != null) {
+                for (int j = 0; j < node.globTails.length; j++) {
+                    final int flag = node.globTailFlags[j];
+                    if ((found & flag) == 0 && globTailMatches(node.globTails[j], str, i, end)) {
+                        found |= flag;
+                    }
+                }
+            }
+            if ((found & flagsToFind) == flagsToFind) {
+                return flagsToFind;
+            }
+            if (i == end) {
+                found |= node.wholeStringFlags;
+                break;
+            }
+            node = node.getChild(str.charAt(i));
+            if (node == null) {
+                break;
+            }
+        }
+        if ((flagsToFind & WHITELIST) != 0 && (found & WHITELIST) == 0
+                && matchesPatternList(str, start, end, whitelistPatterns)) {
+            found |= WHITELIST;
+        }
+        if ((flagsToFind & BLACKLIST) != 0 && (found & BLACKLIST) == 0
+                && matchesPatternList(str, start, end, blacklistPatterns)) {
+            found |= BLACKLIST;
+        }
+        return found & flagsToFind;
+    }
+
+    /**
+     * Find which lists contain a whole string that has a range of a string as a prefix.
+     *
+     * @param str
+     *            the string
+     * @param start
+     *            the start index of the range
+     * @param end
+     *            the end index of the range (exclusive)
+     * @return the flags of the lists that contain a whole string that starts with the range
+     */
+    int matchWholeStringsWithPrefix(final String str, final int start, final int end) {
+        Node node = root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.getChild(str.charAt(i));
+        }
+        return node == null ? 0 : node.descendantWholeStringFlags;
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.github.classgraph.ClassGraphException;
 import nonapi.io.github.classgraph.utils.LogNode;
@@ -55,6 +56,12 @@ public abstract class SingletonMap<K, V, E extends Exception> {
     /** The map. */
     private final ConcurrentMap<K, SingletonHolder<V>> map = new ConcurrentHashMap<>();
 
+    /** The number of calls to {@link #get(Object, LogNode)} that found an existing or in-progress instance. */
+    private final AtomicLong numHits = new AtomicLong();
+
+    /** The number of calls to {@link #get(Object, LogNode)} that created a new instance. */
+    private final AtomicLong numMisses = new AtomicLong();
+
     /**
      * Wrapper to allow an object instance to be put into a ConcurrentHashMap using putIfAbsent() without requiring
      * the instance to be initialized first, so that putIfAbsent can be performed without wrapping it with a
@@ -150,6 +157,7 @@ public abstract class SingletonMap<K, V, E extends Exception> {
         V instance = null;
         if (singletonHolder != null) {
             // There is already a SingletonHolder in the map for this key -- get the value
+            numHits.incrementAndGet();
             instance = singletonHolder.get();
         } else {
             // There is no SingletonHolder in the map for this key, need to create one
@@ -159,8 +167,10 @@ public abstract class SingletonMap<K, V, E extends Exception> {
             if (oldSingletonHolder != null) {
                 // There was already a singleton in the map for this key, due to a race condition --
                 // return the existing singleton
+                numHits.incrementAndGet();
                 instance = oldSingletonHolder.get();
             } else {
+                numMisses.incrementAndGet();
                 // Initialize newSingletonHolder with new instance of value.
                 try {
                     instance = newInstance(key, log);
@@ -202,4 +212,22 @@ public abstract class SingletonMap<K, V, E extends Exception> {
     public void clear() {
         map.clear();
     }
+
+    /**
+     * Get the number of calls to {@link #get(Object, LogNode)} that found an existing or in-progress instance.
+     *
+     * @return the number of hits
+     */
+    public long getNumHits() {
+        return numHits.get();
+    }
+
+    /**
+     * Get the number of calls to {@link #get(Object, LogNode)} that created a new instance.
+     *
+     * @return the number of misses
+     */
+    public long getNumMisses() {
+        return numMisses.get();
+    }
 }
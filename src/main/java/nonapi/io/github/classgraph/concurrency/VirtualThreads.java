@@ -0,0 +1,113 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.concurrency;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Support for running I/O-bound work on virtual threads, on JDK 21+. Virtual threads are detected reflectively, so
+ * that ClassGraph can still be built and run on older JDKs, where virtual threads are simply not used.
+ */
+public final class VirtualThreads {
+    /** The {@code Executors#newVirtualThreadPerTaskExecutor()} method, or null if not available. */
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+
+    /** The {@code Thread#isVirtual()} method, or null if not available. */
+    private static final Method IS_VIRTUAL;
+
+    static {
+        Method newVirtualThreadPerTaskExecutor = null;
+        Method isVirtual = null;
+        try {
+            newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            isVirtual = Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException | SecurityException e) {
+            // Virtual threads are not available (JDK < 21)
+        }
+        NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = newVirtualThreadPerTaskExecutor;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    /**
+     * Constructor.
+     */
+    private VirtualThreads() {
+        // Cannot be constructed
+    }
+
+    /**
+     * Check whether virtual threads are available.
+     *
+     * @return true if virtual threads are available.
+     */
+    public static boolean isAvailable() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Check whether a thread is a virtual thread.
+     *
+     * @param thread
+     *            the thread
+     * @return true if the thread is a virtual thread, or false if it is a platform thread, or if virtual threads
+     *         are not available.
+     */
+    public static boolean isVirtual(final Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create an {@link ExecutorService} that starts a new virtual thread for each task. The caller must shut down
+     * the {@link ExecutorService} once the submitted tasks have completed.
+     *
+     * @return the {@link ExecutorService}, or null if virtual threads are not available, or the
+     *         {@link ExecutorService} could not be created.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            // Virtual threads may be disabled, e.g. as a preview feature on JDK 19 or 20
+            return null;
+        }
+    }
+}
@@ -29,20 +29,22 @@
 package nonapi.io.github.classgraph.concurrency;
 
 import java.util.Collection;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /**
- * A parallel work queue.
+ * A parallel work queue. Each worker has its own deque of work units. Workers take work units from the tail of
+ * their own deque, and when their own deque is empty, they steal work units from the head of the deques of other
+ * workers. Work units added by a worker (e.g. when a classfile schedules an external class for scanning) are added
+ * to that worker's own deque, so workers only contend with each other when stealing.
  *
  * @param <T>
  *            The work unit type.
@@ -51,18 +53,36 @@ public class WorkQueue<T> implements AutoCloseable {
     /** The work unit processor. */
     private final WorkUnitProcessor<T> workUnitProcessor;
 
-    /** The queue of work units. */
-    private final BlockingQueue<WorkUnitWrapper<T>> workUnits = new LinkedBlockingQueue<>();
+    /** The per-worker deques of work units. */
+    private final ConcurrentLinkedDeque<T>[] workUnitDeques;
 
     /** The number of workers. */
     private final int numWorkers;
 
+    /** The index of the next deque to assign to a worker. */
+    private final AtomicInteger nextWorkerDequeIdx = new AtomicInteger();
+
+    /** The index of the next deque to add a work unit to, for work units added from outside a worker. */
+    private final AtomicInteger nextExternalDequeIdx = new AtomicInteger();
+
+    /** The index of the deque owned by the current worker thread, or null if the thread is not a worker. */
+    private final ThreadLocal<Integer> ownDequeIdx = new ThreadLocal<>();
+
     /**
      * The number of work units remaining to be processed, plus the number of currently running threads working on a
      * work unit.
      */
     private final AtomicInteger numIncompleteWorkUnits = new AtomicInteger();
 
+    /** The lock that idle workers wait on for more work units to be added. */
+    private final Object idleWorkerLock = new Object();
+
+    /** The number of idle workers waiting on {@link #idleWorkerLock}. */
+    private final AtomicInteger numIdleWorkers = new AtomicInteger();
+
+    /** Set to true if a worker was interrupted or threw an exception, to shut down all workers. */
+    private volatile boolean shutdown;
+
     /** The Future object added for each worker, used to detect worker completion. */
     private final ConcurrentLinkedQueue<Future<?>> workerFutures = new ConcurrentLinkedQueue<>();
 
@@ -76,26 +96,10 @@ public class WorkQueue<T> implements AutoCloseable {
     private final LogNode log;
 
     /**
-     * A wrapper for work units (needed to send a poison pill as a null value, since BlockingQueue does not accept
-     * null values).
-     *
-     * @param <T>
-     *            the generic type
+     * The maximum time an idle worker waits before checking again for work units to steal, as a safeguard against
+     * missed wakeups.
      */
-    private static class WorkUnitWrapper<T> {
-        /** The work unit. */
-        final T workUnit;
-
-        /**
-         * Constructor.
-         * 
-         * @param workUnit
-         *            the work unit, or null to represent a poison pill.
-         */
-        public WorkUnitWrapper(final T workUnit) {
-            this.workUnit = workUnit;
-        }
-    }
+    private static final long IDLE_WAIT_MILLIS = 10L;
 
     /**
      * A work unit processor.
@@ -176,12 +180,17 @@ public class WorkQueue<T> implements AutoCloseable {
      * @param log
      *            the log
      */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     private WorkQueue(final Collection<T> initialWorkUnits, final WorkUnitProcessor<T> workUnitProcessor,
             final int numWorkers, final InterruptionChecker interruptionChecker, final LogNode log) {
         this.workUnitProcessor = workUnitProcessor;
-        this.numWorkers = numWorkers;
+        this.numWorkers = Math.max(1, numWorkers);
         this.interruptionChecker = interruptionChecker;
         this.log = log;
+        this.workUnitDeques = new ConcurrentLinkedDeque[this.numWorkers];
+        for (int i = 0; i < this.numWorkers; i++) {
+            workUnitDeques[i] = new ConcurrentLinkedDeque<>();
+        }
         addWorkUnits(initialWorkUnits);
     }
 
@@ -206,12 +215,68 @@ public class WorkQueue<T> implements AutoCloseable {
     }
 
     /**
-     * Send poison pills to workers.
+     * Shut down all workers, after a worker was interrupted or threw an exception.
+     */
+    private void shutdown() {
+        shutdown = true;
+        for (final ConcurrentLinkedDeque<T> deque : workUnitDeques) {
+            deque.clear();
+        }
+        wakeIdleWorkers(/* all = */ true);
+    }
+
+    /**
+     * Wake idle workers, if there are any.
+     *
+     * @param all
+     *            if true, wake all idle workers, otherwise wake one idle worker.
+     */
+    private void wakeIdleWorkers(final boolean all) {
+        if (numIdleWorkers.get() > 0) {
+            synchronized (idleWorkerLock) {
+                if (all) {
+                    idleWorkerLock.notifyAll();
+                } else {
+                    idleWorkerLock.notify();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether any deque contains work units.
+     *
+     * @return true if any deque contains work units.
+     */
+    private boolean hasWorkUnits() {
+        for (final ConcurrentLinkedDeque<T> deque : workUnitDeques) {
+            if (!deque.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the next work unit for a worker, taking from the tail of the worker's own deque if possible, otherwise
+     * stealing from the head of another worker's deque.
+     *
+     * @param dequeIdx
+     *            the index of the worker's own deque
+     * @return the next work unit, or null if all deques are empty.
      */
-    private void sendPoisonPills() {
-        for (int i = 0; i < numWorkers; i++) {
-            workUnits.add(new WorkUnitWrapper<T>(null));
+    private T takeOrStealWorkUnit(final int dequeIdx) {
+        final T ownWorkUnit = workUnitDeques[dequeIdx].pollLast();
+        if (ownWorkUnit != null) {
+            return ownWorkUnit;
         }
+        for (int i = 1; i < workUnitDeques.length; i++) {
+            final T stolenWorkUnit = workUnitDeques[(dequeIdx + i) % workUnitDeques.length].pollFirst();
+            if (stolenWorkUnit != null) {
+                return stolenWorkUnit;
+            }
+        }
+        return null;
     }
 
     /**
@@ -226,47 +291,71 @@ public class WorkQueue<T> implements AutoCloseable {
      *             if a worker thread throws an uncaught exception
      */
     private void runWorkLoop() throws InterruptedException, ExecutionException {
-        // Get next work unit from queue
-        for (;;) {
-            // Check for interruption
-            interruptionChecker.check();
+        final int dequeIdx = (nextWorkerDequeIdx.getAndIncrement() & Integer.MAX_VALUE) % workUnitDeques.length;
+        ownDequeIdx.set(dequeIdx);
+        try {
+            // Get next work unit from queue
+            while (!shutdown) {
+                // Check for interruption
+                interruptionChecker.check();
 
-            // Get next work unit
-            final WorkUnitWrapper<T> workUnitWrapper = workUnits.take();
+                // Get next work unit
+                final T workUnit = takeOrStealWorkUnit(dequeIdx);
 
-            if (workUnitWrapper.workUnit == null) {
-                // Received poison pill
-                break;
-            }
+                if (workUnit == null) {
+                    if (numIncompleteWorkUnits.get() == 0) {
+                        // No more work units
+                        break;
+                    }
+                    // Work units are still being processed by other workers, and may add more work units --
+                    // wait for more work units to be added, or for all work units to be completed
+                    synchronized (idleWorkerLock) {
+                        numIdleWorkers.incrementAndGet();
+                        try {
+                            if (!shutdown && numIncompleteWorkUnits.get() != 0 && !hasWorkUnits()) {
+                                idleWorkerLock.wait(IDLE_WAIT_MILLIS);
+                            }
+                        } catch (final InterruptedException e) {
+                            shutdown();
+                            throw e;
+                        } finally {
+                            numIdleWorkers.decrementAndGet();
+                        }
+                    }
+                    continue;
+                }
 
-            // Process the work unit
-            try {
-                // Process the work unit (may throw InterruptedException) 
-                workUnitProcessor.processWorkUnit(workUnitWrapper.workUnit, this, log);
-
-            } catch (InterruptedException | OutOfMemoryError e) {
-                // On InterruptedException or OutOfMemoryError, drain work queue, send poison pills, and re-throw
-                workUnits.clear();
-                sendPoisonPills();
-                throw e;
-
-            } catch (final RuntimeException e) {
-                // On unchecked exception, drain work queue, send poison pills, and throw ExecutionException
-                workUnits.clear();
-                sendPoisonPills();
-                throw new ExecutionException("Worker thread threw unchecked exception", e);
-
-            } finally {
-                if (numIncompleteWorkUnits.decrementAndGet() == 0) {
-                    // No more work units -- send poison pills
-                    sendPoisonPills();
+                // Process the work unit
+                try {
+                    // Process the work unit (may throw InterruptedException) 
+                    workUnitProcessor.processWorkUnit(workUnit, this, log);
+
+                } catch (InterruptedException | OutOfMemoryError e) {
+                    // On InterruptedException or OutOfMemoryError, drain work queues, shut down workers, and
+                    // re-throw
+                    shutdown();
+                    throw e;
+
+                } catch (final RuntimeException e) {
+                    // On unchecked exception, drain work queues, shut down workers, and throw ExecutionException
+                    shutdown();
+                    throw new ExecutionException("Worker thread threw unchecked exception", e);
+
+                } finally {
+                    if (numIncompleteWorkUnits.decrementAndGet() == 0) {
+                        // No more work units -- wake up idle workers so that they can exit
+                        wakeIdleWorkers(/* all = */ true);
+                    }
                 }
             }
+        } finally {
+            ownDequeIdx.remove();
         }
     }
 
     /**
-     * Add a unit of work. May be called by workers to add more work units to the tail of the queue.
+     * Add a unit of work. May be called by workers to add more work units. If called from a worker, the work unit
+     * is added to the worker's own deque, otherwise work units are distributed across the workers' deques.
      *
      * @param workUnit
      *            the work unit
@@ -278,14 +367,18 @@ public class WorkQueue<T> implements AutoCloseable {
             throw new NullPointerException("workUnit cannot be null");
         }
         numIncompleteWorkUnits.incrementAndGet();
-        workUnits.add(new WorkUnitWrapper<>(workUnit));
+        final Integer dequeIdx = ownDequeIdx.get();
+        workUnitDeques[dequeIdx != null ? dequeIdx
+                : (nextExternalDequeIdx.getAndIncrement() & Integer.MAX_VALUE) % workUnitDeques.length]
+                        .addLast(workUnit);
+        wakeIdleWorkers(/* all = */ false);
     }
 
     /**
-     * Add multiple units of work. May be called by workers to add more work units to the tail of the queue.
+     * Add multiple units of work. May be called by workers to add more work units.
      * 
      * @param workUnits
-     *            The work units to add to the tail of the queue.
+     *            The work units to add.
      * @throws NullPointerException
      *             if any of the work units are null.
      */
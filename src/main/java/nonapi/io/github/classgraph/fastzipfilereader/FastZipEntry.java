@@ -50,7 +50,7 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
     final LogicalZipFile parentLogicalZipFile;
 
     /** The offset of the entry's local header, as an offset relative to the parent logical zipfile. */
-    private final long locHeaderPos;
+    final long locHeaderPos;
 
     /** The start offset of the entry's compressed data, as an absolute offset within the physical zipfile. */
     private long entryDataStartOffsetWithinPhysicalZipFile = -1L;
@@ -67,6 +67,15 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
     /** The uncompressed size of the zip entry, in bytes. */
     public final long uncompressedSize;
 
+    /** The CRC-32 of the uncompressed zip entry data, as recorded in the central directory. */
+    final int crc;
+
+    /**
+     * True if {@link #crc} holds the CRC-32 of the entry data. Zero is a valid CRC-32 value, so it cannot be used to
+     * mean "unknown".
+     */
+    final boolean crcKnown;
+
     /**
      * The version code (&gt;= 9), or 8 for the base layer or a non-versioned jar (whether JDK 7 or 8 compatible).
      */
@@ -100,18 +109,24 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
      *            The compressed size of the entry.
      * @param uncompressedSize
      *            The uncompressed size of the entry.
+     * @param crc
+     *            The CRC-32 of the uncompressed entry data.
+     * @param crcKnown
+     *            True if crc holds the CRC-32 of the uncompressed entry data, false if the CRC-32 is unknown.
      * @param nestedJarHandler
      *            The {@link NestedJarHandler}.
      */
     public FastZipEntry(final LogicalZipFile parentLogicalZipFile, final long locHeaderPos, final String entryName,
-            final boolean isDeflated, final long compressedSize, final long uncompressedSize,
-            final NestedJarHandler nestedJarHandler) {
+            final boolean isDeflated, final long compressedSize, final long uncompressedSize, final int crc,
+            final boolean crcKnown, final NestedJarHandler nestedJarHandler) {
         this.parentLogicalZipFile = parentLogicalZipFile;
         this.locHeaderPos = locHeaderPos;
         this.entryName = entryName;
         this.isDeflated = isDeflated;
         this.compressedSize = compressedSize;
         this.uncompressedSize = !isDeflated && uncompressedSize < 0 ? compressedSize : uncompressedSize;
+        this.crc = crc;
+        this.crcKnown = crcKnown;
         this.inflaterRecycler = nestedJarHandler.inflaterRecycler;
 
         // Get multi-release jar version number, and strip any version prefix
@@ -481,6 +496,8 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
                 if (!closed.getAndSet(true)) {
                     currChunkByteBuf = null;
                     if (recyclableInflaterInstance != null) {
+                        parentLogicalZipFile.physicalZipFile.nestedJarHandler.scanMetricsRecorder
+                                .addBytesInflated(inflater.getBytesWritten());
                         // Reset and recycle the Inflater
                         inflaterRecycler.recycle(recyclableInflaterInstance);
                         recyclableInflaterInstance = null;
@@ -35,6 +35,7 @@ import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -44,6 +45,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.github.classgraph.ClassGraphException;
 import nonapi.io.github.classgraph.recycler.RecycleOnClose;
@@ -59,6 +65,11 @@ public class LogicalZipFile extends ZipFileSlice implements AutoCloseable {
     /** The zipfile entries. */
     public List<FastZipEntry> entries;
 
+    /**
+     * The indices of the entries in {@link #entries}, sorted by unversioned entry name, or null if not yet built.
+     */
+    private int[] entryIndicesSortedByName;
+
     /** If true, this is a multi-release jar. */
     boolean isMultiReleaseJar;
 
@@ -94,6 +105,12 @@ public class LogicalZipFile extends ZipFileSlice implements AutoCloseable {
     /** {@code "META-INF/versions/"}. */
     public static final String MULTI_RELEASE_PATH_PREFIX = META_INF_PATH_PREFIX + "versions/";
 
+    /** The minimum number of entries in a central directory for the central directory to be read in parallel. */
+    private static final int MIN_ENTRIES_FOR_PARALLEL_CENTRAL_DIRECTORY_READ = 32768;
+
+    /** The number of central directory records parsed by each parallel task at a time. */
+    private static final int CENTRAL_DIRECTORY_CHUNK_SIZE = 4096;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -105,8 +122,10 @@ public class LogicalZipFile extends ZipFileSlice implements AutoCloseable {
      *            the log
      * @throws IOException
      *             If an I/O exception occurs.
+     * @throws InterruptedException
+     *             If the thread was interrupted.
      */
-    LogicalZipFile(final ZipFileSlice zipFileSlice, final LogNode log) throws IOException {
+    LogicalZipFile(final ZipFileSlice zipFileSlice, final LogNode log) throws IOException, InterruptedException {
         super(zipFileSlice);
         try (RecycleOnClose<ZipFileSliceReader, RuntimeException> zipFileSliceReaderRecycleOnClose = //
                 zipFileSliceReaderRecycler.acquireRecycleOnClose()) {
@@ -411,9 +430,11 @@ public class LogicalZipFile extends ZipFileSlice implements AutoCloseable {
      *            the log
      * @throws IOException
      *             If an I/O exception occurs.
+     * @throws InterruptedException
+     *             If the thread was interrupted.
      */
     private void readCentralDirectory(final ZipFileSliceReader zipFileSliceReader, final LogNode log)
-            throws IOException {
+            throws IOException, InterruptedException {
         // Scan for End Of Central Directory (EOCD) signature
         long eocdPos = -1;
         for (long i = len - 22; i >= 0; --i) {
@@ -528,145 +549,59 @@ public class LogicalZipFile extends ZipFileSlice implements AutoCloseable {
         }
 
         // Enumerate entries
-        entries = new ArrayList<>((int) numEnt);
-        FastZipEntry manifestZipEntry = null;
-        try {
-            int entSize = 0;
-            for (long entOff = 0; entOff + 46 <= cenSize; entOff += entSize) {
-                final int sig = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff)
-                        : zipFileSliceReader.getInt(cenPos + entOff);
-                if (sig != 0x02014b50) {
-                    throw new IOException("Invalid central directory signature: 0x" + Integer.toString(sig, 16)
-                            + ": " + getPath());
-                }
-                final int filenameLen = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, entOff + 28)
-                        : zipFileSliceReader.getShort(cenPos + entOff + 28);
-                final int extraFieldLen = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, entOff + 30)
-                        : zipFileSliceReader.getShort(cenPos + entOff + 30);
-                final int commentLen = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, entOff + 32)
-                        : zipFileSliceReader.getShort(cenPos + entOff + 32);
-                entSize = 46 + filenameLen + extraFieldLen + commentLen;
-
-                // Get and sanitize entry name
-                final long filenameStartOff = entOff + 46;
-                final long filenameEndOff = filenameStartOff + filenameLen;
-                if (filenameEndOff > cenSize) {
-                    if (log != null) {
-                        log.log("Filename extends past end of entry -- skipping entry at offset " + entOff);
-                    }
-                    break;
-                }
-                final String entryName = entryBytes != null
-                        ? ZipFileSliceReader.getString(entryBytes, filenameStartOff, filenameLen)
-                        : zipFileSliceReader.getString(cenPos + filenameStartOff, filenameLen);
-                final String entryNameSanitized = FileUtils.sanitizeEntryPath(entryName,
-                        /* removeInitialSlash = */ true);
-                if (entryNameSanitized.isEmpty() || entryName.endsWith("/")) {
-                    // Skip directory entries
-                    continue;
-                }
-
-                // Check entry flag bits
-                final int flags = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, entOff + 8)
-                        : zipFileSliceReader.getShort(cenPos + entOff + 8);
-                if ((flags & 1) != 0) {
-                    if (log != null) {
-                        log.log("Skipping encrypted zip entry: " + entryNameSanitized);
-                    }
-                    continue;
-                }
-
-                // Check compression method
-                final int compressionMethod = entryBytes != null
-                        ? ZipFileSliceReader.getShort(entryBytes, entOff + 10)
-                        : zipFileSliceReader.getShort(cenPos + entOff + 10);
-                if (compressionMethod != /* stored */ 0 && compressionMethod != /* deflated */ 8) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid compression method " + compressionMethod + ": "
-                                + entryNameSanitized);
+        final NestedJarHandler nestedJarHandler = physicalZipFile.nestedJarHandler;
+        if (entryBytes != null && numEnt >= MIN_ENTRIES_FOR_PARALLEL_CENTRAL_DIRECTORY_READ
+                && nestedJarHandler.executorService != null && nestedJarHandler.numParallelTasks > 1) {
+            // Central directory is large -- build the FastZipEntry objects in parallel
+            readCentralDirectoryEntriesInParallel(entryBytes, cenSize, locPos, (int) numEnt,
+                    nestedJarHandler.executorService, nestedJarHandler.numParallelTasks, log);
+        } else {
+            entries = new ArrayList<>((int) numEnt);
+            try {
+                int entSize = 0;
+                for (long entOff = 0; entOff + 46 <= cenSize; entOff += entSize) {
+                    final int sig = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff)
+                            : zipFileSliceReader.getInt(cenPos + entOff);
+                    if (sig != 0x02014b50) {
+                        throw new IOException("Invalid central directory signature: 0x" + Integer.toString(sig, 16)
+                                + ": " + getPath());
                     }
-                    continue;
-                }
-                final boolean isDeflated = compressionMethod == /* deflated */ 8;
-
-                // Get compressed and uncompressed size
-                long compressedSize = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 20)
-                        : zipFileSliceReader.getInt(cenPos + entOff + 20);
-                long uncompressedSize = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 24)
-                        : zipFileSliceReader.getInt(cenPos + entOff + 24);
-                long pos = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 42)
-                        : zipFileSliceReader.getInt(cenPos + entOff + 42);
-
-                // Check for Zip64 header in extra fields
-                if (extraFieldLen > 0) {
-                    for (int extraFieldOff = 0; extraFieldOff + 4 < extraFieldLen;) {
-                        final long tagOff = filenameEndOff + extraFieldOff;
-                        final int tag = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, tagOff)
-                                : zipFileSliceReader.getShort(cenPos + tagOff);
-                        final int size = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, tagOff + 2)
-                                : zipFileSliceReader.getShort(cenPos + tagOff + 2);
-                        if (extraFieldOff + 4 + size > extraFieldLen) {
-                            // Invalid size
-                            break;
-                        }
-                        if (tag == /* EXTID_ZIP64 */ 1 && size >= 24) {
-                            final long uncompressedSizeL = entryBytes != null
-                                    ? ZipFileSliceReader.getLong(entryBytes, tagOff + 4 + 0)
-                                    : zipFileSliceReader.getLong(cenPos + tagOff + 4 + 0);
-                            if (uncompressedSize == 0xffffffff) {
-                                uncompressedSize = uncompressedSizeL;
-                            }
-                            final long compressedSizeL = entryBytes != null
-                                    ? ZipFileSliceReader.getLong(entryBytes, tagOff + 4 + 8)
-                                    : zipFileSliceReader.getLong(cenPos + tagOff + 4 + 8);
-                            if (compressedSize == 0xffffffff) {
-                                compressedSize = compressedSizeL;
-                            }
-                            final long posL = entryBytes != null
-                                    ? ZipFileSliceReader.getLong(entryBytes, tagOff + 4 + 16)
-                                    : zipFileSliceReader.getLong(cenPos + tagOff + 4 + 16);
-                            if (pos == 0xffffffff) {
-                                pos = posL;
-                            }
-                            break;
+                    final int filenameLen = entryBytes != null
+                            ? ZipFileSliceReader.getShort(entryBytes, entOff + 28)
+                            : zipFileSliceReader.getShort(cenPos + entOff + 28);
+                    final int extraFieldLen = entryBytes != null
+                            ? ZipFileSliceReader.getShort(entryBytes, entOff + 30)
+                            : zipFileSliceReader.getShort(cenPos + entOff + 30);
+                    final int commentLen = entryBytes != null
+                            ? ZipFileSliceReader.getShort(entryBytes, entOff + 32)
+                            : zipFileSliceReader.getShort(cenPos + entOff + 32);
+                    entSize = 46 + filenameLen + extraFieldLen + commentLen;
+                    if (entOff + 46 + filenameLen > cenSize) {
+                        if (log != null) {
+                            log.log("Filename extends past end of entry -- skipping entry at offset " + entOff);
                         }
-                        extraFieldOff += 4 + size;
-                    }
-                }
-
-                if (compressedSize < 0 || pos < 0) {
-                    continue;
-                }
-
-                final long locHeaderPos = locPos + pos;
-                if (locHeaderPos < 0) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid loc header position: " + entryNameSanitized);
+                        break;
                     }
-                    continue;
-                }
-                if (locHeaderPos + 4 >= len) {
-                    if (log != null) {
-                        log.log("Unexpected EOF when trying to read LOC header: " + entryNameSanitized);
+                    final FastZipEntry entry = readCentralDirectoryEntry(zipFileSliceReader, entryBytes, cenPos,
+                            entOff, filenameLen, extraFieldLen, locPos, log);
+                    if (entry != null) {
+                        entries.add(entry);
                     }
-                    continue;
                 }
-
-                // Add zip entry
-                final FastZipEntry entry = new FastZipEntry(this, locHeaderPos, entryNameSanitized, isDeflated,
-                        compressedSize, uncompressedSize, physicalZipFile.nestedJarHandler);
-                entries.add(entry);
-
-                // Record manifest entry
-                if (entry.entryName.equals(MANIFEST_PATH)) {
-                    manifestZipEntry = entry;
+            } catch (EOFException | IndexOutOfBoundsException e) {
+                // Stop reading entries if any entry is not within file
+                if (log != null) {
+                    log.log("Reached premature EOF" + (entries.isEmpty() ? ""
+                            : " after reading zip entry " + entries.get(entries.size() - 1)));
                 }
             }
-        } catch (EOFException | IndexOutOfBoundsException e) {
-            // Stop reading entries if any entry is not within file
-            if (log != null) {
-                log.log("Reached premature EOF"
-                        + (entries.isEmpty() ? "" : " after reading zip entry " + entries.get(entries.size() - 1)));
+        }
+
+        // Find manifest entry
+        FastZipEntry manifestZipEntry = null;
+        for (final FastZipEntry entry : entries) {
+            if (entry.entryName.equals(MANIFEST_PATH)) {
+                manifestZipEntry = entry;
             }
         }
 
@@ -733,6 +668,339 @@ public class LogicalZipFile extends ZipFileSlice implements AutoCloseable {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Read a central directory entry, and create a {@link FastZipEntry} for it.
+     *
+     * @param zipFileSliceReader
+     *            the zipfile slice reader, used if entryBytes is null
+     * @param entryBytes
+     *            the central directory bytes, or null if the central directory is larger than 2GB
+     * @param cenPos
+     *            the position of the central directory
+     * @param entOff
+     *            the offset of the entry within the central directory
+     * @param filenameLen
+     *            the length of the entry's filename
+     * @param extraFieldLen
+     *            the length of the entry's extra fields
+     * @param locPos
+     *            the position of the first local file header
+     * @param log
+     *            the log
+     * @return the {@link FastZipEntry}, or null if the entry should be skipped
+     * @throws IOException
+     *             If an I/O exception occurs.
+     */
+    private FastZipEntry readCentralDirectoryEntry(final ZipFileSliceReader zipFileSliceReader,
+            final byte[] entryBytes, final long cenPos, final long entOff, final int filenameLen,
+            final int extraFieldLen, final long locPos, final LogNode log) throws IOException {
+        // Get and sanitize entry name
+        final long filenameStartOff = entOff + 46;
+        final long filenameEndOff = filenameStartOff + filenameLen;
+        final String entryName = entryBytes != null
+                ? ZipFileSliceReader.getString(entryBytes, filenameStartOff, filenameLen)
+                : zipFileSliceReader.getString(cenPos + filenameStartOff, filenameLen);
+        final String entryNameSanitized = FileUtils.sanitizeEntryPath(entryName, /* removeInitialSlash = */ true);
+        if (entryNameSanitized.isEmpty() || entryName.endsWith("/")) {
+            // Skip directory entries
+            return null;
+        }
+
+        // Check entry flag bits
+        final int flags = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, entOff + 8)
+                : zipFileSliceReader.getShort(cenPos + entOff + 8);
+        if ((flags & 1) != 0) {
+            if (log != null) {
+                log.log("Skipping encrypted zip entry: " + entryNameSanitized);
+            }
+            return null;
+        }
+
+        // Check compression method
+        final int compressionMethod = entryBytes != null
+                ? ZipFileSliceReader.getShort(entryBytes, entOff + 10)
+                : zipFileSliceReader.getShort(cenPos + entOff + 10);
+        if (compressionMethod != /* stored */ 0 && compressionMethod != /* deflated */ 8) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid compression method " + compressionMethod + ": "
+                        + entryNameSanitized);
+            }
+            return null;
+        }
+        final boolean isDeflated = compressionMethod == /* deflated */ 8;
+
+        // Get CRC-32, and compressed and uncompressed size
+        final int crc = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 16)
+                : zipFileSliceReader.getInt(cenPos + entOff + 16);
+        long compressedSize = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 20)
+                : zipFileSliceReader.getInt(cenPos + entOff + 20);
+        long uncompressedSize = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 24)
+                : zipFileSliceReader.getInt(cenPos + entOff + 24);
+        long pos = entryBytes != null ? ZipFileSliceReader.getInt(entryBytes, entOff + 42)
+                : zipFileSliceReader.getInt(cenPos + entOff + 42);
+
+        // Check for Zip64 header in extra fields
+        if (extraFieldLen > 0) {
+            for (int extraFieldOff = 0; extraFieldOff + 4 < extraFieldLen;) {
+                final long tagOff = filenameEndOff + extraFieldOff;
+                final int tag = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, tagOff)
+                        : zipFileSliceReader.getShort(cenPos + tagOff);
+                final int size = entryBytes != null ? ZipFileSliceReader.getShort(entryBytes, tagOff + 2)
+                        : zipFileSliceReader.getShort(cenPos + tagOff + 2);
+                if (extraFieldOff + 4 + size > extraFieldLen) {
+                    // Invalid size
+                    break;
+                }
+                if (tag == /* EXTID_ZIP64 */ 1 && size >= 24) {
+                    final long uncompressedSizeL = entryBytes != null
+                            ? ZipFileSliceReader.getLong(entryBytes, tagOff + 4 + 0)
+                            : zipFileSliceReader.getLong(cenPos + tagOff + 4 + 0);
+                    if (uncompressedSize == 0xffffffff) {
+                        uncompressedSize = uncompressedSizeL;
+                    }
+                    final long compressedSizeL = entryBytes != null
+                            ? ZipFileSliceReader.getLong(entryBytes, tagOff + 4 + 8)
+                            : zipFileSliceReader.getLong(cenPos + tagOff + 4 + 8);
+                    if (compressedSize == 0xffffffff) {
+                        compressedSize = compressedSizeL;
+                    }
+                    final long posL = entryBytes != null
+                            ? ZipFileSliceReader.getLong(entryBytes, tagOff + 4 + 16)
+                            : zipFileSliceReader.getLong(cenPos + tagOff + 4 + 16);
+                    if (pos == 0xffffffff) {
+                        pos = posL;
+                    }
+                    break;
+                }
+                extraFieldOff += 4 + size;
+            }
+        }
+
+        if (compressedSize < 0 || pos < 0) {
+            return null;
+        }
+
+        final long locHeaderPos = locPos + pos;
+        if (locHeaderPos < 0) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid loc header position: " + entryNameSanitized);
+            }
+            return null;
+        }
+        if (locHeaderPos + 4 >= len) {
+            if (log != null) {
+                log.log("Unexpected EOF when trying to read LOC header: " + entryNameSanitized);
+            }
+            return null;
+        }
+
+        // Create zip entry (the central directory always records the CRC-32, even when the LOC header defers it
+        // to a data descriptor)
+        return new FastZipEntry(this, locHeaderPos, entryNameSanitized, isDeflated, compressedSize,
+                uncompressedSize, crc, /* crcKnown = */ true, physicalZipFile.nestedJarHandler);
+    }
+
+    /**
+     * Build the {@link FastZipEntry} objects for a large central directory in parallel. One sequential pass finds
+     * the offset of each central directory record (which only requires reading three length fields per record),
+     * then the records are split into chunks, and the chunks are parsed in parallel on the scan's
+     * {@link ExecutorService}. The calling thread also parses chunks, so that the read completes even if no worker
+     * threads are free (e.g. when called from a task that is itself running on the executor).
+     *
+     * @param entryBytes
+     *            the central directory bytes
+     * @param cenSize
+     *            the size of the central directory
+     * @param locPos
+     *            the position of the first local file header
+     * @param numEnt
+     *            the number of entries listed in the end of central directory record
+     * @param executorService
+     *            the executor service
+     * @param numParallelTasks
+     *            the number of parallel tasks
+     * @param log
+     *            the log
+     * @throws IOException
+     *             If an I/O exception occurs.
+     * @throws InterruptedException
+     *             If the thread was interrupted.
+     */
+    private void readCentralDirectoryEntriesInParallel(final byte[] entryBytes, final long cenSize,
+            final long locPos, final int numEnt, final ExecutorService executorService, final int numParallelTasks,
+            final LogNode log) throws IOException, InterruptedException {
+        // Find the offset of each central directory record
+        long[] recordOffsets = new long[numEnt];
+        int[] filenameLens = new int[numEnt];
+        int[] extraFieldLens = new int[numEnt];
+        int numRecords = 0;
+        boolean prematureEOF = false;
+        try {
+            int entSize = 0;
+            for (long entOff = 0; entOff + 46 <= cenSize; entOff += entSize) {
+                final int sig = ZipFileSliceReader.getInt(entryBytes, entOff);
+                if (sig != 0x02014b50) {
+                    throw new IOException("Invalid central directory signature: 0x" + Integer.toString(sig, 16)
+                            + ": " + getPath());
+                }
+                final int filenameLen = ZipFileSliceReader.getShort(entryBytes, entOff + 28);
+                final int extraFieldLen = ZipFileSliceReader.getShort(entryBytes, entOff + 30);
+                final int commentLen = ZipFileSliceReader.getShort(entryBytes, entOff + 32);
+                entSize = 46 + filenameLen + extraFieldLen + commentLen;
+                if (entOff + 46 + filenameLen > cenSize) {
+                    if (log != null) {
+                        log.log("Filename extends past end of entry -- skipping entry at offset " + entOff);
+                    }
+                    break;
+                }
+                if (numRecords == recordOffsets.length) {
+                    // The number of entries in the end of central directory record was wrong
+                    final int newLength = (int) Math.min(FileUtils.MAX_BUFFER_SIZE, numRecords * 2L + 1);
+                    recordOffsets = Arrays.copyOf(recordOffsets, newLength);
+                    filenameLens = Arrays.copyOf(filenameLens, newLength);
+                    extraFieldLens = Arrays.copyOf(extraFieldLens, newLength);
+                }
+                recordOffsets[numRecords] = entOff;
+                filenameLens[numRecords] = filenameLen;
+                extraFieldLens[numRecords] = extraFieldLen;
+                numRecords++;
+            }
+        } catch (final IndexOutOfBoundsException e) {
+            prematureEOF = true;
+        }
+
+        // Parse chunks of records in parallel. Chunks are claimed dynamically, and parsing stops at the first
+        // record that is not within the file, as with the sequential reader.
+        final FastZipEntry[] parsedEntries = new FastZipEntry[numRecords];
+        final int numChunks = (numRecords + CENTRAL_DIRECTORY_CHUNK_SIZE - 1) / CENTRAL_DIRECTORY_CHUNK_SIZE;
+        final AtomicInteger nextChunkIdx = new AtomicInteger();
+        final AtomicInteger firstFailedRecordIdx = new AtomicInteger(numRecords);
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        final CountDownLatch chunksCompleted = new CountDownLatch(numChunks);
+        final long[] finalRecordOffsets = recordOffsets;
+        final int[] finalFilenameLens = filenameLens;
+        final int[] finalExtraFieldLens = extraFieldLens;
+        final int finalNumRecords = numRecords;
+        final Runnable chunkParser = new Runnable() {
+            @Override
+            public void run() {
+                for (int chunkIdx; (chunkIdx = nextChunkIdx.getAndIncrement()) < numChunks;) {
+                    try {
+                        final int chunkEnd = Math.min(finalNumRecords,
+                                (chunkIdx + 1) * CENTRAL_DIRECTORY_CHUNK_SIZE);
+                        for (int i = chunkIdx * CENTRAL_DIRECTORY_CHUNK_SIZE; i < chunkEnd
+                                && i < firstFailedRecordIdx.get(); i++) {
+                            try {
+                                parsedEntries[i] = readCentralDirectoryEntry(/* zipFileSliceReader = */ null,
+                                        entryBytes, /* cenPos = */ 0L, finalRecordOffsets[i],
+                                        finalFilenameLens[i], finalExtraFieldLens[i], locPos, log);
+                            } catch (final IndexOutOfBoundsException e) {
+                                // Record the lowest index of any record that is not within the file
+                                for (int prev; i < (prev = firstFailedRecordIdx.get());) {
+                                    if (firstFailedRecordIdx.compareAndSet(prev, i)) {
+                                        break;
+                                    }
+                                }
+                                break;
+                            }
+                        }
+                    } catch (final IOException | RuntimeException e) {
+                        thrown.compareAndSet(null, e);
+                    } finally {
+                        chunksCompleted.countDown();
+                    }
+                }
+            }
+        };
+        for (int i = 1; i < numParallelTasks && i < numChunks; i++) {
+            try {
+                executorService.execute(chunkParser);
+            } catch (final RejectedExecutionException e) {
+                // Executor is shutting down or saturated -- the calling thread will parse the remaining chunks
+                break;
+            }
+        }
+        chunkParser.run();
+        chunksCompleted.await();
+        final Throwable t = thrown.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw (RuntimeException) t;
+        }
+
+        // Collect entries in central directory order
+        final int numValidRecords = firstFailedRecordIdx.get();
+        entries = new ArrayList<>(numValidRecords);
+        for (int i = 0; i < numValidRecords; i++) {
+            if (parsedEntries[i] != null) {
+                entries.add(parsedEntries[i]);
+            }
+        }
+        if ((prematureEOF || numValidRecords < numRecords) && log != null) {
+            log.log("Reached premature EOF"
+                    + (entries.isEmpty() ? "" : " after reading zip entry " + entries.get(entries.size() - 1)));
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the indices of the entries in {@link #entries}, sorted by unversioned entry name, so that the entries
+     * with a given path prefix can be found by binary search rather than by iterating through all entries. Entries
+     * with the same unversioned name are kept in their original order. The index is built on first use.
+     *
+     * @return the entry indices, sorted by unversioned entry name
+     */
+    public synchronized int[] getEntryIndicesSortedByName() {
+        if (entryIndicesSortedByName == null) {
+            final Integer[] sortedIndices = new Integer[entries.size()];
+            for (int i = 0; i < sortedIndices.length; i++) {
+                sortedIndices[i] = i;
+            }
+            // Arrays.sort is stable for objects, and is fast when entries are already mostly sorted
+            Arrays.sort(sortedIndices, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer i0, final Integer i1) {
+                    return entries.get(i0).entryNameUnversioned.compareTo(entries.get(i1).entryNameUnversioned);
+                }
+            });
+            final int[] indices = new int[sortedIndices.length];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = sortedIndices[i];
+            }
+            entryIndicesSortedByName = indices;
+        }
+        return entryIndicesSortedByName;
+    }
+
+    /**
+     * Find the first entry whose unversioned name starts with a given prefix. Entries with the prefix occupy a
+     * contiguous range of {@link #getEntryIndicesSortedByName()} starting at the returned position, ending at the
+     * first entry whose unversioned name does not start with the prefix.
+     *
+     * @param prefix
+     *            the prefix
+     * @return the position within {@link #getEntryIndicesSortedByName()} of the first entry whose unversioned
+     *         name is greater than or equal to the prefix (this may be equal to the number of entries).
+     */
+    public int findFirstEntryWithPrefix(final String prefix) {
+        final int[] sortedIndices = getEntryIndicesSortedByName();
+        int lo = 0;
+        int hi = sortedIndices.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (entries.get(sortedIndices[mid]).entryNameUnversioned.compareTo(prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /* (non-Javadoc)
      * @see nonapi.io.github.classgraph.fastzipfilereader.ZipFileSlice#equals(java.lang.Object)
      */
@@ -29,23 +29,31 @@
 package nonapi.io.github.classgraph.fastzipfilereader;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.Inflater;
 
 import io.github.classgraph.ClassGraphException;
+import io.github.classgraph.ScanMetrics.Phase;
 import io.github.classgraph.ModuleReaderProxy;
 import io.github.classgraph.ModuleRef;
 import io.github.classgraph.ScanResult;
@@ -55,12 +63,22 @@ import nonapi.io.github.classgraph.recycler.Recycler;
 import nonapi.io.github.classgraph.utils.FastPathResolver;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.ScanMetricsRecorder;
 
 /** Open and read jarfiles, which may be nested within other jarfiles. */
 public class NestedJarHandler {
     /** The {@link ScanSpec}. */
     private final ScanSpec scanSpec;
 
+    /** The {@link ExecutorService} for the scan, or null if not available. */
+    final ExecutorService executorService;
+
+    /** The number of parallel tasks to use when reading large central directories. */
+    final int numParallelTasks;
+
+    /** The recorder for scan metrics. */
+    public final ScanMetricsRecorder scanMetricsRecorder;
+
     /**
      * A singleton map from a zipfile's {@link File} to the {@link PhysicalZipFile} for that file, used to ensure
      * that the {@link RandomAccessFile} and {@link FileChannel} for any given zipfile is opened only once.
@@ -97,79 +115,112 @@ public class NestedJarHandler {
                 childZipEntrySlice = new ZipFileSlice(childZipEntry);
 
             } else {
-                // If child entry is deflated i.e. (for a deflated nested zipfile), must inflate
-                // the contents of the entry before its central directory can be read (most of
-                // the time nested zipfiles are stored, not deflated, so this should be rare)
-                if ((childZipEntry.uncompressedSize < 0L
-                        || childZipEntry.uncompressedSize >= INFLATE_TO_DISK_THRESHOLD
-                // Also check compressed size for safety, in case uncompressed size is wrong
-                        || childZipEntry.compressedSize >= INFLATE_TO_DISK_THRESHOLD)) {
-                    // If child entry's size is unknown or the file is large, inflate to disk
-                    File tempFile = null;
-                    try {
-                        // Create temp file
-                        tempFile = makeTempFile(childZipEntry.entryName, /* onlyUseLeafname = */ true);
-
-                        // Inflate zip entry to temp file
-                        if (log != null) {
-                            log.log("Deflating zip entry to temporary file: " + childZipEntry
-                                    + " ; uncompressed size: " + childZipEntry.uncompressedSize + " ; temp file: "
-                                    + tempFile);
+                final long startTimeNanos = System.nanoTime();
+                final long startCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
+                long reservedBytes = 0L;
+                try {
+                    if (scanSpec.nestedJarExtractionCacheDir != null) {
+                        // Map the nested jar from the extraction cache, extracting it to the cache if needed
+                        final ZipFileSlice cachedZipEntrySlice = getCachedNestedJar(childZipEntry, log);
+                        if (cachedZipEntrySlice != null) {
+                            return cachedZipEntrySlice;
                         }
-                        try (InputStream inputStream = childZipEntry.open()) {
-                            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+
+                    // If child entry is deflated i.e. (for a deflated nested zipfile), must inflate
+                    // the contents of the entry before its central directory can be read (most of
+                    // the time nested zipfiles are stored, not deflated, so this should be rare)
+                    boolean inflateToDisk = childZipEntry.uncompressedSize < 0L
+                            || childZipEntry.uncompressedSize >= INFLATE_TO_DISK_THRESHOLD
+                            // Also check compressed size for safety, in case uncompressed size is wrong
+                            || childZipEntry.compressedSize >= INFLATE_TO_DISK_THRESHOLD;
+                    if (!inflateToDisk && scanSpec.maxNestedJarMemoryBytes >= 0L) {
+                        // If there is a nested jar memory budget, inflate to disk if the entry won't fit in RAM
+                        if (reserveNestedJarMemory(childZipEntry.uncompressedSize, log)) {
+                            reservedBytes = childZipEntry.uncompressedSize;
+                        } else {
+                            inflateToDisk = true;
                         }
+                    }
+                    if (inflateToDisk) {
+                        // If child entry's size is unknown or the file is large, inflate to disk
+                        File tempFile = null;
+                        try {
+                            // Create temp file
+                            tempFile = makeTempFile(childZipEntry.entryName, /* onlyUseLeafname = */ true);
+
+                            // Inflate zip entry to temp file
+                            if (log != null) {
+                                log.log("Deflating zip entry to temporary file: " + childZipEntry
+                                        + " ; uncompressed size: " + childZipEntry.uncompressedSize + " ; temp file: "
+                                        + tempFile);
+                            }
+                            try (InputStream inputStream = childZipEntry.open()) {
+                                Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                            }
 
-                        // Get or create a PhysicalZipFile instance for the new temp file
-                        final PhysicalZipFile physicalZipFile = canonicalFileToPhysicalZipFileMap.get(tempFile,
-                                log);
-                        additionalAllocatedPhysicalZipFiles.add(physicalZipFile);
+                            // Get or create a PhysicalZipFile instance for the new temp file
+                            final PhysicalZipFile physicalZipFile = canonicalFileToPhysicalZipFileMap.get(tempFile,
+                                    log);
+                            additionalAllocatedPhysicalZipFiles.add(physicalZipFile);
 
-                        // Create a new logical slice of the whole physical zipfile
-                        childZipEntrySlice = new ZipFileSlice(physicalZipFile);
-
-                    } catch (final IllegalArgumentException | IOException e) {
-                        // Could not make temp file, or failed to extract entire contents of entry
-                        if (tempFile != null) {
-                            // Delete temp file, in case it contains partially-extracted data
-                            // due to running out of disk space
-                            tempFile.delete();
+                            // Create a new logical slice of the whole physical zipfile
+                            childZipEntrySlice = new ZipFileSlice(physicalZipFile);
+
+                        } catch (final IllegalArgumentException | IOException e) {
+                            // Could not make temp file, or failed to extract entire contents of entry
+                            if (tempFile != null) {
+                                // Delete temp file, in case it contains partially-extracted data
+                                // due to running out of disk space
+                                tempFile.delete();
+                            }
+                            childZipEntrySlice = null;
                         }
+                    } else {
                         childZipEntrySlice = null;
                     }
-                } else {
-                    childZipEntrySlice = null;
-                }
-                if (childZipEntrySlice == null) {
-                    // If the uncompressed size known and small, or inflating to temp file failed,
-                    // inflate to a ByteBuffer in memory instead
-                    if (childZipEntry.uncompressedSize > FileUtils.MAX_BUFFER_SIZE) {
-                        // Impose 2GB limit (i.e. a max of one ByteBuffer chunk) on inflation to memory
-                        throw new IOException("Uncompressed size of zip entry (" + childZipEntry.uncompressedSize
-                                + ") is too large to inflate to memory: " + childZipEntry.entryName);
-                    }
+                    if (childZipEntrySlice == null) {
+                        // If the uncompressed size known and small, or inflating to temp file failed,
+                        // inflate to a ByteBuffer in memory instead
+                        if (childZipEntry.uncompressedSize > FileUtils.MAX_BUFFER_SIZE) {
+                            // Impose 2GB limit (i.e. a max of one ByteBuffer chunk) on inflation to memory
+                            throw new IOException("Uncompressed size of zip entry (" + childZipEntry.uncompressedSize
+                                    + ") is too large to inflate to memory: " + childZipEntry.entryName);
+                        }
 
-                    // Open the zip entry to fetch inflated data, and read the whole contents of the
-                    // InputStream to a byte[] array, then wrap it in a ByteBuffer
-                    if (log != null) {
-                        log.log("Deflating zip entry to RAM: " + childZipEntry + " ; uncompressed size: "
-                                + childZipEntry.uncompressedSize);
-                    }
-                    ByteBuffer byteBuffer;
-                    try (InputStream inputStream = childZipEntry.open()) {
-                        byteBuffer = ByteBuffer
-                                .wrap(FileUtils.readAllBytesAsArray(inputStream, childZipEntry.uncompressedSize));
-                    }
+                        // Open the zip entry to fetch inflated data, and read the whole contents of the
+                        // InputStream to a byte[] array, then wrap it in a ByteBuffer
+                        if (log != null) {
+                            log.log("Deflating zip entry to RAM: " + childZipEntry + " ; uncompressed size: "
+                                    + childZipEntry.uncompressedSize);
+                        }
+                        ByteBuffer byteBuffer;
+                        try (InputStream inputStream = childZipEntry.open()) {
+                            byteBuffer = ByteBuffer
+                                    .wrap(FileUtils.readAllBytesAsArray(inputStream, childZipEntry.uncompressedSize));
+                        }
 
-                    // Create a new PhysicalZipFile that wraps the ByteBuffer as if the buffer had been
-                    // mmap'd to a file on disk
-                    final PhysicalZipFile physicalZipFileInRam = new PhysicalZipFile(byteBuffer,
-                            /* outermostFile = */ childZipEntry.parentLogicalZipFile.physicalZipFile.getFile(),
-                            childZipEntry.getPath(), NestedJarHandler.this);
-                    additionalAllocatedPhysicalZipFiles.add(physicalZipFileInRam);
+                        // Create a new PhysicalZipFile that wraps the ByteBuffer as if the buffer had been
+                        // mmap'd to a file on disk
+                        final PhysicalZipFile physicalZipFileInRam = new PhysicalZipFile(byteBuffer,
+                                /* outermostFile = */ childZipEntry.parentLogicalZipFile.physicalZipFile.getFile(),
+                                childZipEntry.getPath(), NestedJarHandler.this);
+                        additionalAllocatedPhysicalZipFiles.add(physicalZipFileInRam);
+                        if (scanSpec.maxNestedJarMemoryBytes >= 0L) {
+                            // Make the in-memory zipfile a candidate for spilling to disk
+                            addRamBackedPhysicalZipFile(physicalZipFileInRam, reservedBytes);
+                            reservedBytes = 0L;
+                        }
 
-                    // Create a new logical slice of the whole physical in-memory zipfile
-                    childZipEntrySlice = new ZipFileSlice(physicalZipFileInRam, childZipEntry);
+                        // Create a new logical slice of the whole physical in-memory zipfile
+                        childZipEntrySlice = new ZipFileSlice(physicalZipFileInRam, childZipEntry);
+                    }
+                } finally {
+                    if (reservedBytes != 0L) {
+                        // Inflating the entry to RAM failed -- release the reservation
+                        releaseReservedNestedJarMemory(reservedBytes);
+                    }
+                    scanMetricsRecorder.endPhase(Phase.NESTED_JAR_EXTRACTION, startTimeNanos, startCpuTimeNanos);
                 }
             }
             return childZipEntrySlice;
@@ -180,7 +231,8 @@ public class NestedJarHandler {
     private SingletonMap<ZipFileSlice, LogicalZipFile, IOException> //
     zipFileSliceToLogicalZipFileMap = new SingletonMap<ZipFileSlice, LogicalZipFile, IOException>() {
         @Override
-        public LogicalZipFile newInstance(final ZipFileSlice zipFileSlice, final LogNode log) throws IOException {
+        public LogicalZipFile newInstance(final ZipFileSlice zipFileSlice, final LogNode log)
+                throws IOException, InterruptedException {
             if (closed.get()) {
                 throw new ClassGraphException(NestedJarHandler.class.getSimpleName() + " already closed");
             }
@@ -401,9 +453,34 @@ public class NestedJarHandler {
      */
     private static final int INFLATE_TO_DISK_THRESHOLD = 32 * 1024 * 1024;
 
+    /** The prefix of the name of a partially-written file in the nested jar extraction cache directory. */
+    private static final String PARTIAL_CACHE_FILE_PREFIX = "ClassGraph--";
+
+    /** The suffix of the name of a partially-written file in the nested jar extraction cache directory. */
+    private static final String PARTIAL_CACHE_FILE_SUFFIX = ".partial";
+
+    /**
+     * The minimum age of a partially-written file in the nested jar extraction cache directory before it is
+     * considered to have been left behind by a scan that died, rather than still being written by a concurrent
+     * scan.
+     */
+    private static final long STALE_PARTIAL_CACHE_FILE_AGE_MILLIS = 60L * 60L * 1000L;
+
+    /**
+     * Nested jarfiles that have been inflated to RAM and not yet spilled to disk, if a nested jar memory budget is
+     * set. Also used as the lock for {@link #nestedJarMemoryBytesUsed}.
+     */
+    private final List<PhysicalZipFile> ramBackedPhysicalZipFiles = new ArrayList<>();
+
+    /** The total number of bytes of nested jarfiles currently inflated to RAM, if a memory budget is set. */
+    private long nestedJarMemoryBytesUsed;
+
     /** True if {@link #close(LogNode)} has been called. */
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
+    /** True once stale partial files have been removed from the nested jar extraction cache directory. */
+    private final AtomicBoolean removedStalePartialCacheFiles = new AtomicBoolean(false);
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -413,7 +490,54 @@ public class NestedJarHandler {
      *            The {@link ScanSpec}.
      */
     public NestedJarHandler(final ScanSpec scanSpec) {
+        this(scanSpec, /* executorService = */ null, /* numParallelTasks = */ 1, new ScanMetricsRecorder());
+    }
+
+    /**
+     * A handler for nested jars.
+     * 
+     * @param scanSpec
+     *            The {@link ScanSpec}.
+     * @param executorService
+     *            The {@link ExecutorService} used to read the central directories of large jars in parallel, or
+     *            null to read all central directories on the calling thread.
+     * @param numParallelTasks
+     *            The number of parallel tasks.
+     * @param scanMetricsRecorder
+     *            The recorder for scan metrics.
+     */
+    public NestedJarHandler(final ScanSpec scanSpec, final ExecutorService executorService,
+            final int numParallelTasks, final ScanMetricsRecorder scanMetricsRecorder) {
         this.scanSpec = scanSpec;
+        this.executorService = executorService;
+        this.numParallelTasks = numParallelTasks;
+        this.scanMetricsRecorder = scanMetricsRecorder;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the number of hits in the singleton maps of this {@link NestedJarHandler}.
+     *
+     * @return the number of hits
+     */
+    public long getNumSingletonMapHits() {
+        return canonicalFileToPhysicalZipFileMap.getNumHits() + fastZipEntryToZipFileSliceMap.getNumHits()
+                + zipFileSliceToLogicalZipFileMap.getNumHits()
+                + nestedPathToLogicalZipFileAndPackageRootMap.getNumHits()
+                + moduleRefToModuleReaderProxyRecyclerMap.getNumHits();
+    }
+
+    /**
+     * Get the number of misses in the singleton maps of this {@link NestedJarHandler}.
+     *
+     * @return the number of misses
+     */
+    public long getNumSingletonMapMisses() {
+        return canonicalFileToPhysicalZipFileMap.getNumMisses() + fastZipEntryToZipFileSliceMap.getNumMisses()
+                + zipFileSliceToLogicalZipFileMap.getNumMisses()
+                + nestedPathToLogicalZipFileAndPackageRootMap.getNumMisses()
+                + moduleRefToModuleReaderProxyRecyclerMap.getNumMisses();
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -457,9 +581,166 @@ public class NestedJarHandler {
                 TEMP_FILENAME_LEAF_SEPARATOR + sanitizeFilename(onlyUseLeafname ? leafname(filePath) : filePath));
         tempFile.deleteOnExit();
         tempFiles.add(tempFile);
+        scanMetricsRecorder.incrementTempFilesWritten();
         return tempFile;
     }
 
+    /**
+     * Compute the CRC-32 of the contents of a file.
+     *
+     * @param file
+     *            the file
+     * @return the CRC-32 of the file
+     * @throws IOException
+     *             if the file could not be read
+     */
+    private static int crc32(final File file) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            final byte[] buf = new byte[65536];
+            for (int bytesRead; (bytesRead = inputStream.read(buf)) > 0;) {
+                crc32.update(buf, 0, bytesRead);
+            }
+        }
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Check whether a file in the nested jar extraction cache holds the uncompressed contents of a zip entry, by
+     * checking its size against the uncompressed size of the zip entry, and its CRC-32 against the CRC-32 of the
+     * zip entry, unless the CRC-32 of the zip entry is unknown.
+     *
+     * @param cacheFile
+     *            the cache file
+     * @param childZipEntry
+     *            the zip entry
+     * @return true if the cache file is valid
+     * @throws IOException
+     *             if the cache file could not be read
+     */
+    private static boolean isValidCacheFile(final File cacheFile, final FastZipEntry childZipEntry)
+            throws IOException {
+        return cacheFile.isFile()
+                && (childZipEntry.uncompressedSize < 0L || cacheFile.length() == childZipEntry.uncompressedSize)
+                && (!childZipEntry.crcKnown || crc32(cacheFile) == childZipEntry.crc);
+    }
+
+    /**
+     * Delete partially-written files left behind in the nested jar extraction cache directory by scans that were
+     * killed while extracting a nested jar. Partial files are only deleted once they are
+     * {@link #STALE_PARTIAL_CACHE_FILE_AGE_MILLIS} old, since a concurrent scan (possibly in another process) may
+     * still be writing to a newer partial file.
+     *
+     * @param cacheDir
+     *            the nested jar extraction cache directory
+     * @param log
+     *            the log
+     */
+    private static void removeStalePartialCacheFiles(final File cacheDir, final LogNode log) {
+        final File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long staleBefore = System.currentTimeMillis() - STALE_PARTIAL_CACHE_FILE_AGE_MILLIS;
+        for (final File file : files) {
+            final String name = file.getName();
+            if (name.startsWith(PARTIAL_CACHE_FILE_PREFIX) && name.endsWith(PARTIAL_CACHE_FILE_SUFFIX)
+                    && file.isFile() && file.lastModified() < staleBefore && file.delete() && log != null) {
+                log.log("Removed stale partial file from nested jar extraction cache: " + file);
+            }
+        }
+    }
+
+    /**
+     * Get a deflated nested jar from the nested jar extraction cache, extracting it to the cache if it is not
+     * already there, or if the cache file does not match the size and CRC-32 of the zip entry. Cache files are
+     * written to a temporary file in the cache directory, checked against the CRC-32 of the zip entry, then
+     * renamed, so that concurrent scans never see a partially-written or corrupt cache file.
+     *
+     * @param childZipEntry
+     *            the zip entry of the deflated nested jar
+     * @param log
+     *            the log
+     * @return a {@link ZipFileSlice} for the whole cache file, or null if the nested jar could not be read from or
+     *         written to the cache.
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     */
+    private ZipFileSlice getCachedNestedJar(final FastZipEntry childZipEntry, final LogNode log)
+            throws InterruptedException {
+        final File cacheDir = scanSpec.nestedJarExtractionCacheDir;
+        // Key the cache file by the file containing the nested jar (which for more deeply nested jars is itself
+        // a cache file, or the outermost jar if the parent was inflated to RAM), and by the zip entry
+        final File parentFile = childZipEntry.parentLogicalZipFile.physicalZipFile.getFile();
+        final String cacheKey = parentFile.getPath() + '\n' + parentFile.length() + '\n' + parentFile.lastModified()
+                + '\n' + childZipEntry.getPath() + '\n' + childZipEntry.locHeaderPos + '\n'
+                + childZipEntry.compressedSize + '\n' + childZipEntry.uncompressedSize + '\n' + childZipEntry.crc;
+        final File cacheFile = new File(cacheDir, "ClassGraph-" + FileUtils.sha256(cacheKey)
+                + TEMP_FILENAME_LEAF_SEPARATOR + sanitizeFilename(leafname(childZipEntry.entryName)));
+        try {
+            if (isValidCacheFile(cacheFile, childZipEntry)) {
+                if (log != null) {
+                    log.log("Using cached extracted nested jar: " + childZipEntry + " ; cache file: " + cacheFile);
+                }
+            } else {
+                if (cacheFile.exists()) {
+                    // Remove a stale or corrupt cache file before extracting the zip entry again
+                    if (log != null) {
+                        log.log("Cached extracted nested jar does not match zip entry, extracting again: "
+                                + cacheFile);
+                    }
+                    Files.delete(cacheFile.toPath());
+                }
+                if (!cacheDir.isDirectory() && !cacheDir.mkdirs() && !cacheDir.isDirectory()) {
+                    throw new IOException("Could not create nested jar extraction cache directory " + cacheDir);
+                }
+                if (log != null) {
+                    log.log("Deflating zip entry to nested jar extraction cache: " + childZipEntry
+                            + " ; uncompressed size: " + childZipEntry.uncompressedSize + " ; cache file: "
+                            + cacheFile);
+                }
+                if (removedStalePartialCacheFiles.compareAndSet(false, true)) {
+                    removeStalePartialCacheFiles(cacheDir, log);
+                }
+                final File partialFile = File.createTempFile(PARTIAL_CACHE_FILE_PREFIX, PARTIAL_CACHE_FILE_SUFFIX,
+                        cacheDir);
+                try {
+                    try (CheckedInputStream inputStream = new CheckedInputStream(childZipEntry.open(),
+                            new CRC32())) {
+                        Files.copy(inputStream, partialFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        if (childZipEntry.crcKnown
+                                && (int) inputStream.getChecksum().getValue() != childZipEntry.crc) {
+                            throw new IOException("CRC-32 mismatch when extracting zip entry");
+                        }
+                    }
+                    try {
+                        Files.move(partialFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    } catch (final AtomicMoveNotSupportedException e) {
+                        Files.move(partialFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    // Delete the partial file if extraction or renaming failed
+                    partialFile.delete();
+                }
+                scanMetricsRecorder.incrementTempFilesWritten();
+            }
+
+            // Get or create a PhysicalZipFile instance for the cache file
+            final PhysicalZipFile physicalZipFile = canonicalFileToPhysicalZipFileMap
+                    .get(cacheFile.getCanonicalFile(), log);
+            additionalAllocatedPhysicalZipFiles.add(physicalZipFile);
+
+            // Create a new logical slice of the whole physical zipfile
+            return new ZipFileSlice(physicalZipFile);
+
+        } catch (final IllegalArgumentException | IOException | SecurityException e) {
+            if (log != null) {
+                log.log("Could not use nested jar extraction cache for " + childZipEntry + " : " + e);
+            }
+            return null;
+        }
+    }
+
     /**
      * Download a jar from a URL to a temporary file.
      *
@@ -471,6 +752,8 @@ public class NestedJarHandler {
      */
     private File downloadTempFile(final String jarURL, final LogNode log) {
         final LogNode subLog = log == null ? null : log.log(jarURL, "Downloading URL " + jarURL);
+        final long startTimeNanos = System.nanoTime();
+        final long startCpuTimeNanos = ScanMetricsRecorder.getCurrentThreadCpuTimeNanos();
         File tempFile;
         try {
             tempFile = makeTempFile(jarURL, /* onlyUseLeafname = */ true);
@@ -486,6 +769,8 @@ public class NestedJarHandler {
                 subLog.log("Could not download " + jarURL, e);
             }
             return null;
+        } finally {
+            scanMetricsRecorder.endPhase(Phase.NESTED_JAR_EXTRACTION, startTimeNanos, startCpuTimeNanos);
         }
         if (subLog != null) {
             subLog.log("Downloaded to temporary file " + tempFile);
@@ -498,6 +783,134 @@ public class NestedJarHandler {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Reserve space within the nested jar memory budget for a nested jar that is about to be inflated to RAM,
+     * spilling the least recently used nested jars that are in RAM to disk until there is enough space.
+     *
+     * @param numBytes
+     *            the uncompressed size of the nested jar
+     * @param log
+     *            the log
+     * @return true if the space was reserved, or false if the nested jar does not fit within the memory budget,
+     *         and should be inflated to disk instead.
+     */
+    private boolean reserveNestedJarMemory(final long numBytes, final LogNode log) {
+        if (numBytes > scanSpec.maxNestedJarMemoryBytes) {
+            return false;
+        }
+        for (;;) {
+            PhysicalZipFile leastRecentlyUsed = null;
+            synchronized (ramBackedPhysicalZipFiles) {
+                if (nestedJarMemoryBytesUsed + numBytes <= scanSpec.maxNestedJarMemoryBytes) {
+                    nestedJarMemoryBytesUsed += numBytes;
+                    return true;
+                }
+                for (final PhysicalZipFile physicalZipFile : ramBackedPhysicalZipFiles) {
+                    if (leastRecentlyUsed == null
+                            || physicalZipFile.lastAccessTimeNanos < leastRecentlyUsed.lastAccessTimeNanos) {
+                        leastRecentlyUsed = physicalZipFile;
+                    }
+                }
+                if (leastRecentlyUsed == null) {
+                    // Nothing left to spill
+                    return false;
+                }
+                // Remove the nested jar while holding the lock, so that no other thread also tries to spill it
+                ramBackedPhysicalZipFiles.remove(leastRecentlyUsed);
+            }
+            // Write the nested jar to disk without holding the lock, so that other threads are not blocked
+            spillToDisk(leastRecentlyUsed, log);
+        }
+    }
+
+    /**
+     * Add a nested jar that has been inflated to RAM to the set of nested jars that may be spilled to disk.
+     *
+     * @param physicalZipFile
+     *            the nested jar that was inflated to RAM
+     * @param reservedBytes
+     *            the number of bytes already reserved in the memory budget for the nested jar, which may differ
+     *            from its actual size if the zip entry's uncompressed size was wrong, or zero if the nested jar
+     *            was inflated to RAM because inflating it to disk failed.
+     */
+    private void addRamBackedPhysicalZipFile(final PhysicalZipFile physicalZipFile, final long reservedBytes) {
+        synchronized (ramBackedPhysicalZipFiles) {
+            nestedJarMemoryBytesUsed += physicalZipFile.fileLen - reservedBytes;
+            ramBackedPhysicalZipFiles.add(physicalZipFile);
+        }
+    }
+
+    /**
+     * Release space in the nested jar memory budget that was reserved for a nested jar that was not inflated to
+     * RAM after all.
+     *
+     * @param numBytes
+     *            the number of bytes that were reserved
+     */
+    private void releaseReservedNestedJarMemory(final long numBytes) {
+        synchronized (ramBackedPhysicalZipFiles) {
+            nestedJarMemoryBytesUsed -= numBytes;
+        }
+    }
+
+    /**
+     * Spill a nested jar from RAM to a temporary file. The caller must already have removed the nested jar from
+     * {@link #ramBackedPhysicalZipFiles}, and must not hold the lock on {@link #ramBackedPhysicalZipFiles}.
+     *
+     * @param physicalZipFile
+     *            the nested jar that was inflated to RAM
+     * @param log
+     *            the log
+     */
+    private void spillToDisk(final PhysicalZipFile physicalZipFile, final LogNode log) {
+        File tempFile = null;
+        try {
+            tempFile = makeTempFile(physicalZipFile.getPath(), /* onlyUseLeafname = */ true);
+            physicalZipFile.spillToDisk(tempFile);
+            releaseReservedNestedJarMemory(physicalZipFile.fileLen);
+            if (log != null) {
+                log.log("Spilled nested jar from RAM to temporary file: " + physicalZipFile.getPath()
+                        + " ; size: " + physicalZipFile.fileLen + " ; temp file: " + tempFile);
+            }
+        } catch (final IOException e) {
+            // Leave the nested jar in RAM, but stop trying to spill it. Its memory stays counted against the
+            // budget, so later nested jars will be inflated to disk instead.
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            if (log != null) {
+                log.log("Could not spill nested jar from RAM to temporary file: " + physicalZipFile.getPath()
+                        + " : " + e);
+            }
+        }
+    }
+
+    /**
+     * Spill all nested jars that are still in RAM to temporary files, if a nested jar memory budget is set. Called
+     * once classfile scanning has completed, so that the inflated nested jars are not held in RAM for the lifetime
+     * of the {@link ScanResult}.
+     *
+     * @param log
+     *            the log
+     */
+    public void releaseNestedJarMemory(final LogNode log) {
+        final List<PhysicalZipFile> physicalZipFilesToSpill;
+        synchronized (ramBackedPhysicalZipFiles) {
+            if (ramBackedPhysicalZipFiles.isEmpty()) {
+                return;
+            }
+            physicalZipFilesToSpill = new ArrayList<>(ramBackedPhysicalZipFiles);
+            ramBackedPhysicalZipFiles.clear();
+        }
+        final LogNode subLog = log == null ? null
+                : log.log("Spilling " + physicalZipFilesToSpill.size() + " nested jars from RAM to disk");
+        for (int i = physicalZipFilesToSpill.size() - 1; i >= 0; i--) {
+            spillToDisk(physicalZipFilesToSpill.get(i), subLog);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Close zipfiles, modules, and recyclers, and delete temporary files. Called by {@link ScanResult#close()}.
      * 
@@ -31,6 +31,7 @@ package nonapi.io.github.classgraph.fastzipfilereader;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
@@ -75,6 +76,9 @@ public class PhysicalZipFile implements Closeable {
     /** True if the zipfile was deflated to RAM, rather than mapped from disk. */
     boolean isDeflatedToRam;
 
+    /** The time the zipfile was last read, if it was deflated to RAM, as returned by {@link System#nanoTime()}. */
+    volatile long lastAccessTimeNanos;
+
     /** Set to true once this {@link PhysicalZipFile} is closed. */
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -146,6 +150,7 @@ public class PhysicalZipFile implements Closeable {
                     // Then try calling map again
                     buffer = fc.map(FileChannel.MapMode.READ_ONLY, pos, chunkSize);
                 }
+                nestedJarHandler.scanMetricsRecorder.addBytesMapped(chunkSize);
                 return buffer;
             }
         };
@@ -182,6 +187,47 @@ public class PhysicalZipFile implements Closeable {
         numMappedByteBuffers = 1;
         mappedByteBuffersCached = new ByteBuffer[numMappedByteBuffers];
         mappedByteBuffersCached[0] = byteBuffer;
+        lastAccessTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * Write the content of a zipfile that was deflated to RAM to a file, then mmap the file in place of the
+     * in-memory {@link ByteBuffer}, so that the memory can be reclaimed once any {@link ByteBuffer} duplicates
+     * that are still in use have been released.
+     *
+     * @param spillFile
+     *            the file to write the zipfile content to
+     * @throws IOException
+     *             if the file could not be written or mapped.
+     */
+    synchronized void spillToDisk(final File spillFile) throws IOException {
+        if (closed.get()) {
+            throw new IOException(getClass().getSimpleName() + " already closed");
+        }
+        if (!isDeflatedToRam || fc != null) {
+            // Already backed by a file
+            return;
+        }
+        final ByteBuffer byteBuffer = mappedByteBuffersCached[0].duplicate();
+        byteBuffer.position(0);
+        try (FileOutputStream outputStream = new FileOutputStream(spillFile)) {
+            final FileChannel outputChannel = outputStream.getChannel();
+            while (byteBuffer.hasRemaining()) {
+                outputChannel.write(byteBuffer);
+            }
+        }
+        raf = new RandomAccessFile(spillFile, "r");
+        try {
+            fc = raf.getChannel();
+            final MappedByteBuffer mappedByteBuffer = fc.map(FileChannel.MapMode.READ_ONLY, 0L, fileLen);
+            nestedJarHandler.scanMetricsRecorder.addBytesMapped(fileLen);
+            mappedByteBuffersCached[0] = mappedByteBuffer;
+        } catch (final IOException e) {
+            raf.close();
+            raf = null;
+            fc = null;
+            throw e;
+        }
     }
 
     /**
@@ -201,6 +247,9 @@ public class PhysicalZipFile implements Closeable {
         if (chunkIdx < 0 || chunkIdx >= mappedByteBuffersCached.length) {
             throw new IOException("Chunk index out of range");
         }
+        if (isDeflatedToRam) {
+            lastAccessTimeNanos = System.nanoTime();
+        }
         // Fast path: only look up singleton map if mappedByteBuffersCached is null 
         if (mappedByteBuffersCached[chunkIdx] == null) {
             try {
@@ -239,10 +239,10 @@ class ZipFileSliceReader implements AutoCloseable {
                 | ((arr[ioff + 5] & 0xff) << 8) //
                 | (arr[ioff + 4] & 0xff))) //
         << 32) //
-                | (((arr[ioff + 3] & 0xff) << 24) //
+                | ((((arr[ioff + 3] & 0xff) << 24) //
                         | ((arr[ioff + 2] & 0xff) << 16) //
                         | ((arr[ioff + 1] & 0xff) << 8) //
-                        | (arr[ioff] & 0xff));
+                        | (arr[ioff] & 0xff)) & 0xffffffffL);
     }
 
     /**
@@ -267,10 +267,10 @@ class ZipFileSliceReader implements AutoCloseable {
                 | ((scratch[5] & 0xff) << 8) //
                 | (scratch[4] & 0xff))) //
         << 32) //
-                | (((scratch[3] & 0xff) << 24) //
+                | ((((scratch[3] & 0xff) << 24) //
                         | ((scratch[2] & 0xff) << 16) //
                         | ((scratch[1] & 0xff) << 8) //
-                        | (scratch[0] & 0xff));
+                        | (scratch[0] & 0xff)) & 0xffffffffL);
     }
 
     /**
@@ -28,6 +28,8 @@
  */
 package nonapi.io.github.classgraph.json;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.util.AbstractMap.SimpleEntry;
@@ -207,7 +209,7 @@ public class JSONSerializer {
      * Comparator for set elements, to sort them into some sort of consistent order, so that JSON ordering is
      * deterministic.
      */
-    private static final Comparator<Object> SET_COMPARATOR = new Comparator<Object>() {
+    static final Comparator<Object> SET_COMPARATOR = new Comparator<Object>() {
         @Override
         public int compare(final Object o1, final Object o2) {
             if (o1 == null || o2 == null) {
@@ -527,6 +529,59 @@ public class JSONSerializer {
         return serializeObject(obj, /* indentWidth = */ 0, /* onlySerializePublicFields = */ false);
     }
 
+    /**
+     * Recursively serialize an Object (or array, list, map or set of objects) to JSON, skipping transient and final
+     * fields, writing the JSON directly to a {@link Writer} rather than building the whole JSON document in memory.
+     * Produces the same JSON as {@link #serializeObject(Object, int, boolean, ClassFieldCache)}.
+     * 
+     * @param obj
+     *            The root object of the object graph to serialize.
+     * @param indentWidth
+     *            If indentWidth == 0, no prettyprinting indentation is performed, otherwise this specifies the
+     *            number of spaces to indent each level of JSON.
+     * @param onlySerializePublicFields
+     *            If true, only serialize public fields.
+     * @param classFieldCache
+     *            The class field cache. Reusing this cache will increase the speed if many JSON documents of the
+     *            same type need to be produced.
+     * @param writer
+     *            The {@link Writer} to write the JSON to. The writer is not flushed or closed.
+     * @throws IOException
+     *             If the JSON could not be written to the {@link Writer}.
+     * @throws IllegalArgumentException
+     *             If anything goes wrong during serialization.
+     */
+    public static void serializeObject(final Object obj, final int indentWidth,
+            final boolean onlySerializePublicFields, final ClassFieldCache classFieldCache, final Writer writer)
+            throws IOException {
+        JSONStreamingSerializer.serializeObject(obj, indentWidth, classFieldCache, writer);
+    }
+
+    /**
+     * Recursively serialize an Object (or array, list, map or set of objects) to JSON, skipping transient and final
+     * fields, writing the JSON directly to a {@link Writer} rather than building the whole JSON document in memory.
+     * Produces the same JSON as {@link #serializeObject(Object, int, boolean)}.
+     * 
+     * @param obj
+     *            The root object of the object graph to serialize.
+     * @param indentWidth
+     *            If indentWidth == 0, no prettyprinting indentation is performed, otherwise this specifies the
+     *            number of spaces to indent each level of JSON.
+     * @param onlySerializePublicFields
+     *            If true, only serialize public fields.
+     * @param writer
+     *            The {@link Writer} to write the JSON to. The writer is not flushed or closed.
+     * @throws IOException
+     *             If the JSON could not be written to the {@link Writer}.
+     * @throws IllegalArgumentException
+     *             If anything goes wrong during serialization.
+     */
+    public static void serializeObject(final Object obj, final int indentWidth,
+            final boolean onlySerializePublicFields, final Writer writer) throws IOException {
+        serializeObject(obj, indentWidth, onlySerializePublicFields,
+                new ClassFieldCache(/* resolveTypes = */ false, /* onlySerializePublicFields = */ false), writer);
+    }
+
     /**
      * Recursively serialize the named field of an object, skipping transient and final fields.
      * 
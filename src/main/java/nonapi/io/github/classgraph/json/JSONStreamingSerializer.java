@@ -0,0 +1,453 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.classgraph.ClassGraphException;
+
+/**
+ * Streaming Java object to JSON serializer. Produces exactly the same JSON as
+ * {@link JSONSerializer#serializeObject(Object, int, boolean, ClassFieldCache)}, but writes the JSON directly to a
+ * {@link Writer}, rather than first converting the object graph into a graph of {@link JSONObject} and
+ * {@link JSONArray} objects, and then serializing that graph into a single string.
+ *
+ * <p>
+ * The object graph is traversed twice in the same order. The first traversal does not produce any output, but
+ * assigns an id to each object that is referenced from more than one place in the object graph, in the same order
+ * as {@link JSONSerializer} assigns ids. The second traversal writes the JSON, adding an id field to each
+ * referenced object. The JSON document itself is never held in memory.
+ *
+ * <p>
+ * Memory use is not constant, however. To produce the same JSON as {@link JSONSerializer}, any standard object
+ * that is reached more than once must be written as a reference, whatever its type, so the identity of every
+ * standard object and map that is visited is tracked, not only the identity of types with an {@link Id} field
+ * such as {@code ClassInfo}. The set of visited objects therefore grows with the number of objects in the object
+ * graph, and the id table grows with the number of objects that are referenced from more than one place. This is
+ * still much less than the {@link JSONObject} and {@link JSONArray} graph and the JSON string that
+ * {@link JSONSerializer} builds.
+ */
+class JSONStreamingSerializer {
+    /** The class field cache. */
+    private final ClassFieldCache classFieldCache;
+
+    /** The indent width. */
+    private final int indentWidth;
+
+    /** The writer to write to, or null for the id assignment traversal. */
+    private Writer writer;
+
+    /** The output buffer, flushed to the writer whenever it grows beyond {@link #FLUSH_THRESHOLD} characters. */
+    private final StringBuilder buf = new StringBuilder(FLUSH_THRESHOLD + 1024);
+
+    /** The output buffer size at which the buffer is flushed to the writer. */
+    private static final int FLUSH_THRESHOLD = 16384;
+
+    /** The objects on the current traversal path, used to detect cycles. */
+    private final Set<ReferenceEqualityKey<Object>> visitedOnPath = new HashSet<>();
+
+    /** Standard objects and maps that have been visited in the current traversal. */
+    private final Set<ReferenceEqualityKey<Object>> standardObjectVisited = new HashSet<>();
+
+    /** A map from each object that is referenced from more than one place to its id. */
+    private final Map<ReferenceEqualityKey<Object>, CharSequence> objToId = new HashMap<>();
+
+    /** The next integer id to assign. */
+    private int nextObjId;
+
+    /**
+     * Constructor.
+     *
+     * @param classFieldCache
+     *            the class field cache
+     * @param indentWidth
+     *            the indent width
+     */
+    private JSONStreamingSerializer(final ClassFieldCache classFieldCache, final int indentWidth) {
+        this.classFieldCache = classFieldCache;
+        this.indentWidth = indentWidth;
+    }
+
+    /**
+     * Recursively serialize an Object (or array, list, map or set of objects) to JSON, skipping transient and final
+     * fields, and write the JSON to a {@link Writer}.
+     *
+     * @param obj
+     *            The root object of the object graph to serialize.
+     * @param indentWidth
+     *            If indentWidth == 0, no prettyprinting indentation is performed, otherwise this specifies the
+     *            number of spaces to indent each level of JSON.
+     * @param classFieldCache
+     *            The class field cache.
+     * @param writer
+     *            The writer to write the JSON to. The writer is not flushed or closed.
+     * @throws IOException
+     *             If the JSON could not be written.
+     * @throws IllegalArgumentException
+     *             If anything goes wrong during serialization.
+     */
+    static void serializeObject(final Object obj, final int indentWidth, final ClassFieldCache classFieldCache,
+            final Writer writer) throws IOException {
+        final JSONStreamingSerializer serializer = new JSONStreamingSerializer(classFieldCache, indentWidth);
+
+        // Traversal 1: assign ids to referenced objects
+        serializer.writeVal(obj, /* isReference = */ false, 0);
+
+        // Traversal 2: write JSON, in the same traversal order
+        serializer.writer = writer;
+        serializer.standardObjectVisited.clear();
+        serializer.writeVal(obj, /* isReference = */ false, 0);
+        serializer.flush(/* force = */ true);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Flush the output buffer to the writer.
+     *
+     * @param force
+     *            if true, flush the buffer even if it has not reached {@link #FLUSH_THRESHOLD} characters
+     * @throws IOException
+     *             if the writer could not be written to
+     */
+    private void flush(final boolean force) throws IOException {
+        if (writer != null && (force || buf.length() >= FLUSH_THRESHOLD)) {
+            writer.append(buf);
+            buf.setLength(0);
+        }
+    }
+
+    /**
+     * Write a newline and indentation, if prettyprinting.
+     *
+     * @param depth
+     *            the depth
+     */
+    private void newlineAndIndent(final int depth) {
+        if (writer != null && indentWidth > 0) {
+            buf.append('\n');
+            JSONUtils.indent(depth, indentWidth, buf);
+        }
+    }
+
+    /**
+     * Write a quoted, escaped string.
+     *
+     * @param str
+     *            the string
+     */
+    private void writeQuotedString(final String str) {
+        if (writer != null) {
+            buf.append('"');
+            JSONUtils.escapeJSONString(str, buf);
+            buf.append('"');
+        }
+    }
+
+    /**
+     * Write an object key, and the following separator.
+     *
+     * @param key
+     *            the key
+     */
+    private void writeKey(final String key) {
+        if (writer != null) {
+            buf.append('"');
+            JSONUtils.escapeJSONString(key, buf);
+            buf.append(indentWidth > 0 ? "\": " : "\":");
+        }
+    }
+
+    /**
+     * Write the separator between two items of a JSON object or array, and the indentation for the next item.
+     *
+     * @param isFirst
+     *            true if the next item is the first item
+     * @param depth
+     *            the depth of the next item
+     */
+    private void writeItemSeparator(final boolean isFirst, final int depth) {
+        if (writer != null) {
+            if (!isFirst) {
+                buf.append(',');
+            }
+            newlineAndIndent(depth);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write a reference to an object that is serialized elsewhere in the JSON document. During the id assignment
+     * traversal, assigns an id to the referenced object if it doesn't yet have one, in the same way as
+     * {@link JSONSerializer} assigns ids.
+     *
+     * @param refdObj
+     *            the referenced object
+     */
+    private void writeReference(final Object refdObj) {
+        final ReferenceEqualityKey<Object> refdObjKey = new ReferenceEqualityKey<>(refdObj);
+        if (writer == null) {
+            // See if the referenced object has an @Id field
+            final Field annotatedField = classFieldCache.get(refdObj.getClass()).idField;
+            CharSequence idStr = null;
+            if (annotatedField != null) {
+                // Get id value from field annotated with @Id
+                try {
+                    final Object idObject = annotatedField.get(refdObj);
+                    if (idObject != null) {
+                        idStr = idObject.toString();
+                        objToId.put(refdObjKey, idStr);
+                    }
+                } catch (IllegalArgumentException | IllegalAccessException e) {
+                    // Should not happen
+                    throw new IllegalArgumentException("Could not access @Id-annotated field " + annotatedField, e);
+                }
+            }
+            if (idStr == null && !objToId.containsKey(refdObjKey)) {
+                // No @Id field, or field value is null, and object does not have an id yet -- generate unique
+                // integer id
+                objToId.put(refdObjKey, JSONUtils.ID_PREFIX + nextObjId++ + JSONUtils.ID_SUFFIX);
+            }
+        } else {
+            writeQuotedString(objToId.get(refdObjKey).toString());
+        }
+    }
+
+    /**
+     * Write a JSON value.
+     *
+     * @param val
+     *            the value
+     * @param isReference
+     *            true if the value is a standard object or map that has already been visited elsewhere in the
+     *            object graph, so should be written as a reference
+     * @param depth
+     *            the depth
+     * @throws IOException
+     *             if the writer could not be written to
+     */
+    private void writeVal(final Object val, final boolean isReference, final int depth) throws IOException {
+        if (val == null) {
+            if (writer != null) {
+                buf.append("null");
+            }
+        } else if (isReference) {
+            writeReference(val);
+        } else if (JSONUtils.isBasicValueType(val)) {
+            if (val instanceof String || val instanceof Character || val.getClass().isEnum()) {
+                // Serialize String, Character or enum val to quoted/escaped string
+                writeQuotedString(val.toString());
+            } else if (writer != null) {
+                // Serialize a numeric or Boolean type to string (doesn't need quoting or escaping)
+                buf.append(val.toString());
+            }
+        } else {
+            writeObjectGraph(val, depth);
+        }
+        flush(/* force = */ false);
+    }
+
+    /**
+     * Write a standard object, map, collection or array, recursively.
+     *
+     * @param obj
+     *            the object
+     * @param depth
+     *            the depth
+     * @throws IOException
+     *             if the writer could not be written to
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void writeObjectGraph(final Object obj, final int depth) throws IOException {
+        // Check for cycles
+        final ReferenceEqualityKey<Object> objKey = new ReferenceEqualityKey<>(obj);
+        if (!visitedOnPath.add(objKey)) {
+            if (JSONUtils.isCollectionOrArray(obj)) {
+                throw new IllegalArgumentException(
+                        "Cycles involving collections cannot be serialized, since collections are not "
+                                + "assigned object ids. Reached cycle at: " + obj);
+            } else {
+                // Every standard object other than the root is marked as visited before it is recursed into,
+                // so only the root object can be its own ancestor, and the root object is never assigned an id
+                throw new ClassGraphException("Internal inconsistency");
+            }
+        }
+
+        // Get the keys (for JSON objects) and values of the object, in the same order as JSONSerializer
+        String[] keys = null;
+        Object[] vals;
+        final Class<?> cls = obj.getClass();
+        if (Map.class.isAssignableFrom(cls)) {
+            final Map<Object, Object> map = (Map<Object, Object>) obj;
+            final ArrayList<?> mapKeys = new ArrayList<>(map.keySet());
+            final int n = mapKeys.size();
+            boolean keysComparable = false;
+            Object firstNonNullKey = null;
+            for (int i = 0; i < n && firstNonNullKey == null; i++) {
+                firstNonNullKey = mapKeys.get(i);
+            }
+            if (firstNonNullKey != null && Comparable.class.isAssignableFrom(firstNonNullKey.getClass())) {
+                Collections.sort((ArrayList<Comparable>) mapKeys);
+                keysComparable = true;
+            }
+            keys = new String[n];
+            for (int i = 0; i < n; i++) {
+                final Object key = mapKeys.get(i);
+                if (!JSONUtils.isBasicValueType(key)) {
+                    throw new IllegalArgumentException("Map key of type " + key.getClass().getName()
+                            + " is not a basic type (String, Integer, etc.), so can't be easily "
+                            + "serialized as a JSON associative array key");
+                }
+                keys[i] = JSONUtils.escapeJSONString(key.toString());
+            }
+            if (!keysComparable) {
+                Arrays.sort(keys);
+            }
+            vals = new Object[n];
+            for (int i = 0; i < n; i++) {
+                vals[i] = map.get(mapKeys.get(i));
+            }
+
+        } else if (cls.isArray() || List.class.isAssignableFrom(cls)) {
+            final boolean isList = List.class.isAssignableFrom(cls);
+            final List<?> list = isList ? (List<?>) obj : null;
+            final int n = isList ? list.size() : Array.getLength(obj);
+            vals = new Object[n];
+            for (int i = 0; i < n; i++) {
+                vals[i] = isList ? list.get(i) : Array.get(obj, i);
+            }
+
+        } else if (Collection.class.isAssignableFrom(cls)) {
+            final List<Object> valsList = new ArrayList<>((Collection<?>) obj);
+            if (Set.class.isAssignableFrom(cls)) {
+                Collections.sort(valsList, JSONSerializer.SET_COMPARATOR);
+            }
+            vals = valsList.toArray();
+
+        } else {
+            final List<FieldTypeInfo> fieldOrder = classFieldCache.get(cls).fieldOrder;
+            final int n = fieldOrder.size();
+            keys = new String[n];
+            vals = new Object[n];
+            try {
+                for (int i = 0; i < n; i++) {
+                    final Field field = fieldOrder.get(i).field;
+                    keys[i] = field.getName();
+                    vals[i] = JSONUtils.getFieldValue(obj, field);
+                }
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                throw new ClassGraphException("Could not get value of field in object: " + obj, e);
+            }
+        }
+
+        // Mark standard objects and maps that have not been visited yet as visited, before recursing into any of
+        // them, so that objects are serialized as high up the tree as possible, and are referenced elsewhere
+        final int n = vals.length;
+        final boolean[] isReference = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            final Object val = vals[i];
+            if (!JSONUtils.isBasicValueType(val) && !JSONUtils.isCollectionOrArray(val)) {
+                isReference[i] = !standardObjectVisited.add(new ReferenceEqualityKey<>(val));
+            }
+        }
+
+        if (keys != null) {
+            // Write JSON object, skipping null-valued fields
+            final CharSequence objectId = writer == null ? null : objToId.get(objKey);
+            boolean isEmpty = objectId == null;
+            for (int i = 0; i < n && isEmpty; i++) {
+                isEmpty = vals[i] == null;
+            }
+            if (isEmpty) {
+                if (writer != null) {
+                    buf.append("{}");
+                }
+            } else {
+                if (writer != null) {
+                    buf.append('{');
+                }
+                boolean isFirst = true;
+                if (objectId != null) {
+                    writeItemSeparator(isFirst, depth + 1);
+                    writeKey(JSONUtils.ID_KEY);
+                    writeQuotedString(objectId.toString());
+                    isFirst = false;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (vals[i] != null) {
+                        writeItemSeparator(isFirst, depth + 1);
+                        writeKey(keys[i]);
+                        writeVal(vals[i], isReference[i], depth + 1);
+                        isFirst = false;
+                    }
+                }
+                newlineAndIndent(depth);
+                if (writer != null) {
+                    buf.append('}');
+                }
+            }
+        } else {
+            // Write JSON array
+            if (n == 0) {
+                if (writer != null) {
+                    buf.append("[]");
+                }
+            } else {
+                if (writer != null) {
+                    buf.append('[');
+                }
+                for (int i = 0; i < n; i++) {
+                    writeItemSeparator(i == 0, depth + 1);
+                    writeVal(vals[i], isReference[i], depth + 1);
+                }
+                newlineAndIndent(depth);
+                if (writer != null) {
+                    buf.append(']');
+                }
+            }
+        }
+
+        // In the case of a DAG, just serialize the same object multiple times, i.e. remove obj from visited set
+        // when exiting recursion, so that future instances also get serialized.
+        visitedOnPath.remove(objKey);
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.types;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import nonapi.io.github.classgraph.exceptions.ParseException;
+import nonapi.io.github.classgraph.utils.InputStreamOrByteBufferAdapter;
+import nonapi.io.github.classgraph.utils.StringInternTable;
+
+/**
+ * A reusable cursor that walks a type descriptor or type signature (of a class, method or field) in place, either
+ * in a {@link CharSequence} or in the modified UTF8 bytes of a constant pool entry, and records the index range of
+ * every class name segment, without allocating a {@link Parser}, a token buffer or any type signature objects.
+ * Class name strings are only allocated by {@link #findReferencedClassNames(Set, StringInternTable)}, or when the
+ * caller extracts them from the index ranges. The index arrays are reused between calls to {@code reset}, so a
+ * single cursor can walk any number of signatures without allocation once its arrays have grown to the size of
+ * the largest signature.
+ *
+ * <p>
+ * For a class reference such as {@code Lcom/xyz/Outer<TT;>.Inner;}, the base class name is {@code com/xyz/Outer}
+ * and the suffixes are {@code Inner}. All indices are relative to the start of the signature, and class names use
+ * '/' as the package separator.
+ */
+public final class SignatureCursor {
+    /** The signature, if it is held in a {@link CharSequence}. */
+    private CharSequence charSequence;
+
+    /** The constant pool bytes, if the signature is held in the modified UTF8 bytes of a constant pool entry. */
+    private InputStreamOrByteBufferAdapter bytes;
+
+    /** The offset of the start of the signature in {@link #bytes}. */
+    private int bytesStart;
+
+    /** The length of the signature. */
+    private int len;
+
+    /** The current position. */
+    private int pos;
+
+    /** The number of class references found. */
+    private int numClassRefs;
+
+    /**
+     * For each class reference, the start and end of the base class name, the end of the class reference (after
+     * the final ';'), and the number of suffixes.
+     */
+    private int[] classRefs = new int[4 * 8];
+
+    /** The number of ints in each entry of {@link #classRefs}. */
+    private static final int CLASS_REF_SIZE = 4;
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Walk a type descriptor or type signature held in a {@link CharSequence}.
+     *
+     * @param signature
+     *            the type descriptor or type signature
+     * @return this cursor
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    public SignatureCursor reset(final CharSequence signature) throws ParseException {
+        this.charSequence = signature;
+        this.bytes = null;
+        this.bytesStart = 0;
+        this.len = signature.length();
+        try {
+            walk();
+        } catch (final IOException e) {
+            // Should not happen, since no bytes are read
+            throw new ParseException(null, "Could not read signature: " + e);
+        }
+        return this;
+    }
+
+    /**
+     * Walk a type descriptor or type signature held in the modified UTF8 bytes of a constant pool entry. The class
+     * name delimiters are all ASCII characters, which cannot occur within a multi-byte character, so the bytes can
+     * be walked without decoding them.
+     *
+     * @param constantPoolBytes
+     *            the classfile bytes
+     * @param utfStart
+     *            the offset of the first byte of the signature
+     * @param utfLen
+     *            the number of bytes in the signature
+     * @return this cursor
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    public SignatureCursor reset(final InputStreamOrByteBufferAdapter constantPoolBytes, final int utfStart,
+            final int utfLen) throws IOException, ParseException {
+        this.charSequence = null;
+        this.bytes = constantPoolBytes;
+        this.bytesStart = utfStart;
+        this.len = utfLen;
+        walk();
+        return this;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the character at the given position.
+     *
+     * @param i
+     *            the position, relative to the start of the signature
+     * @return the character, or '\0' if past the end of the signature
+     * @throws IOException
+     *             if the bytes could not be read.
+     */
+    private char charAt(final int i) throws IOException {
+        if (i >= len) {
+            return '\0';
+        }
+        return bytes != null ? (char) bytes.readUnsignedByte(bytesStart + i) : charSequence.charAt(i);
+    }
+
+    /**
+     * Consume the expected character.
+     *
+     * @param expectedChar
+     *            the expected character
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the next character is not the expected character.
+     */
+    private void expect(final char expectedChar) throws IOException, ParseException {
+        if (charAt(pos) != expectedChar) {
+            throw new ParseException(null, "Expected '" + expectedChar + "' at position " + pos + " of signature");
+        }
+        pos++;
+    }
+
+    /**
+     * Skip an identifier, stopping at any of the characters that terminate identifiers in type signatures.
+     *
+     * @param allowSlash
+     *            if true, '/' is considered part of the identifier (for package-qualified class names)
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the identifier is empty.
+     */
+    private void skipIdentifier(final boolean allowSlash) throws IOException, ParseException {
+        final int start = pos;
+        while (pos < len) {
+            final char c = charAt(pos);
+            if (c == ';' || c == '[' || c == '<' || c == '>' || c == ':' || c == '.' || c == '/' && !allowSlash) {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw new ParseException(null, "Missing identifier at position " + pos + " of signature");
+        }
+    }
+
+    /**
+     * Walk the signature, recording the class references.
+     *
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    private void walk() throws IOException, ParseException {
+        pos = 0;
+        numClassRefs = 0;
+        if (charAt(pos) == '<') {
+            walkTypeParameters();
+        }
+        if (charAt(pos) == '(') {
+            // Method signature or descriptor
+            pos++;
+            while (charAt(pos) != ')') {
+                if (pos >= len) {
+                    throw new ParseException(null, "Missing ')' in method signature");
+                }
+                walkJavaType();
+            }
+            pos++;
+            walkJavaType();
+            while (charAt(pos) == '^') {
+                pos++;
+                walkReferenceType();
+            }
+        } else {
+            // Field type, or class signature (superclass signature followed by superinterface signatures)
+            do {
+                walkJavaType();
+            } while (pos < len);
+        }
+        if (pos != len) {
+            throw new ParseException(null, "Extra characters at position " + pos + " of signature");
+        }
+    }
+
+    /**
+     * Walk the type parameters of a class or method signature.
+     *
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    private void walkTypeParameters() throws IOException, ParseException {
+        expect('<');
+        while (charAt(pos) != '>') {
+            if (pos >= len) {
+                throw new ParseException(null, "Missing '>' in type parameters");
+            }
+            skipIdentifier(/* allowSlash = */ false);
+            // Class bound (which may be empty), then interface bounds
+            expect(':');
+            final char c = charAt(pos);
+            if (c == 'L' || c == 'T' || c == '[') {
+                walkReferenceType();
+            }
+            while (charAt(pos) == ':') {
+                pos++;
+                walkReferenceType();
+            }
+        }
+        pos++;
+    }
+
+    /**
+     * Walk a base type, or a reference type.
+     *
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    private void walkJavaType() throws IOException, ParseException {
+        switch (charAt(pos)) {
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 'Z':
+        case 'V':
+            pos++;
+            break;
+        default:
+            walkReferenceType();
+            break;
+        }
+    }
+
+    /**
+     * Walk a class type, type variable or array type.
+     *
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    private void walkReferenceType() throws IOException, ParseException {
+        switch (charAt(pos)) {
+        case 'L':
+            walkClassType();
+            break;
+        case 'T':
+            pos++;
+            skipIdentifier(/* allowSlash = */ false);
+            expect(';');
+            break;
+        case '[':
+            pos++;
+            walkJavaType();
+            break;
+        default:
+            throw new ParseException(null,
+                    "Unexpected character '" + charAt(pos) + "' at position " + pos + " of signature");
+        }
+    }
+
+    /**
+     * Walk a class type, including any type arguments and suffixes, recording the class reference.
+     *
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    private void walkClassType() throws IOException, ParseException {
+        expect('L');
+        final int baseStart = pos;
+        skipIdentifier(/* allowSlash = */ true);
+        // Reserve the entry for this class reference before walking any nested class references
+        final int entry = numClassRefs++ * CLASS_REF_SIZE;
+        if (entry + CLASS_REF_SIZE > classRefs.length) {
+            classRefs = Arrays.copyOf(classRefs, classRefs.length * 2);
+        }
+        classRefs[entry] = baseStart;
+        classRefs[entry + 1] = pos;
+        int numSuffixes = 0;
+        walkTypeArguments();
+        while (charAt(pos) == '.') {
+            pos++;
+            skipIdentifier(/* allowSlash = */ false);
+            numSuffixes++;
+            walkTypeArguments();
+        }
+        expect(';');
+        classRefs[entry + 2] = pos;
+        classRefs[entry + 3] = numSuffixes;
+    }
+
+    /**
+     * Walk the type arguments of a class type, if present.
+     *
+     * @throws IOException
+     *             if the bytes could not be read.
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    private void walkTypeArguments() throws IOException, ParseException {
+        if (charAt(pos) == '<') {
+            pos++;
+            while (charAt(pos) != '>') {
+                if (pos >= len) {
+                    throw new ParseException(null, "Missing '>' in type arguments");
+                }
+                final char c = charAt(pos);
+                if (c == '*') {
+                    pos++;
+                } else {
+                    if (c == '+' || c == '-') {
+                        pos++;
+                    }
+                    walkReferenceType();
+                }
+            }
+            pos++;
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the number of class references in the signature.
+     *
+     * @return the number of class references
+     */
+    public int getNumClassRefs() {
+        return numClassRefs;
+    }
+
+    /**
+     * Get the start of the base class name of a class reference.
+     *
+     * @param classRefIdx
+     *            the index of the class reference
+     * @return the position of the first character of the base class name
+     */
+    public int getClassNameStart(final int classRefIdx) {
+        return classRefs[classRefIdx * CLASS_REF_SIZE];
+    }
+
+    /**
+     * Get the end of the base class name of a class reference.
+     *
+     * @param classRefIdx
+     *            the index of the class reference
+     * @return the position after the last character of the base class name
+     */
+    public int getClassNameEnd(final int classRefIdx) {
+        return classRefs[classRefIdx * CLASS_REF_SIZE + 1];
+    }
+
+    /**
+     * Get the number of suffixes (inner class names following '.') of a class reference.
+     *
+     * @param classRefIdx
+     *            the index of the class reference
+     * @return the number of suffixes
+     */
+    public int getNumSuffixes(final int classRefIdx) {
+        return classRefs[classRefIdx * CLASS_REF_SIZE + 3];
+    }
+
+    /**
+     * Get the start of a suffix of a class reference.
+     *
+     * @param classRefIdx
+     *            the index of the class reference
+     * @param suffixIdx
+     *            the index of the suffix
+     * @return the position of the first character of the suffix
+     * @throws IOException
+     *             if the bytes could not be read.
+     */
+    public int getSuffixStart(final int classRefIdx, final int suffixIdx) throws IOException {
+        // Find the '.' that precedes the suffix, skipping over nested type arguments
+        final int end = classRefs[classRefIdx * CLASS_REF_SIZE + 2];
+        int depth = 0;
+        int suffixesFound = 0;
+        for (int i = getClassNameEnd(classRefIdx); i < end; i++) {
+            final char c = charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (c == '.' && depth == 0 && suffixesFound++ == suffixIdx) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Suffix index out of range: " + suffixIdx);
+    }
+
+    /**
+     * Get the end of a suffix of a class reference.
+     *
+     * @param classRefIdx
+     *            the index of the class reference
+     * @param suffixIdx
+     *            the index of the suffix
+     * @return the position after the last character of the suffix
+     * @throws IOException
+     *             if the bytes could not be read.
+     */
+    public int getSuffixEnd(final int classRefIdx, final int suffixIdx) throws IOException {
+        int i = getSuffixStart(classRefIdx, suffixIdx);
+        while (i < len) {
+            final char c = charAt(i);
+            if (c == '<' || c == '.' || c == ';') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Get a substring of the signature.
+     *
+     * @param start
+     *            the start position
+     * @param end
+     *            the end position
+     * @param replaceSlashWithDot
+     *            if true, replace '/' with '.'
+     * @param stringInternTable
+     *            the string intern table, or null
+     * @return the substring
+     * @throws IOException
+     *             if the bytes could not be read.
+     */
+    public String getSubstring(final int start, final int end, final boolean replaceSlashWithDot,
+            final StringInternTable stringInternTable) throws IOException {
+        if (bytes != null) {
+            return bytes.readSubstring(bytesStart + start, end - start, replaceSlashWithDot, stringInternTable);
+        }
+        final String str = charSequence.subSequence(start, end).toString();
+        return replaceSlashWithDot ? str.replace('/', '.') : str;
+    }
+
+    /**
+     * Add the name of each class referenced in the signature to a set, in the same form as the names found by
+     * {@code TypeSignature#findReferencedClassNames(Set)}: the base class name of each class reference, and, if
+     * the class reference has suffixes, the fully-qualified name of the inner class, with suffixes separated by
+     * '$'.
+     *
+     * @param classNamesOut
+     *            the set to add the class names to
+     * @param stringInternTable
+     *            the string intern table, or null
+     * @throws IOException
+     *             if the bytes could not be read.
+     */
+    public void findReferencedClassNames(final Set<String> classNamesOut,
+            final StringInternTable stringInternTable) throws IOException {
+        for (int i = 0; i < numClassRefs; i++) {
+            final String className = getSubstring(getClassNameStart(i), getClassNameEnd(i),
+                    /* replaceSlashWithDot = */ true, stringInternTable);
+            classNamesOut.add(className);
+            final int numSuffixes = getNumSuffixes(i);
+            if (numSuffixes > 0) {
+                final StringBuilder buf = new StringBuilder(className);
+                for (int j = 0; j < numSuffixes; j++) {
+                    buf.append('$');
+                    buf.append(getSubstring(getSuffixStart(i, j), getSuffixEnd(i, j),
+                            /* replaceSlashWithDot = */ false, /* stringInternTable = */ null));
+                }
+                classNamesOut.add(buf.toString());
+            }
+        }
+    }
+
+    /**
+     * Walk a type descriptor or type signature held in a {@link CharSequence}, and add the name of each class
+     * referenced in the signature to a set.
+     *
+     * @param signature
+     *            the type descriptor or type signature
+     * @param classNamesOut
+     *            the set to add the class names to
+     * @throws ParseException
+     *             if the signature could not be parsed.
+     */
+    public void findReferencedClassNames(final CharSequence signature, final Set<String> classNamesOut)
+            throws ParseException {
+        reset(signature);
+        try {
+            findReferencedClassNames(classNamesOut, /* stringInternTable = */ null);
+        } catch (final IOException e) {
+            // Should not happen, since no bytes are read
+            throw new ParseException(null, "Could not read signature: " + e);
+        }
+    }
+}
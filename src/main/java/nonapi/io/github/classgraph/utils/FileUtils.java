@@ -40,6 +40,8 @@ import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
@@ -376,6 +378,29 @@ public class FileUtils {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Get the hex SHA-256 digest of a string, e.g. for deriving a cache filename from a cache key.
+     *
+     * @param str
+     *            the string
+     * @return the hex digest
+     */
+    public static String sha256(final String str) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(str.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder buf = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return buf.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new ClassGraphException("SHA-256 is not available", e);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Check if the path ends with a ".class" extension, ignoring case.
      *
@@ -30,13 +30,20 @@ package nonapi.io.github.classgraph.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import io.github.classgraph.ClassGraphException;
 
-/** Buffer class that can wrap either an InputStream or a ByteBuffer, depending on which is available. */
+/**
+ * Buffer class that can wrap either an InputStream or a ByteBuffer, depending on which is available.
+ *
+ * <p>
+ * InputStreams are read into {@link #buf} in chunks as needed. ByteBuffers that are backed by an array are read
+ * directly from the backing array. Other ByteBuffers (e.g. memory-mapped files, or slices of memory-mapped STORED
+ * zip entries) are read in place using absolute gets, without copying their contents into {@link #buf}.
+ */
 public class InputStreamOrByteBufferAdapter implements AutoCloseable {
     /**
      * Buffer size for initial read. We can save some time by reading most of the classfile header in a single read
@@ -55,12 +62,15 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
     /** The InputStream, if applicable. */
     private InputStream inputStream;
 
-    /** The ByteBuffer, if applicable. */
+    /** The ByteBuffer, if it is read in place (i.e. if it is not backed by an array), otherwise null. */
     private ByteBuffer byteBuffer;
 
+    /** The position of the start of the data within {@link #byteBuffer}. */
+    private int byteBufferStart;
+
     /**
-     * Bytes read from the beginning of the classfile, for a memory-backed ByteBuffer. This array is reused across
-     * calls.
+     * Bytes read from the beginning of the classfile, for an InputStream, or the backing array of an array-backed
+     * ByteBuffer. Null if the ByteBuffer is read in place.
      */
     public byte[] buf;
 
@@ -95,8 +105,11 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
             // Just use the array behind the buffer as the input buffer
             this.buf = byteBuffer.array();
         } else {
-            this.byteBuffer = byteBuffer;
-            this.buf = new byte[INITIAL_BUFFER_CHUNK_SIZE];
+            // Read the buffer in place with absolute gets, rather than copying it into buf (duplicate the buffer
+            // so that the byte order can be set without affecting the caller's buffer)
+            this.byteBuffer = byteBuffer.duplicate();
+            this.byteBuffer.order(ByteOrder.BIG_ENDIAN);
+            this.byteBufferStart = byteBuffer.position();
         }
     }
 
@@ -119,27 +132,13 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
             // Wrapped InputStream
             return inputStream.read(buf, off, len);
         } else {
-            // Wrapped ByteBuffer
-            final int bytesRemainingInBuf = byteBuffer != null ? byteBuffer.remaining() : buf.length - off;
-            final int bytesRead = Math.max(0, Math.min(len, bytesRemainingInBuf));
+            // Nothing to read, since ByteBuffer is backed with an array
+            final int bytesRead = Math.max(0, Math.min(len, buf.length - off));
             if (bytesRead == 0) {
                 // Return -1, as per InputStream#read() contract
                 return -1;
             }
-            if (byteBuffer != null) {
-                // Copy from the ByteBuffer into the byte array
-                final int byteBufPositionBefore = byteBuffer.position();
-                try {
-                    byteBuffer.get(buf, off, bytesRead);
-                } catch (final BufferUnderflowException e) {
-                    // Should not happen
-                    throw new IOException("Buffer underflow", e);
-                }
-                return byteBuffer.position() - byteBufPositionBefore;
-            } else {
-                // Nothing to read, since ByteBuffer is backed with an array
-                return bytesRead;
-            }
+            return bytesRead;
         }
     }
 
@@ -189,6 +188,26 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
         }
     }
 
+    /**
+     * Get the absolute index within {@link #byteBuffer} of a read at the given offset, for ByteBuffers that are read
+     * in place.
+     *
+     * @param offset
+     *            the offset of the read, relative to the start of the data
+     * @param numBytes
+     *            the number of bytes to read
+     * @return the absolute index within {@link #byteBuffer}
+     * @throws IOException
+     *             if the read would extend past the end of the data
+     */
+    private int byteBufferIndex(final int offset, final int numBytes) throws IOException {
+        final int idx = byteBufferStart + offset;
+        if (offset < 0 || (long) idx + (long) numBytes > byteBuffer.limit()) {
+            throw new IOException("Premature EOF while reading classfile");
+        }
+        return idx;
+    }
+
     /**
      * Read an unsigned byte from the buffer.
      * 
@@ -212,6 +231,9 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
      *             If there was an exception while reading.
      */
     public int readUnsignedByte(final int offset) throws IOException {
+        if (byteBuffer != null) {
+            return byteBuffer.get(byteBufferIndex(offset, 1)) & 0xff;
+        }
         final int bytesToRead = Math.max(0, offset + 1 - used);
         if (bytesToRead > 0) {
             readMore(bytesToRead);
@@ -242,6 +264,9 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
      *             If there was an exception while reading.
      */
     public int readUnsignedShort(final int offset) throws IOException {
+        if (byteBuffer != null) {
+            return byteBuffer.getShort(byteBufferIndex(offset, 2)) & 0xffff;
+        }
         final int bytesToRead = Math.max(0, offset + 2 - used);
         if (bytesToRead > 0) {
             readMore(bytesToRead);
@@ -272,6 +297,9 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
      *             If there was an exception while reading.
      */
     public int readInt(final int offset) throws IOException {
+        if (byteBuffer != null) {
+            return byteBuffer.getInt(byteBufferIndex(offset, 4));
+        }
         final int bytesToRead = Math.max(0, offset + 4 - used);
         if (bytesToRead > 0) {
             readMore(bytesToRead);
@@ -303,14 +331,17 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
      *             If there was an exception while reading.
      */
     public long readLong(final int offset) throws IOException {
+        if (byteBuffer != null) {
+            return byteBuffer.getLong(byteBufferIndex(offset, 8));
+        }
         final int bytesToRead = Math.max(0, offset + 8 - used);
         if (bytesToRead > 0) {
             readMore(bytesToRead);
         }
         return (((long) (((buf[offset] & 0xff) << 24) | ((buf[offset + 1] & 0xff) << 16)
                 | ((buf[offset + 2] & 0xff) << 8) | (buf[offset + 3] & 0xff))) << 32)
-                | ((buf[offset + 4] & 0xff) << 24) | ((buf[offset + 5] & 0xff) << 16)
-                | ((buf[offset + 6] & 0xff) << 8) | (buf[offset + 7] & 0xff);
+                | ((((buf[offset + 4] & 0xff) << 24) | ((buf[offset + 5] & 0xff) << 16)
+                        | ((buf[offset + 6] & 0xff) << 8) | (buf[offset + 7] & 0xff)) & 0xffffffffL);
     }
 
     /**
@@ -322,13 +353,29 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
      *             If there was an exception while reading.
      */
     public void skip(final int bytesToSkip) throws IOException {
-        final int bytesToRead = Math.max(0, curr + bytesToSkip - used);
-        if (bytesToRead > 0) {
-            readMore(bytesToRead);
+        if (byteBuffer != null) {
+            byteBufferIndex(curr, bytesToSkip);
+        } else {
+            final int bytesToRead = Math.max(0, curr + bytesToSkip - used);
+            if (bytesToRead > 0) {
+                readMore(bytesToRead);
+            }
         }
         curr += bytesToSkip;
     }
 
+    /**
+     * Get the byte at the given offset, after the offset has already been checked to be in range (and, for an
+     * InputStream, read into the buffer).
+     *
+     * @param offset
+     *            the offset, relative to the start of the data
+     * @return the byte
+     */
+    byte getByte(final int offset) {
+        return byteBuffer != null ? byteBuffer.get(byteBufferStart + offset) : buf[offset];
+    }
+
     /**
      * Reads the "modified UTF8" format defined in the Java classfile spec, optionally replacing '/' with '.', and
      * optionally removing the prefix "L" and the suffix ";".
@@ -345,25 +392,111 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
      */
     public String readString(final int strStart, final boolean replaceSlashWithDot, final boolean stripLSemicolon)
             throws IOException {
+        return readString(strStart, replaceSlashWithDot, stripLSemicolon, /* stringInternTable = */ null);
+    }
+
+    /**
+     * Reads the "modified UTF8" format defined in the Java classfile spec, optionally replacing '/' with '.', and
+     * optionally removing the prefix "L" and the suffix ";". If a {@link StringInternTable} is provided, the string
+     * is looked up in the table by its raw modified UTF8 bytes, and is only decoded if it is not already in the
+     * table.
+     *
+     * @param strStart
+     *            The start index of the string.
+     * @param replaceSlashWithDot
+     *            If true, replace '/' with '.'.
+     * @param stripLSemicolon
+     *            If true, string final ';' character.
+     * @param stringInternTable
+     *            The string intern table, or null to always decode the string.
+     * @return The string.
+     * @throws IOException
+     *             If an I/O exception occurs.
+     */
+    public String readString(final int strStart, final boolean replaceSlashWithDot, final boolean stripLSemicolon,
+            final StringInternTable stringInternTable) throws IOException {
         final int utfLen = readUnsignedShort(strStart);
         final int utfStart = strStart + 2;
-        final int bufferUnderrunBytes = Math.max(0, utfStart + utfLen - used);
-        if (bufferUnderrunBytes > 0) {
-            readMore(bufferUnderrunBytes);
+        if (byteBuffer != null) {
+            byteBufferIndex(utfStart, utfLen);
+        } else {
+            final int bufferUnderrunBytes = Math.max(0, utfStart + utfLen - used);
+            if (bufferUnderrunBytes > 0) {
+                readMore(bufferUnderrunBytes);
+            }
+        }
+        if (stringInternTable == null) {
+            return decodeString(utfStart, utfLen, replaceSlashWithDot, stripLSemicolon);
+        } else {
+            return stringInternTable.intern(this, utfStart, utfLen, replaceSlashWithDot, stripLSemicolon);
+        }
+    }
+
+    /**
+     * Reads a range of bytes within a "modified UTF8" string as a string, optionally replacing '/' with '.'. The
+     * range must not start or end within a multi-byte character. If a {@link StringInternTable} is provided, the
+     * string is looked up in the table by its raw modified UTF8 bytes, and is only decoded if it is not already in
+     * the table.
+     *
+     * @param utfStart
+     *            The start index of the string bytes.
+     * @param utfLen
+     *            The number of string bytes.
+     * @param replaceSlashWithDot
+     *            If true, replace '/' with '.'.
+     * @param stringInternTable
+     *            The string intern table, or null.
+     * @return The string.
+     * @throws IOException
+     *             If an exception occurs while trying to read from the stream.
+     */
+    public String readSubstring(final int utfStart, final int utfLen, final boolean replaceSlashWithDot,
+            final StringInternTable stringInternTable) throws IOException {
+        if (byteBuffer != null) {
+            byteBufferIndex(utfStart, utfLen);
+        } else {
+            final int bufferUnderrunBytes = Math.max(0, utfStart + utfLen - used);
+            if (bufferUnderrunBytes > 0) {
+                readMore(bufferUnderrunBytes);
+            }
+        }
+        if (stringInternTable == null) {
+            return decodeString(utfStart, utfLen, replaceSlashWithDot, /* stripLSemicolon = */ false);
+        } else {
+            return stringInternTable.intern(this, utfStart, utfLen, replaceSlashWithDot,
+                    /* stripLSemicolon = */ false);
         }
+    }
+
+    /**
+     * Decode a "modified UTF8" string, after the bytes of the string have already been checked to be in range
+     * (and, for an InputStream, read into the buffer).
+     *
+     * @param utfStart
+     *            The start index of the string bytes.
+     * @param utfLen
+     *            The number of string bytes.
+     * @param replaceSlashWithDot
+     *            If true, replace '/' with '.'.
+     * @param stripLSemicolon
+     *            If true, string final ';' character.
+     * @return The string.
+     */
+    String decodeString(final int utfStart, final int utfLen, final boolean replaceSlashWithDot,
+            final boolean stripLSemicolon) {
         final char[] chars = new char[utfLen];
         int c, c2, c3, c4;
         int byteIdx = 0;
         int charIdx = 0;
         for (; byteIdx < utfLen; byteIdx++) {
-            c = buf[utfStart + byteIdx] & 0xff;
+            c = getByte(utfStart + byteIdx) & 0xff;
             if (c > 127) {
                 break;
             }
             chars[charIdx++] = (char) (replaceSlashWithDot && c == '/' ? '.' : c);
         }
         while (byteIdx < utfLen) {
-            c = buf[utfStart + byteIdx] & 0xff;
+            c = getByte(utfStart + byteIdx) & 0xff;
             switch (c >> 4) {
             case 0:
             case 1:
@@ -382,7 +515,7 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
                 if (byteIdx > utfLen) {
                     throw new ClassGraphException("Bad modified UTF8");
                 }
-                c2 = buf[utfStart + byteIdx - 1];
+                c2 = getByte(utfStart + byteIdx - 1);
                 if ((c2 & 0xc0) != 0x80) {
                     throw new ClassGraphException("Bad modified UTF8");
                 }
@@ -394,8 +527,8 @@ public class InputStreamOrByteBufferAdapter implements AutoCloseable {
                 if (byteIdx > utfLen) {
                     throw new ClassGraphException("Bad modified UTF8");
                 }
-                c2 = buf[utfStart + byteIdx - 2];
-                c3 = buf[utfStart + byteIdx - 1];
+                c2 = getByte(utfStart + byteIdx - 2);
+                c3 = getByte(utfStart + byteIdx - 1);
                 if ((c2 & 0xc0) != 0x80 || (c3 & 0xc0) != 0x80) {
                     throw new ClassGraphException("Bad modified UTF8");
                 }
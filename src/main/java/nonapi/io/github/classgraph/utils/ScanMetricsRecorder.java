@@ -0,0 +1,271 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.github.classgraph.ScanMetrics.Phase;
+import nonapi.io.github.classgraph.concurrency.VirtualThreads;
+
+/** Threadsafe recorder for the timings and counters that are reported as a {@code ScanMetrics} snapshot. */
+public class ScanMetricsRecorder {
+    /** The wall time spent in each phase, in nanoseconds, indexed by {@link Phase#ordinal()}. */
+    private final AtomicLongArray wallTimeNanos = new AtomicLongArray(Phase.values().length);
+
+    /** The CPU time spent in each phase, in nanoseconds, indexed by {@link Phase#ordinal()}. */
+    private final AtomicLongArray cpuTimeNanos = new AtomicLongArray(Phase.values().length);
+
+    /** The number of classfiles parsed. */
+    private final AtomicLong numClassfilesParsed = new AtomicLong();
+
+    /** The number of bytes inflated from deflated zip entries. */
+    private final AtomicLong numBytesInflated = new AtomicLong();
+
+    /** The number of bytes of jarfiles mapped into memory. */
+    private final AtomicLong numBytesMapped = new AtomicLong();
+
+    /** The number of temporary files written. */
+    private final AtomicLong numTempFilesWritten = new AtomicLong();
+
+    /** The {@link ThreadMXBean}, or null if thread CPU time measurement is not supported. */
+    private static final ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the {@link ThreadMXBean}, if thread CPU time measurement is supported and enabled.
+     *
+     * @return the {@link ThreadMXBean}, or null if thread CPU time measurement is not supported or not enabled.
+     */
+    private static ThreadMXBean getThreadMXBean() {
+        try {
+            final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            return threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()
+                    ? threadMXBean
+                    : null;
+        } catch (final Throwable t) {
+            // java.lang.management is not available on all platforms (e.g. Android)
+            return null;
+        }
+    }
+
+    /**
+     * Get the CPU time used by a thread.
+     *
+     * @param threadId
+     *            the thread id
+     * @return the CPU time used by the thread in nanoseconds, or -1 if CPU time measurement is not supported, or
+     *         the thread is no longer alive.
+     */
+    public static long getThreadCpuTimeNanos(final long threadId) {
+        if (THREAD_MX_BEAN == null) {
+            return -1L;
+        }
+        try {
+            return THREAD_MX_BEAN.getThreadCpuTime(threadId);
+        } catch (final UnsupportedOperationException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Get the CPU time used by the current thread.
+     *
+     * @return the CPU time used by the current thread in nanoseconds, or -1 if CPU time measurement is not
+     *         supported, or the current thread is a virtual thread.
+     */
+    public static long getCurrentThreadCpuTimeNanos() {
+        // ThreadMXBean may throw UnsupportedOperationException for virtual threads (JDK 21+)
+        if (THREAD_MX_BEAN == null || VirtualThreads.isVirtual(Thread.currentThread())) {
+            return -1L;
+        }
+        try {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        } catch (final UnsupportedOperationException e) {
+            return -1L;
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Record the end of a phase (or of a piece of work within a phase) that ran on the current thread. May be
+     * called from multiple threads for the same phase, in which case wall time is summed across threads.
+     *
+     * @param phase
+     *            the phase
+     * @param startTimeNanos
+     *            the value of {@link System#nanoTime()} at the start of the phase
+     * @param startCpuTimeNanos
+     *            the value of {@link #getCurrentThreadCpuTimeNanos()} at the start of the phase
+     */
+    public void endPhase(final Phase phase, final long startTimeNanos, final long startCpuTimeNanos) {
+        wallTimeNanos.addAndGet(phase.ordinal(), System.nanoTime() - startTimeNanos);
+        if (startCpuTimeNanos >= 0L) {
+            final long endCpuTimeNanos = getCurrentThreadCpuTimeNanos();
+            if (endCpuTimeNanos >= 0L) {
+                cpuTimeNanos.addAndGet(phase.ordinal(), endCpuTimeNanos - startCpuTimeNanos);
+            }
+        }
+    }
+
+    /**
+     * Record the end of a phase that ran on multiple threads.
+     *
+     * @param phase
+     *            the phase
+     * @param startTimeNanos
+     *            the value of {@link System#nanoTime()} at the start of the phase
+     * @param threadIdToStartCpuTimeNanos
+     *            the CPU time of each thread that did work in the phase, as of the time the thread started work
+     */
+    public void endParallelPhase(final Phase phase, final long startTimeNanos,
+            final Map<Long, Long> threadIdToStartCpuTimeNanos) {
+        wallTimeNanos.addAndGet(phase.ordinal(), System.nanoTime() - startTimeNanos);
+        for (final Entry<Long, Long> ent : threadIdToStartCpuTimeNanos.entrySet()) {
+            final long startCpuTimeNanos = ent.getValue();
+            if (startCpuTimeNanos >= 0L) {
+                final long endCpuTimeNanos = getThreadCpuTimeNanos(ent.getKey());
+                if (endCpuTimeNanos >= startCpuTimeNanos) {
+                    cpuTimeNanos.addAndGet(phase.ordinal(), endCpuTimeNanos - startCpuTimeNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record the CPU time of the current thread at the start of its work in a parallel phase, if it has not
+     * already been recorded.
+     *
+     * @param threadIdToStartCpuTimeNanos
+     *            the map from thread id to the CPU time of the thread at the start of its work in the phase
+     */
+    public static void recordThreadStart(final ConcurrentHashMap<Long, Long> threadIdToStartCpuTimeNanos) {
+        final Long threadId = Thread.currentThread().getId();
+        if (!threadIdToStartCpuTimeNanos.containsKey(threadId)) {
+            threadIdToStartCpuTimeNanos.putIfAbsent(threadId, getCurrentThreadCpuTimeNanos());
+        }
+    }
+
+    /** Increment the number of classfiles parsed. */
+    public void incrementClassfilesParsed() {
+        numClassfilesParsed.incrementAndGet();
+    }
+
+    /**
+     * Add to the number of bytes inflated.
+     *
+     * @param numBytes
+     *            the number of bytes
+     */
+    public void addBytesInflated(final long numBytes) {
+        numBytesInflated.addAndGet(numBytes);
+    }
+
+    /**
+     * Add to the number of bytes mapped into memory.
+     *
+     * @param numBytes
+     *            the number of bytes
+     */
+    public void addBytesMapped(final long numBytes) {
+        numBytesMapped.addAndGet(numBytes);
+    }
+
+    /** Increment the number of temporary files written. */
+    public void incrementTempFilesWritten() {
+        numTempFilesWritten.incrementAndGet();
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the wall time spent in a phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the wall time in nanoseconds
+     */
+    public long getWallTimeNanos(final Phase phase) {
+        return wallTimeNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Get the CPU time spent in a phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the CPU time in nanoseconds, or -1 if CPU time measurement is not supported
+     */
+    public long getCpuTimeNanos(final Phase phase) {
+        return THREAD_MX_BEAN == null ? -1L : cpuTimeNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Get the number of classfiles parsed.
+     *
+     * @return the number of classfiles parsed
+     */
+    public long getNumClassfilesParsed() {
+        return numClassfilesParsed.get();
+    }
+
+    /**
+     * Get the number of bytes inflated.
+     *
+     * @return the number of bytes inflated
+     */
+    public long getNumBytesInflated() {
+        return numBytesInflated.get();
+    }
+
+    /**
+     * Get the number of bytes mapped into memory.
+     *
+     * @return the number of bytes mapped into memory
+     */
+    public long getNumBytesMapped() {
+        return numBytesMapped.get();
+    }
+
+    /**
+     * Get the number of temporary files written.
+     *
+     * @return the number of temporary files written
+     */
+    public long getNumTempFilesWritten() {
+        return numTempFilesWritten.get();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+/**
+ * A scan-wide, threadsafe table for deduplicating strings decoded from the constant pools of classfiles. Strings
+ * are keyed on their raw modified UTF8 bytes (along with the decoding options), so that the bytes can be hashed
+ * and compared in place in the classfile buffer, and a string is only decoded and allocated the first time it is
+ * encountered. This avoids decoding the same class, package and descriptor names many times during a scan, and
+ * means that only one copy of each string is retained by the scan result.
+ */
+public class StringInternTable {
+    /** The number of segments. Must be a power of two. */
+    private static final int NUM_SEGMENTS = 64;
+
+    /** The initial capacity of each segment. Must be a power of two. */
+    private static final int INITIAL_SEGMENT_CAPACITY = 256;
+
+    /**
+     * Strings longer than this (in bytes) are decoded without being interned, since they are unlikely to be
+     * duplicated (e.g. long string constants).
+     */
+    private static final int MAX_INTERNED_LENGTH = 1024;
+
+    /** Decoding option flag for replacing '/' with '.'. */
+    private static final int FLAG_REPLACE_SLASH_WITH_DOT = 1;
+
+    /** Decoding option flag for stripping the leading 'L' and trailing ';'. */
+    private static final int FLAG_STRIP_L_SEMICOLON = 2;
+
+    /** The segments. Each segment is locked independently. */
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+
+    /** An entry in the table. */
+    private static class Entry {
+        /** The hash of the raw bytes and the decoding options. */
+        final int hash;
+
+        /** The decoding options. */
+        final int flags;
+
+        /** The raw modified UTF8 bytes. */
+        final byte[] utf8;
+
+        /** The decoded string. */
+        final String str;
+
+        /** The next entry in the hash chain. */
+        Entry next;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            the hash
+         * @param flags
+         *            the decoding options
+         * @param utf8
+         *            the raw modified UTF8 bytes
+         * @param str
+         *            the decoded string
+         * @param next
+         *            the next entry in the hash chain
+         */
+        Entry(final int hash, final int flags, final byte[] utf8, final String str, final Entry next) {
+            this.hash = hash;
+            this.flags = flags;
+            this.utf8 = utf8;
+            this.str = str;
+            this.next = next;
+        }
+    }
+
+    /** A segment of the table, consisting of a chained hashtable. */
+    private static class Segment {
+        /** The hash chains. */
+        Entry[] table = new Entry[INITIAL_SEGMENT_CAPACITY];
+
+        /** The number of entries. */
+        int size;
+
+        /**
+         * Find an entry in the segment.
+         *
+         * @param hash
+         *            the hash
+         * @param flags
+         *            the decoding options
+         * @param in
+         *            the buffer containing the raw bytes
+         * @param utfStart
+         *            the start index of the raw bytes
+         * @param utfLen
+         *            the number of raw bytes
+         * @return the decoded string, or null if not found
+         */
+        String find(final int hash, final int flags, final InputStreamOrByteBufferAdapter in, final int utfStart,
+                final int utfLen) {
+            for (Entry e = table[(hash >>> 6) & (table.length - 1)]; e != null; e = e.next) {
+                if (e.hash == hash && e.flags == flags && e.utf8.length == utfLen) {
+                    final byte[] utf8 = e.utf8;
+                    boolean matches = true;
+                    for (int i = 0; i < utfLen && matches; i++) {
+                        matches = utf8[i] == in.getByte(utfStart + i);
+                    }
+                    if (matches) {
+                        return e.str;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Add an entry to the segment, growing the table if needed.
+         *
+         * @param entryHash
+         *            the hash
+         * @param flags
+         *            the decoding options
+         * @param utf8
+         *            the raw modified UTF8 bytes
+         * @param str
+         *            the decoded string
+         */
+        void add(final int entryHash, final int flags, final byte[] utf8, final String str) {
+            if (size >= table.length - (table.length >>> 2)) {
+                final Entry[] newTable = new Entry[table.length << 1];
+                for (Entry e : table) {
+                    while (e != null) {
+                        final Entry next = e.next;
+                        final int idx = (e.hash >>> 6) & (newTable.length - 1);
+                        e.next = newTable[idx];
+                        newTable[idx] = e;
+                        e = next;
+                    }
+                }
+                table = newTable;
+            }
+            final int idx = (entryHash >>> 6) & (table.length - 1);
+            table[idx] = new Entry(entryHash, flags, utf8, str, table[idx]);
+            size++;
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    public StringInternTable() {
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Look up a modified UTF8 string in the table, decoding it and adding it to the table if it is not present.
+     *
+     * @param in
+     *            the buffer containing the raw bytes, which must already have been checked to be in range
+     * @param utfStart
+     *            the start index of the raw bytes
+     * @param utfLen
+     *            the number of raw bytes
+     * @param replaceSlashWithDot
+     *            if true, replace '/' with '.'
+     * @param stripLSemicolon
+     *            if true, strip the leading 'L' and trailing ';'
+     * @return the decoded string
+     */
+    String intern(final InputStreamOrByteBufferAdapter in, final int utfStart, final int utfLen,
+            final boolean replaceSlashWithDot, final boolean stripLSemicolon) {
+        if (utfLen > MAX_INTERNED_LENGTH) {
+            return in.decodeString(utfStart, utfLen, replaceSlashWithDot, stripLSemicolon);
+        }
+        final int flags = (replaceSlashWithDot ? FLAG_REPLACE_SLASH_WITH_DOT : 0)
+                | (stripLSemicolon ? FLAG_STRIP_L_SEMICOLON : 0);
+
+        // Hash the raw bytes in place
+        int h = flags;
+        for (int i = 0; i < utfLen; i++) {
+            h = 31 * h + in.getByte(utfStart + i);
+        }
+        final int hash = h ^ (h >>> 16);
+        final Segment segment = segments[hash & (NUM_SEGMENTS - 1)];
+
+        // Fast path: string is already in the table
+        synchronized (segment) {
+            final String str = segment.find(hash, flags, in, utfStart, utfLen);
+            if (str != null) {
+                return str;
+            }
+        }
+
+        // Slow path: decode the string outside the lock, then add it to the table (unless another thread added
+        // the same string in the meantime)
+        final String decoded = in.decodeString(utfStart, utfLen, replaceSlashWithDot, stripLSemicolon);
+        final byte[] utf8 = new byte[utfLen];
+        for (int i = 0; i < utfLen; i++) {
+            utf8[i] = in.getByte(utfStart + i);
+        }
+        synchronized (segment) {
+            final String str = segment.find(hash, flags, in, utfStart, utfLen);
+            if (str != null) {
+                return str;
+            }
+            segment.add(hash, flags, utf8, decoded);
+        }
+        return decoded;
+    }
+}
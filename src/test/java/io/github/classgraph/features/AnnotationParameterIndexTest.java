@@ -0,0 +1,107 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * AnnotationParameterIndexTest.
+ */
+public class AnnotationParameterIndexTest {
+    /**
+     * The Interface Route.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Route {
+        /**
+         * Path.
+         *
+         * @return the paths
+         */
+        String[] path();
+
+        /**
+         * Element type.
+         *
+         * @return the element type
+         */
+        ElementType elementType() default ElementType.TYPE;
+
+        /**
+         * Handler.
+         *
+         * @return the handler class
+         */
+        Class<?> handler() default Object.class;
+
+        /**
+         * Priority.
+         *
+         * @return the priority
+         */
+        int priority() default 0;
+    }
+
+    /**
+     * The Class A.
+     */
+    @Route(path = { "/a", "/shared" }, handler = String.class)
+    public static class A {
+        /** The field. */
+        @Route(path = "/field", priority = 2)
+        public int field;
+
+        /**
+         * Method.
+         */
+        @Route(path = "/method", elementType = ElementType.METHOD)
+        public void method() {
+        }
+    }
+
+    /**
+     * The Class B.
+     */
+    @Route(path = "/shared", priority = 1)
+    public static class B {
+    }
+
+    /**
+     * Test annotation parameter value lookups.
+     */
+    @Test
+    public void annotationParameterIndex() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(AnnotationParameterIndexTest.class.getPackage().getName())
+                .enableAllInfo().enableQueryIndexes().scan()) {
+            final String route = Route.class.getName();
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "path", "/a").getNames())
+                    .containsExactly(A.class.getName());
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "path", "/shared").getNames())
+                    .containsExactly(A.class.getName(), B.class.getName());
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "path", "/b").getNames()).isEmpty();
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "priority", 1).getNames())
+                    .containsExactly(B.class.getName());
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "handler", String.class).getNames())
+                    .containsExactly(A.class.getName());
+            // Default parameter values are indexed
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "handler", Object.class).getNames())
+                    .containsExactly(B.class.getName());
+            assertThat(scanResult.getClassesWithAnnotationParameterValue(route, "elementType", ElementType.TYPE)
+                    .getNames()).containsExactly(A.class.getName(), B.class.getName());
+            assertThat(scanResult.getMethodsWithAnnotationParameterValue(route, "elementType", ElementType.METHOD)
+                    .getNames()).containsExactly("method");
+            assertThat(scanResult.getMethodsWithAnnotationParameterValue(route, "path", "/a").getNames())
+                    .isEmpty();
+            assertThat(scanResult.getFieldsWithAnnotationParameterValue(route, "priority", 2).getNames())
+                    .containsExactly("field");
+        }
+    }
+}
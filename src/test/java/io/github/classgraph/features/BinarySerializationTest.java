@@ -0,0 +1,162 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import io.github.classgraph.AnnotationEnumValue;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * BinarySerializationTest.
+ */
+public class BinarySerializationTest {
+    /**
+     * The Interface W.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface W {
+        /**
+         * Ints.
+         *
+         * @return the int[]
+         */
+        int[] ints() default { 1, -2, 3 };
+
+        /**
+         * Element type.
+         *
+         * @return the element type
+         */
+        ElementType elementType();
+
+        /**
+         * Class ref.
+         *
+         * @return the class
+         */
+        Class<?> classRef();
+
+        /**
+         * Strings.
+         *
+         * @return the string[]
+         */
+        String[] strings();
+    }
+
+    /**
+     * The Class A.
+     */
+    @W(elementType = ElementType.FIELD, classRef = String.class, strings = { "x", "y" })
+    public static class A {
+        /** The constant. */
+        public static final long CONSTANT = -1234567890123L;
+
+        /**
+         * Method.
+         *
+         * @param x
+         *            the x
+         * @return the double
+         */
+        public double method(final float x) {
+            return x;
+        }
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B extends A implements Comparable<B> {
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        @Override
+        public int compareTo(final B o) {
+            return 0;
+        }
+    }
+
+    /**
+     * Serialize a scan result to binary, deserialize it, and check that the JSON serialization of the
+     * deserialized scan result is the same as the JSON serialization of a scan result deserialized from JSON.
+     *
+     * @throws IOException
+     *             if the binary format could not be written
+     */
+    @Test
+    public void binarySerialization() throws IOException {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(BinarySerializationTest.class.getPackage().getName())
+                .enableAllInfo().enableStaticFinalFieldConstantInitializerValues().scan()) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.toBinary(outputStream);
+            final byte[] binary = outputStream.toByteArray();
+            final String json = scanResult.toJSON();
+            assertThat(binary.length).isLessThan(json.length());
+
+            final ScanResult scanResultFromBinary = ScanResult.fromBinary(ByteBuffer.wrap(binary));
+            final ScanResult scanResultFromJSON = ScanResult.fromJSON(json);
+            assertThat(scanResultFromBinary.toJSON()).isEqualTo(scanResultFromJSON.toJSON());
+
+            assertThat(scanResultFromBinary.getSubclasses(A.class.getName()).getNames())
+                    .containsOnly(B.class.getName());
+            assertThat(scanResultFromBinary.getClassesImplementing(Comparable.class.getName()).getNames())
+                    .contains(B.class.getName());
+            final ClassInfo classInfo = scanResultFromBinary.getClassInfo(A.class.getName());
+            assertThat(classInfo.getFieldInfo("CONSTANT").getConstantInitializerValue())
+                    .isEqualTo(-1234567890123L);
+            assertThat(classInfo.getMethodInfo("method").get(0).getTypeDescriptor().toString())
+                    .isEqualTo("double (float)");
+            assertThat(classInfo.getAnnotationInfo(W.class.getName()).getParameterValues().getValue("strings"))
+                    .isEqualTo(new String[] { "x", "y" });
+            assertThat(classInfo.getAnnotationInfo(W.class.getName()).getParameterValues()
+                    .getValue("elementType")).isInstanceOf(AnnotationEnumValue.class);
+            assertThat(classInfo.getAnnotationInfo(W.class.getName()).getParameterValues().getValue("ints"))
+                    .isEqualTo(new int[] { 1, -2, 3 });
+        }
+    }
+
+    /**
+     * Check that a buffer that does not contain a binary scan result is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBinary() {
+        ScanResult.fromBinary(ByteBuffer.wrap(new byte[] { 'n', 'o', 'p', 'e' }));
+    }
+
+    /**
+     * Check that a corrupt size is rejected before an array of that size is allocated.
+     *
+     * @throws IOException
+     *             if the binary format could not be written
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void corruptSize() throws IOException {
+        final byte[] binary;
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(BinarySerializationTest.class.getPackage().getName())
+                .enableClassInfo().scan()) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.toBinary(outputStream);
+            binary = outputStream.toByteArray();
+        }
+        // Keep the magic number and format version, then replace the size of the string table with
+        // Integer.MAX_VALUE
+        final byte[] corrupt = Arrays.copyOf(binary, 64);
+        final byte[] maxVarInt = { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 };
+        System.arraycopy(maxVarInt, 0, corrupt, 5, maxVarInt.length);
+        ScanResult.fromBinary(ByteBuffer.wrap(corrupt));
+    }
+}
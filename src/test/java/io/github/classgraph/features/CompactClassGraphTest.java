@@ -0,0 +1,96 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * CompactClassGraphTest.
+ */
+public class CompactClassGraphTest {
+    /**
+     * The Interface MetaAnnotation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface MetaAnnotation {
+    }
+
+    /**
+     * The Interface Annotation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @MetaAnnotation
+    public @interface Annotation {
+    }
+
+    /**
+     * The Interface I.
+     */
+    public interface I {
+    }
+
+    /**
+     * The Interface J.
+     */
+    public interface J extends I {
+    }
+
+    /**
+     * The Class A.
+     */
+    @Annotation
+    public static class A implements J {
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B extends A {
+    }
+
+    /**
+     * The Class C.
+     */
+    public static class C extends B implements I {
+    }
+
+    /**
+     * Check that queries over the compacted class graph return the same related classes, in the same order, as
+     * after linking.
+     */
+    @Test
+    public void compactClassGraph() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(CompactClassGraphTest.class.getPackage().getName()).enableAllInfo()
+                .scan()) {
+            assertThat(scanResult.getSubclasses(A.class.getName()).getNames())
+                    .containsExactly(B.class.getName(), C.class.getName());
+            assertThat(scanResult.getClassInfo(C.class.getName()).getSuperclasses().getNames())
+                    .containsExactly(B.class.getName(), A.class.getName());
+            assertThat(scanResult.getClassesImplementing(I.class.getName()).getNames())
+                    .containsExactly(A.class.getName(), B.class.getName(), C.class.getName(), J.class.getName());
+            assertThat(scanResult.getClassesWithAnnotation(MetaAnnotation.class.getName()).getNames())
+                    .containsExactly(A.class.getName(), Annotation.class.getName());
+            final ClassInfo classInfo = scanResult.getClassInfo(C.class.getName());
+            assertThat(classInfo.getSuperclass().getName()).isEqualTo(B.class.getName());
+            assertThat(classInfo.getInterfaces().getNames()).containsExactly(I.class.getName(),
+                    J.class.getName());
+            assertThat(classInfo.getOuterClasses().getNames()).containsExactly(CompactClassGraphTest.class.getName());
+            assertThat(scanResult.getClassInfo(CompactClassGraphTest.class.getName()).getInnerClasses().getNames())
+                    .contains(A.class.getName(), MetaAnnotation.class.getName());
+
+            // The compacted class graph is serialized in the same form
+            final ScanResult deserialized = ScanResult.fromJSON(scanResult.toJSON());
+            assertThat(deserialized.toJSON()).isEqualTo(scanResult.toJSON());
+            assertThat(deserialized.getSubclasses(A.class.getName()).getNames())
+                    .containsExactly(B.class.getName(), C.class.getName());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ClassInfoList;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ConstantPoolClassDependenciesTest.
+ */
+public class ConstantPoolClassDependenciesTest {
+    /**
+     * The Class A.
+     */
+    public static class A {
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B {
+        /** The array of A, referenced only in a field descriptor. */
+        A[][] as;
+    }
+
+    /**
+     * The Class C.
+     */
+    public static class C {
+        /**
+         * Creates a B.
+         *
+         * @return the B
+         */
+        public Object createB() {
+            return new B();
+        }
+
+        /**
+         * Takes an A.
+         *
+         * @param a
+         *            the a
+         */
+        void takeA(final A a) {
+        }
+    }
+
+    /**
+     * Check the dependencies of the test classes.
+     *
+     * @param scanResult
+     *            the scan result
+     */
+    private static void checkDependencies(final ScanResult scanResult) {
+        assertThat(scanResult.getClassInfo(A.class.getName()).getClassDependencies()).isEmpty();
+        assertThat(scanResult.getClassInfo(B.class.getName()).getClassDependencies().getNames())
+                .containsExactly(A.class.getName());
+        assertThat(scanResult.getClassInfo(C.class.getName()).getClassDependencies().getNames())
+                .containsExactly(A.class.getName(), B.class.getName());
+
+        final Map<ClassInfo, ClassInfoList> classDependencyMap = scanResult.getClassDependencyMap();
+        assertThat(classDependencyMap.get(scanResult.getClassInfo(A.class.getName()))).isEmpty();
+        assertThat(classDependencyMap.get(scanResult.getClassInfo(C.class.getName())).getNames())
+                .containsExactly(A.class.getName(), B.class.getName());
+
+        final Map<ClassInfo, ClassInfoList> reverseClassDependencyMap = scanResult
+                .getReverseClassDependencyMap();
+        assertThat(reverseClassDependencyMap.get(scanResult.getClassInfo(A.class.getName())).getNames())
+                .containsExactly(B.class.getName(), C.class.getName());
+        assertThat(reverseClassDependencyMap.get(scanResult.getClassInfo(B.class.getName())).getNames())
+                .containsExactly(C.class.getName());
+        assertThat(reverseClassDependencyMap.get(scanResult.getClassInfo(C.class.getName()))).isNull();
+    }
+
+    /**
+     * Test class dependencies found in the constant pool.
+     */
+    @Test
+    public void constantPoolClassDependencies() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistClasses(A.class.getName(), B.class.getName(), C.class.getName())
+                .enableConstantPoolClassDependencies().scan()) {
+            checkDependencies(scanResult);
+        }
+    }
+
+    /**
+     * Test that the class dependency graph is rebuilt after binary deserialization.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void constantPoolClassDependenciesBinarySerialization() throws IOException {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistClasses(A.class.getName(), B.class.getName(), C.class.getName())
+                .enableConstantPoolClassDependencies().scan()) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.toBinary(outputStream);
+            final ScanResult scanResultFromBinary = ScanResult
+                    .fromBinary(ByteBuffer.wrap(outputStream.toByteArray()));
+            checkDependencies(scanResultFromBinary);
+        }
+    }
+}
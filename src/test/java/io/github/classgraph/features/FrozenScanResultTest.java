@@ -0,0 +1,276 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.FieldInfo;
+import io.github.classgraph.FrozenClassInfo;
+import io.github.classgraph.FrozenMemberInfo;
+import io.github.classgraph.FrozenScanResult;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * FrozenScanResultTest.
+ */
+public class FrozenScanResultTest {
+    /**
+     * The Interface MetaAnnotation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface MetaAnnotation {
+    }
+
+    /**
+     * The Interface Marker.
+     */
+    @MetaAnnotation
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker {
+    }
+
+    /**
+     * The Interface Shape.
+     */
+    public interface Shape {
+    }
+
+    /**
+     * The Interface Polygon.
+     */
+    public interface Polygon extends Shape {
+    }
+
+    /**
+     * The Class Square.
+     */
+    @Marker
+    public static class Square implements Polygon {
+        /** The side. */
+        public int side;
+
+        /**
+         * Area.
+         *
+         * @return the area
+         */
+        public long area() {
+            return (long) side * side;
+        }
+    }
+
+    /**
+     * The Class ColoredSquare.
+     */
+    public static class ColoredSquare extends Square {
+        /** The color. */
+        public String color;
+    }
+
+    /**
+     * Create a minimal classfile for an empty public class.
+     *
+     * @param className
+     *            the class name
+     * @return the classfile bytes
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private static byte[] classfile(final String className) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(byteArrayOutputStream)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // Minor version
+            out.writeShort(50); // Major version
+            out.writeShort(5); // Constant pool count
+            out.writeByte(1); // #1: Utf8 class name
+            out.writeUTF(className.replace('.', '/'));
+            out.writeByte(7); // #2: Class #1
+            out.writeShort(1);
+            out.writeByte(1); // #3: Utf8 superclass name
+            out.writeUTF("java/lang/Object");
+            out.writeByte(7); // #4: Class #3
+            out.writeShort(3);
+            out.writeShort(0x0021); // ACC_PUBLIC | ACC_SUPER
+            out.writeShort(2); // This class
+            out.writeShort(4); // Superclass
+            out.writeShort(0); // Interfaces
+            out.writeShort(0); // Fields
+            out.writeShort(0); // Methods
+            out.writeShort(0); // Attributes
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Scan the test classes.
+     *
+     * @return the scan result
+     */
+    private static ScanResult scan() {
+        return new ClassGraph()
+                .whitelistClasses(MetaAnnotation.class.getName(), Marker.class.getName(), Shape.class.getName(),
+                        Polygon.class.getName(), Square.class.getName(), ColoredSquare.class.getName())
+                .enableAllInfo().scan();
+    }
+
+    /**
+     * Get the names of classes relative to this test class.
+     *
+     * @param classInfos
+     *            the classes
+     * @return the names
+     */
+    private static List<String> names(final List<FrozenClassInfo> classInfos) {
+        final List<String> names = new ArrayList<>();
+        for (final FrozenClassInfo classInfo : classInfos) {
+            names.add(classInfo.getName().substring(FrozenScanResultTest.class.getName().length() + 1));
+        }
+        return names;
+    }
+
+    /**
+     * Check a frozen scan result against the scan result it was frozen from.
+     *
+     * @param scanResult
+     *            the scan result
+     * @param frozenScanResult
+     *            the frozen scan result
+     */
+    private static void check(final ScanResult scanResult, final FrozenScanResult frozenScanResult) {
+        for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+            final FrozenClassInfo frozenClassInfo = frozenScanResult.getClassInfo(classInfo.getName());
+            assertThat(frozenClassInfo.getName()).isEqualTo(classInfo.getName());
+            assertThat(frozenClassInfo.getModifiers()).isEqualTo(classInfo.getModifiers());
+            assertThat(frozenClassInfo.isInterface()).isEqualTo(classInfo.isInterface());
+            assertThat(frozenClassInfo.isAnnotation()).isEqualTo(classInfo.isAnnotation());
+            final List<String> fields = new ArrayList<>();
+            for (final FieldInfo fieldInfo : classInfo.getDeclaredFieldInfo()) {
+                fields.add(fieldInfo.getName() + " " + fieldInfo.getModifiers());
+            }
+            final List<String> frozenFields = new ArrayList<>();
+            for (final FrozenMemberInfo fieldInfo : frozenClassInfo.getDeclaredFieldInfo()) {
+                frozenFields.add(fieldInfo.getName() + " " + fieldInfo.getModifiers());
+            }
+            assertThat(frozenFields).isEqualTo(fields);
+            final List<String> methods = new ArrayList<>();
+            for (final MethodInfo methodInfo : classInfo.getDeclaredMethodAndConstructorInfo()) {
+                methods.add(methodInfo.getName() + " " + methodInfo.getModifiers());
+            }
+            final List<String> frozenMethods = new ArrayList<>();
+            for (final FrozenMemberInfo methodInfo : frozenClassInfo.getDeclaredMethodInfo()) {
+                frozenMethods.add(methodInfo.getName() + " " + methodInfo.getModifiers());
+            }
+            assertThat(frozenMethods).isEqualTo(methods);
+        }
+        final FrozenClassInfo square = frozenScanResult.getClassInfo(Square.class.getName());
+        assertThat(square.getDeclaredFieldInfo().get(0).getTypeDescriptorStr()).isEqualTo("I");
+        assertThat(square.getDeclaredMethodInfo().get(1).toString()).isEqualTo("area()J");
+        assertThat(square.getSuperclass()).isNull();
+        assertThat(frozenScanResult.getClassInfo(ColoredSquare.class.getName()).getSuperclass().getName())
+                .isEqualTo(Square.class.getName());
+        assertThat(names(square.getInterfaces())).containsExactly("Polygon");
+        assertThat(names(frozenScanResult.getSubclasses(Square.class.getName()))).containsExactly("ColoredSquare");
+        assertThat(names(frozenScanResult.getClassesImplementing(Shape.class.getName())))
+                .containsExactly("ColoredSquare", "Square");
+        assertThat(names(frozenScanResult.getClassesWithAnnotation(MetaAnnotation.class.getName())))
+                .containsExactly("Marker", "Square");
+        assertThat(frozenScanResult.getClassInfo("does.not.Exist")).isNull();
+    }
+
+    /**
+     * Test a frozen scan result stored in a direct buffer.
+     */
+    @Test
+    public void freeze() {
+        try (ScanResult scanResult = scan(); FrozenScanResult frozenScanResult = scanResult.freeze()) {
+            check(scanResult, frozenScanResult);
+        }
+    }
+
+    /**
+     * Test a frozen scan result written to a file, and loaded again.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void freezeToFile() throws IOException {
+        final File file = File.createTempFile("classgraph-frozen-", ".bin");
+        try (ScanResult scanResult = scan()) {
+            try (FrozenScanResult frozenScanResult = scanResult.freeze(file)) {
+                check(scanResult, frozenScanResult);
+            }
+            try (FrozenScanResult frozenScanResult = FrozenScanResult.load(file)) {
+                check(scanResult, frozenScanResult);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that a frozen scan result cannot be used after it is closed.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void freezeAfterClose() {
+        final FrozenClassInfo frozenClassInfo;
+        try (ScanResult scanResult = scan(); FrozenScanResult frozenScanResult = scanResult.freeze()) {
+            frozenClassInfo = frozenScanResult.getClassInfo(Square.class.getName());
+        }
+        frozenClassInfo.getName();
+    }
+
+    /**
+     * Test that sorting classes in a frozen scan result does not change the order of the returned lists, which are
+     * sorted by UTF-8 encoded name, even for names that sort differently in UTF-16: U+FF71 sorts after the
+     * surrogates of U+1D49C in UTF-16, but before U+1D49C in UTF-8.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void compareToMatchesListOrder() throws IOException {
+        final String[] classNames = { "frozen.X\uFF71", "frozen.X\uD835\uDC9C" };
+        final File jarFile = File.createTempFile("classgraph-frozen-", ".jar");
+        try {
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(jarFile))) {
+                for (final String className : classNames) {
+                    zipOutputStream.putNextEntry(new ZipEntry(className.replace('.', '/') + ".class"));
+                    zipOutputStream.write(classfile(className));
+                    zipOutputStream.closeEntry();
+                }
+            }
+            try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile).whitelistPackages("frozen")
+                    .scan(); FrozenScanResult frozenScanResult = scanResult.freeze()) {
+                final List<FrozenClassInfo> allClasses = frozenScanResult.getAllClasses();
+                final List<String> allClassNames = new ArrayList<>();
+                for (final FrozenClassInfo classInfo : allClasses) {
+                    allClassNames.add(classInfo.getName());
+                }
+                assertThat(allClassNames).containsExactly(classNames);
+                final List<FrozenClassInfo> sortedClasses = new ArrayList<>(allClasses);
+                Collections.sort(sortedClasses);
+                assertThat(sortedClasses).isEqualTo(allClasses);
+            }
+        } finally {
+            jarFile.delete();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * IncrementalRescanTest.
+ */
+public class IncrementalRescanTest {
+    /**
+     * The Class A.
+     */
+    public static class A {
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B extends A {
+    }
+
+    /**
+     * Copy the classfile of a class into a package directory.
+     *
+     * @param cls
+     *            the class
+     * @param packageDir
+     *            the package directory
+     * @return the copied classfile
+     * @throws IOException
+     *             if the classfile could not be copied
+     */
+    private static File copyClassfile(final Class<?> cls, final File packageDir) throws IOException {
+        final String leafName = cls.getName().substring(cls.getName().lastIndexOf('.') + 1) + ".class";
+        final File classfile = new File(packageDir, leafName);
+        try (InputStream inputStream = cls.getResourceAsStream(leafName)) {
+            Files.copy(inputStream, classfile.toPath());
+        }
+        return classfile;
+    }
+
+    /**
+     * Remove and re-add a classfile, and check that rescanning updates the class graph.
+     *
+     * @throws IOException
+     *             if the classfiles could not be copied
+     */
+    @Test
+    public void rescan() throws IOException {
+        final File classpathDir = Files.createTempDirectory("classgraph-rescan").toFile();
+        final String packageName = IncrementalRescanTest.class.getPackage().getName();
+        final File packageDir = new File(classpathDir, packageName.replace('.', '/'));
+        assertThat(packageDir.mkdirs()).isTrue();
+        copyClassfile(A.class, packageDir);
+        File classfileB = copyClassfile(B.class, packageDir);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(classpathDir)
+                .whitelistPackages(packageName).enableAllInfo().scan()) {
+            assertThat(scanResult.getSubclasses(A.class.getName()).getNames()).containsOnly(B.class.getName());
+            assertThat(scanResult.rescan()).isFalse();
+
+            // Remove the classfile for B, and make sure the change to the directory is detected
+            final long packageDirLastModified = packageDir.lastModified();
+            assertThat(classfileB.delete()).isTrue();
+            assertThat(packageDir.setLastModified(packageDirLastModified - 10000L)).isTrue();
+            assertThat(scanResult.rescan()).isTrue();
+            assertThat(scanResult.getClassInfo(B.class.getName())).isNull();
+            assertThat(scanResult.getSubclasses(A.class.getName())).isEmpty();
+            assertThat(scanResult.rescan()).isFalse();
+
+            // Add the classfile for B back
+            classfileB = copyClassfile(B.class, packageDir);
+            assertThat(packageDir.setLastModified(packageDirLastModified)).isTrue();
+            assertThat(scanResult.rescan()).isTrue();
+            assertThat(scanResult.getSubclasses(A.class.getName()).getNames()).containsOnly(B.class.getName());
+            assertThat(scanResult.getClassInfo(B.class.getName()).getSuperclass().getName())
+                    .isEqualTo(A.class.getName());
+        } finally {
+            for (final File file : packageDir.listFiles()) {
+                file.delete();
+            }
+            for (File dir = packageDir; !dir.equals(classpathDir.getParentFile()); dir = dir.getParentFile()) {
+                dir.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * LargeCentralDirectoryTest.
+ */
+public class LargeCentralDirectoryTest {
+    /** The number of entries, which is large enough for the central directory to be read in parallel. */
+    private static final int NUM_ENTRIES = 40000;
+
+    /**
+     * Check that a jar with a large central directory produces the same resources whether the central directory is
+     * read in parallel or on a single thread.
+     *
+     * @throws IOException
+     *             if the jar could not be written
+     */
+    @Test
+    public void largeCentralDirectory() throws IOException {
+        final File jarFile = File.createTempFile("classgraph-large-", ".jar");
+        try {
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(jarFile))) {
+                for (int i = 0; i < NUM_ENTRIES; i++) {
+                    zipOutputStream.putNextEntry(new ZipEntry("pkg" + (i % 10) + "/Resource" + i + ".txt"));
+                    zipOutputStream.write(Integer.toString(i).getBytes(StandardCharsets.UTF_8));
+                    zipOutputStream.closeEntry();
+                }
+            }
+            List<String> singleThreadedPaths;
+            try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile).scan(1)) {
+                singleThreadedPaths = scanResult.getAllResources().getPaths();
+            }
+            try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile).scan(4)) {
+                final List<String> parallelPaths = scanResult.getAllResources().getPaths();
+                assertThat(parallelPaths).hasSize(NUM_ENTRIES);
+                assertThat(parallelPaths).containsExactlyElementsOf(singleThreadedPaths);
+                assertThat(new String(scanResult.getResourcesWithPath("pkg7/Resource12347.txt").get(0).load(),
+                        StandardCharsets.UTF_8)).isEqualTo("12347");
+            }
+        } finally {
+            jarFile.delete();
+        }
+    }
+}
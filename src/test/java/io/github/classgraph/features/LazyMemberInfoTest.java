@@ -0,0 +1,199 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.FieldInfo;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * LazyMemberInfoTest.
+ */
+public class LazyMemberInfoTest {
+    /**
+     * The Interface MemberAnnotation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface MemberAnnotation {
+        /**
+         * Value.
+         *
+         * @return the string
+         */
+        String value() default "default";
+
+        /**
+         * Values.
+         *
+         * @return the int[]
+         */
+        int[] values() default {};
+    }
+
+    /**
+     * The Class Annotated.
+     */
+    public static class Annotated {
+        /** The annotated field. */
+        @MemberAnnotation("field")
+        public int annotatedField;
+
+        /** The constant. */
+        public static final String CONSTANT = "constant";
+
+        /**
+         * Annotated method.
+         *
+         * @param x
+         *            the x
+         * @return the string
+         */
+        @MemberAnnotation(value = "method", values = { 1, 2 })
+        public String annotatedMethod(@MemberAnnotation("param") final int x) {
+            return CONSTANT + x;
+        }
+
+        /**
+         * Plain method.
+         */
+        public void plainMethod() {
+        }
+    }
+
+    /**
+     * The Class Plain.
+     */
+    public static class Plain extends Annotated {
+        /** The plain field. */
+        public long plainField;
+    }
+
+    /**
+     * Scan the test classes.
+     *
+     * @param lazy
+     *            if true, enable lazy member info
+     * @return the scan result
+     */
+    private static ScanResult scan(final boolean lazy) {
+        final ClassGraph classGraph = new ClassGraph()
+                .whitelistClasses(MemberAnnotation.class.getName(), Annotated.class.getName(),
+                        Plain.class.getName())
+                .enableAllInfo();
+        return (lazy ? classGraph.enableLazyMemberInfo() : classGraph).scan();
+    }
+
+    /**
+     * Describe the fields and methods of a class.
+     *
+     * @param classInfo
+     *            the class info
+     * @return the field and method descriptions
+     */
+    private static List<String> describeMembers(final ClassInfo classInfo) {
+        final List<String> members = new ArrayList<>();
+        for (final FieldInfo fieldInfo : classInfo.getFieldInfo()) {
+            members.add(fieldInfo.toString() + " " + fieldInfo.getConstantInitializerValue());
+        }
+        for (final MethodInfo methodInfo : classInfo.getMethodAndConstructorInfo()) {
+            members.add(methodInfo.toString() + " " + methodInfo.getParameterInfo().length);
+        }
+        return members;
+    }
+
+    /**
+     * Test that lazily read fields and methods are the same as eagerly read fields and methods.
+     */
+    @Test
+    public void lazyMemberInfoMatchesEagerMemberInfo() {
+        try (ScanResult eager = scan(/* lazy = */ false); ScanResult lazy = scan(/* lazy = */ true)) {
+            // Classes can be found by member annotation before any members are read
+            assertThat(lazy.getClassesWithMethodAnnotation(MemberAnnotation.class.getName()).getNames())
+                    .containsExactly(Annotated.class.getName());
+            assertThat(lazy.getClassesWithFieldAnnotation(MemberAnnotation.class.getName()).getNames())
+                    .containsExactly(Annotated.class.getName());
+            for (final String className : new String[] { MemberAnnotation.class.getName(),
+                    Annotated.class.getName(), Plain.class.getName() }) {
+                assertThat(describeMembers(lazy.getClassInfo(className)))
+                        .isEqualTo(describeMembers(eager.getClassInfo(className)));
+            }
+            final MethodInfo methodInfo = lazy.getClassInfo(Annotated.class.getName())
+                    .getMethodInfo("annotatedMethod").get(0);
+            assertThat(methodInfo.getAnnotationInfo(MemberAnnotation.class.getName()).getParameterValues()
+                    .getValue("value")).isEqualTo("method");
+            assertThat(methodInfo.getClassInfo()).isSameAs(lazy.getClassInfo(Annotated.class.getName()));
+        }
+    }
+
+    /**
+     * Test that fields and methods are read when the scan result is serialized, before they are requested.
+     */
+    @Test
+    public void lazyMemberInfoSerialization() {
+        try (ScanResult eager = scan(/* lazy = */ false); ScanResult lazy = scan(/* lazy = */ true)) {
+            assertThat(lazy.toJSON().replace("\"enableLazyMemberInfo\":true", "\"enableLazyMemberInfo\":false"))
+                    .isEqualTo(eager.toJSON());
+        }
+    }
+
+    /**
+     * Test that class dependencies found from the constant pool are the same with lazy member info, and are not
+     * changed when fields and methods are read.
+     */
+    @Test
+    public void lazyMemberInfoConstantPoolClassDependencies() {
+        try (ScanResult eager = new ClassGraph()
+                .whitelistClasses(MemberAnnotation.class.getName(), Annotated.class.getName(),
+                        Plain.class.getName())
+                .enableAllInfo().enableConstantPoolClassDependencies().scan();
+                ScanResult lazy = new ClassGraph()
+                        .whitelistClasses(MemberAnnotation.class.getName(), Annotated.class.getName(),
+                                Plain.class.getName())
+                        .enableAllInfo().enableConstantPoolClassDependencies().enableLazyMemberInfo().scan()) {
+            final ClassInfo lazyClassInfo = lazy.getClassInfo(Annotated.class.getName());
+            final List<String> dependencies = lazyClassInfo.getClassDependencies().getNames();
+            assertThat(dependencies).isEqualTo(
+                    eager.getClassInfo(Annotated.class.getName()).getClassDependencies().getNames());
+            assertThat(describeMembers(lazyClassInfo))
+                    .isEqualTo(describeMembers(eager.getClassInfo(Annotated.class.getName())));
+            assertThat(lazyClassInfo.getClassDependencies().getNames()).isEqualTo(dependencies);
+        }
+    }
+
+    /**
+     * Test that fields and methods are read during the scan if temporary files and zipfiles are closed as soon as
+     * the scan has completed.
+     */
+    @Test
+    public void lazyMemberInfoRemoveTemporaryFilesAfterScan() {
+        final URL jarURL = LazyMemberInfoTest.class.getClassLoader().getResource("issue100-has-field-a.zip");
+        try (ScanResult scanResult = new ClassGraph()
+                .overrideClassLoaders(new URLClassLoader(new URL[] { jarURL })).whitelistPackages("issue100")
+                .enableFieldInfo().enableLazyMemberInfo().removeTemporaryFilesAfterScan().scan()) {
+            assertThat(scanResult.getClassInfo("issue100.Test").getFieldInfo().getNames()).containsExactly("a");
+        }
+    }
+
+    /**
+     * Test that fields and methods cannot be read after the scan result is closed.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void lazyMemberInfoAfterClose() {
+        final ClassInfo classInfo;
+        try (ScanResult lazy = scan(/* lazy = */ true)) {
+            classInfo = lazy.getClassInfo(Plain.class.getName());
+        }
+        classInfo.getDeclaredMethodInfo();
+    }
+}
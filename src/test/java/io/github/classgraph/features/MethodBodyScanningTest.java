@@ -0,0 +1,180 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.MethodInfoList;
+import io.github.classgraph.ScanResult;
+
+/**
+ * MethodBodyScanningTest.
+ */
+public class MethodBodyScanningTest {
+    /**
+     * The Class Callee.
+     */
+    public static class Callee {
+        /** The counter. */
+        public static int counter;
+
+        /** The value. */
+        public int value;
+
+        /**
+         * Target.
+         *
+         * @param x
+         *            the x
+         * @return the int
+         */
+        public int target(final int x) {
+            return x + value;
+        }
+    }
+
+    /**
+     * The Class Caller.
+     */
+    public static class Caller {
+        /**
+         * Calls target.
+         *
+         * @param callee
+         *            the callee
+         * @return the int
+         */
+        public int callsTarget(final Callee callee) {
+            return callee.target(1) + callee.target(2);
+        }
+
+        /**
+         * Reads and writes fields, with switch statements in between.
+         *
+         * @param callee
+         *            the callee
+         * @param i
+         *            the i
+         */
+        public void accessesFields(final Callee callee, final int i) {
+            switch (i) {
+            case 1:
+                Callee.counter++;
+                break;
+            case 2:
+                Callee.counter--;
+                break;
+            case 3:
+                Callee.counter += 2;
+                break;
+            default:
+                break;
+            }
+            switch (i) {
+            case 10:
+            case 1000:
+            case 100000:
+                callee.value = Callee.counter;
+                break;
+            default:
+                break;
+            }
+        }
+
+        /**
+         * Instantiates Callee.
+         *
+         * @return the callee
+         */
+        public Callee instantiates() {
+            return new Callee();
+        }
+    }
+
+    /**
+     * Get the names of the methods in a {@link MethodInfoList}, qualified by the name of the declaring class
+     * relative to this test class.
+     *
+     * @param methodInfoList
+     *            the method info list
+     * @return the qualified method names
+     */
+    private static List<String> names(final MethodInfoList methodInfoList) {
+        final List<String> names = new ArrayList<>();
+        for (final MethodInfo methodInfo : methodInfoList) {
+            names.add(methodInfo.getClassInfo().getName().substring(MethodBodyScanningTest.class.getName().length() + 1)
+                    + "." + methodInfo.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Check the method body index of a {@link ScanResult}.
+     *
+     * @param scanResult
+     *            the scan result
+     */
+    private static void checkIndex(final ScanResult scanResult) {
+        final String callee = Callee.class.getName();
+        assertThat(names(scanResult.getMethodsCalling(callee, "target"))).containsExactly("Caller.callsTarget");
+        assertThat(names(scanResult.getMethodsCalling(callee, "<init>"))).containsExactly("Caller.instantiates");
+        assertThat(names(scanResult.getMethodsReadingField(callee, "counter")))
+                .containsExactly("Caller.accessesFields");
+        assertThat(names(scanResult.getMethodsReadingField(callee, "value"))).containsExactly("Callee.target");
+        assertThat(names(scanResult.getMethodsWritingField(callee, "value")))
+                .containsExactly("Caller.accessesFields");
+        assertThat(names(scanResult.getMethodsInstantiating(callee))).containsExactly("Caller.instantiates");
+        assertThat(names(scanResult.getMethodsCalling(callee, "missing"))).isEmpty();
+    }
+
+    /**
+     * Test call site, field access and instantiation lookups.
+     */
+    @Test
+    public void methodBodyScanning() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(MethodBodyScanningTest.class.getPackage().getName())
+                .enableMethodBodyScanning().scan()) {
+            checkIndex(scanResult);
+        }
+    }
+
+    /**
+     * Test that the method body references survive binary serialization.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void methodBodyScanningBinarySerialization() throws IOException {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(MethodBodyScanningTest.class.getPackage().getName())
+                .enableMethodBodyScanning().scan()) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.toBinary(outputStream);
+            final ScanResult scanResultFromBinary = ScanResult
+                    .fromBinary(ByteBuffer.wrap(outputStream.toByteArray()));
+            checkIndex(scanResultFromBinary);
+        }
+    }
+
+    /**
+     * Test that querying without method body scanning throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void methodBodyScanningNotEnabled() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(MethodBodyScanningTest.class.getPackage().getName())
+                .enableMethodInfo().scan()) {
+            scanResult.getMethodsCalling(Callee.class.getName(), "target");
+        }
+    }
+}
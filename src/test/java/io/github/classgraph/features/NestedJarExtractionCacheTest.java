@@ -0,0 +1,93 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * NestedJarExtractionCacheTest.
+ */
+public class NestedJarExtractionCacheTest {
+    /** The path of a classpath root within two levels of deflated nested jars. */
+    private static final String jarPath = NestedJarExtractionCacheTest.class.getClassLoader()
+            .getResource("nested-jars-level1.zip").getPath() + "!level2.jar!level3.jar!classpath1/classpath2";
+
+    /**
+     * Scan the nested jars using the nested jar extraction cache.
+     *
+     * @param cacheDir
+     *            the cache dir
+     * @return the number of temporary or cache files written during the scan
+     */
+    private static long scan(final File cacheDir) {
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarPath).enableClassInfo()
+                .enableNestedJarExtractionCache(cacheDir).removeTemporaryFilesAfterScan().scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).containsExactly("com.test.Test");
+            return scanResult.getScanMetrics().getNumTempFilesWritten();
+        }
+    }
+
+    /**
+     * Check that nested jars are extracted to the cache by the first scan, and reused by later scans.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void nestedJarExtractionCache() throws IOException {
+        final File cacheDir = Files.createTempDirectory("classgraph-nested-jar-cache").toFile();
+        try {
+            assertThat(scan(cacheDir)).isEqualTo(2L);
+            assertThat(cacheDir.listFiles()).hasSize(2);
+
+            // Cache files are not removed after the scan, and are reused by the next scan
+            assertThat(scan(cacheDir)).isEqualTo(0L);
+            assertThat(cacheDir.listFiles()).hasSize(2);
+
+            // Cache files that do not match their zip entry are extracted again
+            for (final File file : cacheDir.listFiles()) {
+                Files.write(file.toPath(), new byte[(int) file.length()]);
+            }
+            assertThat(scan(cacheDir)).isEqualTo(2L);
+        } finally {
+            for (final File file : cacheDir.listFiles()) {
+                file.delete();
+            }
+            cacheDir.delete();
+        }
+    }
+
+    /**
+     * Check that partial files left behind by a killed scan are removed from the cache directory, but that recent
+     * partial files, which may belong to a concurrent scan, are kept.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void stalePartialFilesRemoved() throws IOException {
+        final File cacheDir = Files.createTempDirectory("classgraph-nested-jar-cache").toFile();
+        try {
+            final File stalePartialFile = File.createTempFile("ClassGraph--", ".partial", cacheDir);
+            assertThat(stalePartialFile.setLastModified(System.currentTimeMillis() - 24L * 60L * 60L * 1000L))
+                    .isTrue();
+            final File recentPartialFile = File.createTempFile("ClassGraph--", ".partial", cacheDir);
+
+            assertThat(scan(cacheDir)).isEqualTo(2L);
+            assertThat(stalePartialFile.exists()).isFalse();
+            assertThat(recentPartialFile.exists()).isTrue();
+        } finally {
+            for (final File file : cacheDir.listFiles()) {
+                file.delete();
+            }
+            cacheDir.delete();
+        }
+    }
+}
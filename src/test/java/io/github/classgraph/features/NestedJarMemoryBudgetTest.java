@@ -0,0 +1,120 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * NestedJarMemoryBudgetTest.
+ */
+public class NestedJarMemoryBudgetTest {
+    /** The prefix of the log entry for a nested jar that was spilled from RAM to disk. */
+    private static final String SPILLED_LOG_PREFIX = "Spilled nested jar from RAM to temporary file: ";
+
+    /** The path of a classpath root within two levels of deflated nested jars, of 668 and 1334 bytes. */
+    private static final String jarPath = NestedJarMemoryBudgetTest.class.getClassLoader()
+            .getResource("nested-jars-level1.zip").getPath() + "!level2.jar!level3.jar!classpath1/classpath2";
+
+    /**
+     * Scan the nested jars, and check that the classfile can still be read after the scan.
+     *
+     * @param classGraph
+     *            the {@link ClassGraph} instance to scan with
+     * @return the number of temporary files written during the scan
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private static long scan(final ClassGraph classGraph) throws IOException {
+        try (ScanResult scanResult = classGraph.overrideClasspath(jarPath).enableClassInfo().scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).containsExactly("com.test.Test");
+            assertThat(scanResult.getResourcesWithPath("com/test/Test.class").get(0).load().length)
+                    .isEqualTo(191);
+            return scanResult.getScanMetrics().getNumTempFilesWritten();
+        }
+    }
+
+    /**
+     * Without a memory budget, small nested jars are inflated to RAM.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void noMemoryBudget() throws IOException {
+        assertThat(scan(new ClassGraph())).isEqualTo(0L);
+    }
+
+    /**
+     * With a zero memory budget, all nested jars are inflated to disk.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void zeroMemoryBudget() throws IOException {
+        assertThat(scan(new ClassGraph().setNestedJarMemoryBudget(0L))).isEqualTo(2L);
+    }
+
+    /**
+     * With a memory budget that only fits one of the nested jars, the outer nested jar is spilled to disk when the
+     * inner one is inflated, and the inner nested jar is spilled to disk once scanning is complete.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void lruSpillToDisk() throws IOException {
+        final List<String> spilledJarNames = new ArrayList<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                for (final String line : record.getMessage().split("\n")) {
+                    final int idx = line.indexOf(SPILLED_LOG_PREFIX);
+                    if (idx >= 0) {
+                        final String path = line.substring(idx + SPILLED_LOG_PREFIX.length(),
+                                line.indexOf(" ;", idx));
+                        spilledJarNames.add(path.substring(path.lastIndexOf('/') + 1));
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        logger.addHandler(handler);
+        try {
+            assertThat(scan(new ClassGraph().setNestedJarMemoryBudget(1400L).verbose())).isEqualTo(2L);
+        } finally {
+            logger.removeHandler(handler);
+        }
+        // The least recently used nested jar is spilled first, to make room for the inner nested jar
+        assertThat(spilledJarNames).containsExactly("level2.jar", "level3.jar");
+    }
+
+    /**
+     * With a large memory budget, nested jars are inflated to RAM, then spilled to disk once scanning is complete.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void releaseAfterScan() throws IOException {
+        assertThat(scan(new ClassGraph().setNestedJarMemoryBudget(1024L * 1024L))).isEqualTo(2L);
+    }
+}
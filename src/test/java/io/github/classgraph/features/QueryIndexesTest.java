@@ -0,0 +1,90 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * QueryIndexesTest.
+ */
+public class QueryIndexesTest {
+    /**
+     * The Interface MetaAnnotation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface MetaAnnotation {
+    }
+
+    /**
+     * The Interface InheritedAnnotation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Inherited
+    @MetaAnnotation
+    public @interface InheritedAnnotation {
+    }
+
+    /**
+     * The Interface I.
+     */
+    public interface I {
+    }
+
+    /**
+     * The Interface J.
+     */
+    public interface J extends I {
+    }
+
+    /**
+     * The Class A.
+     */
+    @InheritedAnnotation
+    public static class A implements J {
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B extends A {
+    }
+
+    /**
+     * The Class C.
+     */
+    public static class C extends B {
+    }
+
+    /**
+     * Check that queries return the same results with and without query indexes.
+     */
+    @Test
+    public void queryIndexes() {
+        final String pkg = QueryIndexesTest.class.getPackage().getName();
+        try (ScanResult scanResult = new ClassGraph().whitelistPackagesNonRecursive(pkg).enableAllInfo().scan();
+                ScanResult indexedScanResult = new ClassGraph().whitelistPackagesNonRecursive(pkg).enableAllInfo()
+                        .enableQueryIndexes().scan()) {
+            assertThat(indexedScanResult.getSubclasses(A.class.getName()).getNames())
+                    .containsExactly(B.class.getName(), C.class.getName());
+            assertThat(indexedScanResult.getClassesImplementing(I.class.getName()).getNames())
+                    .containsExactly(A.class.getName(), B.class.getName(), C.class.getName(), J.class.getName());
+            assertThat(indexedScanResult.getClassesWithAnnotation(InheritedAnnotation.class.getName()).getNames())
+                    .containsExactly(A.class.getName(), B.class.getName(), C.class.getName());
+            assertThat(indexedScanResult.getClassesWithAnnotation(MetaAnnotation.class.getName()).getNames())
+                    .containsExactly(A.class.getName(), InheritedAnnotation.class.getName());
+            for (final String className : scanResult.getAllClasses().getNames()) {
+                assertThat(indexedScanResult.getClassInfo(className).getSubclasses().getNames())
+                        .isEqualTo(scanResult.getClassInfo(className).getSubclasses().getNames());
+                assertThat(indexedScanResult.getClassInfo(className).getSuperclasses().getNames())
+                        .isEqualTo(scanResult.getClassInfo(className).getSuperclasses().getNames());
+            }
+        }
+    }
+}
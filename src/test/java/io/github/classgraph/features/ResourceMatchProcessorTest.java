@@ -0,0 +1,103 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ResourceList.ByteBufferConsumer;
+import io.github.classgraph.ResourceList.ResourceFilter;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ResourceMatchProcessorTest.
+ */
+public class ResourceMatchProcessorTest {
+    /** The Constant jarURL. */
+    private static final URL jarURL = ResourceMatchProcessorTest.class.getClassLoader()
+            .getResource("multi-release-jar.jar");
+
+    /**
+     * Collect the content of the resources passed to a {@link ByteBufferConsumer}.
+     */
+    private static class ContentCollector implements ByteBufferConsumer {
+        /** The map from resource path to content. */
+        final Map<String, String> pathToContent = new ConcurrentHashMap<>();
+
+        /* (non-Javadoc)
+         * @see io.github.classgraph.ResourceList.ByteBufferConsumer#accept(
+         * io.github.classgraph.Resource, java.nio.ByteBuffer)
+         */
+        @Override
+        public void accept(final Resource resource, final ByteBuffer byteBuffer) {
+            final byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(bytes);
+            pathToContent.put(resource.getPath(), new String(bytes));
+        }
+    }
+
+    /**
+     * Process a matching resource in a directory classpath element during the scan.
+     */
+    @Test
+    public void processResourceInDir() {
+        final ContentCollector contentCollector = new ContentCollector();
+        try (ScanResult scanResult = new ClassGraph().whitelistPathsNonRecursive("")
+                .processMatchingResourcesDuringScan(new ResourceFilter() {
+                    @Override
+                    public boolean accept(final Resource resource) {
+                        return resource.getPath().equals("file-content-test.txt");
+                    }
+                }, contentCollector).scan()) {
+            assertThat(contentCollector.pathToContent).containsEntry("file-content-test.txt", "File contents");
+        }
+    }
+
+    /**
+     * Process matching resources in a jarfile during the scan.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void processResourcesInJar() throws IOException {
+        final ContentCollector contentCollector = new ContentCollector();
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarURL)
+                .processMatchingResourcesDuringScan(new ResourceFilter() {
+                    @Override
+                    public boolean accept(final Resource resource) {
+                        return resource.getPath().endsWith(".txt");
+                    }
+                }, contentCollector).scan()) {
+            final String content = new String(scanResult.getResourcesWithPath("resource.txt").get(0).load());
+            assertThat(contentCollector.pathToContent).hasSize(1).containsEntry("resource.txt", content);
+        }
+    }
+
+    /**
+     * Check that classfiles passed to a resource match processor are still parsed afterwards.
+     */
+    @Test
+    public void processClassfiles() {
+        final ContentCollector classfileCollector = new ContentCollector();
+        final String classfilePath = ResourceMatchProcessorTest.class.getName().replace('.', '/') + ".class";
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(ResourceMatchProcessorTest.class.getPackage().getName())
+                .processMatchingResourcesDuringScan(new ResourceFilter() {
+                    @Override
+                    public boolean accept(final Resource resource) {
+                        return resource.getPath().equals(classfilePath);
+                    }
+                }, classfileCollector).scan()) {
+            assertThat(classfileCollector.pathToContent).containsOnlyKeys(classfilePath);
+            assertThat(scanResult.getClassInfo(ResourceMatchProcessorTest.class.getName())).isNotNull();
+        }
+    }
+}
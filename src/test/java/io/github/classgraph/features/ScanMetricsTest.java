@@ -0,0 +1,52 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanMetrics;
+import io.github.classgraph.ScanMetrics.Phase;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ScanMetricsTest.
+ */
+public class ScanMetricsTest {
+    /**
+     * The Class A.
+     */
+    public static class A {
+    }
+
+    /**
+     * Check that scan metrics are recorded for a scan.
+     */
+    @Test
+    public void scanMetrics() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(ScanMetricsTest.class.getPackage().getName()).enableAllInfo()
+                .scan()) {
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            assertThat(scanMetrics).isNotNull();
+            assertThat(scanMetrics.getNumClassfilesParsed()).isGreaterThan(0L);
+            assertThat(scanMetrics.getWallTimeNanos(Phase.CLASSFILE_PARSING)).isGreaterThan(0L);
+            assertThat(scanMetrics.getTotalWallTimeNanos())
+                    .isGreaterThanOrEqualTo(scanMetrics.getWallTimeNanos(Phase.LINKING));
+            assertThat(scanMetrics.getNumSingletonMapMisses()).isGreaterThan(0L);
+            assertThat(scanMetrics.toMap()).containsKey("classfile_parsing.wallTimeNanos");
+        }
+    }
+
+    /**
+     * Check that a deserialized scan result has no scan metrics.
+     */
+    @Test
+    public void noScanMetricsAfterDeserialization() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(ScanMetricsTest.class.getPackage().getName()).enableAllInfo()
+                .scan()) {
+            assertThat(ScanResult.fromJSON(scanResult.toJSON()).getScanMetrics()).isNull();
+        }
+    }
+}
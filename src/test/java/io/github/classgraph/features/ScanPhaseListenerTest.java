@@ -0,0 +1,110 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassGraph.FailureHandler;
+import io.github.classgraph.ClassGraph.ScanPhaseListener;
+import io.github.classgraph.ClassGraph.ScanResultProcessor;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ScanPhaseListenerTest.
+ */
+public class ScanPhaseListenerTest {
+    /**
+     * The Class A.
+     */
+    public static class A {
+    }
+
+    /**
+     * Check that the scan phase listener is called in order, and that the {@link ScanResult} passed to it is the
+     * one that is returned.
+     *
+     * @throws InterruptedException
+     *             if interrupted
+     * @throws ExecutionException
+     *             if the scan failed
+     */
+    @Test
+    public void scanPhaseListener() throws InterruptedException, ExecutionException {
+        final List<String> events = new ArrayList<>();
+        final ScanResult[] hierarchyScanResult = new ScanResult[1];
+        final ScanResult[] linkedScanResult = new ScanResult[1];
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(ScanPhaseListenerTest.class.getPackage().getName())
+                .scanAsync(executorService, 2, new ScanPhaseListener() {
+                    @Override
+                    public void onClasspathResolved(final List<String> classpath) {
+                        events.add("classpath:" + !classpath.isEmpty());
+                    }
+
+                    @Override
+                    public void onClassfilesParsed(final int numClassfilesParsed) {
+                        events.add("parsed:" + (numClassfilesParsed > 0));
+                    }
+
+                    @Override
+                    public void onClassHierarchyLinked(final ScanResult scanResult) {
+                        events.add("hierarchy:" + (scanResult.getClassInfo(A.class.getName()) != null));
+                        hierarchyScanResult[0] = scanResult;
+                    }
+
+                    @Override
+                    public void onScanResultLinked(final ScanResult scanResult) {
+                        events.add("linked:" + (scanResult.getClassInfo(A.class.getName()) != null));
+                        linkedScanResult[0] = scanResult;
+                    }
+                }).get()) {
+            assertThat(events).containsExactly("classpath:true", "parsed:true", "hierarchy:true", "linked:true");
+            assertThat(hierarchyScanResult[0]).isSameAs(scanResult);
+            assertThat(linkedScanResult[0]).isSameAs(scanResult);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Check that an asynchronous scan with a {@link ScanResultProcessor} runs to completion.
+     *
+     * @throws InterruptedException
+     *             if interrupted
+     */
+    @Test
+    public void scanResultProcessor() throws InterruptedException {
+        final BlockingQueue<Object> result = new ArrayBlockingQueue<>(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            new ClassGraph().whitelistPackagesNonRecursive(ScanPhaseListenerTest.class.getPackage().getName())
+                    .scanAsync(executorService, 2, new ScanResultProcessor() {
+                        @Override
+                        public void processScanResult(final ScanResult scanResult) {
+                            try (ScanResult s = scanResult) {
+                                result.add(s.getClassInfo(A.class.getName()).getName());
+                            }
+                        }
+                    }, new FailureHandler() {
+                        @Override
+                        public void onFailure(final Throwable throwable) {
+                            result.add(throwable);
+                        }
+                    });
+            assertThat(result.poll(60, TimeUnit.SECONDS)).isEqualTo(A.class.getName());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
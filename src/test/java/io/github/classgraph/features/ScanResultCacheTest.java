@@ -0,0 +1,137 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ScanResultCacheTest.
+ */
+public class ScanResultCacheTest {
+    /**
+     * The Class A.
+     */
+    @Deprecated
+    public static class A {
+        /**
+         * Method.
+         */
+        public void method() {
+        }
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B extends A {
+    }
+
+    /**
+     * Delete a file or directory, and the contents of a directory.
+     *
+     * @param file
+     *            the file or directory
+     */
+    private static void deleteRecursively(final File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File child : files) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Scan twice with the scan result cache enabled, and check that the second scan produces the same class graph.
+     *
+     * @throws IOException
+     *             if the temporary directory could not be created
+     */
+    @Test
+    public void scanResultCache() throws IOException {
+        final File cacheDir = Files.createTempDirectory("classgraph-cache").toFile();
+        try {
+            String json1;
+            try (ScanResult scanResult1 = new ClassGraph()
+                    .whitelistPackages(ScanResultCacheTest.class.getPackage().getName()).enableAllInfo()
+                    .enableScanResultCache(cacheDir).scan()) {
+                json1 = scanResult1.toJSON();
+            }
+            assertThat(cacheDir.listFiles()).hasSize(1);
+            try (ScanResult scanResult2 = new ClassGraph()
+                    .whitelistPackages(ScanResultCacheTest.class.getPackage().getName()).enableAllInfo()
+                    .enableScanResultCache(cacheDir).scan()) {
+                assertThat(scanResult2.getScanMetrics().getNumClassfilesParsed()).isEqualTo(0L);
+                assertThat(scanResult2.toJSON()).isEqualTo(json1);
+                assertThat(scanResult2.getSubclasses(A.class.getName()).getNames())
+                        .containsOnly(B.class.getName());
+                final ClassInfo classInfo = scanResult2.getClassInfo(A.class.getName());
+                assertThat(classInfo.hasAnnotation(Deprecated.class.getName())).isTrue();
+                assertThat(classInfo.getMethodInfo("method")).hasSize(1);
+                assertThat(classInfo.getResource()).isNotNull();
+                assertThat(classInfo.loadClass()).isEqualTo(A.class);
+            }
+        } finally {
+            for (final File file : cacheDir.listFiles()) {
+                file.delete();
+            }
+            cacheDir.delete();
+        }
+    }
+
+    /**
+     * Check that the scan result cache is not used after a classfile is modified.
+     *
+     * @throws IOException
+     *             if the temporary directories could not be created
+     */
+    @Test
+    public void scanResultCacheInvalidation() throws IOException {
+        final File cacheDir = Files.createTempDirectory("classgraph-cache").toFile();
+        final File classpathDir = Files.createTempDirectory("classgraph-classpath").toFile();
+        final File packageDir = new File(classpathDir,
+                ScanResultCacheTest.class.getPackage().getName().replace('.', '/'));
+        try {
+            packageDir.mkdirs();
+            for (final Class<?> cls : new Class<?>[] { A.class, B.class }) {
+                final String classfileName = cls.getName().substring(cls.getName().lastIndexOf('.') + 1)
+                        + ".class";
+                final File classfile = new File(packageDir, classfileName);
+                try (InputStream inputStream = cls.getResourceAsStream(classfileName)) {
+                    Files.copy(inputStream, classfile.toPath());
+                }
+                classfile.setLastModified(1000000000000L);
+            }
+            final ClassGraph classGraph = new ClassGraph().overrideClasspath(classpathDir)
+                    .whitelistPackages(ScanResultCacheTest.class.getPackage().getName()).enableAllInfo()
+                    .enableScanResultCache(cacheDir);
+            try (ScanResult scanResult = classGraph.scan()) {
+                assertThat(scanResult.getScanMetrics().getNumClassfilesParsed()).isEqualTo(2L);
+            }
+            try (ScanResult scanResult = classGraph.scan()) {
+                assertThat(scanResult.getScanMetrics().getNumClassfilesParsed()).isEqualTo(0L);
+            }
+
+            // Modify the timestamp of one classfile, so that the cached class graph is out of date
+            new File(packageDir, "ScanResultCacheTest$B.class").setLastModified(1000000010000L);
+            try (ScanResult scanResult = classGraph.scan()) {
+                assertThat(scanResult.getScanMetrics().getNumClassfilesParsed()).isEqualTo(2L);
+                assertThat(scanResult.getSubclasses(A.class.getName()).getNames())
+                        .containsOnly(B.class.getName());
+            }
+        } finally {
+            deleteRecursively(classpathDir);
+            deleteRecursively(cacheDir);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import nonapi.io.github.classgraph.exceptions.ParseException;
+import nonapi.io.github.classgraph.types.SignatureCursor;
+
+/**
+ * SignatureCursorTest.
+ */
+public class SignatureCursorTest {
+    /**
+     * The Class Element.
+     */
+    public static class Element {
+    }
+
+    /**
+     * The Class Container.
+     *
+     * @param <T>
+     *            the generic type
+     */
+    public static class Container<T> {
+        /**
+         * The Class Nested.
+         */
+        public class Nested {
+        }
+    }
+
+    /**
+     * The Class Holder.
+     *
+     * @param <E>
+     *            the element type
+     */
+    public static class Holder<E extends Element> {
+        /** The map. */
+        public Map<String, List<E>> map;
+
+        /**
+         * Get the elements.
+         *
+         * @param nested
+         *            the nested
+         * @return the elements
+         */
+        public Element[][] getElements(final Container<String>.Nested nested) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the names of the classes referenced by a signature.
+     *
+     * @param signature
+     *            the signature
+     * @return the class names, sorted
+     * @throws ParseException
+     *             if the signature could not be parsed
+     */
+    private static List<String> classNames(final String signature) throws ParseException {
+        final TreeSet<String> classNames = new TreeSet<>();
+        new SignatureCursor().findReferencedClassNames(signature, classNames);
+        return new ArrayList<>(classNames);
+    }
+
+    /**
+     * Test the index ranges of the class names in a method signature.
+     *
+     * @throws ParseException
+     *             if the signature could not be parsed
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void classNameIndexRanges() throws ParseException, IOException {
+        final String signature = "<T:Ljava/lang/Object;>(Ljava/util/Map<Ljava/lang/String;"
+                + "+Lcom/xyz/Outer<TT;>.Inner;>;[[I)TT;^Ljava/io/IOException;";
+        final SignatureCursor cursor = new SignatureCursor().reset(signature);
+        final List<String> baseNames = new ArrayList<>();
+        for (int i = 0; i < cursor.getNumClassRefs(); i++) {
+            baseNames.add(signature.substring(cursor.getClassNameStart(i), cursor.getClassNameEnd(i)));
+        }
+        assertThat(baseNames).containsExactly("java/lang/Object", "java/util/Map", "java/lang/String",
+                "com/xyz/Outer", "java/io/IOException");
+        assertThat(cursor.getNumSuffixes(3)).isEqualTo(1);
+        assertThat(signature.substring(cursor.getSuffixStart(3, 0), cursor.getSuffixEnd(3, 0)))
+                .isEqualTo("Inner");
+        assertThat(cursor.getSubstring(cursor.getClassNameStart(1), cursor.getClassNameEnd(1),
+                /* replaceSlashWithDot = */ true, /* stringInternTable = */ null)).isEqualTo("java.util.Map");
+
+        // The cursor can be reused for another signature
+        cursor.reset("[[Ljava/lang/String;");
+        assertThat(cursor.getNumClassRefs()).isEqualTo(1);
+        assertThat(cursor.getNumSuffixes(0)).isEqualTo(0);
+    }
+
+    /**
+     * Test the names of the classes referenced by descriptors and signatures.
+     *
+     * @throws ParseException
+     *             if the signature could not be parsed
+     */
+    @Test
+    public void referencedClassNames() throws ParseException {
+        assertThat(classNames("I")).isEmpty();
+        assertThat(classNames("TT;")).isEmpty();
+        assertThat(classNames("[[Ljava/lang/String;")).containsExactly("java.lang.String");
+        assertThat(classNames("(ILjava/util/List<*>;)V")).containsExactly("java.util.List");
+        assertThat(classNames("Lcom/xyz/Outer<Ljava/lang/Integer;>.Middle<-TT;>.Inner;"))
+                .containsExactly("com.xyz.Outer", "com.xyz.Outer$Middle$Inner", "java.lang.Integer");
+        assertThat(classNames("<K::Ljava/lang/Comparable<TK;>;V:Ljava/lang/Object;>Ljava/util/AbstractMap<TK;TV;>;"
+                + "Ljava/io/Serializable;")).containsExactly("java.io.Serializable", "java.lang.Comparable",
+                        "java.lang.Object", "java.util.AbstractMap");
+    }
+
+    /**
+     * Test that malformed signatures are rejected.
+     *
+     * @throws ParseException
+     *             if the signature could not be parsed
+     */
+    @Test(expected = ParseException.class)
+    public void malformedSignature() throws ParseException {
+        new SignatureCursor().reset("Ljava/util/List<Ljava/lang/String;");
+    }
+
+    /**
+     * Test class dependencies found by walking type signatures in the constant pool and in fields and methods.
+     */
+    @Test
+    public void classDependencies() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistClasses(Element.class.getName(), Container.class.getName(),
+                        Container.Nested.class.getName(), Holder.class.getName())
+                .enableAllInfo().enableInterClassDependencies().scan()) {
+            assertThat(scanResult.getClassInfo(Holder.class.getName()).getClassDependencies().getNames())
+                    .contains(Element.class.getName(), Container.class.getName(),
+                            Container.Nested.class.getName());
+        }
+    }
+}
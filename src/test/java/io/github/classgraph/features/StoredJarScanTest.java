@@ -0,0 +1,102 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import nonapi.io.github.classgraph.utils.FileUtils;
+
+/**
+ * StoredJarScanTest.
+ */
+public class StoredJarScanTest {
+    /**
+     * The Class A.
+     */
+    @Deprecated
+    public static class A {
+        /** The constant. */
+        public static final String CONSTANT = "constanté中";
+
+        /**
+         * Method.
+         *
+         * @param x
+         *            the x
+         * @return the long
+         */
+        public long method(final int x) {
+            return x;
+        }
+    }
+
+    /**
+     * Write the classfile of a class to a jar as a STORED (uncompressed) entry.
+     *
+     * @param cls
+     *            the class
+     * @param zipOutputStream
+     *            the zip output stream
+     * @throws IOException
+     *             if the classfile could not be read or written
+     */
+    private static void writeStoredEntry(final Class<?> cls, final ZipOutputStream zipOutputStream)
+            throws IOException {
+        final String classfilePath = cls.getName().replace('.', '/') + ".class";
+        byte[] bytes;
+        try (InputStream inputStream = cls.getClassLoader().getResourceAsStream(classfilePath)) {
+            bytes = FileUtils.readAllBytesAsArray(inputStream, -1L);
+        }
+        final ZipEntry zipEntry = new ZipEntry(classfilePath);
+        zipEntry.setMethod(ZipEntry.STORED);
+        zipEntry.setSize(bytes.length);
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        zipEntry.setCrc(crc.getValue());
+        zipOutputStream.putNextEntry(zipEntry);
+        zipOutputStream.write(bytes);
+        zipOutputStream.closeEntry();
+    }
+
+    /**
+     * Scan a jar with STORED entries, which are read in place from the mmap'd jarfile.
+     *
+     * @throws IOException
+     *             if the jar could not be written
+     */
+    @Test
+    public void storedJarScan() throws IOException {
+        final File jarFile = File.createTempFile("classgraph-stored-", ".jar");
+        try {
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(jarFile))) {
+                writeStoredEntry(A.class, zipOutputStream);
+                writeStoredEntry(StoredJarScanTest.class, zipOutputStream);
+            }
+            try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile).enableAllInfo()
+                    .enableStaticFinalFieldConstantInitializerValues().scan()) {
+                final ClassInfo classInfo = scanResult.getClassInfo(A.class.getName());
+                assertThat(classInfo).isNotNull();
+                assertThat(classInfo.hasAnnotation(Deprecated.class.getName())).isTrue();
+                assertThat(classInfo.getFieldInfo("CONSTANT").getConstantInitializerValue())
+                        .isEqualTo(A.CONSTANT);
+                assertThat(classInfo.getMethodInfo("method").get(0).getTypeDescriptor().toString())
+                        .isEqualTo("long (int)");
+                assertThat(scanResult.getClassInfo(StoredJarScanTest.class.getName()).getInnerClasses().getNames())
+                        .containsOnly(A.class.getName());
+            }
+        } finally {
+            jarFile.delete();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * StringInternTest.
+ */
+public class StringInternTest {
+    /**
+     * The Class A.
+     */
+    public static class A {
+        /**
+         * Method.
+         */
+        public void method() {
+        }
+    }
+
+    /**
+     * The Class B.
+     */
+    public static class B {
+        /**
+         * Method.
+         */
+        public void method() {
+        }
+    }
+
+    /**
+     * Check that identical constant pool strings in different classfiles are decoded to the same String instance.
+     */
+    @Test
+    public void stringsAreInterned() {
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(StringInternTest.class.getPackage().getName()).enableMethodInfo()
+                .scan()) {
+            final String methodNameA = scanResult.getClassInfo(A.class.getName()).getMethodInfo("method").get(0)
+                    .getName();
+            final String methodNameB = scanResult.getClassInfo(B.class.getName()).getMethodInfo("method").get(0)
+                    .getName();
+            assertThat(methodNameA).isEqualTo("method");
+            assertThat(methodNameA).isSameAs(methodNameB);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import nonapi.io.github.classgraph.concurrency.VirtualThreads;
+
+/**
+ * VirtualThreadsTest.
+ */
+public class VirtualThreadsTest {
+    /**
+     * The Class A.
+     */
+    public static class A {
+    }
+
+    /**
+     * Check that opening classpath elements on virtual threads (or on platform threads, if virtual threads are not
+     * available) finds the same classes and resources as a normal scan.
+     */
+    @Test
+    public void virtualThreads() {
+        final String pkg = VirtualThreadsTest.class.getPackage().getName();
+        try (ScanResult scanResult = new ClassGraph().whitelistPackages(pkg).enableAllInfo().scan();
+                ScanResult virtualThreadScanResult = new ClassGraph().whitelistPackages(pkg).enableAllInfo()
+                        .enableVirtualThreads().scan()) {
+            assertThat(virtualThreadScanResult.getClassInfo(A.class.getName())).isNotNull();
+            assertThat(virtualThreadScanResult.getAllClasses().getNames())
+                    .isEqualTo(scanResult.getAllClasses().getNames());
+            assertThat(virtualThreadScanResult.getAllResources().getPaths())
+                    .isEqualTo(scanResult.getAllResources().getPaths());
+        }
+    }
+
+    /**
+     * Check that on JDK 21+, classpath elements are actually opened on virtual threads, and that the scan
+     * succeeds.
+     */
+    @Test
+    public void virtualThreadsUsedWhenAvailable() {
+        if (!VirtualThreads.isAvailable()) {
+            // Virtual threads are only available on JDK 21+
+            return;
+        }
+        final List<String> logMessages = new ArrayList<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                logMessages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        logger.addHandler(handler);
+        try (ScanResult scanResult = new ClassGraph().whitelistPackages(VirtualThreadsTest.class.getPackage().getName())
+                .enableVirtualThreads().verbose().scan()) {
+            assertThat(scanResult.getClassInfo(A.class.getName())).isNotNull();
+        } finally {
+            logger.removeHandler(handler);
+        }
+        assertThat(logMessages.toString()).contains("Opening classpath elements on virtual threads");
+    }
+}
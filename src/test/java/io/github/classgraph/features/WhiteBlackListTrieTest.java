@@ -0,0 +1,75 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import nonapi.io.github.classgraph.WhiteBlackList.WhiteBlackListPrefix;
+import nonapi.io.github.classgraph.WhiteBlackList.WhiteBlackListWholeString;
+
+/**
+ * WhiteBlackListTrieTest.
+ */
+public class WhiteBlackListTrieTest {
+    /**
+     * Test prefix matching with many overlapping whitelisted and blacklisted prefixes.
+     */
+    @Test
+    public void prefixes() {
+        final WhiteBlackListPrefix whiteBlackList = new WhiteBlackListPrefix();
+        for (int i = 0; i < 500; i++) {
+            whiteBlackList.addToWhitelist("com/xyz" + i + "/");
+        }
+        whiteBlackList.addToBlacklist("com/xyz42/internal/");
+        whiteBlackList.sortPrefixes();
+
+        assertThat(whiteBlackList.isWhitelistedAndNotBlacklisted("com/xyz42/api/X.class")).isTrue();
+        assertThat(whiteBlackList.isWhitelistedAndNotBlacklisted("com/xyz42/internal/X.class")).isFalse();
+        assertThat(whiteBlackList.isBlacklisted("com/xyz42/internal/X.class")).isTrue();
+        assertThat(whiteBlackList.isWhitelisted("com/xyz500/X.class")).isFalse();
+        assertThat(whiteBlackList.isWhitelisted("com/xyz499/X.class")).isTrue();
+        assertThat(whiteBlackList.isWhitelisted("com/xyz")).isFalse();
+    }
+
+    /**
+     * Test whole-string and glob matching.
+     */
+    @Test
+    public void wholeStringsAndGlobs() {
+        final WhiteBlackListWholeString whiteBlackList = new WhiteBlackListWholeString();
+        whiteBlackList.addToWhitelist("com.xyz.A");
+        whiteBlackList.addToWhitelist("com.xyz.*Impl");
+        whiteBlackList.addToWhitelist("org.abc.*");
+        whiteBlackList.addToBlacklist("org.abc.*Test*");
+        whiteBlackList.addToBlacklist("com.xyz.Outer$*");
+        whiteBlackList.sortPrefixes();
+
+        assertThat(whiteBlackList.isWhitelisted("com.xyz.A")).isTrue();
+        assertThat(whiteBlackList.isWhitelisted("com.xyz.AB")).isFalse();
+        assertThat(whiteBlackList.isWhitelisted("com.xyz.FooImpl")).isTrue();
+        assertThat(whiteBlackList.isWhitelisted("com.xyz.FooImplX")).isFalse();
+        assertThat(whiteBlackList.isWhitelistedAndNotBlacklisted("org.abc.Foo")).isTrue();
+        assertThat(whiteBlackList.isWhitelistedAndNotBlacklisted("org.abc.FooTestBar")).isFalse();
+        // '$' is a regexp metacharacter, so this glob keeps its regexp semantics, and never matches
+        assertThat(whiteBlackList.isBlacklisted("com.xyz.Outer$Inner")).isFalse();
+
+        assertThat(whiteBlackList.whitelistHasPrefix("com.xy")).isTrue();
+        assertThat(whiteBlackList.whitelistHasPrefix("com.xyz.A")).isTrue();
+        assertThat(whiteBlackList.whitelistHasPrefix("com.xyz.B")).isFalse();
+    }
+
+    /**
+     * Test that criteria added after the trie has been compiled are taken into account.
+     */
+    @Test
+    public void addAfterCompile() {
+        final WhiteBlackListWholeString whiteBlackList = new WhiteBlackListWholeString();
+        whiteBlackList.addToWhitelist("a/b/");
+        whiteBlackList.sortPrefixes();
+        assertThat(whiteBlackList.isWhitelisted("c/d/")).isFalse();
+        whiteBlackList.addToWhitelist("c/d/");
+        assertThat(whiteBlackList.isWhitelisted("c/d/")).isTrue();
+        whiteBlackList.addToBlacklist("c/*");
+        assertThat(whiteBlackList.isWhitelistedAndNotBlacklisted("c/d/")).isFalse();
+    }
+}
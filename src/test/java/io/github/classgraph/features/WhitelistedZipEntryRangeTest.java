@@ -0,0 +1,124 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.external.ExternalSuperclass;
+import io.github.classgraph.test.whitelisted.Cls;
+import nonapi.io.github.classgraph.utils.FileUtils;
+
+/**
+ * WhitelistedZipEntryRangeTest.
+ */
+public class WhitelistedZipEntryRangeTest {
+    /**
+     * The Class A.
+     */
+    public static class A extends ExternalSuperclass {
+    }
+
+    /**
+     * Write the classfile of a class to a jar.
+     *
+     * @param cls
+     *            the class
+     * @param pathPrefix
+     *            the prefix to add to the classfile path
+     * @param zipOutputStream
+     *            the zip output stream
+     * @throws IOException
+     *             if the classfile could not be read or written
+     */
+    private static void writeClassfile(final Class<?> cls, final String pathPrefix,
+            final ZipOutputStream zipOutputStream) throws IOException {
+        final String classfilePath = cls.getName().replace('.', '/') + ".class";
+        try (InputStream inputStream = cls.getClassLoader().getResourceAsStream(classfilePath)) {
+            zipOutputStream.putNextEntry(new ZipEntry(pathPrefix + classfilePath));
+            zipOutputStream.write(FileUtils.readAllBytesAsArray(inputStream, -1L));
+            zipOutputStream.closeEntry();
+        }
+    }
+
+    /**
+     * Create a jar containing classfiles in whitelisted and non-whitelisted packages, and many non-whitelisted
+     * resources.
+     *
+     * @param pathPrefix
+     *            the prefix to add to each entry path
+     * @return the jarfile
+     * @throws IOException
+     *             if the jar could not be written
+     */
+    private static File createJar(final String pathPrefix) throws IOException {
+        final File jarFile = File.createTempFile("classgraph-ranges-", ".jar");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(jarFile))) {
+            for (int i = 0; i < 1000; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry(pathPrefix + "com/xyz" + (i % 10) + "/res" + i + ".txt"));
+                zipOutputStream.closeEntry();
+            }
+            writeClassfile(A.class, pathPrefix, zipOutputStream);
+            writeClassfile(ExternalSuperclass.class, pathPrefix, zipOutputStream);
+            writeClassfile(Cls.class, pathPrefix, zipOutputStream);
+        }
+        return jarFile;
+    }
+
+    /**
+     * Scan a jar with a package whitelist, and check that only whitelisted entries are returned, but that
+     * superclasses in non-whitelisted packages are still found.
+     *
+     * @param pathPrefix
+     *            the prefix to add to each entry path
+     * @throws IOException
+     *             if the jar could not be written
+     */
+    private static void scanWithWhitelist(final String pathPrefix) throws IOException {
+        final File jarFile = createJar(pathPrefix);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile)
+                .whitelistPackages(WhitelistedZipEntryRangeTest.class.getPackage().getName()).enableAllInfo()
+                .enableExternalClasses().scan()) {
+            assertThat(scanResult.getAllResources().getPaths())
+                    .containsOnly(A.class.getName().replace('.', '/') + ".class");
+            final ClassInfo superclassInfo = scanResult.getClassInfo(A.class.getName()).getSuperclass();
+            assertThat(superclassInfo.getName()).isEqualTo(ExternalSuperclass.class.getName());
+            // The superclass was scanned, not just referenced
+            assertThat(superclassInfo.getResource()).isNotNull();
+            assertThat(scanResult.getClassInfo(Cls.class.getName())).isNull();
+        } finally {
+            jarFile.delete();
+        }
+    }
+
+    /**
+     * Test scanning a jar with a package whitelist.
+     *
+     * @throws IOException
+     *             if the jar could not be written
+     */
+    @Test
+    public void whitelistedRanges() throws IOException {
+        scanWithWhitelist("");
+    }
+
+    /**
+     * Test scanning a jar with a package whitelist, where classfiles are within an automatic package root.
+     *
+     * @throws IOException
+     *             if the jar could not be written
+     */
+    @Test
+    public void whitelistedRangesWithinPackageRoot() throws IOException {
+        scanWithWhitelist("BOOT-INF/classes/");
+    }
+}
@@ -2,6 +2,10 @@ package io.github.classgraph.json;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -282,4 +286,30 @@ public class JSONSerializationTest {
             assertThat(scanResultReserializedJSON).isEqualTo(scanResultJSON);
         }
     }
+
+    /**
+     * Test that streaming serialization produces the same JSON as serialization to a string.
+     *
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void testStreamingSerialization() throws IOException {
+        final H h = new H();
+        h.g = new G();
+        final StringWriter writer = new StringWriter();
+        JSONSerializer.serializeObject(h, 2, false, writer);
+        assertThat(writer.toString()).isEqualTo(JSONSerializer.serializeObject(h, 2, false));
+
+        try (ScanResult scanResult = new ClassGraph()
+                .whitelistPackagesNonRecursive(JSONSerializationTest.class.getPackage().getName())
+                .ignoreClassVisibility().enableAllInfo().scan()) {
+            for (final int indent : new int[] { 0, 2 }) {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                scanResult.toJSON(outputStream, indent);
+                assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8))
+                        .isEqualTo(scanResult.toJSON(indent));
+            }
+        }
+    }
 }
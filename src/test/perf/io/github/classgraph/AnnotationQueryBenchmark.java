@@ -0,0 +1,112 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark of annotation queries on a built {@link ScanResult}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnnotationQueryBenchmark {
+    /** The number of classes. */
+    @Param({ "1000", "20000" })
+    public int numClasses;
+
+    /** The directory containing the synthetic classpath. */
+    private File dir;
+
+    /** The scan result. */
+    private ScanResult scanResult;
+
+    /**
+     * Setup.
+     *
+     * @throws IOException
+     *             if the synthetic classpath could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        dir = SyntheticClasspath.createTempDir();
+        scanResult = new ClassGraph()
+                .overrideClasspath(SyntheticClasspath.create(SyntheticClasspath.Layout.JAR, numClasses, dir))
+                .enableAnnotationInfo().scan();
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() {
+        scanResult.close();
+        SyntheticClasspath.deleteRecursively(dir);
+    }
+
+    /**
+     * Get the classes with the marker annotation.
+     *
+     * @return the classes
+     */
+    @Benchmark
+    public ClassInfoList getClassesWithAnnotation() {
+        return scanResult.getClassesWithAnnotation(SyntheticClasspath.MARKER_ANNOTATION_NAME);
+    }
+
+    /**
+     * Get the annotation parameter value of every annotated class.
+     *
+     * @return the number of annotation parameter values found
+     */
+    @Benchmark
+    public int getAnnotationParameterValues() {
+        int numFound = 0;
+        for (final ClassInfo classInfo : scanResult
+                .getClassesWithAnnotation(SyntheticClasspath.MARKER_ANNOTATION_NAME)) {
+            if (classInfo.getAnnotationInfo(SyntheticClasspath.MARKER_ANNOTATION_NAME).getParameterValues()
+                    .getValue("value") != null) {
+                numFound++;
+            }
+        }
+        return numFound;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import nonapi.io.github.classgraph.ScanSpec;
+import nonapi.io.github.classgraph.utils.StringInternTable;
+
+/**
+ * Benchmark of {@link Classfile} parsing throughput, reported in classes per second. Classfiles are read from a
+ * synthetic directory classpath, bypassing classpath scanning and linking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ClassfileBenchmark {
+    /** The number of classes parsed per benchmark invocation. */
+    private static final int NUM_CLASSES = 5000;
+
+    /** The directory containing the synthetic classpath. */
+    private File dir;
+
+    /** The classpath element. */
+    private ClasspathElementDir classpathElement;
+
+    /** The classpath order. */
+    private List<ClasspathElement> classpathOrder;
+
+    /** The resources for the classfiles. */
+    private Resource[] classfileResources;
+
+    /** The scan spec. */
+    private ScanSpec scanSpec;
+
+    /**
+     * Setup.
+     *
+     * @throws IOException
+     *             if the synthetic classpath could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        dir = SyntheticClasspath.createTempDir();
+        final List<String> classpath = SyntheticClasspath.create(SyntheticClasspath.Layout.DIR, NUM_CLASSES, dir);
+        scanSpec = new ScanSpec();
+        scanSpec.enableClassInfo = true;
+        scanSpec.enableFieldInfo = true;
+        scanSpec.enableMethodInfo = true;
+        scanSpec.enableAnnotationInfo = true;
+        scanSpec.extendScanningUpwardsToExternalClasses = false;
+        scanSpec.sortPrefixes();
+        classpathElement = new ClasspathElementDir(new File(classpath.get(0)),
+                ClassfileBenchmark.class.getClassLoader(), scanSpec);
+        classpathOrder = Collections.<ClasspathElement> singletonList(classpathElement);
+        classfileResources = new Resource[NUM_CLASSES];
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            classfileResources[i] = classpathElement.getResource(SyntheticClasspath.classfilePath(i));
+        }
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() {
+        SyntheticClasspath.deleteRecursively(dir);
+    }
+
+    /**
+     * Parse all the classfiles.
+     *
+     * @param blackhole
+     *            the blackhole
+     * @throws IOException
+     *             if a classfile could not be read or parsed
+     */
+    @Benchmark
+    @OperationsPerInvocation(NUM_CLASSES)
+    public void parseClassfiles(final Blackhole blackhole) throws IOException {
+        final StringInternTable stringInternTable = new StringInternTable();
+        for (final Resource classfileResource : classfileResources) {
+            blackhole.consume(new Classfile(classpathElement, classpathOrder, new HashSet<String>(),
+                    classfileResource.getPath(), classfileResource, /* isExternalClass = */ false,
+                    /* workQueue = */ null, scanSpec, stringInternTable, /* log = */ null));
+        }
+    }
+}
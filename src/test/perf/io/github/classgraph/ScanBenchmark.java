@@ -0,0 +1,113 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * End-to-end benchmark of {@link ClassGraph#scan()} over synthetic classpaths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScanBenchmark {
+    /** The classpath layout. */
+    @Param({ "DIR", "JAR", "NESTED_JAR" })
+    public SyntheticClasspath.Layout layout;
+
+    /** The number of classes. */
+    @Param({ "1000", "20000" })
+    public int numClasses;
+
+    /** The directory containing the synthetic classpath. */
+    private File dir;
+
+    /** The synthetic classpath. */
+    private List<String> classpath;
+
+    /**
+     * Setup.
+     *
+     * @throws IOException
+     *             if the synthetic classpath could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        dir = SyntheticClasspath.createTempDir();
+        classpath = SyntheticClasspath.create(layout, numClasses, dir);
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() {
+        SyntheticClasspath.deleteRecursively(dir);
+    }
+
+    /**
+     * Scan with only class info enabled.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void scanClassInfo(final Blackhole blackhole) {
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(classpath).enableClassInfo().scan()) {
+            blackhole.consume(scanResult.getAllClasses().size());
+        }
+    }
+
+    /**
+     * Scan with all info enabled.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void scanAllInfo(final Blackhole blackhole) {
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(classpath).enableAllInfo().scan()) {
+            blackhole.consume(scanResult.getAllClasses().size());
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates synthetic classpaths for benchmarks. Classfiles are assembled directly from bytes, so no compiler is
+ * needed, and all output (including zip entry timestamps) is deterministic for a given layout and size.
+ *
+ * <p>
+ * Class {@code i} is named {@code synthetic.p<i / 100>.C<i>}. Every tenth class extends {@link Object}, and each
+ * of the other classes extends the nearest preceding class that extends {@link Object}, so the class graph has
+ * many short superclass chains. Every fourth class is annotated with {@link #MARKER_ANNOTATION_NAME}. Each class
+ * has {@link #FIELDS_PER_CLASS} fields and {@link #METHODS_PER_CLASS} abstract methods.
+ */
+public final class SyntheticClasspath {
+    /** The layout of a synthetic classpath. */
+    public enum Layout {
+        /** All classfiles in one directory tree. */
+        DIR,
+        /** All classfiles in one jar. */
+        JAR,
+        /** Classfiles split across jars that are stored inside an outer jar. */
+        NESTED_JAR
+    }
+
+    /** The name of the annotation placed on every fourth class. */
+    public static final String MARKER_ANNOTATION_NAME = "synthetic.Marker";
+
+    /** The number of fields per class. */
+    public static final int FIELDS_PER_CLASS = 4;
+
+    /** The number of methods per class. */
+    public static final int METHODS_PER_CLASS = 4;
+
+    /** The number of classes per package. */
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    /** The number of classes in each inner jar of a {@link Layout#NESTED_JAR} layout. */
+    private static final int CLASSES_PER_NESTED_JAR = 1000;
+
+    /** The fixed timestamp used for all zip entries. */
+    private static final long ZIP_ENTRY_TIME = 946684800000L;
+
+    /**
+     * Constructor.
+     */
+    private SyntheticClasspath() {
+        // Cannot be constructed
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** Builds a constant pool, deduplicating entries. */
+    private static class ConstantPool {
+        /** The constant pool entries, serialized. */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /** The constant pool entries, serialized. */
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        /** Map from entry key to constant pool index. */
+        private final Map<String, Integer> keyToIdx = new HashMap<>();
+
+        /** The next constant pool index. */
+        private int nextIdx = 1;
+
+        /**
+         * Add a CONSTANT_Utf8 entry.
+         *
+         * @param str
+         *            the string
+         * @return the constant pool index
+         * @throws IOException
+         *             if an I/O exception occurs
+         */
+        int utf8(final String str) throws IOException {
+            final Integer idx = keyToIdx.get("U" + str);
+            if (idx != null) {
+                return idx;
+            }
+            out.writeByte(1);
+            out.writeUTF(str);
+            keyToIdx.put("U" + str, nextIdx);
+            return nextIdx++;
+        }
+
+        /**
+         * Add a CONSTANT_Class entry.
+         *
+         * @param internalName
+         *            the internal class name
+         * @return the constant pool index
+         * @throws IOException
+         *             if an I/O exception occurs
+         */
+        int classRef(final String internalName) throws IOException {
+            final Integer idx = keyToIdx.get("C" + internalName);
+            if (idx != null) {
+                return idx;
+            }
+            final int nameIdx = utf8(internalName);
+            out.writeByte(7);
+            out.writeShort(nameIdx);
+            keyToIdx.put("C" + internalName, nextIdx);
+            return nextIdx++;
+        }
+
+        /**
+         * Write the constant pool.
+         *
+         * @param classfile
+         *            the classfile output
+         * @throws IOException
+         *             if an I/O exception occurs
+         */
+        void writeTo(final DataOutputStream classfile) throws IOException {
+            out.flush();
+            classfile.writeShort(nextIdx);
+            bytes.writeTo(classfile);
+        }
+    }
+
+    /**
+     * Get the internal name of a synthetic class.
+     *
+     * @param classIdx
+     *            the class index
+     * @return the internal name, e.g. {@code "synthetic/p0/C1"}
+     */
+    private static String internalName(final int classIdx) {
+        return "synthetic/p" + (classIdx / CLASSES_PER_PACKAGE) + "/C" + classIdx;
+    }
+
+    /**
+     * Get the name of a synthetic class.
+     *
+     * @param classIdx
+     *            the class index
+     * @return the class name, e.g. {@code "synthetic.p0.C1"}
+     */
+    public static String className(final int classIdx) {
+        return internalName(classIdx).replace('/', '.');
+    }
+
+    /**
+     * Get the classfile path of a synthetic class.
+     *
+     * @param classIdx
+     *            the class index
+     * @return the classfile path, e.g. {@code "synthetic/p0/C1.class"}
+     */
+    public static String classfilePath(final int classIdx) {
+        return internalName(classIdx) + ".class";
+    }
+
+    /**
+     * Assemble the classfile for a synthetic class.
+     *
+     * @param classIdx
+     *            the class index
+     * @return the classfile bytes
+     * @throws IOException
+     *             if an I/O exception occurs
+     */
+    public static byte[] classfileBytes(final int classIdx) throws IOException {
+        final ConstantPool cp = new ConstantPool();
+        final int thisClassIdx = cp.classRef(internalName(classIdx));
+        final int superClassIdx = cp
+                .classRef(classIdx % 10 == 0 ? "java/lang/Object" : internalName(classIdx - classIdx % 10));
+        final int[] fieldNameIdxs = new int[FIELDS_PER_CLASS];
+        for (int i = 0; i < FIELDS_PER_CLASS; i++) {
+            fieldNameIdxs[i] = cp.utf8("field" + i);
+        }
+        final int fieldTypeIdx = cp.utf8("I");
+        final int[] methodNameIdxs = new int[METHODS_PER_CLASS];
+        for (int i = 0; i < METHODS_PER_CLASS; i++) {
+            methodNameIdxs[i] = cp.utf8("method" + i);
+        }
+        final int methodTypeIdx = cp.utf8("(Ljava/lang/String;I)J");
+        final boolean annotated = classIdx % 4 == 0;
+        final int annotationsAttrIdx = annotated ? cp.utf8("RuntimeVisibleAnnotations") : 0;
+        final int annotationTypeIdx = annotated ? cp.utf8("L" + MARKER_ANNOTATION_NAME.replace('.', '/') + ";")
+                : 0;
+        final int annotationParamNameIdx = annotated ? cp.utf8("value") : 0;
+        final int annotationParamValueIdx = annotated ? cp.utf8("value" + classIdx) : 0;
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(/* minor_version = */ 0);
+            out.writeShort(/* major_version = */ 52);
+            cp.writeTo(out);
+            out.writeShort(/* ACC_PUBLIC | ACC_SUPER | ACC_ABSTRACT */ 0x0421);
+            out.writeShort(thisClassIdx);
+            out.writeShort(superClassIdx);
+            out.writeShort(/* interfaces_count = */ 0);
+            out.writeShort(FIELDS_PER_CLASS);
+            for (int i = 0; i < FIELDS_PER_CLASS; i++) {
+                out.writeShort(/* ACC_PUBLIC */ 0x0001);
+                out.writeShort(fieldNameIdxs[i]);
+                out.writeShort(fieldTypeIdx);
+                out.writeShort(/* attributes_count = */ 0);
+            }
+            out.writeShort(METHODS_PER_CLASS);
+            for (int i = 0; i < METHODS_PER_CLASS; i++) {
+                out.writeShort(/* ACC_PUBLIC | ACC_ABSTRACT */ 0x0401);
+                out.writeShort(methodNameIdxs[i]);
+                out.writeShort(methodTypeIdx);
+                out.writeShort(/* attributes_count = */ 0);
+            }
+            if (annotated) {
+                out.writeShort(/* attributes_count = */ 1);
+                out.writeShort(annotationsAttrIdx);
+                out.writeInt(/* attribute_length = */ 2 + 2 + 2 + 2 + 1 + 2);
+                out.writeShort(/* num_annotations = */ 1);
+                out.writeShort(annotationTypeIdx);
+                out.writeShort(/* num_element_value_pairs = */ 1);
+                out.writeShort(annotationParamNameIdx);
+                out.writeByte('s');
+                out.writeShort(annotationParamValueIdx);
+            } else {
+                out.writeShort(/* attributes_count = */ 0);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write a stored (uncompressed) or deflated zip entry with a fixed timestamp.
+     *
+     * @param zipOutputStream
+     *            the zip output stream
+     * @param path
+     *            the entry path
+     * @param bytes
+     *            the entry content
+     * @param stored
+     *            if true, store the entry rather than deflating it
+     * @throws IOException
+     *             if an I/O exception occurs
+     */
+    private static void writeZipEntry(final ZipOutputStream zipOutputStream, final String path,
+            final byte[] bytes, final boolean stored) throws IOException {
+        final ZipEntry zipEntry = new ZipEntry(path);
+        zipEntry.setTime(ZIP_ENTRY_TIME);
+        if (stored) {
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(bytes.length);
+            final CRC32 crc = new CRC32();
+            crc.update(bytes);
+            zipEntry.setCrc(crc.getValue());
+        }
+        zipOutputStream.putNextEntry(zipEntry);
+        zipOutputStream.write(bytes);
+        zipOutputStream.closeEntry();
+    }
+
+    /**
+     * Write a jar containing a range of synthetic classes.
+     *
+     * @param outputStream
+     *            the output stream
+     * @param startClassIdx
+     *            the first class index (inclusive)
+     * @param endClassIdx
+     *            the last class index (exclusive)
+     * @throws IOException
+     *             if an I/O exception occurs
+     */
+    private static void writeClassJar(final OutputStream outputStream, final int startClassIdx,
+            final int endClassIdx) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (int i = startClassIdx; i < endClassIdx; i++) {
+                writeZipEntry(zipOutputStream, classfilePath(i), classfileBytes(i), /* stored = */ false);
+            }
+        }
+    }
+
+    /**
+     * Create a synthetic classpath.
+     *
+     * @param layout
+     *            the layout
+     * @param numClasses
+     *            the number of classes
+     * @param dir
+     *            the directory to create the classpath in
+     * @return the classpath elements, suitable for {@link ClassGraph#overrideClasspath(Iterable)}
+     * @throws IOException
+     *             if an I/O exception occurs
+     */
+    public static List<String> create(final Layout layout, final int numClasses, final File dir)
+            throws IOException {
+        final List<String> classpath = new ArrayList<>();
+        switch (layout) {
+        case DIR:
+            final File classesDir = new File(dir, "classes");
+            for (int i = 0; i < numClasses; i++) {
+                final File classfile = new File(classesDir, classfilePath(i));
+                classfile.getParentFile().mkdirs();
+                Files.write(classfile.toPath(), classfileBytes(i));
+            }
+            classpath.add(classesDir.getPath());
+            break;
+        case JAR:
+            final File jar = new File(dir, "classes.jar");
+            try (OutputStream outputStream = new FileOutputStream(jar)) {
+                writeClassJar(outputStream, 0, numClasses);
+            }
+            classpath.add(jar.getPath());
+            break;
+        case NESTED_JAR:
+            final File outerJar = new File(dir, "outer.jar");
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(outerJar))) {
+                for (int start = 0, jarIdx = 0; start < numClasses; start += CLASSES_PER_NESTED_JAR, jarIdx++) {
+                    final ByteArrayOutputStream innerJarBytes = new ByteArrayOutputStream();
+                    writeClassJar(innerJarBytes, start, Math.min(numClasses, start + CLASSES_PER_NESTED_JAR));
+                    final String innerJarPath = "lib/inner-" + jarIdx + ".jar";
+                    // Nested jars are normally stored, so that they can be read without inflating them
+                    writeZipEntry(zipOutputStream, innerJarPath, innerJarBytes.toByteArray(),
+                            /* stored = */ true);
+                    classpath.add(outerJar.getPath() + "!/" + innerJarPath);
+                }
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+        return classpath;
+    }
+
+    /**
+     * Create a jar containing only small resources, for benchmarking central directory reading.
+     *
+     * @param jar
+     *            the jar to create
+     * @param numEntries
+     *            the number of entries
+     * @throws IOException
+     *             if an I/O exception occurs
+     */
+    public static void createResourceJar(final File jar, final int numEntries) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < numEntries; i++) {
+                writeZipEntry(zipOutputStream, "res/p" + (i / CLASSES_PER_PACKAGE) + "/R" + i + ".txt",
+                        Integer.toString(i).getBytes(StandardCharsets.UTF_8), /* stored = */ true);
+            }
+        }
+    }
+
+    /**
+     * Create a temporary directory.
+     *
+     * @return the temporary directory
+     * @throws IOException
+     *             if an I/O exception occurs
+     */
+    public static File createTempDir() throws IOException {
+        return Files.createTempDirectory("classgraph-benchmark-").toFile();
+    }
+
+    /**
+     * Recursively delete a file or directory.
+     *
+     * @param file
+     *            the file or directory
+     */
+    public static void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
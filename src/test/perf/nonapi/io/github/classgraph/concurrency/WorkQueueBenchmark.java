@@ -0,0 +1,146 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * Compares the work-stealing {@link WorkQueue} against the original single-queue {@link LinkedBlockingWorkQueue}.
+ * Each initial work unit simulates parsing a classfile, and a fraction of work units schedule further work units
+ * from inside the worker, as {@code Classfile} does when it schedules external classes for scanning.
+ */
+@State(Scope.Benchmark)
+public class WorkQueueBenchmark {
+    /** The number of parallel tasks. */
+    @Param({ "1", "4", "16", "64" })
+    public int numParallelTasks;
+
+    /** The number of initial work units. */
+    @Param({ "100000" })
+    public int numWorkUnits;
+
+    /** The amount of CPU work done per work unit, in {@link Blackhole#consumeCPU(long)} tokens. */
+    @Param({ "0", "200" })
+    public long workPerUnit;
+
+    /** One in this many work units schedules an additional work unit from inside the worker. */
+    private static final int CHILD_WORK_UNIT_FREQUENCY = 8;
+
+    /** The executor service. */
+    private ExecutorService executorService;
+
+    /** The initial work units. */
+    private List<Integer> initialWorkUnits;
+
+    /**
+     * Setup.
+     */
+    @Setup
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(numParallelTasks);
+        initialWorkUnits = new ArrayList<>(numWorkUnits);
+        for (int i = 0; i < numWorkUnits; i++) {
+            initialWorkUnits.add(i);
+        }
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Benchmark the work-stealing {@link WorkQueue}.
+     *
+     * @param blackhole
+     *            the blackhole
+     * @throws InterruptedException
+     *             if interrupted
+     * @throws ExecutionException
+     *             if a worker threw an exception
+     */
+    @Benchmark
+    public void workStealingWorkQueue(final Blackhole blackhole) throws InterruptedException, ExecutionException {
+        WorkQueue.runWorkQueue(initialWorkUnits, executorService, new InterruptionChecker(), numParallelTasks,
+                /* log = */ null, new WorkQueue.WorkUnitProcessor<Integer>() {
+                    @Override
+                    public void processWorkUnit(final Integer workUnit, final WorkQueue<Integer> workQueue,
+                            final LogNode log) {
+                        Blackhole.consumeCPU(workPerUnit);
+                        blackhole.consume(workUnit);
+                        if (workUnit >= 0 && workUnit % CHILD_WORK_UNIT_FREQUENCY == 0) {
+                            workQueue.addWorkUnit(-workUnit - 1);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Benchmark the original {@link LinkedBlockingWorkQueue}.
+     *
+     * @param blackhole
+     *            the blackhole
+     * @throws InterruptedException
+     *             if interrupted
+     * @throws ExecutionException
+     *             if a worker threw an exception
+     */
+    @Benchmark
+    public void linkedBlockingWorkQueue(final Blackhole blackhole) throws InterruptedException, ExecutionException {
+        LinkedBlockingWorkQueue.runWorkQueue(initialWorkUnits, executorService, new InterruptionChecker(),
+                numParallelTasks, /* log = */ null, new LinkedBlockingWorkQueue.WorkUnitProcessor<Integer>() {
+                    @Override
+                    public void processWorkUnit(final Integer workUnit,
+                            final LinkedBlockingWorkQueue<Integer> workQueue, final LogNode log) {
+                        Blackhole.consumeCPU(workPerUnit);
+                        blackhole.consume(workUnit);
+                        if (workUnit >= 0 && workUnit % CHILD_WORK_UNIT_FREQUENCY == 0) {
+                            workQueue.addWorkUnit(-workUnit - 1);
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.github.classgraph.SyntheticClasspath;
+import nonapi.io.github.classgraph.ScanSpec;
+import nonapi.io.github.classgraph.utils.ScanMetricsRecorder;
+
+/**
+ * Benchmark of reading the central directory of a jar into a {@link LogicalZipFile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CentralDirectoryBenchmark {
+    /** The number of zip entries. */
+    @Param({ "1000", "150000" })
+    public int numEntries;
+
+    /** The number of parallel tasks. */
+    @Param({ "1", "8" })
+    public int numParallelTasks;
+
+    /** The directory containing the jar. */
+    private File dir;
+
+    /** The executor service. */
+    private ExecutorService executorService;
+
+    /** The nested jar handler. */
+    private NestedJarHandler nestedJarHandler;
+
+    /** The physical zipfile. */
+    private PhysicalZipFile physicalZipFile;
+
+    /**
+     * Setup.
+     *
+     * @throws IOException
+     *             if the jar could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        dir = SyntheticClasspath.createTempDir();
+        final File jar = new File(dir, "resources.jar");
+        SyntheticClasspath.createResourceJar(jar, numEntries);
+        executorService = Executors.newFixedThreadPool(numParallelTasks);
+        nestedJarHandler = new NestedJarHandler(new ScanSpec(), executorService, numParallelTasks,
+                new ScanMetricsRecorder());
+        physicalZipFile = new PhysicalZipFile(jar, nestedJarHandler);
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() {
+        nestedJarHandler.close(/* log = */ null);
+        physicalZipFile.close();
+        executorService.shutdownNow();
+        SyntheticClasspath.deleteRecursively(dir);
+    }
+
+    /**
+     * Read the central directory.
+     *
+     * @return the number of entries read
+     * @throws IOException
+     *             if the central directory could not be read
+     * @throws InterruptedException
+     *             if interrupted
+     */
+    @Benchmark
+    public int readCentralDirectory() throws IOException, InterruptedException {
+        try (LogicalZipFile logicalZipFile = new LogicalZipFile(new ZipFileSlice(physicalZipFile),
+                /* log = */ null)) {
+            return logicalZipFile.entries.size();
+        }
+    }
+}